@@ -74,8 +74,8 @@ public final class FfmpegAudioRenderer extends SimpleDecoderAudioRenderer {
    * @param audioSink The sink to which audio will be output.
    * @param enableFloatOutput Whether to enable 32-bit float audio format, if supported on the
    *     device/build and if the input format may have bit depth higher than 16-bit. When using
-   *     32-bit float output, any audio processing will be disabled, including playback speed/pitch
-   *     adjustment.
+   *     32-bit float output, audio processors that don't support float PCM can't be used, in which
+   *     case playback speed/pitch adjustment will be disabled.
    */
   public FfmpegAudioRenderer(
       @Nullable Handler eventHandler,
@@ -808,6 +808,13 @@ public final class C {
    */
   public static final int MSG_SET_CAMERA_MOTION_LISTENER = 7;
 
+  /**
+   * A type of a message that can be passed to an audio {@link Renderer} via {@link
+   * ExoPlayer#createMessage(Target)}. The message payload should be a {@link Boolean} indicating
+   * whether the renderer's audio output should use large buffers to reduce CPU wakeups.
+   */
+  public static final int MSG_SET_LOW_POWER_MODE_ENABLED = 8;
+
   /**
    * Applications or extensions may define custom {@code MSG_*} constants that can be passed to
    * {@link Renderer}s. These custom constants must be greater than or equal to this value.
@@ -368,6 +368,26 @@ import java.util.concurrent.CopyOnWriteArrayList;
     }
   }
 
+  /**
+   * Sets whether the playback loop may run less often while only audio renderers are enabled.
+   *
+   * @param enabled Whether audio-only low power mode is enabled.
+   * @see SimpleExoPlayer#experimental_setAudioOnlyLowPowerModeEnabled(boolean)
+   */
+  public void experimental_setAudioOnlyLowPowerModeEnabled(boolean enabled) {
+    internalPlayer.experimental_setAudioOnlyLowPowerModeEnabled(enabled);
+  }
+
+  /**
+   * Sets whether the playback loop is scheduled based on when renderers next need to be rendered.
+   *
+   * @param enabled Whether renderer driven scheduling is enabled.
+   * @see SimpleExoPlayer#experimental_setRendererDrivenSchedulingEnabled(boolean)
+   */
+  public void experimental_setRendererDrivenSchedulingEnabled(boolean enabled) {
+    internalPlayer.experimental_setRendererDrivenSchedulingEnabled(enabled);
+  }
+
   @Override
   public void stop(boolean reset) {
     if (reset) {
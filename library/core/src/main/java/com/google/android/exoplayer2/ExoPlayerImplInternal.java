@@ -81,10 +81,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
   private static final int MSG_SEND_MESSAGE = 15;
   private static final int MSG_SEND_MESSAGE_TO_TARGET_THREAD = 16;
   private static final int MSG_PLAYBACK_PARAMETERS_CHANGED_INTERNAL = 17;
+  private static final int MSG_SET_AUDIO_ONLY_LOW_POWER_MODE = 18;
+  private static final int MSG_SET_RENDERER_DRIVEN_SCHEDULING = 19;
 
   private static final int PREPARING_SOURCE_INTERVAL_MS = 10;
   private static final int RENDERING_INTERVAL_MS = 10;
   private static final int IDLE_INTERVAL_MS = 1000;
+  private static final int MAX_RENDERER_DRIVEN_RENDERING_INTERVAL_MS = 100;
+  private static final int MAX_LOW_POWER_RENDERING_INTERVAL_MS = 2000;
 
   private final Renderer[] renderers;
   private final RendererCapabilities[] rendererCapabilities;
@@ -117,6 +121,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
   @Player.RepeatMode private int repeatMode;
   private boolean shuffleModeEnabled;
   private boolean foregroundMode;
+  private boolean audioOnlyLowPowerModeEnabled;
+  private boolean rendererDrivenSchedulingEnabled;
+  private boolean renderingIntervalExtended;
 
   private int pendingPrepareCount;
   private SeekPosition pendingInitialSeekPosition;
@@ -208,6 +215,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
     handler.obtainMessage(MSG_STOP, reset ? 1 : 0, 0).sendToTarget();
   }
 
+  public void experimental_setAudioOnlyLowPowerModeEnabled(boolean enabled) {
+    handler.obtainMessage(MSG_SET_AUDIO_ONLY_LOW_POWER_MODE, enabled ? 1 : 0, 0).sendToTarget();
+  }
+
+  public void experimental_setRendererDrivenSchedulingEnabled(boolean enabled) {
+    handler.obtainMessage(MSG_SET_RENDERER_DRIVEN_SCHEDULING, enabled ? 1 : 0, 0).sendToTarget();
+  }
+
   @Override
   public synchronized void sendMessage(PlayerMessage message) {
     if (released) {
@@ -334,6 +349,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
         case MSG_SET_SEEK_PARAMETERS:
           setSeekParametersInternal((SeekParameters) msg.obj);
           break;
+        case MSG_SET_AUDIO_ONLY_LOW_POWER_MODE:
+          setAudioOnlyLowPowerModeEnabledInternal(/* enabled= */ msg.arg1 != 0);
+          break;
+        case MSG_SET_RENDERER_DRIVEN_SCHEDULING:
+          setRendererDrivenSchedulingEnabledInternal(/* enabled= */ msg.arg1 != 0);
+          break;
         case MSG_SET_FOREGROUND_MODE:
           setForegroundModeInternal(
               /* foregroundMode= */ msg.arg1 != 0, /* processedFlag= */ (AtomicBoolean) msg.obj);
@@ -569,9 +590,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
     boolean renderersEnded = true;
     boolean renderersReadyOrEnded = true;
     for (Renderer renderer : enabledRenderers) {
-      // TODO: Each renderer should return the maximum delay before which it wishes to be called
-      // again. The minimum of these values should then be used as the delay before the next
-      // invocation of this method.
       renderer.render(rendererPositionUs, rendererPositionElapsedRealtimeUs);
       renderersEnded = renderersEnded && renderer.isEnded();
       // Determine whether the renderer is ready (or ended). We override to assume the renderer is
@@ -615,8 +633,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
       }
     }
 
-    if ((playWhenReady && playbackInfo.playbackState == Player.STATE_READY)
-        || playbackInfo.playbackState == Player.STATE_BUFFERING) {
+    renderingIntervalExtended = false;
+    if (playWhenReady && playbackInfo.playbackState == Player.STATE_READY) {
+      long renderingIntervalMs = getRenderingIntervalMs(rendererPositionElapsedRealtimeUs);
+      renderingIntervalExtended = renderingIntervalMs > RENDERING_INTERVAL_MS;
+      scheduleNextWork(operationStartTimeMs, renderingIntervalMs);
+    } else if (playbackInfo.playbackState == Player.STATE_BUFFERING) {
       scheduleNextWork(operationStartTimeMs, RENDERING_INTERVAL_MS);
     } else if (enabledRenderers.length != 0 && playbackInfo.playbackState != Player.STATE_ENDED) {
       scheduleNextWork(operationStartTimeMs, IDLE_INTERVAL_MS);
@@ -627,6 +649,52 @@ import java.util.concurrent.atomic.AtomicBoolean;
     TraceUtil.endSection();
   }
 
+  /**
+   * Returns the interval before the next call to {@link #doSomeWork()} while playing. This is
+   * {@link #RENDERING_INTERVAL_MS} unless renderer driven scheduling is enabled, or audio-only low
+   * power mode is enabled and only audio renderers are enabled, and all enabled renderers can wait
+   * longer before being rendered again.
+   */
+  private long getRenderingIntervalMs(long rendererPositionElapsedRealtimeUs) {
+    if ((!rendererDrivenSchedulingEnabled && !audioOnlyLowPowerModeEnabled)
+        || enabledRenderers.length == 0) {
+      return RENDERING_INTERVAL_MS;
+    }
+    boolean audioOnly = true;
+    long maxRenderDelayUs = Long.MAX_VALUE;
+    for (Renderer renderer : enabledRenderers) {
+      audioOnly &= renderer.getTrackType() == C.TRACK_TYPE_AUDIO;
+      long rendererMaxRenderDelayUs =
+          renderer.getMaxRenderDelayUs(rendererPositionUs, rendererPositionElapsedRealtimeUs);
+      if (rendererMaxRenderDelayUs == C.TIME_UNSET) {
+        return RENDERING_INTERVAL_MS;
+      }
+      maxRenderDelayUs = Math.min(maxRenderDelayUs, rendererMaxRenderDelayUs);
+    }
+    int maxRenderingIntervalMs;
+    if (audioOnly && audioOnlyLowPowerModeEnabled) {
+      maxRenderingIntervalMs = MAX_LOW_POWER_RENDERING_INTERVAL_MS;
+    } else if (rendererDrivenSchedulingEnabled) {
+      maxRenderingIntervalMs = MAX_RENDERER_DRIVEN_RENDERING_INTERVAL_MS;
+    } else {
+      return RENDERING_INTERVAL_MS;
+    }
+    return Util.constrainValue(
+        maxRenderDelayUs / 1000, RENDERING_INTERVAL_MS, maxRenderingIntervalMs);
+  }
+
+  /**
+   * Runs {@link #doSomeWork()} immediately if it's currently scheduled to run after an interval
+   * longer than {@link #RENDERING_INTERVAL_MS}.
+   */
+  private void maybeInterruptRenderingInterval() {
+    if (renderingIntervalExtended) {
+      renderingIntervalExtended = false;
+      handler.removeMessages(MSG_DO_SOME_WORK);
+      handler.sendEmptyMessage(MSG_DO_SOME_WORK);
+    }
+  }
+
   private void scheduleNextWork(long thisOperationStartTimeMs, long intervalMs) {
     handler.removeMessages(MSG_DO_SOME_WORK);
     handler.sendEmptyMessageAtTime(MSG_DO_SOME_WORK, thisOperationStartTimeMs + intervalMs);
@@ -788,6 +856,20 @@ import java.util.concurrent.atomic.AtomicBoolean;
     this.seekParameters = seekParameters;
   }
 
+  private void setAudioOnlyLowPowerModeEnabledInternal(boolean enabled) {
+    audioOnlyLowPowerModeEnabled = enabled;
+    if (!enabled) {
+      maybeInterruptRenderingInterval();
+    }
+  }
+
+  private void setRendererDrivenSchedulingEnabledInternal(boolean enabled) {
+    rendererDrivenSchedulingEnabled = enabled;
+    if (!enabled) {
+      maybeInterruptRenderingInterval();
+    }
+  }
+
   private void setForegroundModeInternal(
       boolean foregroundMode, @Nullable AtomicBoolean processedFlag) {
     if (this.foregroundMode != foregroundMode) {
@@ -843,6 +925,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
       boolean resetPosition,
       boolean resetState) {
     handler.removeMessages(MSG_DO_SOME_WORK);
+    renderingIntervalExtended = false;
     rebuffering = false;
     mediaClock.stop();
     rendererPositionUs = 0;
@@ -1274,6 +1357,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
     }
     playbackInfoUpdate.incrementPendingOperationAcks(pendingPrepareCount);
     pendingPrepareCount = 0;
+    maybeInterruptRenderingInterval();
 
     Timeline oldTimeline = playbackInfo.timeline;
     Timeline timeline = sourceRefreshInfo.timeline;
@@ -1650,6 +1734,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
       updatePlayingPeriodRenderers(/* oldPlayingPeriodHolder= */ null);
     }
     maybeContinueLoading();
+    maybeInterruptRenderingInterval();
   }
 
   private void handleContinueLoadingRequested(MediaPeriod mediaPeriod) {
@@ -1659,6 +1744,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
     }
     queue.reevaluateBuffer(rendererPositionUs);
     maybeContinueLoading();
+    maybeInterruptRenderingInterval();
   }
 
   private void handlePlaybackParameters(PlaybackParameters playbackParameters)
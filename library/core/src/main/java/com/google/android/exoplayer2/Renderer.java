@@ -246,6 +246,26 @@ public interface Renderer extends PlayerMessage.Target {
    */
   void render(long positionUs, long elapsedRealtimeUs) throws ExoPlaybackException;
 
+  /**
+   * Returns the maximum duration for which the player may wait before calling {@link #render(long,
+   * long)} again without the renderer falling behind playback, or {@link C#TIME_UNSET} if the
+   * renderer should be rendered at the player's default interval. For example, an audio renderer
+   * may return a duration based on the amount of audio it has buffered for output, and a video
+   * renderer one based on when its next decoded frame is due to be released.
+   *
+   * <p>This method may be called when the renderer is in the following states: {@link
+   * #STATE_ENABLED}, {@link #STATE_STARTED}.
+   *
+   * @param positionUs The media time in microseconds passed to the most recent call to {@link
+   *     #render(long, long)}.
+   * @param elapsedRealtimeUs {@link android.os.SystemClock#elapsedRealtime()} in microseconds,
+   *     measured at the start of the current iteration of the rendering loop.
+   * @return The maximum render delay in microseconds, or {@link C#TIME_UNSET}.
+   */
+  default long getMaxRenderDelayUs(long positionUs, long elapsedRealtimeUs) {
+    return C.TIME_UNSET;
+  }
+
   /**
    * Whether the renderer is able to immediately render media from the current position.
    * <p>
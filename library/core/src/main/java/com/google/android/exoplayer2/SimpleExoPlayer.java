@@ -568,6 +568,57 @@ public class SimpleExoPlayer extends BasePlayer
     this.priorityTaskManager = priorityTaskManager;
   }
 
+  /**
+   * Sets whether to reduce CPU wakeups during audio-only playback, for example when playing audio
+   * in the background with the screen off.
+   *
+   * <p>When enabled, audio renderers use output buffers holding several seconds of audio, and while
+   * only audio renderers are enabled the playback loop sleeps until they need more data rather
+   * than running every 10 milliseconds. In this state the playback position reported by the player
+   * and the delivery of {@link PlayerMessage}s scheduled at playback positions are only updated
+   * when the loop runs, so may lag by up to a couple of seconds. Changes such as volume and
+   * playback parameters also take longer to be heard. To avoid interrupting playback, a new buffer
+   * size only takes effect when the audio output is next recreated, for example after a seek.
+   *
+   * <p>This method is experimental, and will be renamed or removed in a future release.
+   *
+   * @param enabled Whether audio-only low power mode is enabled.
+   */
+  public void experimental_setAudioOnlyLowPowerModeEnabled(boolean enabled) {
+    verifyApplicationThread();
+    player.experimental_setAudioOnlyLowPowerModeEnabled(enabled);
+    for (Renderer renderer : renderers) {
+      if (renderer.getTrackType() == C.TRACK_TYPE_AUDIO) {
+        player
+            .createMessage(renderer)
+            .setType(C.MSG_SET_LOW_POWER_MODE_ENABLED)
+            .setPayload(enabled)
+            .send();
+      }
+    }
+  }
+
+  /**
+   * Sets whether the playback loop is scheduled based on when the enabled renderers next need to be
+   * rendered, rather than running every 10 milliseconds during playback.
+   *
+   * <p>When enabled, renderers report how long they can wait before being rendered again via {@link
+   * Renderer#getMaxRenderDelayUs(long, long)}. For example, a video renderer waits until its next
+   * frame is due to be released. The loop runs after the shortest of these delays, and at least
+   * every 100 milliseconds. It also runs immediately when media has been loaded. If any enabled
+   * renderer doesn't report a delay, the loop runs every 10 milliseconds as usual. The playback
+   * position reported by the player and the delivery of {@link PlayerMessage}s scheduled at
+   * playback positions are only updated when the loop runs, so may lag accordingly.
+   *
+   * <p>This method is experimental, and will be renamed or removed in a future release.
+   *
+   * @param enabled Whether renderer driven scheduling is enabled.
+   */
+  public void experimental_setRendererDrivenSchedulingEnabled(boolean enabled) {
+    verifyApplicationThread();
+    player.experimental_setRendererDrivenSchedulingEnabled(enabled);
+  }
+
   /**
    * Sets the {@link PlaybackParams} governing audio playback.
    *
@@ -258,6 +258,15 @@ public interface AudioSink {
    */
   boolean hasPendingData();
 
+  /**
+   * Returns the duration of audio that has been written to the output but not yet played out, in
+   * microseconds of playback time, or {@link C#TIME_UNSET} if unknown. The default implementation
+   * returns {@link C#TIME_UNSET}.
+   */
+  default long getBufferedDurationUs() {
+    return C.TIME_UNSET;
+  }
+
   /**
    * Attempts to set the playback parameters and returns the active playback parameters, which may
    * differ from those passed in.
@@ -313,6 +322,18 @@ public interface AudioSink {
    */
   void setVolume(float volume);
 
+  /**
+   * Sets whether the sink should use large output buffers, holding several seconds of audio, so
+   * that it needs to be fed less often. This reduces CPU wakeups during audio-only playback, at the
+   * cost of higher latency for changes such as volume and playback parameters. If the sink is
+   * already playing, the new buffer size is only applied when the sink next needs to create a new
+   * output, for example after a flush, so that playback isn't interrupted. The default
+   * implementation does nothing.
+   *
+   * @param lowPowerModeEnabled Whether to use large output buffers.
+   */
+  default void setLowPowerModeEnabled(boolean lowPowerModeEnabled) {}
+
   /**
    * Pauses playback.
    */
@@ -335,6 +335,16 @@ import java.lang.reflect.Method;
         || forceHasPendingData();
   }
 
+  /**
+   * Returns the duration of audio that has been written to the track but not yet played, in
+   * microseconds.
+   *
+   * @param writtenFrames The number of PCM frames that have been written to the track.
+   */
+  public long getPendingDurationUs(long writtenFrames) {
+    return framesToDurationUs(Math.max(0, writtenFrames - getPlaybackHeadPosition()));
+  }
+
   /**
    * Pauses the audio track position tracker, returning whether the audio track needs to be paused
    * to cause playback to pause. If {@code false} is returned the audio track will pause without
@@ -133,6 +133,16 @@ public abstract class BaseAudioProcessor implements AudioProcessor {
     return buffer;
   }
 
+  /**
+   * Sets {@code buffer} as the current output buffer, to be read via {@link #getOutput()}. This
+   * allows a processor to output data without copying it, for example a view of its input. The
+   * buffer must be a direct byte buffer with native byte order, and its contents must remain valid
+   * until it has been read.
+   */
+  protected final void setOutputBuffer(ByteBuffer buffer) {
+    outputBuffer = buffer;
+  }
+
   /** Returns whether the current output buffer has any data remaining. */
   protected final boolean hasPendingOutput() {
     return outputBuffer.hasRemaining();
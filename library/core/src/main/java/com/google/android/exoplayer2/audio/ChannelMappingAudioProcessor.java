@@ -23,7 +23,8 @@ import java.util.Arrays;
 
 /**
  * An {@link AudioProcessor} that applies a mapping from input channels onto specified output
- * channels. This can be used to reorder, duplicate or discard channels.
+ * channels. This can be used to reorder, duplicate or discard channels. Input must be 16-bit
+ * integer or 32-bit float PCM.
  */
 /* package */ final class ChannelMappingAudioProcessor extends BaseAudioProcessor {
 
@@ -55,10 +56,12 @@ import java.util.Arrays;
       active = false;
       return outputChannelsChanged;
     }
-    if (encoding != C.ENCODING_PCM_16BIT) {
+    if (encoding != C.ENCODING_PCM_16BIT && encoding != C.ENCODING_PCM_FLOAT) {
       throw new UnhandledFormatException(sampleRateHz, channelCount, encoding);
     }
-    if (!outputChannelsChanged && !setInputFormat(sampleRateHz, channelCount, encoding)) {
+    // Always update the input format, as it's used to map the channels of each frame.
+    boolean inputFormatChanged = setInputFormat(sampleRateHz, channelCount, encoding);
+    if (!outputChannelsChanged && !inputFormatChanged) {
       return false;
     }
 
@@ -88,14 +91,25 @@ import java.util.Arrays;
     int[] outputChannels = Assertions.checkNotNull(this.outputChannels);
     int position = inputBuffer.position();
     int limit = inputBuffer.limit();
-    int frameCount = (limit - position) / (2 * channelCount);
-    int outputSize = frameCount * outputChannels.length * 2;
+    int bytesPerSample = getBytesPerSample();
+    int frameCount = (limit - position) / (bytesPerSample * channelCount);
+    int outputSize = frameCount * outputChannels.length * bytesPerSample;
     ByteBuffer buffer = replaceOutputBuffer(outputSize);
-    while (position < limit) {
-      for (int channelIndex : outputChannels) {
-        buffer.putShort(inputBuffer.getShort(position + 2 * channelIndex));
+    if (bytesPerSample == 2) {
+      while (position < limit) {
+        for (int channelIndex : outputChannels) {
+          buffer.putShort(inputBuffer.getShort(position + 2 * channelIndex));
+        }
+        position += channelCount * 2;
+      }
+    } else {
+      // Float samples are copied as their raw bits.
+      while (position < limit) {
+        for (int channelIndex : outputChannels) {
+          buffer.putInt(inputBuffer.getInt(position + 4 * channelIndex));
+        }
+        position += channelCount * 4;
       }
-      position += channelCount * 2;
     }
     inputBuffer.position(limit);
     buffer.flip();
@@ -108,4 +122,10 @@ import java.util.Arrays;
     active = false;
   }
 
+  // Internal methods.
+
+  private int getBytesPerSample() {
+    return encoding == C.ENCODING_PCM_FLOAT ? 4 : 2;
+  }
+
 }
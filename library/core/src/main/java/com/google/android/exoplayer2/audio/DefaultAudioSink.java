@@ -162,6 +162,10 @@ public final class DefaultAudioSink implements AudioSink {
    * A maximum length for the {@link AudioTrack} buffer, in microseconds.
    */
   private static final long MAX_BUFFER_DURATION_US = 750000;
+  /**
+   * The length for PCM {@link AudioTrack} buffers when low power mode is enabled, in microseconds.
+   */
+  private static final long LOW_POWER_BUFFER_DURATION_US = 4000000;
   /**
    * The length for passthrough {@link AudioTrack} buffers, in microseconds.
    */
@@ -234,6 +238,7 @@ public final class DefaultAudioSink implements AudioSink {
   private final TrimmingAudioProcessor trimmingAudioProcessor;
   private final AudioProcessor[] toIntPcmAvailableAudioProcessors;
   private final AudioProcessor[] toFloatPcmAvailableAudioProcessors;
+  private final AudioProcessor[] toFloatPcmWithoutChainAudioProcessors;
   private final ConditionVariable releasingConditionVariable;
   private final AudioTrackPositionTracker audioTrackPositionTracker;
   private final ArrayDeque<PlaybackParametersCheckpoint> playbackParametersCheckpoints;
@@ -278,6 +283,7 @@ public final class DefaultAudioSink implements AudioSink {
   private int audioSessionId;
   private AuxEffectInfo auxEffectInfo;
   private boolean tunneling;
+  private boolean lowPowerModeEnabled;
   private long lastFeedElapsedRealtimeMs;
 
   /**
@@ -301,9 +307,10 @@ public final class DefaultAudioSink implements AudioSink {
    * @param audioProcessors An array of {@link AudioProcessor}s that will process PCM audio before
    *     output. May be empty.
    * @param enableConvertHighResIntPcmToFloat Whether to enable conversion of high resolution
-   *     integer PCM to 32-bit float for output, if possible. Functionality that uses 16-bit integer
-   *     audio processing (for example, speed and pitch adjustment) will not be available when float
-   *     output is in use.
+   *     integer PCM to 32-bit float for output, if possible. Float PCM is processed by the audio
+   *     processor chain if all of its processors support float. Otherwise, playback parameters
+   *     (for example, speed and pitch adjustment and silence skipping) will not be available when
+   *     float output is in use. The same applies to 32-bit float input.
    */
   public DefaultAudioSink(
       @Nullable AudioCapabilities audioCapabilities,
@@ -324,9 +331,10 @@ public final class DefaultAudioSink implements AudioSink {
    * @param audioProcessorChain An {@link AudioProcessorChain} which is used to apply playback
    *     parameters adjustments. The instance passed in must not be reused in other sinks.
    * @param enableConvertHighResIntPcmToFloat Whether to enable conversion of high resolution
-   *     integer PCM to 32-bit float for output, if possible. Functionality that uses 16-bit integer
-   *     audio processing (for example, speed and pitch adjustment) will not be available when float
-   *     output is in use.
+   *     integer PCM to 32-bit float for output, if possible. Float PCM is processed by the audio
+   *     processor chain if all of its processors support float. Otherwise, playback parameters
+   *     (for example, speed and pitch adjustment and silence skipping) will not be available when
+   *     float output is in use. The same applies to 32-bit float input.
    */
   public DefaultAudioSink(
       @Nullable AudioCapabilities audioCapabilities,
@@ -347,7 +355,16 @@ public final class DefaultAudioSink implements AudioSink {
         trimmingAudioProcessor);
     Collections.addAll(toIntPcmAudioProcessors, audioProcessorChain.getAudioProcessors());
     toIntPcmAvailableAudioProcessors = toIntPcmAudioProcessors.toArray(new AudioProcessor[0]);
-    toFloatPcmAvailableAudioProcessors = new AudioProcessor[] {new FloatResamplingAudioProcessor()};
+    ArrayList<AudioProcessor> toFloatPcmAudioProcessors = new ArrayList<>();
+    Collections.addAll(
+        toFloatPcmAudioProcessors,
+        new FloatResamplingAudioProcessor(),
+        channelMappingAudioProcessor,
+        trimmingAudioProcessor);
+    toFloatPcmWithoutChainAudioProcessors =
+        toFloatPcmAudioProcessors.toArray(new AudioProcessor[0]);
+    Collections.addAll(toFloatPcmAudioProcessors, audioProcessorChain.getAudioProcessors());
+    toFloatPcmAvailableAudioProcessors = toFloatPcmAudioProcessors.toArray(new AudioProcessor[0]);
     volume = 1.0f;
     startMediaTimeState = START_NOT_SET;
     audioAttributes = AudioAttributes.DEFAULT;
@@ -413,7 +430,7 @@ public final class DefaultAudioSink implements AudioSink {
     }
 
     boolean isInputPcm = Util.isEncodingLinearPcm(inputEncoding);
-    boolean processingEnabled = isInputPcm && inputEncoding != C.ENCODING_PCM_FLOAT;
+    boolean processingEnabled = isInputPcm;
     int sampleRate = inputSampleRate;
     int channelCount = inputChannelCount;
     @C.Encoding int encoding = inputEncoding;
@@ -421,20 +438,45 @@ public final class DefaultAudioSink implements AudioSink {
         enableConvertHighResIntPcmToFloat
             && supportsOutput(inputChannelCount, C.ENCODING_PCM_FLOAT)
             && Util.isEncodingHighResolutionIntegerPcm(inputEncoding);
+    // Float input and converted high resolution input are processed as float, and only converted
+    // once at the start of the chain.
+    boolean useFloatPcmProcessing =
+        shouldConvertHighResIntPcmToFloat || inputEncoding == C.ENCODING_PCM_FLOAT;
     AudioProcessor[] availableAudioProcessors =
-        shouldConvertHighResIntPcmToFloat
+        useFloatPcmProcessing
             ? toFloatPcmAvailableAudioProcessors
             : toIntPcmAvailableAudioProcessors;
+    boolean canApplyPlaybackParameters = processingEnabled;
     boolean flushAudioProcessors = false;
     if (processingEnabled) {
       trimmingAudioProcessor.setTrimFrameCount(trimStartFrames, trimEndFrames);
       channelMappingAudioProcessor.setChannelMap(outputChannels);
-      for (AudioProcessor audioProcessor : availableAudioProcessors) {
-        try {
-          flushAudioProcessors |= audioProcessor.configure(sampleRate, channelCount, encoding);
-        } catch (AudioProcessor.UnhandledFormatException e) {
+      try {
+        flushAudioProcessors =
+            configureAudioProcessors(
+                availableAudioProcessors, inputSampleRate, inputChannelCount, inputEncoding);
+      } catch (AudioProcessor.UnhandledFormatException e) {
+        if (!useFloatPcmProcessing) {
           throw new ConfigurationException(e);
         }
+        // A processor in the audio processor chain doesn't support float PCM, so process without
+        // the chain. Processors before it in the chain have already been reconfigured for float
+        // input, so reset the whole chain rather than leave it partly reconfigured. Playback
+        // parameters are applied to the chain again when a configuration next uses it.
+        for (AudioProcessor audioProcessor : audioProcessorChain.getAudioProcessors()) {
+          audioProcessor.reset();
+        }
+        availableAudioProcessors = toFloatPcmWithoutChainAudioProcessors;
+        canApplyPlaybackParameters = false;
+        flushAudioProcessors = true;
+        try {
+          configureAudioProcessors(
+              availableAudioProcessors, inputSampleRate, inputChannelCount, inputEncoding);
+        } catch (AudioProcessor.UnhandledFormatException e2) {
+          throw new ConfigurationException(e2);
+        }
+      }
+      for (AudioProcessor audioProcessor : availableAudioProcessors) {
         if (audioProcessor.isActive()) {
           channelCount = audioProcessor.getOutputChannelCount();
           sampleRate = audioProcessor.getOutputSampleRateHz();
@@ -452,7 +494,6 @@ public final class DefaultAudioSink implements AudioSink {
         isInputPcm ? Util.getPcmFrameSize(inputEncoding, inputChannelCount) : C.LENGTH_UNSET;
     int outputPcmFrameSize =
         isInputPcm ? Util.getPcmFrameSize(encoding, channelCount) : C.LENGTH_UNSET;
-    boolean canApplyPlaybackParameters = processingEnabled && !shouldConvertHighResIntPcmToFloat;
     Configuration pendingConfiguration =
         new Configuration(
             isInputPcm,
@@ -465,6 +506,7 @@ public final class DefaultAudioSink implements AudioSink {
             specifiedBufferSize,
             processingEnabled,
             canApplyPlaybackParameters,
+            lowPowerModeEnabled,
             availableAudioProcessors);
     // If we have a pending configuration already, we always drain audio processors as the preceding
     // configuration may have required it (even if this one doesn't).
@@ -477,6 +519,31 @@ public final class DefaultAudioSink implements AudioSink {
     }
   }
 
+  /**
+   * Configures each of {@code audioProcessors} with the output format of the active processors
+   * before it, starting from the specified input format.
+   *
+   * @return Whether any of the processors needs to be flushed.
+   * @throws AudioProcessor.UnhandledFormatException If a processor can't handle its input format.
+   */
+  private static boolean configureAudioProcessors(
+      AudioProcessor[] audioProcessors,
+      int sampleRate,
+      int channelCount,
+      @C.Encoding int encoding)
+      throws AudioProcessor.UnhandledFormatException {
+    boolean flushAudioProcessors = false;
+    for (AudioProcessor audioProcessor : audioProcessors) {
+      flushAudioProcessors |= audioProcessor.configure(sampleRate, channelCount, encoding);
+      if (audioProcessor.isActive()) {
+        channelCount = audioProcessor.getOutputChannelCount();
+        sampleRate = audioProcessor.getOutputSampleRateHz();
+        encoding = audioProcessor.getOutputEncoding();
+      }
+    }
+    return flushAudioProcessors;
+  }
+
   private void setupAudioProcessors() {
     AudioProcessor[] audioProcessors = configuration.availableAudioProcessors;
     ArrayList<AudioProcessor> newAudioProcessors = new ArrayList<>();
@@ -824,6 +891,11 @@ public final class DefaultAudioSink implements AudioSink {
     return isInitialized() && audioTrackPositionTracker.hasPendingData(getWrittenFrames());
   }
 
+  @Override
+  public long getBufferedDurationUs() {
+    return isInitialized() ? audioTrackPositionTracker.getPendingDurationUs(getWrittenFrames()) : 0;
+  }
+
   @Override
   public PlaybackParameters setPlaybackParameters(PlaybackParameters playbackParameters) {
     if (configuration != null && !configuration.canApplyPlaybackParameters) {
@@ -922,6 +994,22 @@ public final class DefaultAudioSink implements AudioSink {
     }
   }
 
+  @Override
+  public void setLowPowerModeEnabled(boolean lowPowerModeEnabled) {
+    if (this.lowPowerModeEnabled == lowPowerModeEnabled) {
+      return;
+    }
+    this.lowPowerModeEnabled = lowPowerModeEnabled;
+    // The buffer size is only used when creating an AudioTrack, so an existing track keeps playing
+    // with its current buffer size. Recreating it here would cause a gap in playback.
+    if (pendingConfiguration != null) {
+      pendingConfiguration = pendingConfiguration.copyWithLowPowerModeEnabled(lowPowerModeEnabled);
+    }
+    if (configuration != null) {
+      configuration = configuration.copyWithLowPowerModeEnabled(lowPowerModeEnabled);
+    }
+  }
+
   private void setVolumeInternal() {
     if (!isInitialized()) {
       // Do nothing.
@@ -1325,9 +1413,11 @@ public final class DefaultAudioSink implements AudioSink {
     public final int outputSampleRate;
     public final int outputChannelConfig;
     @C.Encoding public final int outputEncoding;
+    public final int specifiedBufferSize;
     public final int bufferSize;
     public final boolean processingEnabled;
     public final boolean canApplyPlaybackParameters;
+    public final boolean lowPowerModeEnabled;
     public final AudioProcessor[] availableAudioProcessors;
 
     public Configuration(
@@ -1341,6 +1431,7 @@ public final class DefaultAudioSink implements AudioSink {
         int specifiedBufferSize,
         boolean processingEnabled,
         boolean canApplyPlaybackParameters,
+        boolean lowPowerModeEnabled,
         AudioProcessor[] availableAudioProcessors) {
       this.isInputPcm = isInputPcm;
       this.inputPcmFrameSize = inputPcmFrameSize;
@@ -1349,10 +1440,28 @@ public final class DefaultAudioSink implements AudioSink {
       this.outputSampleRate = outputSampleRate;
       this.outputChannelConfig = outputChannelConfig;
       this.outputEncoding = outputEncoding;
-      this.bufferSize = specifiedBufferSize != 0 ? specifiedBufferSize : getDefaultBufferSize();
+      this.specifiedBufferSize = specifiedBufferSize;
       this.processingEnabled = processingEnabled;
       this.canApplyPlaybackParameters = canApplyPlaybackParameters;
+      this.lowPowerModeEnabled = lowPowerModeEnabled;
       this.availableAudioProcessors = availableAudioProcessors;
+      this.bufferSize = specifiedBufferSize != 0 ? specifiedBufferSize : getDefaultBufferSize();
+    }
+
+    public Configuration copyWithLowPowerModeEnabled(boolean lowPowerModeEnabled) {
+      return new Configuration(
+          isInputPcm,
+          inputPcmFrameSize,
+          inputSampleRate,
+          outputPcmFrameSize,
+          outputSampleRate,
+          outputChannelConfig,
+          outputEncoding,
+          specifiedBufferSize,
+          processingEnabled,
+          canApplyPlaybackParameters,
+          lowPowerModeEnabled,
+          availableAudioProcessors);
     }
 
     public boolean canReuseAudioTrack(Configuration audioTrackConfiguration) {
@@ -1452,6 +1561,12 @@ public final class DefaultAudioSink implements AudioSink {
         int minBufferSize =
             AudioTrack.getMinBufferSize(outputSampleRate, outputChannelConfig, outputEncoding);
         Assertions.checkState(minBufferSize != ERROR_BAD_VALUE);
+        if (lowPowerModeEnabled) {
+          return (int)
+              Math.max(
+                  minBufferSize,
+                  durationUsToFrames(LOW_POWER_BUFFER_DURATION_US) * outputPcmFrameSize);
+        }
         int multipliedBufferSize = minBufferSize * BUFFER_MULTIPLICATION_FACTOR;
         int minAppBufferSize =
             (int) durationUsToFrames(MIN_BUFFER_DURATION_US) * outputPcmFrameSize;
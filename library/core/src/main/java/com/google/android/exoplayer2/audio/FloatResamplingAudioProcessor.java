@@ -21,7 +21,7 @@ import java.nio.ByteBuffer;
 
 /**
  * An {@link AudioProcessor} that converts 24-bit and 32-bit integer PCM audio to 32-bit float PCM
- * audio.
+ * audio. 32-bit float PCM input is passed through unchanged.
  */
 /* package */ final class FloatResamplingAudioProcessor extends BaseAudioProcessor {
 
@@ -31,7 +31,7 @@ import java.nio.ByteBuffer;
   @Override
   public boolean configure(int sampleRateHz, int channelCount, @C.PcmEncoding int encoding)
       throws UnhandledFormatException {
-    if (!Util.isEncodingHighResolutionIntegerPcm(encoding)) {
+    if (!Util.isEncodingHighResolutionIntegerPcm(encoding) && encoding != C.ENCODING_PCM_FLOAT) {
       throw new UnhandledFormatException(sampleRateHz, channelCount, encoding);
     }
     return setInputFormat(sampleRateHz, channelCount, encoding);
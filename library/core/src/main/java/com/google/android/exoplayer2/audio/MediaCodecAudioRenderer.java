@@ -95,6 +95,8 @@ public class MediaCodecAudioRenderer extends MediaCodecRenderer implements Media
   private boolean allowPositionDiscontinuity;
   private long lastInputTimeUs;
   private int pendingStreamChangeCount;
+  private boolean lowPowerModeEnabled;
+  private boolean audioSinkFull;
 
   /**
    * @param context A context.
@@ -585,6 +587,7 @@ public class MediaCodecAudioRenderer extends MediaCodecRenderer implements Media
   protected void onPositionReset(long positionUs, boolean joining) throws ExoPlaybackException {
     super.onPositionReset(positionUs, joining);
     audioSink.flush();
+    audioSinkFull = false;
     currentPositionUs = positionUs;
     allowFirstBufferPositionDiscontinuity = true;
     allowPositionDiscontinuity = true;
@@ -639,6 +642,17 @@ public class MediaCodecAudioRenderer extends MediaCodecRenderer implements Media
     return audioSink.hasPendingData() || super.isReady();
   }
 
+  @Override
+  public long getMaxRenderDelayUs(long positionUs, long elapsedRealtimeUs) {
+    if (lowPowerModeEnabled && !audioSinkFull) {
+      // Keep rendering at the default interval until the sink's large buffer has been filled.
+      return C.TIME_UNSET;
+    }
+    // Render again before the sink runs out of audio, keeping half of its buffer in reserve.
+    long bufferedDurationUs = audioSink.getBufferedDurationUs();
+    return bufferedDurationUs == C.TIME_UNSET ? C.TIME_UNSET : bufferedDurationUs / 2;
+  }
+
   @Override
   public long getPositionUs() {
     if (getState() == STATE_STARTED) {
@@ -720,7 +734,8 @@ public class MediaCodecAudioRenderer extends MediaCodecRenderer implements Media
     }
 
     try {
-      if (audioSink.handleBuffer(buffer, bufferPresentationTimeUs)) {
+      audioSinkFull = !audioSink.handleBuffer(buffer, bufferPresentationTimeUs);
+      if (!audioSinkFull) {
         codec.releaseOutputBuffer(bufferIndex, false);
         decoderCounters.renderedOutputBufferCount++;
         return true;
@@ -731,6 +746,12 @@ public class MediaCodecAudioRenderer extends MediaCodecRenderer implements Media
     return false;
   }
 
+  @Override
+  protected boolean shouldContinueDrainingAndFeeding() {
+    // In low power mode the renderer is rendered infrequently, so fill the sink while possible.
+    return lowPowerModeEnabled && !audioSinkFull;
+  }
+
   @Override
   protected void renderToEndOfStream() throws ExoPlaybackException {
     try {
@@ -754,6 +775,10 @@ public class MediaCodecAudioRenderer extends MediaCodecRenderer implements Media
         AuxEffectInfo auxEffectInfo = (AuxEffectInfo) message;
         audioSink.setAuxEffectInfo(auxEffectInfo);
         break;
+      case C.MSG_SET_LOW_POWER_MODE_ENABLED:
+        lowPowerModeEnabled = (Boolean) message;
+        audioSink.setLowPowerModeEnabled(lowPowerModeEnabled);
+        break;
       default:
         super.handleMessage(messageType, message);
         break;
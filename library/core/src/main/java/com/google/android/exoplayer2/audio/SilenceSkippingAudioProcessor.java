@@ -25,7 +25,7 @@ import java.nio.ByteBuffer;
 
 /**
  * An {@link AudioProcessor} that skips silence in the input stream. Input and output are 16-bit
- * PCM.
+ * integer or 32-bit float PCM.
  */
 public final class SilenceSkippingAudioProcessor extends BaseAudioProcessor {
 
@@ -52,6 +52,12 @@ public final class SilenceSkippingAudioProcessor extends BaseAudioProcessor {
    */
   private static final byte SILENCE_THRESHOLD_LEVEL_MSB = (SILENCE_THRESHOLD_LEVEL + 128) >> 8;
 
+  /**
+   * Threshold for classifying an individual float PCM sample as silent. This is the same level as
+   * {@link #SILENCE_THRESHOLD_LEVEL}, relative to full scale.
+   */
+  private static final float SILENCE_THRESHOLD_LEVEL_FLOAT = SILENCE_THRESHOLD_LEVEL / 32768f;
+
   /** Trimming states. */
   @Documented
   @Retention(RetentionPolicy.SOURCE)
@@ -121,10 +127,10 @@ public final class SilenceSkippingAudioProcessor extends BaseAudioProcessor {
   @Override
   public boolean configure(int sampleRateHz, int channelCount, @C.PcmEncoding int encoding)
       throws UnhandledFormatException {
-    if (encoding != C.ENCODING_PCM_16BIT) {
+    if (encoding != C.ENCODING_PCM_16BIT && encoding != C.ENCODING_PCM_FLOAT) {
       throw new UnhandledFormatException(sampleRateHz, channelCount, encoding);
     }
-    bytesPerFrame = channelCount * 2;
+    bytesPerFrame = Util.getPcmFrameSize(encoding, channelCount);
     return setInputFormat(sampleRateHz, channelCount, encoding);
   }
 
@@ -325,6 +331,15 @@ public final class SilenceSkippingAudioProcessor extends BaseAudioProcessor {
    * classified as a noisy frame, or the limit of the buffer if no such frame exists.
    */
   private int findNoisePosition(ByteBuffer buffer) {
+    if (encoding == C.ENCODING_PCM_FLOAT) {
+      for (int i = buffer.position(); i < buffer.limit(); i += 4) {
+        if (Math.abs(buffer.getFloat(i)) > SILENCE_THRESHOLD_LEVEL_FLOAT) {
+          // Round to the start of the frame.
+          return bytesPerFrame * (i / bytesPerFrame);
+        }
+      }
+      return buffer.limit();
+    }
     // The input is in ByteOrder.nativeOrder(), which is little endian on Android.
     for (int i = buffer.position() + 1; i < buffer.limit(); i += 2) {
       if (Math.abs(buffer.get(i)) > SILENCE_THRESHOLD_LEVEL_MSB) {
@@ -340,6 +355,15 @@ public final class SilenceSkippingAudioProcessor extends BaseAudioProcessor {
    * from the byte position to the limit are classified as silent.
    */
   private int findNoiseLimit(ByteBuffer buffer) {
+    if (encoding == C.ENCODING_PCM_FLOAT) {
+      for (int i = buffer.limit() - 4; i >= buffer.position(); i -= 4) {
+        if (Math.abs(buffer.getFloat(i)) > SILENCE_THRESHOLD_LEVEL_FLOAT) {
+          // Return the start of the next frame.
+          return bytesPerFrame * (i / bytesPerFrame) + bytesPerFrame;
+        }
+      }
+      return buffer.position();
+    }
     // The input is in ByteOrder.nativeOrder(), which is little endian on Android.
     for (int i = buffer.limit() - 1; i >= buffer.position(); i -= 2) {
       if (Math.abs(buffer.get(i)) > SILENCE_THRESHOLD_LEVEL_MSB) {
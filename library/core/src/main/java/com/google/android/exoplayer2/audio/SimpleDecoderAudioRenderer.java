@@ -119,6 +119,8 @@ public abstract class SimpleDecoderAudioRenderer extends BaseRenderer implements
   private boolean inputStreamEnded;
   private boolean outputStreamEnded;
   private boolean waitingForKeys;
+  private boolean lowPowerModeEnabled;
+  private boolean audioSinkFull;
 
   public SimpleDecoderAudioRenderer() {
     this(/* eventHandler= */ null, /* eventListener= */ null);
@@ -294,8 +296,18 @@ public abstract class SimpleDecoderAudioRenderer extends BaseRenderer implements
       try {
         // Rendering loop.
         TraceUtil.beginSection("drainAndFeed");
-        while (drainOutputBuffer()) {}
-        while (feedInputBuffer()) {}
+        // In low power mode the renderer is rendered infrequently, so keep draining and feeding
+        // while doing so makes progress, until the sink is full.
+        boolean madeProgress;
+        do {
+          madeProgress = false;
+          while (drainOutputBuffer()) {
+            madeProgress = true;
+          }
+          while (feedInputBuffer()) {
+            madeProgress = true;
+          }
+        } while (madeProgress && lowPowerModeEnabled && !audioSinkFull);
         TraceUtil.endSection();
       } catch (AudioDecoderException | AudioSink.ConfigurationException
           | AudioSink.InitializationException | AudioSink.WriteException e) {
@@ -394,7 +406,8 @@ public abstract class SimpleDecoderAudioRenderer extends BaseRenderer implements
       audioTrackNeedsConfigure = false;
     }
 
-    if (audioSink.handleBuffer(outputBuffer.data, outputBuffer.timeUs)) {
+    audioSinkFull = !audioSink.handleBuffer(outputBuffer.data, outputBuffer.timeUs);
+    if (!audioSinkFull) {
       decoderCounters.renderedOutputBufferCount++;
       outputBuffer.release();
       outputBuffer = null;
@@ -508,6 +521,17 @@ public abstract class SimpleDecoderAudioRenderer extends BaseRenderer implements
         || (inputFormat != null && !waitingForKeys && (isSourceReady() || outputBuffer != null));
   }
 
+  @Override
+  public long getMaxRenderDelayUs(long positionUs, long elapsedRealtimeUs) {
+    if (lowPowerModeEnabled && !audioSinkFull) {
+      // Keep rendering at the default interval until the sink's large buffer has been filled.
+      return C.TIME_UNSET;
+    }
+    // Render again before the sink runs out of audio, keeping half of its buffer in reserve.
+    long bufferedDurationUs = audioSink.getBufferedDurationUs();
+    return bufferedDurationUs == C.TIME_UNSET ? C.TIME_UNSET : bufferedDurationUs / 2;
+  }
+
   @Override
   public long getPositionUs() {
     if (getState() == STATE_STARTED) {
@@ -541,6 +565,7 @@ public abstract class SimpleDecoderAudioRenderer extends BaseRenderer implements
   @Override
   protected void onPositionReset(long positionUs, boolean joining) throws ExoPlaybackException {
     audioSink.flush();
+    audioSinkFull = false;
     currentPositionUs = positionUs;
     allowFirstBufferPositionDiscontinuity = true;
     allowPositionDiscontinuity = true;
@@ -590,6 +615,10 @@ public abstract class SimpleDecoderAudioRenderer extends BaseRenderer implements
         AuxEffectInfo auxEffectInfo = (AuxEffectInfo) message;
         audioSink.setAuxEffectInfo(auxEffectInfo);
         break;
+      case C.MSG_SET_LOW_POWER_MODE_ENABLED:
+        lowPowerModeEnabled = (Boolean) message;
+        audioSink.setLowPowerModeEnabled(lowPowerModeEnabled);
+        break;
       default:
         super.handleMessage(messageType, message);
         break;
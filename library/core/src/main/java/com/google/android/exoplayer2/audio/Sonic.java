@@ -16,12 +16,17 @@
  */
 package com.google.android.exoplayer2.audio;
 
+import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.Util;
+import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
 import java.util.Arrays;
 
 /**
- * Sonic audio stream processor for time/pitch stretching.
+ * Sonic audio stream processor for time/pitch stretching. Samples are either 16-bit integers or
+ * 32-bit floats. The pitch period search always compares 16-bit values, so float input is mixed
+ * down to 16-bit values for the search, but the output is computed from the float samples.
  * <p>
  * Based on https://github.com/waywardgeek/sonic.
  */
@@ -33,6 +38,7 @@ import java.util.Arrays;
 
   private final int inputSampleRateHz;
   private final int channelCount;
+  private final boolean floatSamples;
   private final float speed;
   private final float pitch;
   private final float rate;
@@ -41,11 +47,15 @@ import java.util.Arrays;
   private final int maxRequiredFrameCount;
   private final short[] downSampleBuffer;
 
+  // Only the buffers for the sample type are used. The others are empty.
   private short[] inputBuffer;
+  private float[] floatInputBuffer;
   private int inputFrameCount;
   private short[] outputBuffer;
+  private float[] floatOutputBuffer;
   private int outputFrameCount;
   private short[] pitchBuffer;
+  private float[] floatPitchBuffer;
   private int pitchFrameCount;
   private int oldRatePosition;
   private int newRatePosition;
@@ -54,20 +64,31 @@ import java.util.Arrays;
   private int prevMinDiff;
   private int minDiff;
   private int maxDiff;
+  private int worstPeriod;
 
   /**
    * Creates a new Sonic audio stream processor.
    *
    * @param inputSampleRateHz The sample rate of input audio, in hertz.
    * @param channelCount The number of channels in the input audio.
+   * @param encoding The encoding of input and output audio, which must be {@link
+   *     C#ENCODING_PCM_16BIT} or {@link C#ENCODING_PCM_FLOAT}.
    * @param speed The speedup factor for output audio.
    * @param pitch The pitch factor for output audio.
    * @param outputSampleRateHz The sample rate for output audio, in hertz.
    */
   public Sonic(
-      int inputSampleRateHz, int channelCount, float speed, float pitch, int outputSampleRateHz) {
+      int inputSampleRateHz,
+      int channelCount,
+      @C.PcmEncoding int encoding,
+      float speed,
+      float pitch,
+      int outputSampleRateHz) {
+    Assertions.checkArgument(
+        encoding == C.ENCODING_PCM_16BIT || encoding == C.ENCODING_PCM_FLOAT);
     this.inputSampleRateHz = inputSampleRateHz;
     this.channelCount = channelCount;
+    floatSamples = encoding == C.ENCODING_PCM_FLOAT;
     this.speed = speed;
     this.pitch = pitch;
     rate = (float) inputSampleRateHz / outputSampleRateHz;
@@ -75,9 +96,13 @@ import java.util.Arrays;
     maxPeriod = inputSampleRateHz / MINIMUM_PITCH;
     maxRequiredFrameCount = 2 * maxPeriod;
     downSampleBuffer = new short[maxRequiredFrameCount];
-    inputBuffer = new short[maxRequiredFrameCount * channelCount];
-    outputBuffer = new short[maxRequiredFrameCount * channelCount];
-    pitchBuffer = new short[maxRequiredFrameCount * channelCount];
+    int initialBufferSize = maxRequiredFrameCount * channelCount;
+    inputBuffer = new short[floatSamples ? 0 : initialBufferSize];
+    outputBuffer = new short[floatSamples ? 0 : initialBufferSize];
+    pitchBuffer = new short[floatSamples ? 0 : initialBufferSize];
+    floatInputBuffer = new float[floatSamples ? initialBufferSize : 0];
+    floatOutputBuffer = new float[floatSamples ? initialBufferSize : 0];
+    floatPitchBuffer = new float[floatSamples ? initialBufferSize : 0];
   }
 
   /**
@@ -87,6 +112,7 @@ import java.util.Arrays;
    * @param buffer A {@link ShortBuffer} containing input data between its position and limit.
    */
   public void queueInput(ShortBuffer buffer) {
+    Assertions.checkState(!floatSamples);
     int framesToWrite = buffer.remaining() / channelCount;
     int bytesToWrite = framesToWrite * channelCount * 2;
     inputBuffer = ensureSpaceForAdditionalFrames(inputBuffer, inputFrameCount, framesToWrite);
@@ -95,6 +121,22 @@ import java.util.Arrays;
     processStreamInput();
   }
 
+  /**
+   * Queues remaining float data from {@code buffer}, and advances its position by the number of
+   * samples consumed.
+   *
+   * @param buffer A {@link FloatBuffer} containing input data between its position and limit.
+   */
+  public void queueInput(FloatBuffer buffer) {
+    Assertions.checkState(floatSamples);
+    int framesToWrite = buffer.remaining() / channelCount;
+    floatInputBuffer =
+        ensureSpaceForAdditionalFrames(floatInputBuffer, inputFrameCount, framesToWrite);
+    buffer.get(floatInputBuffer, inputFrameCount * channelCount, framesToWrite * channelCount);
+    inputFrameCount += framesToWrite;
+    processStreamInput();
+  }
+
   /**
    * Gets available output, outputting to the start of {@code buffer}. The buffer's position will be
    * advanced by the number of bytes written.
@@ -102,15 +144,23 @@ import java.util.Arrays;
    * @param buffer A {@link ShortBuffer} into which output will be written.
    */
   public void getOutput(ShortBuffer buffer) {
+    Assertions.checkState(!floatSamples);
     int framesToRead = Math.min(buffer.remaining() / channelCount, outputFrameCount);
     buffer.put(outputBuffer, 0, framesToRead * channelCount);
-    outputFrameCount -= framesToRead;
-    System.arraycopy(
-        outputBuffer,
-        framesToRead * channelCount,
-        outputBuffer,
-        0,
-        outputFrameCount * channelCount);
+    removeOutputFrames(framesToRead);
+  }
+
+  /**
+   * Gets available float output, outputting to the start of {@code buffer}. The buffer's position
+   * will be advanced by the number of samples written.
+   *
+   * @param buffer A {@link FloatBuffer} into which output will be written.
+   */
+  public void getOutput(FloatBuffer buffer) {
+    Assertions.checkState(floatSamples);
+    int framesToRead = Math.min(buffer.remaining() / channelCount, outputFrameCount);
+    buffer.put(floatOutputBuffer, 0, framesToRead * channelCount);
+    removeOutputFrames(framesToRead);
   }
 
   /**
@@ -125,11 +175,13 @@ import java.util.Arrays;
         outputFrameCount + (int) ((remainingFrameCount / s + pitchFrameCount) / r + 0.5f);
 
     // Add enough silence to flush both input and pitch buffers.
-    inputBuffer =
-        ensureSpaceForAdditionalFrames(
-            inputBuffer, inputFrameCount, remainingFrameCount + 2 * maxRequiredFrameCount);
-    for (int xSample = 0; xSample < 2 * maxRequiredFrameCount * channelCount; xSample++) {
-      inputBuffer[remainingFrameCount * channelCount + xSample] = 0;
+    ensureSpaceForAdditionalInputFrames(remainingFrameCount + 2 * maxRequiredFrameCount);
+    int silenceStart = remainingFrameCount * channelCount;
+    int silenceEnd = silenceStart + 2 * maxRequiredFrameCount * channelCount;
+    if (floatSamples) {
+      Arrays.fill(floatInputBuffer, silenceStart, silenceEnd, 0f);
+    } else {
+      Arrays.fill(inputBuffer, silenceStart, silenceEnd, (short) 0);
     }
     inputFrameCount += 2 * maxRequiredFrameCount;
     processStreamInput();
@@ -157,7 +209,10 @@ import java.util.Arrays;
     maxDiff = 0;
   }
 
-  /** Returns the number of output frames that can be read with {@link #getOutput(ShortBuffer)}. */
+  /**
+   * Returns the number of output frames that can be read with {@link #getOutput(ShortBuffer)} or
+   * {@link #getOutput(FloatBuffer)}.
+   */
   public int getFramesAvailable() {
     return outputFrameCount;
   }
@@ -185,19 +240,91 @@ import java.util.Arrays;
     }
   }
 
+  /** Float equivalent of {@link #ensureSpaceForAdditionalFrames(short[], int, int)}. */
+  private float[] ensureSpaceForAdditionalFrames(
+      float[] buffer, int frameCount, int additionalFrameCount) {
+    int currentCapacityFrames = buffer.length / channelCount;
+    if (frameCount + additionalFrameCount <= currentCapacityFrames) {
+      return buffer;
+    } else {
+      int newCapacityFrames = 3 * currentCapacityFrames / 2 + additionalFrameCount;
+      return Arrays.copyOf(buffer, newCapacityFrames * channelCount);
+    }
+  }
+
+  private void ensureSpaceForAdditionalInputFrames(int additionalFrameCount) {
+    if (floatSamples) {
+      floatInputBuffer =
+          ensureSpaceForAdditionalFrames(floatInputBuffer, inputFrameCount, additionalFrameCount);
+    } else {
+      inputBuffer =
+          ensureSpaceForAdditionalFrames(inputBuffer, inputFrameCount, additionalFrameCount);
+    }
+  }
+
+  private void ensureSpaceForAdditionalOutputFrames(int additionalFrameCount) {
+    if (floatSamples) {
+      floatOutputBuffer =
+          ensureSpaceForAdditionalFrames(floatOutputBuffer, outputFrameCount, additionalFrameCount);
+    } else {
+      outputBuffer =
+          ensureSpaceForAdditionalFrames(outputBuffer, outputFrameCount, additionalFrameCount);
+    }
+  }
+
+  private void ensureSpaceForAdditionalPitchFrames(int additionalFrameCount) {
+    if (floatSamples) {
+      floatPitchBuffer =
+          ensureSpaceForAdditionalFrames(floatPitchBuffer, pitchFrameCount, additionalFrameCount);
+    } else {
+      pitchBuffer =
+          ensureSpaceForAdditionalFrames(pitchBuffer, pitchFrameCount, additionalFrameCount);
+    }
+  }
+
+  // The methods below that only move frames use System.arraycopy, which copies either array type.
+
+  private Object getInputSamples() {
+    return floatSamples ? floatInputBuffer : inputBuffer;
+  }
+
+  private Object getOutputSamples() {
+    return floatSamples ? floatOutputBuffer : outputBuffer;
+  }
+
+  private Object getPitchSamples() {
+    return floatSamples ? floatPitchBuffer : pitchBuffer;
+  }
+
   private void removeProcessedInputFrames(int positionFrames) {
     int remainingFrames = inputFrameCount - positionFrames;
+    Object inputSamples = getInputSamples();
     System.arraycopy(
-        inputBuffer, positionFrames * channelCount, inputBuffer, 0, remainingFrames * channelCount);
+        inputSamples,
+        positionFrames * channelCount,
+        inputSamples,
+        0,
+        remainingFrames * channelCount);
     inputFrameCount = remainingFrames;
   }
 
-  private void copyToOutput(short[] samples, int positionFrames, int frameCount) {
-    outputBuffer = ensureSpaceForAdditionalFrames(outputBuffer, outputFrameCount, frameCount);
+  private void removeOutputFrames(int frameCount) {
+    outputFrameCount -= frameCount;
+    Object outputSamples = getOutputSamples();
+    System.arraycopy(
+        outputSamples,
+        frameCount * channelCount,
+        outputSamples,
+        0,
+        outputFrameCount * channelCount);
+  }
+
+  private void copyToOutput(int positionFrames, int frameCount) {
+    ensureSpaceForAdditionalOutputFrames(frameCount);
     System.arraycopy(
-        samples,
+        getInputSamples(),
         positionFrames * channelCount,
-        outputBuffer,
+        getOutputSamples(),
         outputFrameCount * channelCount,
         frameCount * channelCount);
     outputFrameCount += frameCount;
@@ -205,17 +332,30 @@ import java.util.Arrays;
 
   private int copyInputToOutput(int positionFrames) {
     int frameCount = Math.min(maxRequiredFrameCount, remainingInputToCopyFrameCount);
-    copyToOutput(inputBuffer, positionFrames, frameCount);
+    copyToOutput(positionFrames, frameCount);
     remainingInputToCopyFrameCount -= frameCount;
     return frameCount;
   }
 
-  private void downSampleInput(short[] samples, int position, int skip) {
+  private void downSampleInput(int position, int skip, int frameCount) {
     // If skip is greater than one, average skip samples together and write them to the down-sample
     // buffer. If channelCount is greater than one, mix the channels together as we down sample.
-    int frameCount = maxRequiredFrameCount / skip;
     int samplesPerValue = channelCount * skip;
     position *= channelCount;
+    if (floatSamples) {
+      float[] samples = floatInputBuffer;
+      for (int i = 0; i < frameCount; i++) {
+        float value = 0;
+        for (int j = 0; j < samplesPerValue; j++) {
+          value += samples[position + i * samplesPerValue + j];
+        }
+        value = value * Short.MAX_VALUE / samplesPerValue;
+        downSampleBuffer[i] =
+            (short) Util.constrainValue((int) value, Short.MIN_VALUE, Short.MAX_VALUE);
+      }
+      return;
+    }
+    short[] samples = inputBuffer;
     for (int i = 0; i < frameCount; i++) {
       int value = 0;
       for (int j = 0; j < samplesPerValue; j++) {
@@ -241,20 +381,20 @@ import java.util.Arrays;
         short pVal = samples[position + period + i];
         diff += Math.abs(sVal - pVal);
       }
-      // Note that the highest number of samples we add into diff will be less than 256, since we
-      // skip samples. Thus, diff is a 24 bit number, and we can safely multiply by numSamples
-      // without overflow.
-      if (diff * bestPeriod < minDiff * period) {
+      // When comparing full resolution samples, diff can use more than 24 bits, so multiply as
+      // longs to avoid overflow.
+      if ((long) diff * bestPeriod < (long) minDiff * period) {
         minDiff = diff;
         bestPeriod = period;
       }
-      if (diff * worstPeriod > maxDiff * period) {
+      if ((long) diff * worstPeriod > (long) maxDiff * period) {
         maxDiff = diff;
         worstPeriod = period;
       }
     }
     this.minDiff = minDiff / bestPeriod;
     this.maxDiff = maxDiff / worstPeriod;
+    this.worstPeriod = worstPeriod;
     return bestPeriod;
   }
 
@@ -277,18 +417,21 @@ import java.util.Arrays;
     return true;
   }
 
-  private int findPitchPeriod(short[] samples, int position) {
+  private int findPitchPeriod(int position) {
     // Find the pitch period. This is a critical step, and we may have to try multiple ways to get a
     // good answer. This version uses AMDF. To improve speed, we down sample by an integer factor
     // get in the 11 kHz range, and then do it again with a narrower frequency range without down
-    // sampling.
+    // sampling. If the first search was coarse, the narrower range is searched at half resolution
+    // before searching the few periods around the result at full resolution. Mono 16-bit input is
+    // searched in place when not down sampling, and other input is mixed down first.
+    boolean searchInput = channelCount == 1 && !floatSamples;
     int period;
     int retPeriod;
     int skip = inputSampleRateHz > AMDF_FREQUENCY ? inputSampleRateHz / AMDF_FREQUENCY : 1;
-    if (channelCount == 1 && skip == 1) {
-      period = findPitchPeriodInRange(samples, position, minPeriod, maxPeriod);
+    if (searchInput && skip == 1) {
+      period = findPitchPeriodInRange(inputBuffer, position, minPeriod, maxPeriod);
     } else {
-      downSampleInput(samples, position, skip);
+      downSampleInput(position, skip, maxRequiredFrameCount / skip);
       period = findPitchPeriodInRange(downSampleBuffer, 0, minPeriod / skip, maxPeriod / skip);
       if (skip != 1) {
         period *= skip;
@@ -300,11 +443,40 @@ import java.util.Arrays;
         if (maxP > maxPeriod) {
           maxP = maxPeriod;
         }
-        if (channelCount == 1) {
-          period = findPitchPeriodInRange(samples, position, minP, maxP);
+        boolean searchAtHalfResolution = skip >= 4;
+        int halfResolutionWorstPeriod = 0;
+        if (searchAtHalfResolution) {
+          downSampleInput(position, /* skip= */ 2, /* frameCount= */ maxP);
+          period = 2 * findPitchPeriodInRange(downSampleBuffer, 0, (minP + 1) / 2, maxP / 2);
+          // The worst period is left at its initial value if the input is silent.
+          halfResolutionWorstPeriod = Math.min(2 * worstPeriod, maxPeriod);
+          minP = Math.max(minP, period - 2);
+          maxP = Math.min(maxP, period + 2);
+        }
+        short[] samples;
+        int samplesPosition;
+        if (searchInput) {
+          samples = inputBuffer;
+          samplesPosition = position;
         } else {
-          downSampleInput(samples, position, 1);
-          period = findPitchPeriodInRange(downSampleBuffer, 0, minP, maxP);
+          // A period p only compares the first 2 * p frames, so there's no need to mix down the
+          // rest of the input.
+          samples = downSampleBuffer;
+          samplesPosition = 0;
+          downSampleInput(
+              position,
+              /* skip= */ 1,
+              /* frameCount= */ 2 * Math.max(maxP, halfResolutionWorstPeriod));
+        }
+        period = findPitchPeriodInRange(samples, samplesPosition, minP, maxP);
+        if (searchAtHalfResolution) {
+          // Only the half resolution search covered the whole range, so measure its worst match
+          // again at full resolution. previousPeriodBetter compares maxDiff with minDiff, and
+          // averaging pairs of frames lowers the diffs.
+          int fullResolutionMinDiff = minDiff;
+          findPitchPeriodInRange(
+              samples, samplesPosition, halfResolutionWorstPeriod, halfResolutionWorstPeriod);
+          minDiff = fullResolutionMinDiff;
         }
       }
     }
@@ -320,11 +492,11 @@ import java.util.Arrays;
 
   private void moveNewSamplesToPitchBuffer(int originalOutputFrameCount) {
     int frameCount = outputFrameCount - originalOutputFrameCount;
-    pitchBuffer = ensureSpaceForAdditionalFrames(pitchBuffer, pitchFrameCount, frameCount);
+    ensureSpaceForAdditionalPitchFrames(frameCount);
     System.arraycopy(
-        outputBuffer,
+        getOutputSamples(),
         originalOutputFrameCount * channelCount,
-        pitchBuffer,
+        getPitchSamples(),
         pitchFrameCount * channelCount,
         frameCount * channelCount);
     outputFrameCount = originalOutputFrameCount;
@@ -335,26 +507,16 @@ import java.util.Arrays;
     if (frameCount == 0) {
       return;
     }
+    Object pitchSamples = getPitchSamples();
     System.arraycopy(
-        pitchBuffer,
+        pitchSamples,
         frameCount * channelCount,
-        pitchBuffer,
+        pitchSamples,
         0,
         (pitchFrameCount - frameCount) * channelCount);
     pitchFrameCount -= frameCount;
   }
 
-  private short interpolate(short[] in, int inPos, int oldSampleRate, int newSampleRate) {
-    short left = in[inPos];
-    short right = in[inPos + channelCount];
-    int position = newRatePosition * oldSampleRate;
-    int leftPosition = oldRatePosition * newSampleRate;
-    int rightPosition = (oldRatePosition + 1) * newSampleRate;
-    int ratio = rightPosition - position;
-    int width = rightPosition - leftPosition;
-    return (short) ((ratio * left + (width - ratio) * right) / width);
-  }
-
   private void adjustRate(float rate, int originalOutputFrameCount) {
     if (outputFrameCount == originalOutputFrameCount) {
       return;
@@ -367,15 +529,32 @@ import java.util.Arrays;
       oldSampleRate /= 2;
     }
     moveNewSamplesToPitchBuffer(originalOutputFrameCount);
+    // Make space for all the output up front. Each input frame produces at most
+    // newSampleRate / oldSampleRate output frames, plus one for rounding.
+    int maxNewFrameCount = (int) ((long) pitchFrameCount * newSampleRate / oldSampleRate) + 2;
+    ensureSpaceForAdditionalOutputFrames(maxNewFrameCount);
     // Leave at least one pitch sample in the buffer.
     for (int position = 0; position < pitchFrameCount - 1; position++) {
-      while ((oldRatePosition + 1) * newSampleRate > newRatePosition * oldSampleRate) {
-        outputBuffer =
-            ensureSpaceForAdditionalFrames(
-                outputBuffer, outputFrameCount, /* additionalFrameCount= */ 1);
-        for (int i = 0; i < channelCount; i++) {
-          outputBuffer[outputFrameCount * channelCount + i] =
-              interpolate(pitchBuffer, position * channelCount + i, oldSampleRate, newSampleRate);
+      int rightPosition = (oldRatePosition + 1) * newSampleRate;
+      int width = newSampleRate;
+      int inPosition = position * channelCount;
+      while (rightPosition > newRatePosition * oldSampleRate) {
+        // Interpolate all channels of the frame using the same weights.
+        int ratio = rightPosition - newRatePosition * oldSampleRate;
+        int outPosition = outputFrameCount * channelCount;
+        if (floatSamples) {
+          for (int i = 0; i < channelCount; i++) {
+            float left = floatPitchBuffer[inPosition + i];
+            float right = floatPitchBuffer[inPosition + channelCount + i];
+            floatOutputBuffer[outPosition + i] = (ratio * left + (width - ratio) * right) / width;
+          }
+        } else {
+          for (int i = 0; i < channelCount; i++) {
+            short left = pitchBuffer[inPosition + i];
+            short right = pitchBuffer[inPosition + channelCount + i];
+            outputBuffer[outPosition + i] =
+                (short) ((ratio * left + (width - ratio) * right) / width);
+          }
         }
         newRatePosition++;
         outputFrameCount++;
@@ -390,7 +569,7 @@ import java.util.Arrays;
     removePitchFrames(pitchFrameCount - 1);
   }
 
-  private int skipPitchPeriod(short[] samples, int position, float speed, int period) {
+  private int skipPitchPeriod(int position, float speed, int period) {
     // Skip over a pitch period, and copy period/speed samples to the output.
     int newFrameCount;
     if (speed >= 2.0f) {
@@ -399,21 +578,13 @@ import java.util.Arrays;
       newFrameCount = period;
       remainingInputToCopyFrameCount = (int) (period * (2.0f - speed) / (speed - 1.0f));
     }
-    outputBuffer = ensureSpaceForAdditionalFrames(outputBuffer, outputFrameCount, newFrameCount);
-    overlapAdd(
-        newFrameCount,
-        channelCount,
-        outputBuffer,
-        outputFrameCount,
-        samples,
-        position,
-        samples,
-        position + period);
+    ensureSpaceForAdditionalOutputFrames(newFrameCount);
+    overlapAdd(newFrameCount, outputFrameCount, position, position + period);
     outputFrameCount += newFrameCount;
     return newFrameCount;
   }
 
-  private int insertPitchPeriod(short[] samples, int position, float speed, int period) {
+  private int insertPitchPeriod(int position, float speed, int period) {
     // Insert a pitch period, and determine how much input to copy directly.
     int newFrameCount;
     if (speed < 0.5f) {
@@ -422,23 +593,14 @@ import java.util.Arrays;
       newFrameCount = period;
       remainingInputToCopyFrameCount = (int) (period * (2.0f * speed - 1.0f) / (1.0f - speed));
     }
-    outputBuffer =
-        ensureSpaceForAdditionalFrames(outputBuffer, outputFrameCount, period + newFrameCount);
+    ensureSpaceForAdditionalOutputFrames(period + newFrameCount);
     System.arraycopy(
-        samples,
+        getInputSamples(),
         position * channelCount,
-        outputBuffer,
+        getOutputSamples(),
         outputFrameCount * channelCount,
         period * channelCount);
-    overlapAdd(
-        newFrameCount,
-        channelCount,
-        outputBuffer,
-        outputFrameCount + period,
-        samples,
-        position + period,
-        samples,
-        position);
+    overlapAdd(newFrameCount, outputFrameCount + period, position + period, position);
     outputFrameCount += period + newFrameCount;
     return newFrameCount;
   }
@@ -453,11 +615,11 @@ import java.util.Arrays;
       if (remainingInputToCopyFrameCount > 0) {
         positionFrames += copyInputToOutput(positionFrames);
       } else {
-        int period = findPitchPeriod(inputBuffer, positionFrames);
+        int period = findPitchPeriod(positionFrames);
         if (speed > 1.0) {
-          positionFrames += period + skipPitchPeriod(inputBuffer, positionFrames, speed, period);
+          positionFrames += period + skipPitchPeriod(positionFrames, speed, period);
         } else {
-          positionFrames += insertPitchPeriod(inputBuffer, positionFrames, speed, period);
+          positionFrames += insertPitchPeriod(positionFrames, speed, period);
         }
       }
     } while (positionFrames + maxRequiredFrameCount <= frameCount);
@@ -472,7 +634,7 @@ import java.util.Arrays;
     if (s > 1.00001 || s < 0.99999) {
       changeSpeed(s);
     } else {
-      copyToOutput(inputBuffer, 0, inputFrameCount);
+      copyToOutput(0, inputFrameCount);
       inputFrameCount = 0;
     }
     if (r != 1.0f) {
@@ -480,6 +642,35 @@ import java.util.Arrays;
     }
   }
 
+  /**
+   * Writes {@code frameCount} output frames starting at {@code outPosition}, by fading from the
+   * input starting at {@code rampDownPosition} to the input starting at {@code rampUpPosition}.
+   */
+  private void overlapAdd(
+      int frameCount, int outPosition, int rampDownPosition, int rampUpPosition) {
+    if (floatSamples) {
+      overlapAdd(
+          frameCount,
+          channelCount,
+          floatOutputBuffer,
+          outPosition,
+          floatInputBuffer,
+          rampDownPosition,
+          floatInputBuffer,
+          rampUpPosition);
+    } else {
+      overlapAdd(
+          frameCount,
+          channelCount,
+          outputBuffer,
+          outPosition,
+          inputBuffer,
+          rampDownPosition,
+          inputBuffer,
+          rampUpPosition);
+    }
+  }
+
   private static void overlapAdd(
       int frameCount,
       int channelCount,
@@ -502,4 +693,26 @@ import java.util.Arrays;
     }
   }
 
+  private static void overlapAdd(
+      int frameCount,
+      int channelCount,
+      float[] out,
+      int outPosition,
+      float[] rampDown,
+      int rampDownPosition,
+      float[] rampUp,
+      int rampUpPosition) {
+    for (int i = 0; i < channelCount; i++) {
+      int o = outPosition * channelCount + i;
+      int u = rampUpPosition * channelCount + i;
+      int d = rampDownPosition * channelCount + i;
+      for (int t = 0; t < frameCount; t++) {
+        out[o] = (rampDown[d] * (frameCount - t) + rampUp[u] * t) / frameCount;
+        o += channelCount;
+        d += channelCount;
+        u += channelCount;
+      }
+    }
+  }
+
 }
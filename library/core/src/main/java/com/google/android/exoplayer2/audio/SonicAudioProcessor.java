@@ -23,10 +23,12 @@ import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.Util;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
 
 /**
  * An {@link AudioProcessor} that uses the Sonic library to modify audio speed/pitch/sample rate.
+ * Input and output are 16-bit integer or 32-bit float PCM.
  */
 public final class SonicAudioProcessor implements AudioProcessor {
 
@@ -64,6 +66,7 @@ public final class SonicAudioProcessor implements AudioProcessor {
 
   private int channelCount;
   private int sampleRateHz;
+  @C.PcmEncoding private int encoding;
   private float speed;
   private float pitch;
   private int outputSampleRateHz;
@@ -73,6 +76,7 @@ public final class SonicAudioProcessor implements AudioProcessor {
   @Nullable private Sonic sonic;
   private ByteBuffer buffer;
   private ShortBuffer shortBuffer;
+  private FloatBuffer floatBuffer;
   private ByteBuffer outputBuffer;
   private long inputBytes;
   private long outputBytes;
@@ -86,9 +90,11 @@ public final class SonicAudioProcessor implements AudioProcessor {
     pitch = 1f;
     channelCount = Format.NO_VALUE;
     sampleRateHz = Format.NO_VALUE;
+    encoding = Format.NO_VALUE;
     outputSampleRateHz = Format.NO_VALUE;
     buffer = EMPTY_BUFFER;
     shortBuffer = buffer.asShortBuffer();
+    floatBuffer = buffer.asFloatBuffer();
     outputBuffer = EMPTY_BUFFER;
     pendingOutputSampleRateHz = SAMPLE_RATE_NO_CHANGE;
   }
@@ -161,17 +167,18 @@ public final class SonicAudioProcessor implements AudioProcessor {
   @Override
   public boolean configure(int sampleRateHz, int channelCount, @Encoding int encoding)
       throws UnhandledFormatException {
-    if (encoding != C.ENCODING_PCM_16BIT) {
+    if (encoding != C.ENCODING_PCM_16BIT && encoding != C.ENCODING_PCM_FLOAT) {
       throw new UnhandledFormatException(sampleRateHz, channelCount, encoding);
     }
     int outputSampleRateHz = pendingOutputSampleRateHz == SAMPLE_RATE_NO_CHANGE
         ? sampleRateHz : pendingOutputSampleRateHz;
     if (this.sampleRateHz == sampleRateHz && this.channelCount == channelCount
-        && this.outputSampleRateHz == outputSampleRateHz) {
+        && this.encoding == encoding && this.outputSampleRateHz == outputSampleRateHz) {
       return false;
     }
     this.sampleRateHz = sampleRateHz;
     this.channelCount = channelCount;
+    this.encoding = encoding;
     this.outputSampleRateHz = outputSampleRateHz;
     pendingSonicRecreation = true;
     return true;
@@ -192,7 +199,7 @@ public final class SonicAudioProcessor implements AudioProcessor {
 
   @Override
   public int getOutputEncoding() {
-    return C.ENCODING_PCM_16BIT;
+    return encoding;
   }
 
   @Override
@@ -204,25 +211,14 @@ public final class SonicAudioProcessor implements AudioProcessor {
   public void queueInput(ByteBuffer inputBuffer) {
     Sonic sonic = Assertions.checkNotNull(this.sonic);
     if (inputBuffer.hasRemaining()) {
-      ShortBuffer shortBuffer = inputBuffer.asShortBuffer();
       int inputSize = inputBuffer.remaining();
       inputBytes += inputSize;
-      sonic.queueInput(shortBuffer);
-      inputBuffer.position(inputBuffer.position() + inputSize);
-    }
-    int outputSize = sonic.getFramesAvailable() * channelCount * 2;
-    if (outputSize > 0) {
-      if (buffer.capacity() < outputSize) {
-        buffer = ByteBuffer.allocateDirect(outputSize).order(ByteOrder.nativeOrder());
-        shortBuffer = buffer.asShortBuffer();
+      if (encoding == C.ENCODING_PCM_FLOAT) {
+        sonic.queueInput(inputBuffer.asFloatBuffer());
       } else {
-        buffer.clear();
-        shortBuffer.clear();
+        sonic.queueInput(inputBuffer.asShortBuffer());
       }
-      sonic.getOutput(shortBuffer);
-      outputBytes += outputSize;
-      buffer.limit(outputSize);
-      outputBuffer = buffer;
+      inputBuffer.position(inputBuffer.position() + inputSize);
     }
   }
 
@@ -236,6 +232,32 @@ public final class SonicAudioProcessor implements AudioProcessor {
 
   @Override
   public ByteBuffer getOutput() {
+    // Read output here rather than in queueInput, so that output generated by queueEndOfStream can
+    // be read without queueing more input.
+    @Nullable Sonic sonic = this.sonic;
+    int outputSize =
+        sonic != null
+            ? sonic.getFramesAvailable() * Util.getPcmFrameSize(encoding, channelCount)
+            : 0;
+    if (outputSize > 0) {
+      if (buffer.capacity() < outputSize) {
+        buffer = ByteBuffer.allocateDirect(outputSize).order(ByteOrder.nativeOrder());
+        shortBuffer = buffer.asShortBuffer();
+        floatBuffer = buffer.asFloatBuffer();
+      } else {
+        buffer.clear();
+        shortBuffer.clear();
+        floatBuffer.clear();
+      }
+      if (encoding == C.ENCODING_PCM_FLOAT) {
+        sonic.getOutput(floatBuffer);
+      } else {
+        sonic.getOutput(shortBuffer);
+      }
+      outputBytes += outputSize;
+      buffer.limit(outputSize);
+      outputBuffer = buffer;
+    }
     ByteBuffer outputBuffer = this.outputBuffer;
     this.outputBuffer = EMPTY_BUFFER;
     return outputBuffer;
@@ -250,7 +272,7 @@ public final class SonicAudioProcessor implements AudioProcessor {
   public void flush() {
     if (isActive()) {
       if (pendingSonicRecreation) {
-        sonic = new Sonic(sampleRateHz, channelCount, speed, pitch, outputSampleRateHz);
+        sonic = new Sonic(sampleRateHz, channelCount, encoding, speed, pitch, outputSampleRateHz);
       } else if (sonic != null) {
         sonic.flush();
       }
@@ -267,9 +289,11 @@ public final class SonicAudioProcessor implements AudioProcessor {
     pitch = 1f;
     channelCount = Format.NO_VALUE;
     sampleRateHz = Format.NO_VALUE;
+    encoding = Format.NO_VALUE;
     outputSampleRateHz = Format.NO_VALUE;
     buffer = EMPTY_BUFFER;
     shortBuffer = buffer.asShortBuffer();
+    floatBuffer = buffer.asFloatBuffer();
     outputBuffer = EMPTY_BUFFER;
     pendingOutputSampleRateHz = SAMPLE_RATE_NO_CHANGE;
     pendingSonicRecreation = false;
@@ -15,15 +15,21 @@
  */
 package com.google.android.exoplayer2.audio;
 
+import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.util.Util;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
-/** Audio processor for trimming samples from the start/end of data. */
+/**
+ * Audio processor for trimming samples from the start/end of data. Input must be 16-bit integer or
+ * 32-bit float PCM.
+ *
+ * <p>Only the frames held back to trim from the end are copied. Other input is output as a view of
+ * the input buffer, and is consumed once that output has been read.
+ */
 /* package */ final class TrimmingAudioProcessor extends BaseAudioProcessor {
 
-  @C.PcmEncoding private static final int OUTPUT_ENCODING = C.ENCODING_PCM_16BIT;
-
   private boolean isActive;
   private int trimStartFrames;
   private int trimEndFrames;
@@ -33,6 +39,7 @@ import java.nio.ByteBuffer;
   private int pendingTrimStartBytes;
   private byte[] endBuffer;
   private int endBufferSize;
+  @Nullable private ByteBuffer passThroughBuffer;
   private long trimmedFrameCount;
 
   /** Creates a new audio processor for trimming samples from the start/end of data. */
@@ -70,13 +77,13 @@ import java.nio.ByteBuffer;
   @Override
   public boolean configure(int sampleRateHz, int channelCount, @C.PcmEncoding int encoding)
       throws UnhandledFormatException {
-    if (encoding != OUTPUT_ENCODING) {
+    if (encoding != C.ENCODING_PCM_16BIT && encoding != C.ENCODING_PCM_FLOAT) {
       throw new UnhandledFormatException(sampleRateHz, channelCount, encoding);
     }
     if (endBufferSize > 0) {
       trimmedFrameCount += endBufferSize / bytesPerFrame;
     }
-    bytesPerFrame = Util.getPcmFrameSize(OUTPUT_ENCODING, channelCount);
+    bytesPerFrame = Util.getPcmFrameSize(encoding, channelCount);
     endBuffer = new byte[trimEndFrames * bytesPerFrame];
     endBufferSize = 0;
     pendingTrimStartBytes = trimStartFrames * bytesPerFrame;
@@ -94,6 +101,11 @@ import java.nio.ByteBuffer;
 
   @Override
   public void queueInput(ByteBuffer inputBuffer) {
+    if (passThroughBuffer != null) {
+      // Input that was passed through is consumed once it has been read from the output.
+      inputBuffer.position(passThroughBuffer.position());
+      passThroughBuffer = null;
+    }
     int position = inputBuffer.position();
     int limit = inputBuffer.limit();
     int remaining = limit - position;
@@ -119,27 +131,32 @@ import java.nio.ByteBuffer;
     // endBuffer as full as possible, the output should be any surplus bytes currently in endBuffer
     // followed by any surplus bytes in the new inputBuffer.
     int remainingBytesToOutput = endBufferSize + remaining - endBuffer.length;
-    ByteBuffer buffer = replaceOutputBuffer(remainingBytesToOutput);
+    if (remainingBytesToOutput > 0 && endBufferSize == 0) {
+      // Pass the surplus bytes in inputBuffer through without copying them. They are consumed when
+      // more input is queued, once the output has been read, so that they stay valid until then.
+      passThroughBuffer = inputBuffer.duplicate().order(ByteOrder.nativeOrder());
+      passThroughBuffer.limit(inputBuffer.position() + remainingBytesToOutput);
+      setOutputBuffer(passThroughBuffer);
+      return;
+    }
 
-    // Output from endBuffer.
+    // Output from endBuffer, then compact it.
     int endBufferBytesToOutput = Util.constrainValue(remainingBytesToOutput, 0, endBufferSize);
-    buffer.put(endBuffer, 0, endBufferBytesToOutput);
-    remainingBytesToOutput -= endBufferBytesToOutput;
-
-    // Output from inputBuffer, restoring its limit afterwards.
-    int inputBufferBytesToOutput = Util.constrainValue(remainingBytesToOutput, 0, remaining);
-    inputBuffer.limit(inputBuffer.position() + inputBufferBytesToOutput);
-    buffer.put(inputBuffer);
-    inputBuffer.limit(limit);
-    remaining -= inputBufferBytesToOutput;
-
-    // Compact endBuffer, then repopulate it using the new input.
-    endBufferSize -= endBufferBytesToOutput;
-    System.arraycopy(endBuffer, endBufferBytesToOutput, endBuffer, 0, endBufferSize);
+    if (endBufferBytesToOutput > 0) {
+      replaceOutputBuffer(endBufferBytesToOutput).put(endBuffer, 0, endBufferBytesToOutput).flip();
+      endBufferSize -= endBufferBytesToOutput;
+      System.arraycopy(endBuffer, endBufferBytesToOutput, endBuffer, 0, endBufferSize);
+      remainingBytesToOutput -= endBufferBytesToOutput;
+    }
+    if (remainingBytesToOutput > 0) {
+      // endBuffer is now empty, so the surplus bytes in inputBuffer will be passed through when it's
+      // queued again.
+      return;
+    }
+
+    // Repopulate endBuffer using the new input.
     inputBuffer.get(endBuffer, endBufferSize, remaining);
     endBufferSize += remaining;
-
-    buffer.flip();
   }
 
   @SuppressWarnings("ReferenceEquality")
@@ -174,6 +191,7 @@ import java.nio.ByteBuffer;
       pendingTrimStartBytes = 0;
     }
     endBufferSize = 0;
+    passThroughBuffer = null;
   }
 
   @Override
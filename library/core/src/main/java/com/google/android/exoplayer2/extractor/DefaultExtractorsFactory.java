@@ -15,6 +15,8 @@
  */
 package com.google.android.exoplayer2.extractor;
 
+import android.net.Uri;
+import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.extractor.amr.AmrExtractor;
 import com.google.android.exoplayer2.extractor.flv.FlvExtractor;
 import com.google.android.exoplayer2.extractor.mkv.MatroskaExtractor;
@@ -31,7 +33,11 @@ import com.google.android.exoplayer2.extractor.ts.TsExtractor;
 import com.google.android.exoplayer2.extractor.ts.TsPayloadReader;
 import com.google.android.exoplayer2.extractor.wav.WavExtractor;
 import com.google.android.exoplayer2.util.TimestampAdjuster;
+import com.google.android.exoplayer2.util.Util;
 import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * An {@link ExtractorsFactory} that provides an array of extractors for the following formats:
@@ -52,9 +58,31 @@ import java.lang.reflect.Constructor;
  *   <li>AMR ({@link AmrExtractor})
  *   <li>FLAC (only available if the FLAC extension is built and included)
  * </ul>
+ *
+ * <p>When created for a specific stream using {@link #createExtractors(Uri, Map)}, the extractors
+ * for the format indicated by the Content-Type response header and then those for the format
+ * indicated by the file extension of the {@link Uri} are moved to the front of the array, so that
+ * the stream is usually recognized by the first extractor that sniffs it.
  */
 public final class DefaultExtractorsFactory implements ExtractorsFactory {
 
+  private static final int FILE_TYPE_UNKNOWN = -1;
+  private static final int FILE_TYPE_MATROSKA = 0;
+  private static final int FILE_TYPE_MP4 = 1;
+  private static final int FILE_TYPE_MP3 = 2;
+  private static final int FILE_TYPE_ADTS = 3;
+  private static final int FILE_TYPE_AC3 = 4;
+  private static final int FILE_TYPE_TS = 5;
+  private static final int FILE_TYPE_FLV = 6;
+  private static final int FILE_TYPE_OGG = 7;
+  private static final int FILE_TYPE_PS = 8;
+  private static final int FILE_TYPE_WAV = 9;
+  private static final int FILE_TYPE_AMR = 10;
+  private static final int FILE_TYPE_AC4 = 11;
+  private static final int FILE_TYPE_FLAC = 12;
+
+  private static final String HEADER_CONTENT_TYPE = "Content-Type";
+
   private static final Constructor<? extends Extractor> FLAC_EXTRACTOR_CONSTRUCTOR;
   static {
     Constructor<? extends Extractor> flacExtractorConstructor = null;
@@ -83,6 +111,7 @@ public final class DefaultExtractorsFactory implements ExtractorsFactory {
   private @Mp3Extractor.Flags int mp3Flags;
   private @TsExtractor.Mode int tsMode;
   private @DefaultTsPayloadReaderFactory.Flags int tsFlags;
+  @Nullable private Executor tsElementaryStreamExecutor;
 
   public DefaultExtractorsFactory() {
     tsMode = TsExtractor.MODE_SINGLE_PMT;
@@ -206,6 +235,20 @@ public final class DefaultExtractorsFactory implements ExtractorsFactory {
     return this;
   }
 
+  /**
+   * Sets the {@link Executor} on which {@link TsExtractor} instances created by the factory read
+   * elementary streams, or null to read them on the loading thread.
+   *
+   * @see TsExtractor#TsExtractor(int, TimestampAdjuster, TsPayloadReader.Factory, Executor)
+   * @param elementaryStreamExecutor The {@link Executor} to use, or null.
+   * @return The factory, for convenience.
+   */
+  public synchronized DefaultExtractorsFactory setTsExtractorElementaryStreamExecutor(
+      @Nullable Executor elementaryStreamExecutor) {
+    tsElementaryStreamExecutor = elementaryStreamExecutor;
+    return this;
+  }
+
   @Override
   public synchronized Extractor[] createExtractors() {
     Extractor[] extractors = new Extractor[FLAC_EXTRACTOR_CONSTRUCTOR == null ? 13 : 14];
@@ -226,7 +269,12 @@ public final class DefaultExtractorsFactory implements ExtractorsFactory {
                     ? AdtsExtractor.FLAG_ENABLE_CONSTANT_BITRATE_SEEKING
                     : 0));
     extractors[5] = new Ac3Extractor();
-    extractors[6] = new TsExtractor(tsMode, tsFlags);
+    extractors[6] =
+        new TsExtractor(
+            tsMode,
+            new TimestampAdjuster(/* firstSampleTimestampUs= */ 0),
+            new DefaultTsPayloadReaderFactory(tsFlags),
+            tsElementaryStreamExecutor);
     extractors[7] = new FlvExtractor();
     extractors[8] = new OggExtractor();
     extractors[9] = new PsExtractor();
@@ -249,4 +297,205 @@ public final class DefaultExtractorsFactory implements ExtractorsFactory {
     return extractors;
   }
 
+  @Override
+  public Extractor[] createExtractors(Uri uri, Map<String, List<String>> responseHeaders) {
+    Extractor[] extractors = createExtractors();
+    int mimeTypeFileType = getFileTypeFromMimeType(getMimeType(responseHeaders));
+    int extensionFileType = getFileTypeFromExtension(uri.getLastPathSegment());
+    int firstUnsortedIndex = moveToFront(extractors, /* startIndex= */ 0, mimeTypeFileType);
+    if (extensionFileType != mimeTypeFileType) {
+      moveToFront(extractors, firstUnsortedIndex, extensionFileType);
+    }
+    return extractors;
+  }
+
+  // Internal methods.
+
+  /**
+   * Moves the extractors for {@code fileType} at or after {@code startIndex} to {@code startIndex},
+   * keeping the relative order of all extractors otherwise unchanged.
+   *
+   * @return The index after the last extractor that was moved.
+   */
+  private static int moveToFront(Extractor[] extractors, int startIndex, int fileType) {
+    if (fileType == FILE_TYPE_UNKNOWN) {
+      return startIndex;
+    }
+    for (int i = startIndex; i < extractors.length; i++) {
+      Extractor extractor = extractors[i];
+      if (getFileType(extractor) == fileType) {
+        System.arraycopy(extractors, startIndex, extractors, startIndex + 1, i - startIndex);
+        extractors[startIndex++] = extractor;
+      }
+    }
+    return startIndex;
+  }
+
+  private static int getFileType(Extractor extractor) {
+    if (extractor instanceof MatroskaExtractor) {
+      return FILE_TYPE_MATROSKA;
+    } else if (extractor instanceof FragmentedMp4Extractor || extractor instanceof Mp4Extractor) {
+      return FILE_TYPE_MP4;
+    } else if (extractor instanceof Mp3Extractor) {
+      return FILE_TYPE_MP3;
+    } else if (extractor instanceof AdtsExtractor) {
+      return FILE_TYPE_ADTS;
+    } else if (extractor instanceof Ac3Extractor) {
+      return FILE_TYPE_AC3;
+    } else if (extractor instanceof TsExtractor) {
+      return FILE_TYPE_TS;
+    } else if (extractor instanceof FlvExtractor) {
+      return FILE_TYPE_FLV;
+    } else if (extractor instanceof OggExtractor) {
+      return FILE_TYPE_OGG;
+    } else if (extractor instanceof PsExtractor) {
+      return FILE_TYPE_PS;
+    } else if (extractor instanceof WavExtractor) {
+      return FILE_TYPE_WAV;
+    } else if (extractor instanceof AmrExtractor) {
+      return FILE_TYPE_AMR;
+    } else if (extractor instanceof Ac4Extractor) {
+      return FILE_TYPE_AC4;
+    } else if (FLAC_EXTRACTOR_CONSTRUCTOR != null
+        && FLAC_EXTRACTOR_CONSTRUCTOR.getDeclaringClass().isInstance(extractor)) {
+      return FILE_TYPE_FLAC;
+    } else {
+      return FILE_TYPE_UNKNOWN;
+    }
+  }
+
+  @Nullable
+  private static String getMimeType(Map<String, List<String>> responseHeaders) {
+    for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+      // Header names are case-insensitive, and the key of the status line is null.
+      if (HEADER_CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+        List<String> values = header.getValue();
+        if (values == null || values.isEmpty()) {
+          return null;
+        }
+        String contentType = values.get(0);
+        int parametersIndex = contentType.indexOf(';');
+        if (parametersIndex != -1) {
+          contentType = contentType.substring(0, parametersIndex);
+        }
+        return Util.toLowerInvariant(contentType.trim());
+      }
+    }
+    return null;
+  }
+
+  private static int getFileTypeFromMimeType(@Nullable String mimeType) {
+    if (mimeType == null) {
+      return FILE_TYPE_UNKNOWN;
+    }
+    switch (mimeType) {
+      case "video/x-matroska":
+      case "audio/x-matroska":
+      case "video/webm":
+      case "audio/webm":
+        return FILE_TYPE_MATROSKA;
+      case "video/mp4":
+      case "audio/mp4":
+      case "application/mp4":
+      case "video/quicktime":
+        return FILE_TYPE_MP4;
+      case "audio/mpeg":
+      case "audio/mp3":
+        return FILE_TYPE_MP3;
+      case "audio/aac":
+      case "audio/x-aac":
+      case "audio/aacp":
+        return FILE_TYPE_ADTS;
+      case "audio/ac3":
+      case "audio/eac3":
+        return FILE_TYPE_AC3;
+      case "video/mp2t":
+        return FILE_TYPE_TS;
+      case "video/x-flv":
+        return FILE_TYPE_FLV;
+      case "audio/ogg":
+      case "video/ogg":
+      case "application/ogg":
+        return FILE_TYPE_OGG;
+      case "video/mpeg":
+      case "video/mp2p":
+        return FILE_TYPE_PS;
+      case "audio/wav":
+      case "audio/wave":
+      case "audio/x-wav":
+        return FILE_TYPE_WAV;
+      case "audio/amr":
+      case "audio/amr-wb":
+        return FILE_TYPE_AMR;
+      case "audio/ac4":
+        return FILE_TYPE_AC4;
+      case "audio/flac":
+      case "audio/x-flac":
+        return FILE_TYPE_FLAC;
+      default:
+        return FILE_TYPE_UNKNOWN;
+    }
+  }
+
+  private static int getFileTypeFromExtension(@Nullable String fileName) {
+    if (fileName == null) {
+      return FILE_TYPE_UNKNOWN;
+    }
+    int extensionIndex = fileName.lastIndexOf('.');
+    if (extensionIndex == -1) {
+      return FILE_TYPE_UNKNOWN;
+    }
+    switch (Util.toLowerInvariant(fileName.substring(extensionIndex + 1))) {
+      case "mkv":
+      case "mka":
+      case "mk3d":
+      case "webm":
+        return FILE_TYPE_MATROSKA;
+      case "mp4":
+      case "m4a":
+      case "m4v":
+      case "mov":
+      case "3gp":
+      case "m4s":
+      case "cmfv":
+      case "cmfa":
+        return FILE_TYPE_MP4;
+      case "mp3":
+        return FILE_TYPE_MP3;
+      case "aac":
+      case "adts":
+        return FILE_TYPE_ADTS;
+      case "ac3":
+      case "ec3":
+      case "eac3":
+        return FILE_TYPE_AC3;
+      case "ts":
+      case "mts":
+      case "m2ts":
+        return FILE_TYPE_TS;
+      case "flv":
+        return FILE_TYPE_FLV;
+      case "ogg":
+      case "oga":
+      case "ogv":
+      case "opus":
+        return FILE_TYPE_OGG;
+      case "ps":
+      case "mpg":
+      case "mpeg":
+      case "vob":
+        return FILE_TYPE_PS;
+      case "wav":
+      case "wave":
+        return FILE_TYPE_WAV;
+      case "amr":
+        return FILE_TYPE_AMR;
+      case "ac4":
+        return FILE_TYPE_AC4;
+      case "flac":
+        return FILE_TYPE_FLAC;
+      default:
+        return FILE_TYPE_UNKNOWN;
+    }
+  }
 }
@@ -15,9 +15,28 @@
  */
 package com.google.android.exoplayer2.extractor;
 
+import android.net.Uri;
+import java.util.List;
+import java.util.Map;
+
 /** Factory for arrays of {@link Extractor} instances. */
 public interface ExtractorsFactory {
 
   /** Returns an array of new {@link Extractor} instances. */
   Extractor[] createExtractors();
+
+  /**
+   * Returns an array of new {@link Extractor} instances to read the stream at the specified {@link
+   * Uri}. Extractors that are more likely to read the stream should come first, as they are tried
+   * in order.
+   *
+   * <p>The default implementation returns {@link #createExtractors()}.
+   *
+   * @param uri The {@link Uri} of the media stream.
+   * @param responseHeaders The response headers of the media stream, which may be empty.
+   * @return The {@link Extractor} instances.
+   */
+  default Extractor[] createExtractors(Uri uri, Map<String, List<String>> responseHeaders) {
+    return createExtractors();
+  }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor;
+
+import androidx.annotation.Nullable;
+
+/**
+ * An {@link Extractor} whose state after reading the stream headers can be saved, so that a later
+ * instance reading the same stream can skip parsing the headers.
+ */
+public interface RestorableExtractor extends Extractor {
+
+  /**
+   * Returns the state of the extractor after reading the stream headers, or {@code null} if the
+   * headers have not been read yet. The state may be large and expensive to create, so callers
+   * should only request it once it's needed.
+   */
+  @Nullable
+  byte[] getHeaderState();
+
+  /**
+   * Restores the state returned by {@link #getHeaderState()} for the same stream. Must be called
+   * before {@link #init(ExtractorOutput)}. If successful, the formats and seek map are output from
+   * {@link #init(ExtractorOutput)}, and reading starts from the first sample when the extractor is
+   * seeked to the start of the stream.
+   *
+   * @param state The state to restore.
+   * @param inputLength The length of the stream, in bytes.
+   * @return Whether the state was restored. If {@code false}, the state was invalid or inconsistent
+   *     with the stream, and the extractor is unchanged.
+   */
+  boolean restoreHeaderState(byte[] state, long inputLength);
+}
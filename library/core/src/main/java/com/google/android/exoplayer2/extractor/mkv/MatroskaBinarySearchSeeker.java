@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor.mkv;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.extractor.BinarySearchSeeker;
+import com.google.android.exoplayer2.extractor.ExtractorInput;
+import com.google.android.exoplayer2.util.Util;
+import java.io.IOException;
+
+/**
+ * A seeker that supports seeking within Matroska streams that don't contain a Cues element, using
+ * binary search over the Cluster elements.
+ *
+ * <p>This seeker interpolates the position of the seek target from the stream duration, then scans
+ * forward from the interpolated position for Cluster elements, and reads their Timecode elements.
+ * Seeking always finishes at the start of a Cluster element, or at the start of the content of the
+ * first Cluster element, so that the extractor can resume parsing from there.
+ */
+/* package */ final class MatroskaBinarySearchSeeker extends BinarySearchSeeker {
+
+  private static final long SEEK_TOLERANCE_US = 100_000;
+  private static final int MINIMUM_SEARCH_RANGE_BYTES = 1000;
+  private static final int APPROX_BYTES_PER_FRAME = 1000;
+
+  /**
+   * @param timecodeScale The value of the TimecodeScale element, in nanoseconds.
+   * @param durationUs The duration of the stream, in microseconds.
+   * @param firstClusterContentPosition The position of the content of the first Cluster element.
+   * @param endPosition The position of the end of the Segment element, or of the input if it ends
+   *     earlier.
+   */
+  public MatroskaBinarySearchSeeker(
+      long timecodeScale, long durationUs, long firstClusterContentPosition, long endPosition) {
+    super(
+        new DefaultSeekTimestampConverter(),
+        new ClusterTimecodeSeeker(timecodeScale, durationUs, endPosition),
+        durationUs,
+        /* floorTimePosition= */ 0,
+        /* ceilingTimePosition= */ durationUs + 1,
+        /* floorBytePosition= */ firstClusterContentPosition,
+        /* ceilingBytePosition= */ endPosition,
+        APPROX_BYTES_PER_FRAME,
+        MINIMUM_SEARCH_RANGE_BYTES);
+  }
+
+  /**
+   * A seeker that looks for the Cluster element that contains a given timestamp.
+   *
+   * <p>Given a position within the stream, this seeker scans forward for Cluster elements until it
+   * finds one whose timecode is after the target, and then compares the timecodes of the Cluster
+   * elements it found to the target timestamp. It never reports that no timestamp was found,
+   * because the search would then finish at a position that's not the start of a Cluster element.
+   */
+  private static final class ClusterTimecodeSeeker implements TimestampSeeker {
+
+    /** The number of bytes that are scanned before reporting an underestimated position. */
+    private static final int TIMESTAMP_SEARCH_BYTES = 20_000;
+    private static final int SCAN_BUFFER_SIZE = 4096;
+    /**
+     * The maximum size of the header of a Cluster element that's parsed to read its timecode. This
+     * is the Cluster ID, the Cluster size, an optional CRC-32 element and the Timecode element.
+     */
+    private static final int MAX_CLUSTER_HEADER_SIZE = 4 + 8 + 6 + 10;
+
+    private static final int ID_CLUSTER = 0x1F43B675;
+    private static final int ID_CRC32 = 0xBF;
+    private static final int ID_TIME_CODE = 0xE7;
+    private static final long UNKNOWN_CONTENT_SIZE = 0xFFFFFFFFFFFFFFL;
+
+    private final long timecodeScale;
+    private final long durationUs;
+    private final long endPosition;
+    private final byte[] scanBuffer;
+
+    private ClusterTimecodeSeeker(long timecodeScale, long durationUs, long endPosition) {
+      this.timecodeScale = timecodeScale;
+      this.durationUs = durationUs;
+      this.endPosition = endPosition;
+      scanBuffer = new byte[SCAN_BUFFER_SIZE];
+    }
+
+    @Override
+    public TimestampSearchResult searchForTimestamp(
+        ExtractorInput input, long targetTimeUs, OutputFrameHolder outputFrameHolder)
+        throws IOException, InterruptedException {
+      long searchStartPosition = input.getPosition();
+      long lastClusterPosition = C.POSITION_UNSET;
+      long lastClusterTimeUs = C.TIME_UNSET;
+      while (true) {
+        long bufferPosition = input.getPosition();
+        int bufferLength = (int) Math.min(SCAN_BUFFER_SIZE, endPosition - bufferPosition);
+        if (bufferLength <= 0) {
+          break;
+        }
+        input.peekFully(scanBuffer, /* offset= */ 0, bufferLength);
+        boolean isLastBuffer = bufferPosition + bufferLength == endPosition;
+        // Cluster headers that start near the end of the buffer are scanned again in the next one.
+        int scanLength = isLastBuffer ? bufferLength : bufferLength - MAX_CLUSTER_HEADER_SIZE;
+        for (int offset = 0; offset < scanLength; offset++) {
+          long clusterTimeUs = peekClusterTimeUs(bufferPosition, offset, bufferLength);
+          if (clusterTimeUs == C.TIME_UNSET) {
+            continue;
+          }
+          long clusterPosition = bufferPosition + offset;
+          if (clusterTimeUs > targetTimeUs) {
+            return lastClusterPosition == C.POSITION_UNSET
+                // The first Cluster found is already after the target.
+                ? TimestampSearchResult.overestimatedResult(clusterTimeUs, searchStartPosition)
+                // Last Cluster timecode <= target timestamp < this Cluster timecode.
+                : TimestampSearchResult.targetFoundResult(lastClusterPosition);
+          } else if (clusterTimeUs + SEEK_TOLERANCE_US > targetTimeUs) {
+            return TimestampSearchResult.targetFoundResult(clusterPosition);
+          }
+          lastClusterPosition = clusterPosition;
+          lastClusterTimeUs = clusterTimeUs;
+        }
+        if (isLastBuffer) {
+          break;
+        }
+        input.skipFully(scanLength);
+        if (lastClusterPosition > searchStartPosition
+            && input.getPosition() - searchStartPosition >= TIMESTAMP_SEARCH_BYTES) {
+          // The floor must move forward, so this is only reported for Clusters after the start.
+          return TimestampSearchResult.underestimatedResult(lastClusterTimeUs, lastClusterPosition);
+        }
+      }
+      return lastClusterPosition == C.POSITION_UNSET
+          // There are no Cluster elements after the start, so the target is before it.
+          ? TimestampSearchResult.overestimatedResult(targetTimeUs, searchStartPosition)
+          // The last Cluster in the stream is before the target.
+          : TimestampSearchResult.targetFoundResult(lastClusterPosition);
+    }
+
+    /**
+     * Returns the timecode in microseconds of the Cluster element at the specified offset in the
+     * scan buffer, or {@link C#TIME_UNSET} if there isn't a valid Cluster header at the offset.
+     *
+     * @param bufferPosition The position in the stream of the start of the scan buffer.
+     * @param offset The offset in the scan buffer.
+     * @param limit The limit of the data in the scan buffer.
+     */
+    private long peekClusterTimeUs(long bufferPosition, int offset, int limit) {
+      long position = bufferPosition + offset;
+      if (offset + 4 > limit || peekInt(offset) != ID_CLUSTER) {
+        return C.TIME_UNSET;
+      }
+      offset += 4;
+      int sizeLength = getVarintLength(offset, limit);
+      if (sizeLength == C.LENGTH_UNSET) {
+        return C.TIME_UNSET;
+      }
+      long clusterSize = getVarintValue(offset, sizeLength);
+      offset += sizeLength;
+      if (clusterSize != UNKNOWN_CONTENT_SIZE && clusterSize > endPosition - position) {
+        return C.TIME_UNSET;
+      }
+      if (offset + 2 <= limit
+          && (scanBuffer[offset] & 0xFF) == ID_CRC32
+          && (scanBuffer[offset + 1] & 0xFF) == 0x84) {
+        offset += 6;
+      }
+      if (offset + 2 > limit || (scanBuffer[offset] & 0xFF) != ID_TIME_CODE) {
+        return C.TIME_UNSET;
+      }
+      offset++;
+      int timecodeSizeLength = getVarintLength(offset, limit);
+      if (timecodeSizeLength != 1) {
+        return C.TIME_UNSET;
+      }
+      int timecodeLength = (int) getVarintValue(offset, timecodeSizeLength);
+      offset++;
+      if (timecodeLength < 1 || timecodeLength > 8 || offset + timecodeLength > limit) {
+        return C.TIME_UNSET;
+      }
+      long timecode = 0;
+      for (int i = 0; i < timecodeLength; i++) {
+        timecode = (timecode << 8) | (scanBuffer[offset + i] & 0xFF);
+      }
+      if (timecode < 0) {
+        return C.TIME_UNSET;
+      }
+      long timeUs = Util.scaleLargeTimestamp(timecode, timecodeScale, 1000);
+      return timeUs <= durationUs ? timeUs : C.TIME_UNSET;
+    }
+
+    private int peekInt(int offset) {
+      return (scanBuffer[offset] & 0xFF) << 24
+          | (scanBuffer[offset + 1] & 0xFF) << 16
+          | (scanBuffer[offset + 2] & 0xFF) << 8
+          | (scanBuffer[offset + 3] & 0xFF);
+    }
+
+    private int getVarintLength(int offset, int limit) {
+      if (offset >= limit) {
+        return C.LENGTH_UNSET;
+      }
+      int length = VarintReader.parseUnsignedVarintLength(scanBuffer[offset] & 0xFF);
+      return length != C.LENGTH_UNSET && offset + length <= limit ? length : C.LENGTH_UNSET;
+    }
+
+    private long getVarintValue(int offset, int length) {
+      long value = scanBuffer[offset] & (0xFF >> length);
+      for (int i = 1; i < length; i++) {
+        value = (value << 8) | (scanBuffer[offset + i] & 0xFF);
+      }
+      return value;
+    }
+  }
+}
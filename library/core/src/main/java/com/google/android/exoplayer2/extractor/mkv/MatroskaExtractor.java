@@ -330,6 +330,7 @@ public class MatroskaExtractor implements Extractor {
   private long timecodeScale = C.TIME_UNSET;
   private long durationTimecode = C.TIME_UNSET;
   private long durationUs = C.TIME_UNSET;
+  private long inputLength = C.LENGTH_UNSET;
 
   // The track corresponding to the current TrackEntry element, or null.
   private Track currentTrack;
@@ -350,6 +351,9 @@ public class MatroskaExtractor implements Extractor {
   private LongArray cueClusterPositions;
   private boolean seenClusterPositionForCurrentCuePoint;
 
+  // Used for seeking if the Cues element is omitted.
+  @Nullable private MatroskaBinarySearchSeeker binarySearchSeeker;
+
   // Block reading state.
   private int blockState;
   private long blockTimeUs;
@@ -417,6 +421,9 @@ public class MatroskaExtractor implements Extractor {
   @Override
   public void seek(long position, long timeUs) {
     clusterTimecodeUs = C.TIME_UNSET;
+    if (binarySearchSeeker != null) {
+      binarySearchSeeker.setSeekTargetUs(timeUs);
+    }
     blockState = BLOCK_STATE_START;
     reader.reset();
     varintReader.reset();
@@ -434,6 +441,11 @@ public class MatroskaExtractor implements Extractor {
   @Override
   public final int read(ExtractorInput input, PositionHolder seekPosition)
       throws IOException, InterruptedException {
+    inputLength = input.getLength();
+    if (binarySearchSeeker != null && binarySearchSeeker.isSeeking()) {
+      return binarySearchSeeker.handlePendingSeek(
+          input, seekPosition, /* outputFrameHolder= */ null);
+    }
     sampleRead = false;
     boolean continueReading = true;
     while (continueReading && !sampleRead) {
@@ -598,9 +610,8 @@ public class MatroskaExtractor implements Extractor {
             // We know where the Cues element is located. Seek to request it.
             seekForCues = true;
           } else {
-            // We don't know where the Cues element is located. It's most likely omitted. Allow
-            // playback, but disable seeking.
-            extractorOutput.seekMap(new SeekMap.Unseekable(durationUs));
+            // We don't know where the Cues element is located. It's most likely omitted.
+            extractorOutput.seekMap(buildClusterSeekMap(contentPosition));
             sentSeekMap = true;
           }
         }
@@ -1501,6 +1512,30 @@ public class MatroskaExtractor implements Extractor {
     return new ChunkIndex(sizes, offsets, durationsUs, timesUs);
   }
 
+  /**
+   * Builds a {@link SeekMap} for media that doesn't have a Cues element, which seeks using binary
+   * search over the Cluster elements.
+   *
+   * @param firstClusterContentPosition The position of the content of the first Cluster element.
+   * @return The built {@link SeekMap}. The returned {@link SeekMap} is unseekable if the duration
+   *     or the length of the input is unknown, or if a Cues element exists but seeking for it is
+   *     disabled.
+   */
+  private SeekMap buildClusterSeekMap(long firstClusterContentPosition) {
+    if (durationUs == C.TIME_UNSET
+        || cuesContentPosition != C.POSITION_UNSET
+        || inputLength == C.LENGTH_UNSET) {
+      // Seeking for cues is disabled, or we can't interpolate positions. Allow playback, but
+      // disable seeking.
+      return new SeekMap.Unseekable(durationUs);
+    }
+    long endPosition = Math.min(inputLength, segmentContentPosition + segmentContentSize);
+    binarySearchSeeker =
+        new MatroskaBinarySearchSeeker(
+            timecodeScale, durationUs, firstClusterContentPosition, endPosition);
+    return binarySearchSeeker.getSeekMap();
+  }
+
   /**
    * Updates the position of the holder to Cues element's position if the extractor configuration
    * permits use of master seek entry. After building Cues sets the holder's position back to where
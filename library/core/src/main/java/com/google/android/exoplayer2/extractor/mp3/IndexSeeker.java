@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor.mp3;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.extractor.SeekPoint;
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.EnsuresNonNullIf;
+
+/**
+ * MP3 seeker that builds a time-to-byte index of the frames that have been read.
+ *
+ * <p>The index initially holds at most one point every {@link #MIN_TIME_BETWEEN_POINTS_US}. It
+ * holds at most {@link #MAX_POINT_COUNT} points, which use 64 kB. When it's full, every other
+ * point is dropped and the minimum time between points is doubled.
+ *
+ * <p>Seeking within the indexed region is exact. Seeking beyond it uses the fallback seeker, if
+ * it's seekable and its position for the seek time is beyond the index. Otherwise the last indexed
+ * point is returned, from which the extractor reads forward to the seek target.
+ *
+ * <p>The index is added to by the loading thread, and may be queried from other threads.
+ */
+/* package */ final class IndexSeeker implements Mp3Extractor.Seeker {
+
+  @VisibleForTesting
+  /* package */ static final long MIN_TIME_BETWEEN_POINTS_US = C.MICROS_PER_SECOND;
+  @VisibleForTesting /* package */ static final int MAX_POINT_COUNT = 4096;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  @Nullable private final Mp3Extractor.Seeker fallbackSeeker;
+  private final long dataEndPosition;
+
+  private long[] timesUs;
+  private long[] positions;
+  private int size;
+  private long minTimeBetweenPointsUs;
+  private volatile long durationUs;
+
+  /**
+   * @param fallbackSeeker The seeker derived from metadata in the stream, or null. It is used for
+   *     the duration and for seeking beyond the indexed region.
+   * @param dataStartPosition The position of the start of the first frame in the stream.
+   */
+  public IndexSeeker(@Nullable Mp3Extractor.Seeker fallbackSeeker, long dataStartPosition) {
+    this.fallbackSeeker = fallbackSeeker;
+    durationUs = fallbackSeeker != null ? fallbackSeeker.getDurationUs() : C.TIME_UNSET;
+    dataEndPosition =
+        fallbackSeeker != null ? fallbackSeeker.getDataEndPosition() : C.POSITION_UNSET;
+    timesUs = new long[INITIAL_CAPACITY];
+    positions = new long[INITIAL_CAPACITY];
+    timesUs[0] = 0;
+    positions[0] = dataStartPosition;
+    size = 1;
+    minTimeBetweenPointsUs = MIN_TIME_BETWEEN_POINTS_US;
+  }
+
+  @Override
+  public synchronized long getTimeUs(long position) {
+    if (position > positions[size - 1] && isFallbackSeekable()) {
+      return fallbackSeeker.getTimeUs(position);
+    }
+    return timesUs[binarySearchFloor(positions, position)];
+  }
+
+  @Override
+  public long getDataEndPosition() {
+    return dataEndPosition;
+  }
+
+  @Override
+  public boolean isSeekable() {
+    return true;
+  }
+
+  @Override
+  public long getDurationUs() {
+    return durationUs;
+  }
+
+  @Override
+  public synchronized SeekPoints getSeekPoints(long timeUs) {
+    if (!isTimeUsInIndex(timeUs) && isFallbackSeekable()) {
+      SeekPoints fallbackSeekPoints = fallbackSeeker.getSeekPoints(timeUs);
+      if (fallbackSeekPoints.first.position > positions[size - 1]) {
+        // Reading forward from the last indexed point would take longer than seeking.
+        return fallbackSeekPoints;
+      }
+    }
+    int index = binarySearchFloor(timesUs, timeUs);
+    SeekPoint seekPoint = new SeekPoint(timesUs[index], positions[index]);
+    if (seekPoint.timeUs == timeUs || index == size - 1) {
+      return new SeekPoints(seekPoint);
+    } else {
+      return new SeekPoints(seekPoint, new SeekPoint(timesUs[index + 1], positions[index + 1]));
+    }
+  }
+
+  /**
+   * Adds a point to the index, unless it's before or within the minimum time between points of the
+   * last indexed point.
+   *
+   * @param timeUs The start time of a frame, in microseconds.
+   * @param position The position of the start of the frame.
+   */
+  public synchronized void maybeAddSeekPoint(long timeUs, long position) {
+    if (isTimeUsInIndex(timeUs)) {
+      return;
+    }
+    if (size == MAX_POINT_COUNT) {
+      // Halve the resolution of the index, rather than letting it grow without limit.
+      int newSize = 0;
+      for (int i = 0; i < size; i += 2) {
+        timesUs[newSize] = timesUs[i];
+        positions[newSize] = positions[i];
+        newSize++;
+      }
+      size = newSize;
+      minTimeBetweenPointsUs *= 2;
+      if (isTimeUsInIndex(timeUs)) {
+        return;
+      }
+    } else if (size == timesUs.length) {
+      int capacity = Math.min(size * 2, MAX_POINT_COUNT);
+      timesUs = Arrays.copyOf(timesUs, capacity);
+      positions = Arrays.copyOf(positions, capacity);
+    }
+    timesUs[size] = timeUs;
+    positions[size] = position;
+    size++;
+  }
+
+  /**
+   * Returns whether {@code timeUs} is within the indexed region, meaning that the exact position of
+   * a frame at or before it is known.
+   *
+   * @param timeUs The time, in microseconds.
+   */
+  public synchronized boolean isTimeUsInIndex(long timeUs) {
+    return timeUs - timesUs[size - 1] < minTimeBetweenPointsUs;
+  }
+
+  /**
+   * Returns whether {@code position} is at or before the last indexed point, meaning that reading
+   * forward from it will read the frames that follow the indexed region.
+   *
+   * @param position The position, in bytes.
+   */
+  public synchronized boolean isPositionInIndex(long position) {
+    return position <= positions[size - 1];
+  }
+
+  /**
+   * Sets the duration of the stream.
+   *
+   * @param durationUs The duration, in microseconds.
+   */
+  public void setDurationUs(long durationUs) {
+    this.durationUs = durationUs;
+  }
+
+  @EnsuresNonNullIf(result = true, expression = "fallbackSeeker")
+  private boolean isFallbackSeekable() {
+    return fallbackSeeker != null && fallbackSeeker.isSeekable();
+  }
+
+  private int binarySearchFloor(long[] values, long value) {
+    int index = Arrays.binarySearch(values, /* fromIndex= */ 0, /* toIndex= */ size, value);
+    return index >= 0 ? index : Math.max(0, -(index + 2));
+  }
+}
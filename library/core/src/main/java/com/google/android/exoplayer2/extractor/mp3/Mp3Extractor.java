@@ -20,6 +20,7 @@ import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Format;
 import com.google.android.exoplayer2.ParserException;
+import com.google.android.exoplayer2.extractor.DummyTrackOutput;
 import com.google.android.exoplayer2.extractor.Extractor;
 import com.google.android.exoplayer2.extractor.ExtractorInput;
 import com.google.android.exoplayer2.extractor.ExtractorOutput;
@@ -52,13 +53,18 @@ public final class Mp3Extractor implements Extractor {
 
   /**
    * Flags controlling the behavior of the extractor. Possible flag values are {@link
-   * #FLAG_ENABLE_CONSTANT_BITRATE_SEEKING} and {@link #FLAG_DISABLE_ID3_METADATA}.
+   * #FLAG_ENABLE_CONSTANT_BITRATE_SEEKING}, {@link #FLAG_DISABLE_ID3_METADATA} and {@link
+   * #FLAG_ENABLE_INDEX_SEEKING}.
    */
   @Documented
   @Retention(RetentionPolicy.SOURCE)
   @IntDef(
       flag = true,
-      value = {FLAG_ENABLE_CONSTANT_BITRATE_SEEKING, FLAG_DISABLE_ID3_METADATA})
+      value = {
+        FLAG_ENABLE_CONSTANT_BITRATE_SEEKING,
+        FLAG_DISABLE_ID3_METADATA,
+        FLAG_ENABLE_INDEX_SEEKING
+      })
   public @interface Flags {}
   /**
    * Flag to force enable seeking using a constant bitrate assumption in cases where seeking would
@@ -70,6 +76,14 @@ public final class Mp3Extractor implements Extractor {
    * required.
    */
   public static final int FLAG_DISABLE_ID3_METADATA = 2;
+  /**
+   * Flag to enable seeking using an index of the frames that have been read, which is built during
+   * playback. Seeking within the indexed region is exact. Seeking beyond it uses the seeking
+   * method that would be used without this flag, if that method supports seeking. Otherwise seeking
+   * beyond the indexed region is exact too, but requires reading the stream from the end of the
+   * indexed region up to the seek position.
+   */
+  public static final int FLAG_ENABLE_INDEX_SEEKING = 4;
 
   /** Predicate that matches ID3 frames containing only required gapless/seeking metadata. */
   private static final FramePredicate REQUIRED_ID3_FRAME_PREDICATE =
@@ -106,10 +120,12 @@ public final class Mp3Extractor implements Extractor {
   private final MpegAudioHeader synchronizedHeader;
   private final GaplessInfoHolder gaplessInfoHolder;
   private final Id3Peeker id3Peeker;
+  private final TrackOutput skippingTrackOutput;
 
   // Extractor outputs.
   private ExtractorOutput extractorOutput;
-  private TrackOutput trackOutput;
+  private TrackOutput realTrackOutput;
+  private TrackOutput currentTrackOutput;
 
   private int synchronizedHeaderData;
 
@@ -118,6 +134,9 @@ public final class Mp3Extractor implements Extractor {
   private long basisTimeUs;
   private long samplesRead;
   private int sampleBytesRemaining;
+  private long seekTimeUs;
+  private boolean isSeekInProgress;
+  private boolean isIndexing;
 
   public Mp3Extractor() {
     this(0);
@@ -143,6 +162,7 @@ public final class Mp3Extractor implements Extractor {
     gaplessInfoHolder = new GaplessInfoHolder();
     basisTimeUs = C.TIME_UNSET;
     id3Peeker = new Id3Peeker();
+    skippingTrackOutput = new DummyTrackOutput();
   }
 
   // Extractor implementation.
@@ -155,7 +175,8 @@ public final class Mp3Extractor implements Extractor {
   @Override
   public void init(ExtractorOutput output) {
     extractorOutput = output;
-    trackOutput = extractorOutput.track(0, C.TRACK_TYPE_AUDIO);
+    realTrackOutput = extractorOutput.track(0, C.TRACK_TYPE_AUDIO);
+    currentTrackOutput = realTrackOutput;
     extractorOutput.endTracks();
   }
 
@@ -165,6 +186,16 @@ public final class Mp3Extractor implements Extractor {
     basisTimeUs = C.TIME_UNSET;
     samplesRead = 0;
     sampleBytesRemaining = 0;
+    seekTimeUs = timeUs;
+    if (seeker instanceof IndexSeeker) {
+      IndexSeeker indexSeeker = (IndexSeeker) seeker;
+      // Only frames that follow on from the indexed region can be added to the index. Seeks beyond
+      // it may have used the fallback seeker, whose timestamps are estimates.
+      isIndexing = indexSeeker.isPositionInIndex(position);
+      // If the seek position isn't indexed yet, discard samples until the index reaches it.
+      isSeekInProgress = isIndexing && !indexSeeker.isTimeUsInIndex(timeUs);
+    }
+    currentTrackOutput = isSeekInProgress ? skippingTrackOutput : realTrackOutput;
   }
 
   @Override
@@ -175,6 +206,24 @@ public final class Mp3Extractor implements Extractor {
   @Override
   public int read(ExtractorInput input, PositionHolder seekPosition)
       throws IOException, InterruptedException {
+    int readResult = readInternal(input);
+    if (readResult == RESULT_END_OF_INPUT
+        && seeker instanceof IndexSeeker
+        && isIndexing
+        && basisTimeUs != C.TIME_UNSET) {
+      // The whole stream has been indexed, so its duration is known.
+      long durationUs = computeTimeUs(samplesRead);
+      if (seeker.getDurationUs() != durationUs) {
+        ((IndexSeeker) seeker).setDurationUs(durationUs);
+        extractorOutput.seekMap(seeker);
+      }
+    }
+    return readResult;
+  }
+
+  // Internal methods.
+
+  private int readInternal(ExtractorInput input) throws IOException, InterruptedException {
     if (synchronizedHeaderData == 0) {
       try {
         synchronize(input, false);
@@ -196,8 +245,12 @@ public final class Mp3Extractor implements Extractor {
           || (!seeker.isSeekable() && (flags & FLAG_ENABLE_CONSTANT_BITRATE_SEEKING) != 0)) {
         seeker = getConstantBitrateSeeker(input);
       }
+      if ((flags & FLAG_ENABLE_INDEX_SEEKING) != 0) {
+        seeker = new IndexSeeker(/* fallbackSeeker= */ seeker, input.getPosition());
+        isIndexing = true;
+      }
       extractorOutput.seekMap(seeker);
-      trackOutput.format(
+      realTrackOutput.format(
           Format.createAudioSampleFormat(
               /* id= */ null,
               synchronizedHeader.mimeType,
@@ -218,8 +271,6 @@ public final class Mp3Extractor implements Extractor {
     return readSample(input);
   }
 
-  // Internal methods.
-
   private int readSample(ExtractorInput extractorInput) throws IOException, InterruptedException {
     if (sampleBytesRemaining == 0) {
       extractorInput.resetPeekPosition();
@@ -244,8 +295,20 @@ public final class Mp3Extractor implements Extractor {
         }
       }
       sampleBytesRemaining = synchronizedHeader.frameSize;
+      if (seeker instanceof IndexSeeker && isIndexing) {
+        IndexSeeker indexSeeker = (IndexSeeker) seeker;
+        // Index the next frame rather than this one, so that output resumes before the seek
+        // position if a seek is in progress.
+        indexSeeker.maybeAddSeekPoint(
+            computeTimeUs(samplesRead + synchronizedHeader.samplesPerFrame),
+            extractorInput.getPosition() + synchronizedHeader.frameSize);
+        if (isSeekInProgress && indexSeeker.isTimeUsInIndex(seekTimeUs)) {
+          isSeekInProgress = false;
+          currentTrackOutput = realTrackOutput;
+        }
+      }
     }
-    int bytesAppended = trackOutput.sampleData(extractorInput, sampleBytesRemaining, true);
+    int bytesAppended = currentTrackOutput.sampleData(extractorInput, sampleBytesRemaining, true);
     if (bytesAppended == C.RESULT_END_OF_INPUT) {
       return RESULT_END_OF_INPUT;
     }
@@ -253,14 +316,21 @@ public final class Mp3Extractor implements Extractor {
     if (sampleBytesRemaining > 0) {
       return RESULT_CONTINUE;
     }
-    long timeUs = basisTimeUs + (samplesRead * C.MICROS_PER_SECOND / synchronizedHeader.sampleRate);
-    trackOutput.sampleMetadata(timeUs, C.BUFFER_FLAG_KEY_FRAME, synchronizedHeader.frameSize, 0,
-        null);
+    currentTrackOutput.sampleMetadata(
+        computeTimeUs(samplesRead),
+        C.BUFFER_FLAG_KEY_FRAME,
+        synchronizedHeader.frameSize,
+        /* offset= */ 0,
+        /* encryptionData= */ null);
     samplesRead += synchronizedHeader.samplesPerFrame;
     sampleBytesRemaining = 0;
     return RESULT_CONTINUE;
   }
 
+  private long computeTimeUs(long samplesRead) {
+    return basisTimeUs + samplesRead * C.MICROS_PER_SECOND / synchronizedHeader.sampleRate;
+  }
+
   private boolean synchronize(ExtractorInput input, boolean sniffing)
       throws IOException, InterruptedException {
     int validFrameCount = 0;
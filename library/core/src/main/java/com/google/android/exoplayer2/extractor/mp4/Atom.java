@@ -417,7 +417,7 @@ import java.util.List;
    */
   /* package */ static final class ContainerAtom extends Atom {
 
-    public final long endPosition;
+    public long endPosition;
     public final List<LeafAtom> leafChildren;
     public final List<ContainerAtom> containerChildren;
 
@@ -432,6 +432,18 @@ import java.util.List;
       containerChildren = new ArrayList<>();
     }
 
+    /**
+     * Removes all children from this container, so that it can be reused for another atom of the
+     * same type.
+     *
+     * @param endPosition The position of the first byte after the end of the atom.
+     */
+    public void reset(long endPosition) {
+      this.endPosition = endPosition;
+      leafChildren.clear();
+      containerChildren.clear();
+    }
+
     /**
      * Adds a child leaf to this container.
      *
@@ -144,11 +144,11 @@ import java.util.List;
     if (sampleCount == 0) {
       return new TrackSampleTable(
           track,
-          /* offsets= */ new long[0],
+          /* offsets= */ CompactLongArray.of(new long[0]),
           /* sizes= */ new int[0],
           /* maximumSize= */ 0,
-          /* timestampsUs= */ new long[0],
-          /* flags= */ new int[0],
+          /* timestampsUs= */ CompactLongArray.of(new long[0]),
+          /* syncSampleIndices= */ null,
           /* durationUs= */ C.TIME_UNSET);
     }
 
@@ -210,19 +210,25 @@ import java.util.List;
             && remainingTimestampOffsetChanges == 0
             && remainingSynchronizationSamples == 0;
 
-    long[] offsets;
+    // If there's no edit list to apply, timestamps are converted to microseconds while parsing.
+    // Otherwise they're kept in the track's time units until the edits have been applied.
+    boolean ignoreEditList =
+        track.editListDurations == null || gaplessInfoHolder.hasGaplessInfo();
+
+    CompactLongArray offsets;
     int[] sizes;
     int maximumSize = 0;
-    long[] timestamps;
-    int[] flags;
+    CompactLongArray timestamps;
+    @Nullable int[] syncSampleIndices;
     long timestampTimeUnits = 0;
     long duration;
 
     if (!isFixedSampleSizeRawAudio) {
-      offsets = new long[sampleCount];
+      CompactLongArray.Builder offsetsBuilder = new CompactLongArray.Builder(sampleCount);
       sizes = new int[sampleCount];
-      timestamps = new long[sampleCount];
-      flags = new int[sampleCount];
+      CompactLongArray.Builder timestampsBuilder = new CompactLongArray.Builder(sampleCount);
+      syncSampleIndices = stss != null ? new int[remainingSynchronizationSamples] : null;
+      int syncSampleCount = 0;
       long offset = 0;
       int remainingSamplesInChunk = 0;
 
@@ -236,10 +242,7 @@ import java.util.List;
         if (!chunkDataComplete) {
           Log.w(TAG, "Unexpected end of chunk data");
           sampleCount = i;
-          offsets = Arrays.copyOf(offsets, sampleCount);
           sizes = Arrays.copyOf(sizes, sampleCount);
-          timestamps = Arrays.copyOf(timestamps, sampleCount);
-          flags = Arrays.copyOf(flags, sampleCount);
           break;
         }
 
@@ -258,17 +261,20 @@ import java.util.List;
           remainingSamplesAtTimestampOffset--;
         }
 
-        offsets[i] = offset;
+        offsetsBuilder.add(offset);
         sizes[i] = sampleSizeBox.readNextSampleSize();
         if (sizes[i] > maximumSize) {
           maximumSize = sizes[i];
         }
-        timestamps[i] = timestampTimeUnits + timestampOffset;
+        long timestamp = timestampTimeUnits + timestampOffset;
+        timestampsBuilder.add(
+            ignoreEditList
+                ? Util.scaleLargeTimestamp(timestamp, C.MICROS_PER_SECOND, track.timescale)
+                : timestamp);
 
         // All samples are synchronization samples if the stss is not present.
-        flags[i] = stss == null ? C.BUFFER_FLAG_KEY_FRAME : 0;
         if (i == nextSynchronizationSampleIndex) {
-          flags[i] = C.BUFFER_FLAG_KEY_FRAME;
+          syncSampleIndices[syncSampleCount++] = i;
           remainingSynchronizationSamples--;
           if (remainingSynchronizationSamples > 0) {
             nextSynchronizationSampleIndex = stss.readUnsignedIntToInt() - 1;
@@ -293,6 +299,11 @@ import java.util.List;
         offset += sizes[i];
         remainingSamplesInChunk--;
       }
+      offsets = offsetsBuilder.build();
+      timestamps = timestampsBuilder.build();
+      if (syncSampleIndices != null && syncSampleCount < syncSampleIndices.length) {
+        syncSampleIndices = Arrays.copyOf(syncSampleIndices, syncSampleCount);
+      }
       duration = timestampTimeUnits + timestampOffset;
 
       // If the stbl's child boxes are not consistent the container is malformed, but the stream may
@@ -339,21 +350,25 @@ import java.util.List;
           Util.getPcmFrameSize(track.format.pcmEncoding, track.format.channelCount);
       FixedSampleSizeRechunker.Results rechunkedResults = FixedSampleSizeRechunker.rechunk(
           fixedSampleSize, chunkOffsetsBytes, chunkSampleCounts, timestampDeltaInTimeUnits);
-      offsets = rechunkedResults.offsets;
+      offsets = CompactLongArray.of(rechunkedResults.offsets);
       sizes = rechunkedResults.sizes;
       maximumSize = rechunkedResults.maximumSize;
-      timestamps = rechunkedResults.timestamps;
-      flags = rechunkedResults.flags;
+      if (ignoreEditList) {
+        Util.scaleLargeTimestampsInPlace(
+            rechunkedResults.timestamps, C.MICROS_PER_SECOND, track.timescale);
+      }
+      timestamps = CompactLongArray.of(rechunkedResults.timestamps);
+      // All rechunked samples are synchronization samples.
+      syncSampleIndices = null;
       duration = rechunkedResults.duration;
     }
     long durationUs = Util.scaleLargeTimestamp(duration, C.MICROS_PER_SECOND, track.timescale);
 
-    if (track.editListDurations == null || gaplessInfoHolder.hasGaplessInfo()) {
+    if (ignoreEditList) {
       // There is no edit list, or we are ignoring it as we already have gapless metadata to apply.
       // This implementation does not support applying both gapless metadata and an edit list.
-      Util.scaleLargeTimestampsInPlace(timestamps, C.MICROS_PER_SECOND, track.timescale);
       return new TrackSampleTable(
-          track, offsets, sizes, maximumSize, timestamps, flags, durationUs);
+          track, offsets, sizes, maximumSize, timestamps, syncSampleIndices, durationUs);
     }
 
     // See the BMFF spec (ISO 14496-12) subsection 8.6.6. Edit lists that require prerolling from a
@@ -371,7 +386,7 @@ import java.util.List;
           track.timescale, track.movieTimescale);
       if (canApplyEditWithGaplessInfo(timestamps, duration, editStartTime, editEndTime)) {
         long paddingTimeUnits = duration - editEndTime;
-        long encoderDelay = Util.scaleLargeTimestamp(editStartTime - timestamps[0],
+        long encoderDelay = Util.scaleLargeTimestamp(editStartTime - timestamps.get(0),
             track.format.sampleRate, track.timescale);
         long encoderPadding = Util.scaleLargeTimestamp(paddingTimeUnits,
             track.format.sampleRate, track.timescale);
@@ -379,12 +394,17 @@ import java.util.List;
             && encoderPadding <= Integer.MAX_VALUE) {
           gaplessInfoHolder.encoderDelay = (int) encoderDelay;
           gaplessInfoHolder.encoderPadding = (int) encoderPadding;
-          Util.scaleLargeTimestampsInPlace(timestamps, C.MICROS_PER_SECOND, track.timescale);
           long editedDurationUs =
               Util.scaleLargeTimestamp(
                   track.editListDurations[0], C.MICROS_PER_SECOND, track.movieTimescale);
           return new TrackSampleTable(
-              track, offsets, sizes, maximumSize, timestamps, flags, editedDurationUs);
+              track,
+              offsets,
+              sizes,
+              maximumSize,
+              getTimestampsUs(timestamps, /* timeOffset= */ 0, track.timescale),
+              syncSampleIndices,
+              editedDurationUs);
         }
       }
     }
@@ -394,15 +414,16 @@ import java.util.List;
       // unfragmented files open to interpretation. We handle this as a special case and include all
       // samples in the edit.
       long editStartTime = track.editListMediaTimes[0];
-      for (int i = 0; i < timestamps.length; i++) {
-        timestamps[i] =
-            Util.scaleLargeTimestamp(
-                timestamps[i] - editStartTime, C.MICROS_PER_SECOND, track.timescale);
-      }
       durationUs =
           Util.scaleLargeTimestamp(duration - editStartTime, C.MICROS_PER_SECOND, track.timescale);
       return new TrackSampleTable(
-          track, offsets, sizes, maximumSize, timestamps, flags, durationUs);
+          track,
+          offsets,
+          sizes,
+          maximumSize,
+          getTimestampsUs(timestamps, /* timeOffset= */ editStartTime, track.timescale),
+          syncSampleIndices,
+          durationUs);
     }
 
     // Omit any sample at the end point of an edit for audio tracks.
@@ -420,12 +441,11 @@ import java.util.List;
         long editDuration =
             Util.scaleLargeTimestamp(
                 track.editListDurations[i], track.timescale, track.movieTimescale);
-        startIndices[i] = Util.binarySearchCeil(timestamps, editMediaTime, true, true);
+        startIndices[i] = timestamps.binarySearchCeil(editMediaTime, true, true);
         endIndices[i] =
-            Util.binarySearchCeil(
-                timestamps, editMediaTime + editDuration, omitClippedSample, false);
+            timestamps.binarySearchCeil(editMediaTime + editDuration, omitClippedSample, false);
         while (startIndices[i] < endIndices[i]
-            && (flags[startIndices[i]] & C.BUFFER_FLAG_KEY_FRAME) == 0) {
+            && !isSyncSample(syncSampleIndices, startIndices[i])) {
           // Applying the edit correctly would require prerolling from the previous sync sample. In
           // the current implementation we advance to the next sync sample instead. Only other
           // tracks (i.e. audio) will be rendered until the time of the first sync sample.
@@ -440,29 +460,44 @@ import java.util.List;
     copyMetadata |= editedSampleCount != sampleCount;
 
     // Calculate edited sample timestamps and update the corresponding metadata arrays.
-    long[] editedOffsets = copyMetadata ? new long[editedSampleCount] : offsets;
+    CompactLongArray.Builder editedOffsetsBuilder =
+        copyMetadata ? new CompactLongArray.Builder(editedSampleCount) : null;
     int[] editedSizes = copyMetadata ? new int[editedSampleCount] : sizes;
     int editedMaximumSize = copyMetadata ? 0 : maximumSize;
-    int[] editedFlags = copyMetadata ? new int[editedSampleCount] : flags;
-    long[] editedTimestamps = new long[editedSampleCount];
+    int[] editedSyncSampleIndices =
+        copyMetadata && syncSampleIndices != null
+            ? new int[getEditedSyncSampleCount(syncSampleIndices, startIndices, endIndices)]
+            : syncSampleIndices;
+    CompactLongArray.Builder editedTimestampsBuilder =
+        new CompactLongArray.Builder(editedSampleCount);
     long pts = 0;
     int sampleIndex = 0;
+    int syncSampleIndex = 0;
     for (int i = 0; i < track.editListDurations.length; i++) {
       long editMediaTime = track.editListMediaTimes[i];
       int startIndex = startIndices[i];
       int endIndex = endIndices[i];
       if (copyMetadata) {
         int count = endIndex - startIndex;
-        System.arraycopy(offsets, startIndex, editedOffsets, sampleIndex, count);
+        for (int j = startIndex; j < endIndex; j++) {
+          editedOffsetsBuilder.add(offsets.get(j));
+        }
         System.arraycopy(sizes, startIndex, editedSizes, sampleIndex, count);
-        System.arraycopy(flags, startIndex, editedFlags, sampleIndex, count);
+        if (syncSampleIndices != null) {
+          for (int j = Util.binarySearchCeil(syncSampleIndices, startIndex, true, false);
+              j < syncSampleIndices.length && syncSampleIndices[j] < endIndex;
+              j++) {
+            editedSyncSampleIndices[syncSampleIndex++] =
+                sampleIndex + syncSampleIndices[j] - startIndex;
+          }
+        }
       }
       for (int j = startIndex; j < endIndex; j++) {
         long ptsUs = Util.scaleLargeTimestamp(pts, C.MICROS_PER_SECOND, track.movieTimescale);
         long timeInSegmentUs =
             Util.scaleLargeTimestamp(
-                timestamps[j] - editMediaTime, C.MICROS_PER_SECOND, track.timescale);
-        editedTimestamps[sampleIndex] = ptsUs + timeInSegmentUs;
+                timestamps.get(j) - editMediaTime, C.MICROS_PER_SECOND, track.timescale);
+        editedTimestampsBuilder.add(ptsUs + timeInSegmentUs);
         if (copyMetadata && editedSizes[sampleIndex] > editedMaximumSize) {
           editedMaximumSize = sizes[j];
         }
@@ -474,11 +509,11 @@ import java.util.List;
         Util.scaleLargeTimestamp(pts, C.MICROS_PER_SECOND, track.movieTimescale);
     return new TrackSampleTable(
         track,
-        editedOffsets,
+        copyMetadata ? editedOffsetsBuilder.build() : offsets,
         editedSizes,
         editedMaximumSize,
-        editedTimestamps,
-        editedFlags,
+        editedTimestampsBuilder.build(),
+        editedSyncSampleIndices,
         editedDurationUs);
   }
 
@@ -1368,17 +1403,61 @@ import java.util.List;
 
   /** Returns whether it's possible to apply the specified edit using gapless playback info. */
   private static boolean canApplyEditWithGaplessInfo(
-      long[] timestamps, long duration, long editStartTime, long editEndTime) {
+      CompactLongArray timestamps, long duration, long editStartTime, long editEndTime) {
     int lastIndex = timestamps.length - 1;
     int latestDelayIndex = Util.constrainValue(MAX_GAPLESS_TRIM_SIZE_SAMPLES, 0, lastIndex);
     int earliestPaddingIndex =
         Util.constrainValue(timestamps.length - MAX_GAPLESS_TRIM_SIZE_SAMPLES, 0, lastIndex);
-    return timestamps[0] <= editStartTime
-        && editStartTime < timestamps[latestDelayIndex]
-        && timestamps[earliestPaddingIndex] < editEndTime
+    return timestamps.get(0) <= editStartTime
+        && editStartTime < timestamps.get(latestDelayIndex)
+        && timestamps.get(earliestPaddingIndex) < editEndTime
         && editEndTime <= duration;
   }
 
+  /**
+   * Returns timestamps in microseconds, given timestamps in the track's time units.
+   *
+   * @param timestamps The timestamps in the track's time units.
+   * @param timeOffset An offset to subtract from each timestamp before conversion, in the track's
+   *     time units.
+   * @param timescale The track's timescale.
+   * @return The timestamps in microseconds.
+   */
+  private static CompactLongArray getTimestampsUs(
+      CompactLongArray timestamps, long timeOffset, long timescale) {
+    CompactLongArray.Builder timestampsUs = new CompactLongArray.Builder(timestamps.length);
+    for (int i = 0; i < timestamps.length; i++) {
+      timestampsUs.add(
+          Util.scaleLargeTimestamp(
+              timestamps.get(i) - timeOffset, C.MICROS_PER_SECOND, timescale));
+    }
+    return timestampsUs.build();
+  }
+
+  /** Returns whether the sample at the specified index is a synchronization sample. */
+  private static boolean isSyncSample(@Nullable int[] syncSampleIndices, int sampleIndex) {
+    return syncSampleIndices == null || Arrays.binarySearch(syncSampleIndices, sampleIndex) >= 0;
+  }
+
+  /**
+   * Returns the number of synchronization samples in the ranges of samples selected by edits.
+   *
+   * @param syncSampleIndices The sorted indices of the synchronization samples.
+   * @param startIndices The index of the first sample selected by each edit.
+   * @param endIndices The index after the last sample selected by each edit.
+   * @return The number of synchronization samples after applying the edits.
+   */
+  private static int getEditedSyncSampleCount(
+      int[] syncSampleIndices, int[] startIndices, int[] endIndices) {
+    int syncSampleCount = 0;
+    for (int i = 0; i < startIndices.length; i++) {
+      syncSampleCount +=
+          Util.binarySearchCeil(syncSampleIndices, endIndices[i], true, false)
+              - Util.binarySearchCeil(syncSampleIndices, startIndices[i], true, false);
+    }
+    return syncSampleCount;
+  }
+
   private AtomParsers() {
     // Prevent instantiation.
   }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor.mp4;
+
+import androidx.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * An immutable array of longs in which values that are close to each other in the array are also
+ * close in value, as is the case for sample offsets and timestamps.
+ *
+ * <p>Values are stored as int differences from an anchor value per block of {@link #BLOCK_SIZE}
+ * elements, which roughly halves the memory used compared to a {@code long[]}. If a difference
+ * doesn't fit into an int then the values are stored as a {@code long[]} instead.
+ */
+/* package */ final class CompactLongArray {
+
+  private static final int BLOCK_SIZE_SHIFT = 5;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_SHIFT;
+
+  /** The number of elements in the array. */
+  public final int length;
+
+  /** The anchor value of each block, or all values if {@link #differences} is null. */
+  private final long[] anchors;
+  /** The difference of each value from its block's anchor, or null if the values didn't fit. */
+  @Nullable private final int[] differences;
+
+  /**
+   * Builds a {@link CompactLongArray} from values that are added in order, without requiring a
+   * {@code long[]} holding all of the values.
+   */
+  public static final class Builder {
+
+    private final int capacity;
+
+    private long[] anchors;
+    @Nullable private int[] differences;
+    private int length;
+
+    /**
+     * @param capacity The maximum number of values that will be added.
+     */
+    public Builder(int capacity) {
+      this.capacity = capacity;
+      anchors = new long[getBlockCount(capacity)];
+      differences = new int[capacity];
+    }
+
+    /**
+     * Adds a value to the end of the array.
+     *
+     * @param value The value to add.
+     */
+    public void add(long value) {
+      if (differences != null) {
+        int blockIndex = length >> BLOCK_SIZE_SHIFT;
+        if ((length & (BLOCK_SIZE - 1)) == 0) {
+          anchors[blockIndex] = value;
+        }
+        long difference = value - anchors[blockIndex];
+        if (difference >= Integer.MIN_VALUE && difference <= Integer.MAX_VALUE) {
+          differences[length++] = (int) difference;
+          return;
+        }
+        // The difference doesn't fit, so switch to storing the values directly.
+        long[] values = new long[capacity];
+        for (int i = 0; i < length; i++) {
+          values[i] = anchors[i >> BLOCK_SIZE_SHIFT] + differences[i];
+        }
+        anchors = values;
+        differences = null;
+      }
+      anchors[length++] = value;
+    }
+
+    /**
+     * Returns a {@link CompactLongArray} holding the values added so far. The builder must not be
+     * used after calling this method.
+     */
+    public CompactLongArray build() {
+      if (length < capacity) {
+        if (differences != null) {
+          anchors = Arrays.copyOf(anchors, getBlockCount(length));
+          differences = Arrays.copyOf(differences, length);
+        } else {
+          anchors = Arrays.copyOf(anchors, length);
+        }
+      }
+      return new CompactLongArray(length, anchors, differences);
+    }
+  }
+
+  /**
+   * Returns an instance holding the specified values.
+   *
+   * @param values The values. The array is not retained.
+   * @return The instance.
+   */
+  public static CompactLongArray of(long[] values) {
+    Builder builder = new Builder(values.length);
+    for (long value : values) {
+      builder.add(value);
+    }
+    return builder.build();
+  }
+
+  private CompactLongArray(int length, long[] anchors, @Nullable int[] differences) {
+    this.length = length;
+    this.anchors = anchors;
+    this.differences = differences;
+  }
+
+  /**
+   * Returns the value at the specified index.
+   *
+   * @param index The index of the value.
+   * @return The value.
+   */
+  public long get(int index) {
+    return differences == null
+        ? anchors[index]
+        : anchors[index >> BLOCK_SIZE_SHIFT] + differences[index];
+  }
+
+  /**
+   * Returns the index of the largest element that is less than (or optionally equal to) the
+   * specified value. Behaves like {@link
+   * com.google.android.exoplayer2.util.Util#binarySearchFloor(long[], long, boolean, boolean)},
+   * including when the values are not sorted.
+   *
+   * @param value The value being searched for.
+   * @param inclusive If the value is present in the array, whether to return the corresponding
+   *     index. If false then the returned index corresponds to the largest element strictly less
+   *     than the value.
+   * @param stayInBounds If true, then 0 will be returned in the case that the value is smaller than
+   *     the smallest element in the array. If false then -1 will be returned.
+   * @return The index of the largest element that is less than (or optionally equal to) the value.
+   */
+  public int binarySearchFloor(long value, boolean inclusive, boolean stayInBounds) {
+    int index = binarySearch(value);
+    if (index < 0) {
+      index = -(index + 2);
+    } else {
+      while (--index >= 0 && get(index) == value) {}
+      if (inclusive) {
+        index++;
+      }
+    }
+    return stayInBounds ? Math.max(0, index) : index;
+  }
+
+  /**
+   * Returns the index of the smallest element that is greater than (or optionally equal to) the
+   * specified value. Behaves like {@link
+   * com.google.android.exoplayer2.util.Util#binarySearchCeil(long[], long, boolean, boolean)},
+   * including when the values are not sorted.
+   *
+   * @param value The value being searched for.
+   * @param inclusive If the value is present in the array, whether to return the corresponding
+   *     index. If false then the returned index corresponds to the smallest element strictly
+   *     greater than the value.
+   * @param stayInBounds If true, then {@code (length - 1)} will be returned in the case that the
+   *     value is greater than the largest element in the array. If false then {@code length} will
+   *     be returned.
+   * @return The index of the smallest element that is greater than (or optionally equal to) the
+   *     value.
+   */
+  public int binarySearchCeil(long value, boolean inclusive, boolean stayInBounds) {
+    int index = binarySearch(value);
+    if (index < 0) {
+      index = ~index;
+    } else {
+      while (++index < length && get(index) == value) {}
+      if (inclusive) {
+        index--;
+      }
+    }
+    return stayInBounds ? Math.min(length - 1, index) : index;
+  }
+
+  // Internal methods.
+
+  /** Equivalent to {@link java.util.Arrays#binarySearch(long[], long)}. */
+  private int binarySearch(long value) {
+    int low = 0;
+    int high = length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midValue = get(mid);
+      if (midValue < value) {
+        low = mid + 1;
+      } else if (midValue > value) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private static int getBlockCount(int length) {
+    return (length + BLOCK_SIZE - 1) >> BLOCK_SIZE_SHIFT;
+  }
+}
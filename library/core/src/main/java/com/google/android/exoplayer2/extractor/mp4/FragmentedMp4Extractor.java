@@ -106,6 +106,7 @@ public class FragmentedMp4Extractor implements Extractor {
 
   @SuppressWarnings("ConstantField")
   private static final int SAMPLE_GROUP_TYPE_seig = Util.getIntegerCodeForString("seig");
+  private static final int KEY_ID_LENGTH = 16;
 
   private static final byte[] PIFF_SAMPLE_ENCRYPTION_BOX_EXTENDED_TYPE =
       new byte[] {-94, 57, 79, 82, 90, -101, 79, 20, -94, 68, 108, 66, 124, 100, -115, -12};
@@ -146,11 +147,17 @@ public class FragmentedMp4Extractor implements Extractor {
   private final ArrayDeque<MetadataSampleInfo> pendingMetadataSampleInfos;
   private final @Nullable TrackOutput additionalEmsgTrackOutput;
 
+  // Atoms that are reused across fragments, keyed by type.
+  private final SparseArray<ArrayDeque<LeafAtom>> leafAtomPool;
+  private final SparseArray<ArrayDeque<ContainerAtom>> containerAtomPool;
+  private final ArrayList<LeafAtom> pooledLeafAtomsInUse;
+  private final ArrayList<ContainerAtom> pooledContainerAtomsInUse;
+
   private int parserState;
   private int atomType;
   private long atomSize;
   private int atomHeaderBytesRead;
-  private ParsableByteArray atomData;
+  @Nullable private LeafAtom leafAtom;
   private long endOfMdatPosition;
   private int pendingMetadataSampleBytes;
   private long pendingSeekTimeUs;
@@ -261,6 +268,10 @@ public class FragmentedMp4Extractor implements Extractor {
     scratch = new ParsableByteArray(scratchBytes);
     containerAtoms = new ArrayDeque<>();
     pendingMetadataSampleInfos = new ArrayDeque<>();
+    leafAtomPool = new SparseArray<>();
+    containerAtomPool = new SparseArray<>();
+    pooledLeafAtomsInUse = new ArrayList<>();
+    pooledContainerAtomsInUse = new ArrayList<>();
     trackBundles = new SparseArray<>();
     durationUs = C.TIME_UNSET;
     pendingSeekTimeUs = C.TIME_UNSET;
@@ -295,6 +306,7 @@ public class FragmentedMp4Extractor implements Extractor {
     pendingMetadataSampleBytes = 0;
     pendingSeekTimeUs = timeUs;
     containerAtoms.clear();
+    releasePooledAtoms();
     isAc4HeaderRequired = false;
     enterReadingAtomHeaderState();
   }
@@ -393,7 +405,7 @@ public class FragmentedMp4Extractor implements Extractor {
 
     if (shouldParseContainerAtom(atomType)) {
       long endPosition = input.getPosition() + atomSize - Atom.HEADER_SIZE;
-      containerAtoms.push(new ContainerAtom(atomType, endPosition));
+      containerAtoms.push(obtainContainerAtom(endPosition));
       if (atomSize == atomHeaderBytesRead) {
         processAtomEnded(endPosition);
       } else {
@@ -407,14 +419,15 @@ public class FragmentedMp4Extractor implements Extractor {
       if (atomSize > Integer.MAX_VALUE) {
         throw new ParserException("Leaf atom with length > 2147483647 (unsupported).");
       }
-      atomData = new ParsableByteArray((int) atomSize);
-      System.arraycopy(atomHeader.data, 0, atomData.data, 0, Atom.HEADER_SIZE);
+      LeafAtom leafAtom = obtainLeafAtom((int) atomSize);
+      System.arraycopy(atomHeader.data, 0, leafAtom.data.data, 0, Atom.HEADER_SIZE);
+      this.leafAtom = leafAtom;
       parserState = STATE_READING_ATOM_PAYLOAD;
     } else {
       if (atomSize > Integer.MAX_VALUE) {
         throw new ParserException("Skipping atom with length > 2147483647 (unsupported).");
       }
-      atomData = null;
+      leafAtom = null;
       parserState = STATE_READING_ATOM_PAYLOAD;
     }
 
@@ -423,9 +436,10 @@ public class FragmentedMp4Extractor implements Extractor {
 
   private void readAtomPayload(ExtractorInput input) throws IOException, InterruptedException {
     int atomPayloadSize = (int) atomSize - atomHeaderBytesRead;
-    if (atomData != null) {
-      input.readFully(atomData.data, Atom.HEADER_SIZE, atomPayloadSize);
-      onLeafAtomRead(new LeafAtom(atomType, atomData), input.getPosition());
+    LeafAtom leafAtom = this.leafAtom;
+    if (leafAtom != null) {
+      input.readFully(leafAtom.data.data, Atom.HEADER_SIZE, atomPayloadSize);
+      onLeafAtomRead(leafAtom, input.getPosition());
     } else {
       input.skipFully(atomPayloadSize);
     }
@@ -436,9 +450,84 @@ public class FragmentedMp4Extractor implements Extractor {
     while (!containerAtoms.isEmpty() && containerAtoms.peek().endPosition == atomEndPosition) {
       onContainerAtomRead(containerAtoms.pop());
     }
+    if (containerAtoms.isEmpty()) {
+      releasePooledAtoms();
+    }
     enterReadingAtomHeaderState();
   }
 
+  /**
+   * Returns a leaf atom of the current type, whose data has the specified size.
+   *
+   * <p>Top level leaf atoms and atoms in a moof are taken from a pool, and are returned to it once
+   * the top level atom has been processed. Parsing these atoms copies any data that's needed
+   * later, so fragments can be parsed without allocating new atoms or buffers. Atoms in a moov and
+   * pssh atoms, whose data may be referenced after parsing, are newly allocated.
+   */
+  private LeafAtom obtainLeafAtom(int atomSize) {
+    if (atomType == Atom.TYPE_pssh || (!containerAtoms.isEmpty() && !isInMoof())) {
+      return new LeafAtom(atomType, new ParsableByteArray(atomSize));
+    }
+    LeafAtom leafAtom = getAtomPool(leafAtomPool, atomType).pollFirst();
+    if (leafAtom == null) {
+      leafAtom = new LeafAtom(atomType, new ParsableByteArray(atomSize));
+    } else {
+      leafAtom.data.reset(atomSize);
+    }
+    pooledLeafAtomsInUse.add(leafAtom);
+    return leafAtom;
+  }
+
+  /**
+   * Returns a container atom of the current type, with the specified end position. A moof and the
+   * containers in it are taken from a pool, in the same way as the leaf atoms in a moof.
+   */
+  private ContainerAtom obtainContainerAtom(long endPosition) {
+    if (containerAtoms.isEmpty() ? atomType != Atom.TYPE_moof : !isInMoof()) {
+      return new ContainerAtom(atomType, endPosition);
+    }
+    ContainerAtom containerAtom = getAtomPool(containerAtomPool, atomType).pollFirst();
+    if (containerAtom == null) {
+      containerAtom = new ContainerAtom(atomType, endPosition);
+    } else {
+      containerAtom.reset(endPosition);
+    }
+    pooledContainerAtomsInUse.add(containerAtom);
+    return containerAtom;
+  }
+
+  /** Returns whether the atom being read is in a moof. */
+  private boolean isInMoof() {
+    return !containerAtoms.isEmpty() && containerAtoms.peekLast().type == Atom.TYPE_moof;
+  }
+
+  /**
+   * Returns the atoms obtained from the pools to them, in the order in which they were obtained, so
+   * that each atom is reused for the same atom in the next fragment.
+   */
+  private void releasePooledAtoms() {
+    for (int i = 0; i < pooledLeafAtomsInUse.size(); i++) {
+      LeafAtom leafAtom = pooledLeafAtomsInUse.get(i);
+      getAtomPool(leafAtomPool, leafAtom.type).addLast(leafAtom);
+    }
+    pooledLeafAtomsInUse.clear();
+    for (int i = 0; i < pooledContainerAtomsInUse.size(); i++) {
+      ContainerAtom containerAtom = pooledContainerAtomsInUse.get(i);
+      getAtomPool(containerAtomPool, containerAtom.type).addLast(containerAtom);
+    }
+    pooledContainerAtomsInUse.clear();
+  }
+
+  private static <T extends Atom> ArrayDeque<T> getAtomPool(
+      SparseArray<ArrayDeque<T>> atomPools, int type) {
+    ArrayDeque<T> atomPool = atomPools.get(type);
+    if (atomPool == null) {
+      atomPool = new ArrayDeque<>();
+      atomPools.put(type, atomPool);
+    }
+    return atomPool;
+  }
+
   private void onLeafAtomRead(LeafAtom leaf, long inputPosition) throws ParserException {
     if (!containerAtoms.isEmpty()) {
       containerAtoms.peek().add(leaf);
@@ -858,8 +947,20 @@ public class FragmentedMp4Extractor implements Extractor {
         ? tfhd.readUnsignedIntToInt() : defaultSampleValues.size;
     int defaultSampleFlags = ((atomFlags & 0x20 /* default_sample_flags_present */) != 0)
         ? tfhd.readUnsignedIntToInt() : defaultSampleValues.flags;
-    trackBundle.fragment.header = new DefaultSampleValues(defaultSampleDescriptionIndex,
-        defaultSampleDuration, defaultSampleSize, defaultSampleFlags);
+    DefaultSampleValues header = trackBundle.fragment.header;
+    // Fragments of a track usually have the same default values, so the previous ones are reused.
+    if (header == null
+        || header.sampleDescriptionIndex != defaultSampleDescriptionIndex
+        || header.duration != defaultSampleDuration
+        || header.size != defaultSampleSize
+        || header.flags != defaultSampleFlags) {
+      trackBundle.fragment.header =
+          new DefaultSampleValues(
+              defaultSampleDescriptionIndex,
+              defaultSampleDuration,
+              defaultSampleSize,
+              defaultSampleFlags);
+    }
     return trackBundle;
   }
 
@@ -1061,17 +1162,55 @@ public class FragmentedMp4Extractor implements Extractor {
       return;
     }
     int perSampleIvSize = sgpd.readUnsignedByte();
-    byte[] keyId = new byte[16];
-    sgpd.readBytes(keyId, 0, keyId.length);
-    byte[] constantIv = null;
+    int keyIdOffset = sgpd.getPosition();
+    sgpd.skipBytes(KEY_ID_LENGTH);
+    int constantIvOffset = C.INDEX_UNSET;
+    int constantIvSize = 0;
     if (perSampleIvSize == 0) {
-      int constantIvSize = sgpd.readUnsignedByte();
-      constantIv = new byte[constantIvSize];
-      sgpd.readBytes(constantIv, 0, constantIvSize);
+      constantIvSize = sgpd.readUnsignedByte();
+      constantIvOffset = sgpd.getPosition();
+      sgpd.skipBytes(constantIvSize);
     }
     out.definesEncryptionData = true;
-    out.trackEncryptionBox = new TrackEncryptionBox(isProtected, schemeType, perSampleIvSize, keyId,
-        cryptByteBlock, skipByteBlock, constantIv);
+    // Fragments usually define the same encryption, so the previous TrackEncryptionBox is reused.
+    TrackEncryptionBox encryptionBox = out.lastSampleGroupEncryptionBox;
+    if (encryptionBox == null
+        || !Util.areEqual(encryptionBox.schemeType, schemeType)
+        || encryptionBox.perSampleIvSize != perSampleIvSize
+        || encryptionBox.cryptoData.encryptedBlocks != cryptByteBlock
+        || encryptionBox.cryptoData.clearBlocks != skipByteBlock
+        || !regionEquals(encryptionBox.cryptoData.encryptionKey, sgpd.data, keyIdOffset)
+        || (constantIvOffset != C.INDEX_UNSET
+            && (encryptionBox.defaultInitializationVector.length != constantIvSize
+                || !regionEquals(
+                    encryptionBox.defaultInitializationVector, sgpd.data, constantIvOffset)))) {
+      byte[] keyId = Arrays.copyOfRange(sgpd.data, keyIdOffset, keyIdOffset + KEY_ID_LENGTH);
+      byte[] constantIv =
+          constantIvOffset == C.INDEX_UNSET
+              ? null
+              : Arrays.copyOfRange(sgpd.data, constantIvOffset, constantIvOffset + constantIvSize);
+      encryptionBox =
+          new TrackEncryptionBox(
+              isProtected,
+              schemeType,
+              perSampleIvSize,
+              keyId,
+              cryptByteBlock,
+              skipByteBlock,
+              constantIv);
+      out.lastSampleGroupEncryptionBox = encryptionBox;
+    }
+    out.trackEncryptionBox = encryptionBox;
+  }
+
+  /** Returns whether {@code data} starting at {@code offset} begins with {@code expected}. */
+  private static boolean regionEquals(byte[] expected, byte[] data, int offset) {
+    for (int i = 0; i < expected.length; i++) {
+      if (expected[i] != data[offset + i]) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
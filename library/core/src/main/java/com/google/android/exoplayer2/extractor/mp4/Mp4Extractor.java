@@ -15,7 +15,9 @@
  */
 package com.google.android.exoplayer2.extractor.mp4;
 
+import android.os.Parcel;
 import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Format;
 import com.google.android.exoplayer2.ParserException;
@@ -26,6 +28,7 @@ import com.google.android.exoplayer2.extractor.ExtractorOutput;
 import com.google.android.exoplayer2.extractor.ExtractorsFactory;
 import com.google.android.exoplayer2.extractor.GaplessInfoHolder;
 import com.google.android.exoplayer2.extractor.PositionHolder;
+import com.google.android.exoplayer2.extractor.RestorableExtractor;
 import com.google.android.exoplayer2.extractor.SeekMap;
 import com.google.android.exoplayer2.extractor.SeekPoint;
 import com.google.android.exoplayer2.extractor.TrackOutput;
@@ -36,6 +39,10 @@ import com.google.android.exoplayer2.util.MimeTypes;
 import com.google.android.exoplayer2.util.NalUnitUtil;
 import com.google.android.exoplayer2.util.ParsableByteArray;
 import com.google.android.exoplayer2.util.Util;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
@@ -47,7 +54,7 @@ import java.util.List;
 /**
  * Extracts data from the MP4 container format.
  */
-public final class Mp4Extractor implements Extractor, SeekMap {
+public final class Mp4Extractor implements RestorableExtractor, SeekMap {
 
   /** Factory for {@link Mp4Extractor} instances. */
   public static final ExtractorsFactory FACTORY = () -> new Extractor[] {new Mp4Extractor()};
@@ -92,6 +99,9 @@ public final class Mp4Extractor implements Extractor, SeekMap {
    */
   private static final long MAXIMUM_READ_AHEAD_BYTES_STREAM = 10 * 1024 * 1024;
 
+  /** Version of the layout of the state returned by {@link #getHeaderState()}. */
+  private static final int HEADER_STATE_VERSION = 1;
+
   private final @Flags int flags;
 
   // Temporary arrays.
@@ -116,10 +126,14 @@ public final class Mp4Extractor implements Extractor, SeekMap {
   // Extractor outputs.
   private ExtractorOutput extractorOutput;
   private Mp4Track[] tracks;
-  private long[][] accumulatedSampleSizes;
+  private CompactLongArray[] accumulatedSampleSizes;
   private int firstVideoTrackIndex;
   private long durationUs;
   private boolean isQuickTime;
+  private long inputLength;
+  private boolean hasRestoredHeaderState;
+  @Nullable private List<Track> restoredTracks;
+  @Nullable private List<TrackSampleTable> restoredTrackSampleTables;
 
   /**
    * Creates a new extractor for unfragmented MP4 streams.
@@ -142,6 +156,7 @@ public final class Mp4Extractor implements Extractor, SeekMap {
     nalLength = new ParsableByteArray(4);
     scratch = new ParsableByteArray();
     sampleTrackIndex = C.INDEX_UNSET;
+    inputLength = C.LENGTH_UNSET;
   }
 
   @Override
@@ -152,6 +167,12 @@ public final class Mp4Extractor implements Extractor, SeekMap {
   @Override
   public void init(ExtractorOutput output) {
     extractorOutput = output;
+    if (restoredTracks != null && restoredTrackSampleTables != null) {
+      setUpTracks(restoredTracks, restoredTrackSampleTables);
+      restoredTracks = null;
+      restoredTrackSampleTables = null;
+      parserState = STATE_READING_SAMPLE;
+    }
   }
 
   @Override
@@ -162,7 +183,7 @@ public final class Mp4Extractor implements Extractor, SeekMap {
     sampleBytesWritten = 0;
     sampleCurrentNalBytesRemaining = 0;
     isAc4HeaderRequired = false;
-    if (position == 0) {
+    if (position == 0 && !hasRestoredHeaderState) {
       enterReadingAtomHeaderState();
     } else if (tracks != null) {
       updateSampleIndices(timeUs);
@@ -197,6 +218,116 @@ public final class Mp4Extractor implements Extractor, SeekMap {
     }
   }
 
+  // RestorableExtractor implementation.
+
+  @Override
+  @Nullable
+  public byte[] getHeaderState() {
+    if (tracks == null || inputLength == C.LENGTH_UNSET) {
+      return null;
+    }
+    ByteArrayOutputStream state = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(state);
+    try {
+      output.writeInt(HEADER_STATE_VERSION);
+      // Formats are written as parcels, whose layout may change between platform versions.
+      output.writeInt(Util.SDK_INT);
+      output.writeInt(flags);
+      output.writeLong(inputLength);
+      output.writeInt(tracks.length);
+      for (Mp4Track mp4Track : tracks) {
+        Track track = mp4Track.track;
+        output.writeInt(track.id);
+        output.writeInt(track.type);
+        output.writeLong(track.timescale);
+        output.writeLong(track.movieTimescale);
+        output.writeLong(track.durationUs);
+        output.writeInt(track.sampleTransformation);
+        output.writeInt(track.nalUnitLengthFieldLength);
+        byte[] format = marshallFormat(track.format);
+        output.writeInt(format.length);
+        output.write(format);
+        mp4Track.sampleTable.writeTo(output);
+      }
+    } catch (IOException e) {
+      // Never happens when writing to a byte array.
+      throw new IllegalStateException(e);
+    }
+    return state.toByteArray();
+  }
+
+  @Override
+  public boolean restoreHeaderState(byte[] state, long inputLength) {
+    Assertions.checkState(extractorOutput == null);
+    if (inputLength == C.LENGTH_UNSET) {
+      return false;
+    }
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(state));
+    List<Track> tracks = new ArrayList<>();
+    List<TrackSampleTable> trackSampleTables = new ArrayList<>();
+    try {
+      if (input.readInt() != HEADER_STATE_VERSION
+          || input.readInt() != Util.SDK_INT
+          || input.readInt() != flags
+          || input.readLong() != inputLength) {
+        return false;
+      }
+      int trackCount = input.readInt();
+      if (trackCount < 0) {
+        return false;
+      }
+      for (int i = 0; i < trackCount; i++) {
+        int id = input.readInt();
+        int type = input.readInt();
+        long timescale = input.readLong();
+        long movieTimescale = input.readLong();
+        long durationUs = input.readLong();
+        int sampleTransformation = input.readInt();
+        int nalUnitLengthFieldLength = input.readInt();
+        int formatLength = input.readInt();
+        if ((sampleTransformation != Track.TRANSFORMATION_NONE
+                && sampleTransformation != Track.TRANSFORMATION_CEA608_CDAT)
+            || nalUnitLengthFieldLength < 0
+            || nalUnitLengthFieldLength > 4
+            || formatLength < 0
+            || formatLength > input.available()) {
+          return false;
+        }
+        byte[] format = new byte[formatLength];
+        input.readFully(format);
+        // Edit lists have already been applied to the sample table, and encryption boxes are only
+        // used for fragmented streams.
+        Track track =
+            new Track(
+                id,
+                type,
+                timescale,
+                movieTimescale,
+                durationUs,
+                unmarshallFormat(format),
+                sampleTransformation,
+                /* sampleDescriptionEncryptionBoxes= */ null,
+                nalUnitLengthFieldLength,
+                /* editListDurations= */ null,
+                /* editListMediaTimes= */ null);
+        tracks.add(track);
+        trackSampleTables.add(TrackSampleTable.readFrom(track, input, inputLength));
+      }
+      if (input.available() != 0) {
+        return false;
+      }
+    } catch (IOException | RuntimeException e) {
+      // The state is truncated or corrupt. Unparcelling a corrupt format may throw any runtime
+      // exception.
+      return false;
+    }
+    this.inputLength = inputLength;
+    restoredTracks = tracks;
+    restoredTrackSampleTables = trackSampleTables;
+    hasRestoredHeaderState = true;
+    return true;
+  }
+
   // SeekMap implementation.
 
   @Override
@@ -227,14 +358,14 @@ public final class Mp4Extractor implements Extractor, SeekMap {
       if (sampleIndex == C.INDEX_UNSET) {
         return new SeekPoints(SeekPoint.START);
       }
-      long sampleTimeUs = sampleTable.timestampsUs[sampleIndex];
+      long sampleTimeUs = sampleTable.getTimestampUs(sampleIndex);
       firstTimeUs = sampleTimeUs;
-      firstOffset = sampleTable.offsets[sampleIndex];
+      firstOffset = sampleTable.getOffset(sampleIndex);
       if (sampleTimeUs < timeUs && sampleIndex < sampleTable.sampleCount - 1) {
         int secondSampleIndex = sampleTable.getIndexOfLaterOrEqualSynchronizationSample(timeUs);
         if (secondSampleIndex != C.INDEX_UNSET && secondSampleIndex != sampleIndex) {
-          secondTimeUs = sampleTable.timestampsUs[secondSampleIndex];
-          secondOffset = sampleTable.offsets[secondSampleIndex];
+          secondTimeUs = sampleTable.getTimestampUs(secondSampleIndex);
+          secondOffset = sampleTable.getOffset(secondSampleIndex);
         }
       }
     } else {
@@ -271,6 +402,7 @@ public final class Mp4Extractor implements Extractor, SeekMap {
 
   private boolean readAtomHeader(ExtractorInput input) throws IOException, InterruptedException {
     if (atomHeaderBytesRead == 0) {
+      inputLength = input.getLength();
       // Read the standard length atom header.
       if (!input.readFully(atomHeader.data, 0, Atom.HEADER_SIZE, true)) {
         return false;
@@ -382,9 +514,7 @@ public final class Mp4Extractor implements Extractor, SeekMap {
    * Updates the stored track metadata to reflect the contents of the specified moov atom.
    */
   private void processMoovAtom(ContainerAtom moov) throws ParserException {
-    int firstVideoTrackIndex = C.INDEX_UNSET;
-    long durationUs = C.TIME_UNSET;
-    List<Mp4Track> tracks = new ArrayList<>();
+    List<Track> tracks = new ArrayList<>();
 
     // Process metadata.
     Metadata udtaMetadata = null;
@@ -412,9 +542,6 @@ public final class Mp4Extractor implements Extractor, SeekMap {
       Track track = trackSampleTable.track;
       long trackDurationUs =
           track.durationUs != C.TIME_UNSET ? track.durationUs : trackSampleTable.durationUs;
-      durationUs = Math.max(durationUs, trackDurationUs);
-      Mp4Track mp4Track = new Mp4Track(track, trackSampleTable,
-          extractorOutput.track(i, track.type));
 
       // Each sample has up to three bytes of overhead for the start code that replaces its length.
       // Allow ten source samples per output sample, like the platform extractor.
@@ -429,17 +556,37 @@ public final class Mp4Extractor implements Extractor, SeekMap {
       format =
           MetadataUtil.getFormatWithMetadata(
               track.type, format, udtaMetadata, mdtaMetadata, gaplessInfoHolder);
-      mp4Track.trackOutput.format(format);
+      tracks.add(track.copyWithFormat(format));
+    }
+    setUpTracks(tracks, trackSampleTables);
+  }
 
+  /**
+   * Creates the track outputs and outputs the formats and seek map.
+   *
+   * @param tracks The tracks, whose formats are the ones to output.
+   * @param trackSampleTables The sample tables of the tracks.
+   */
+  private void setUpTracks(List<Track> tracks, List<TrackSampleTable> trackSampleTables) {
+    int firstVideoTrackIndex = C.INDEX_UNSET;
+    long durationUs = C.TIME_UNSET;
+    Mp4Track[] mp4Tracks = new Mp4Track[tracks.size()];
+    for (int i = 0; i < mp4Tracks.length; i++) {
+      Track track = tracks.get(i);
+      TrackSampleTable trackSampleTable = trackSampleTables.get(i);
+      long trackDurationUs =
+          track.durationUs != C.TIME_UNSET ? track.durationUs : trackSampleTable.durationUs;
+      durationUs = Math.max(durationUs, trackDurationUs);
+      mp4Tracks[i] = new Mp4Track(track, trackSampleTable, extractorOutput.track(i, track.type));
+      mp4Tracks[i].trackOutput.format(track.format);
       if (track.type == C.TRACK_TYPE_VIDEO && firstVideoTrackIndex == C.INDEX_UNSET) {
-        firstVideoTrackIndex = tracks.size();
+        firstVideoTrackIndex = i;
       }
-      tracks.add(mp4Track);
     }
     this.firstVideoTrackIndex = firstVideoTrackIndex;
     this.durationUs = durationUs;
-    this.tracks = tracks.toArray(new Mp4Track[0]);
-    accumulatedSampleSizes = calculateAccumulatedSampleSizes(this.tracks);
+    this.tracks = mp4Tracks;
+    accumulatedSampleSizes = calculateAccumulatedSampleSizes(mp4Tracks);
 
     extractorOutput.endTracks();
     extractorOutput.seekMap(this);
@@ -508,8 +655,8 @@ public final class Mp4Extractor implements Extractor, SeekMap {
     Mp4Track track = tracks[sampleTrackIndex];
     TrackOutput trackOutput = track.trackOutput;
     int sampleIndex = track.sampleIndex;
-    long position = track.sampleTable.offsets[sampleIndex];
-    int sampleSize = track.sampleTable.sizes[sampleIndex];
+    long position = track.sampleTable.getOffset(sampleIndex);
+    int sampleSize = track.sampleTable.getSize(sampleIndex);
     long skipAmount = position - inputPosition + sampleBytesWritten;
     if (skipAmount < 0 || skipAmount >= RELOAD_MINIMUM_SEEK_DISTANCE) {
       positionHolder.position = position;
@@ -571,8 +718,8 @@ public final class Mp4Extractor implements Extractor, SeekMap {
         sampleCurrentNalBytesRemaining -= writtenBytes;
       }
     }
-    trackOutput.sampleMetadata(track.sampleTable.timestampsUs[sampleIndex],
-        track.sampleTable.flags[sampleIndex], sampleSize, 0, null);
+    trackOutput.sampleMetadata(track.sampleTable.getTimestampUs(sampleIndex),
+        track.sampleTable.getFlags(sampleIndex), sampleSize, 0, null);
     track.sampleIndex++;
     sampleTrackIndex = C.INDEX_UNSET;
     sampleBytesWritten = 0;
@@ -607,8 +754,8 @@ public final class Mp4Extractor implements Extractor, SeekMap {
       if (sampleIndex == track.sampleTable.sampleCount) {
         continue;
       }
-      long sampleOffset = track.sampleTable.offsets[sampleIndex];
-      long sampleAccumulatedBytes = accumulatedSampleSizes[trackIndex][sampleIndex];
+      long sampleOffset = track.sampleTable.getOffset(sampleIndex);
+      long sampleAccumulatedBytes = accumulatedSampleSizes[trackIndex].get(sampleIndex);
       long skipAmount = sampleOffset - inputPosition;
       boolean requiresReload = skipAmount < 0 || skipAmount >= RELOAD_MINIMUM_SEEK_DISTANCE;
       if ((!requiresReload && preferredRequiresReload)
@@ -676,14 +823,16 @@ public final class Mp4Extractor implements Extractor, SeekMap {
    * For each sample of each track, calculates accumulated size of all samples which need to be read
    * before this sample can be used.
    */
-  private static long[][] calculateAccumulatedSampleSizes(Mp4Track[] tracks) {
-    long[][] accumulatedSampleSizes = new long[tracks.length][];
+  private static CompactLongArray[] calculateAccumulatedSampleSizes(Mp4Track[] tracks) {
+    CompactLongArray.Builder[] accumulatedSampleSizeBuilders =
+        new CompactLongArray.Builder[tracks.length];
     int[] nextSampleIndex = new int[tracks.length];
     long[] nextSampleTimesUs = new long[tracks.length];
     boolean[] tracksFinished = new boolean[tracks.length];
     for (int i = 0; i < tracks.length; i++) {
-      accumulatedSampleSizes[i] = new long[tracks[i].sampleTable.sampleCount];
-      nextSampleTimesUs[i] = tracks[i].sampleTable.timestampsUs[0];
+      accumulatedSampleSizeBuilders[i] =
+          new CompactLongArray.Builder(tracks[i].sampleTable.sampleCount);
+      nextSampleTimesUs[i] = tracks[i].sampleTable.getTimestampUs(0);
     }
     long accumulatedSampleSize = 0;
     int finishedTracks = 0;
@@ -697,17 +846,21 @@ public final class Mp4Extractor implements Extractor, SeekMap {
         }
       }
       int trackSampleIndex = nextSampleIndex[minTimeTrackIndex];
-      accumulatedSampleSizes[minTimeTrackIndex][trackSampleIndex] = accumulatedSampleSize;
-      accumulatedSampleSize += tracks[minTimeTrackIndex].sampleTable.sizes[trackSampleIndex];
+      accumulatedSampleSizeBuilders[minTimeTrackIndex].add(accumulatedSampleSize);
+      accumulatedSampleSize += tracks[minTimeTrackIndex].sampleTable.getSize(trackSampleIndex);
       nextSampleIndex[minTimeTrackIndex] = ++trackSampleIndex;
-      if (trackSampleIndex < accumulatedSampleSizes[minTimeTrackIndex].length) {
+      if (trackSampleIndex < tracks[minTimeTrackIndex].sampleTable.sampleCount) {
         nextSampleTimesUs[minTimeTrackIndex] =
-            tracks[minTimeTrackIndex].sampleTable.timestampsUs[trackSampleIndex];
+            tracks[minTimeTrackIndex].sampleTable.getTimestampUs(trackSampleIndex);
       } else {
         tracksFinished[minTimeTrackIndex] = true;
         finishedTracks++;
       }
     }
+    CompactLongArray[] accumulatedSampleSizes = new CompactLongArray[tracks.length];
+    for (int i = 0; i < tracks.length; i++) {
+      accumulatedSampleSizes[i] = accumulatedSampleSizeBuilders[i].build();
+    }
     return accumulatedSampleSizes;
   }
 
@@ -726,7 +879,7 @@ public final class Mp4Extractor implements Extractor, SeekMap {
     if (sampleIndex == C.INDEX_UNSET) {
       return offset;
     }
-    long sampleOffset = sampleTable.offsets[sampleIndex];
+    long sampleOffset = sampleTable.getOffset(sampleIndex);
     return Math.min(sampleOffset, offset);
   }
 
@@ -750,6 +903,27 @@ public final class Mp4Extractor implements Extractor, SeekMap {
     return sampleIndex;
   }
 
+  private static byte[] marshallFormat(Format format) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      format.writeToParcel(parcel, /* flags= */ 0);
+      return parcel.marshall();
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  private static Format unmarshallFormat(byte[] data) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      parcel.unmarshall(data, /* offset= */ 0, data.length);
+      parcel.setDataPosition(0);
+      return Format.CREATOR.createFromParcel(parcel);
+    } finally {
+      parcel.recycle();
+    }
+  }
+
   /**
    * Process an ftyp atom to determine whether the media is QuickTime.
    *
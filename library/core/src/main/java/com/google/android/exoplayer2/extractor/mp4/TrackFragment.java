@@ -85,6 +85,11 @@ import java.io.IOException;
    * Fragment specific track encryption. May be null.
    */
   public TrackEncryptionBox trackEncryptionBox;
+  /**
+   * The last fragment specific track encryption parsed from a sample group description, which is
+   * reused by later fragments that define the same encryption. May be null.
+   */
+  public TrackEncryptionBox lastSampleGroupEncryptionBox;
   /**
    * If {@link #definesEncryptionData} is true, indicates the length of the sample encryption data.
    * Undefined otherwise.
@@ -15,12 +15,21 @@
  */
 package com.google.android.exoplayer2.extractor.mp4;
 
+import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ParserException;
 import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.Util;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Sample table for a track in an MP4 file.
+ *
+ * <p>Sample offsets and timestamps are held in {@link CompactLongArray}s, and sample flags are held
+ * as the indices of the synchronization samples, so that the tables of long files use less memory.
  */
 /* package */ final class TrackSampleTable {
 
@@ -28,45 +37,183 @@ import com.google.android.exoplayer2.util.Util;
   public final Track track;
   /** Number of samples. */
   public final int sampleCount;
-  /** Sample offsets in bytes. */
-  public final long[] offsets;
-  /** Sample sizes in bytes. */
-  public final int[] sizes;
-  /** Maximum sample size in {@link #sizes}. */
+  /** Maximum sample size in bytes. */
   public final int maximumSize;
-  /** Sample timestamps in microseconds. */
-  public final long[] timestampsUs;
-  /** Sample flags. */
-  public final int[] flags;
   /**
    * The duration of the track sample table in microseconds, or {@link C#TIME_UNSET} if the sample
    * table is empty.
    */
   public final long durationUs;
 
+  private final CompactLongArray offsets;
+  private final int[] sizes;
+  private final CompactLongArray timestampsUs;
+  /** Sorted indices of the synchronization samples, or null if all samples are sync samples. */
+  @Nullable private final int[] syncSampleIndices;
+
+  /**
+   * @param track The track corresponding to this sample table.
+   * @param offsets The sample offsets in bytes.
+   * @param sizes The sample sizes in bytes.
+   * @param maximumSize The maximum sample size in bytes.
+   * @param timestampsUs The sample timestamps in microseconds.
+   * @param syncSampleIndices The sorted indices of the synchronization samples, or null if all
+   *     samples are synchronization samples.
+   * @param durationUs The duration of the sample table in microseconds, or {@link C#TIME_UNSET}
+   *     if the sample table is empty.
+   */
   public TrackSampleTable(
       Track track,
-      long[] offsets,
+      CompactLongArray offsets,
       int[] sizes,
       int maximumSize,
-      long[] timestampsUs,
-      int[] flags,
+      CompactLongArray timestampsUs,
+      @Nullable int[] syncSampleIndices,
       long durationUs) {
     Assertions.checkArgument(sizes.length == timestampsUs.length);
     Assertions.checkArgument(offsets.length == timestampsUs.length);
-    Assertions.checkArgument(flags.length == timestampsUs.length);
 
     this.track = track;
     this.offsets = offsets;
     this.sizes = sizes;
     this.maximumSize = maximumSize;
     this.timestampsUs = timestampsUs;
-    this.flags = flags;
     this.durationUs = durationUs;
     sampleCount = offsets.length;
-    if (flags.length > 0) {
-      flags[flags.length - 1] |= C.BUFFER_FLAG_LAST_SAMPLE;
+    this.syncSampleIndices =
+        syncSampleIndices != null && syncSampleIndices.length == sampleCount
+            ? null
+            : syncSampleIndices;
+  }
+
+  /**
+   * Reads a sample table written by {@link #writeTo(DataOutputStream)}.
+   *
+   * @param track The track corresponding to the sample table.
+   * @param input The input from which to read the sample table.
+   * @param inputLength The length of the stream containing the samples, in bytes.
+   * @return The sample table.
+   * @throws ParserException If the sample table is invalid, or lies outside of the stream.
+   * @throws IOException If an error occurs reading from the input.
+   */
+  public static TrackSampleTable readFrom(Track track, DataInputStream input, long inputLength)
+      throws IOException {
+    int sampleCount = input.readInt();
+    int maximumSize = input.readInt();
+    long durationUs = input.readLong();
+    // Each sample is written as at least three bytes.
+    if (sampleCount <= 0 || sampleCount > input.available() / 3) {
+      throw new ParserException("Invalid sample count: " + sampleCount);
+    }
+    CompactLongArray.Builder offsets = new CompactLongArray.Builder(sampleCount);
+    int[] sizes = new int[sampleCount];
+    CompactLongArray.Builder timestampsUs = new CompactLongArray.Builder(sampleCount);
+    long offset = 0;
+    long timestampUs = 0;
+    long timestampDeltaUs = 0;
+    for (int i = 0; i < sampleCount; i++) {
+      int size = (int) readVarLong(input);
+      offset += readSignedVarLong(input);
+      if (size < 0 || size > maximumSize || offset < 0 || offset + size > inputLength) {
+        throw new ParserException("Sample outside of stream: " + offset);
+      }
+      timestampDeltaUs += readSignedVarLong(input);
+      timestampUs += timestampDeltaUs;
+      offsets.add(offset);
+      sizes[i] = size;
+      timestampsUs.add(timestampUs);
+      offset += size;
+    }
+    int syncSampleCount = input.readInt();
+    @Nullable int[] syncSampleIndices = null;
+    if (syncSampleCount != -1) {
+      if (syncSampleCount < 0 || syncSampleCount > sampleCount) {
+        throw new ParserException("Invalid sync sample count: " + syncSampleCount);
+      }
+      syncSampleIndices = new int[syncSampleCount];
+      int syncSampleIndex = -1;
+      for (int i = 0; i < syncSampleCount; i++) {
+        syncSampleIndex += (int) readVarLong(input) + 1;
+        if (syncSampleIndex >= sampleCount) {
+          throw new ParserException("Invalid sync sample index: " + syncSampleIndex);
+        }
+        syncSampleIndices[i] = syncSampleIndex;
+      }
+    }
+    return new TrackSampleTable(
+        track,
+        offsets.build(),
+        sizes,
+        maximumSize,
+        timestampsUs.build(),
+        syncSampleIndices,
+        durationUs);
+  }
+
+  /**
+   * Writes the sample table, so that it can be read by {@link #readFrom(Track, DataInputStream,
+   * long)}. The offsets and timestamps are written as the differences from the values predicted
+   * from the previous samples, which are usually small.
+   *
+   * @param output The output to which to write the sample table.
+   * @throws IOException If an error occurs writing to the output.
+   */
+  public void writeTo(DataOutputStream output) throws IOException {
+    output.writeInt(sampleCount);
+    output.writeInt(maximumSize);
+    output.writeLong(durationUs);
+    long expectedOffset = 0;
+    long previousTimestampUs = 0;
+    long previousTimestampDeltaUs = 0;
+    for (int i = 0; i < sampleCount; i++) {
+      long offset = offsets.get(i);
+      long timestampUs = timestampsUs.get(i);
+      long timestampDeltaUs = timestampUs - previousTimestampUs;
+      writeVarLong(output, sizes[i]);
+      writeSignedVarLong(output, offset - expectedOffset);
+      writeSignedVarLong(output, timestampDeltaUs - previousTimestampDeltaUs);
+      expectedOffset = offset + sizes[i];
+      previousTimestampUs = timestampUs;
+      previousTimestampDeltaUs = timestampDeltaUs;
+    }
+    if (syncSampleIndices == null) {
+      output.writeInt(-1);
+    } else {
+      output.writeInt(syncSampleIndices.length);
+      int previousSyncSampleIndex = -1;
+      for (int syncSampleIndex : syncSampleIndices) {
+        writeVarLong(output, syncSampleIndex - previousSyncSampleIndex - 1);
+        previousSyncSampleIndex = syncSampleIndex;
+      }
+    }
+  }
+
+  /** Returns the offset in bytes of the sample at the specified index. */
+  public long getOffset(int sampleIndex) {
+    return offsets.get(sampleIndex);
+  }
+
+  /** Returns the size in bytes of the sample at the specified index. */
+  public int getSize(int sampleIndex) {
+    return sizes[sampleIndex];
+  }
+
+  /** Returns the timestamp in microseconds of the sample at the specified index. */
+  public long getTimestampUs(int sampleIndex) {
+    return timestampsUs.get(sampleIndex);
+  }
+
+  /**
+   * Returns the {@link C.BufferFlags} of the sample at the specified index. The last sample has
+   * {@link C#BUFFER_FLAG_LAST_SAMPLE} set.
+   */
+  @C.BufferFlags
+  public int getFlags(int sampleIndex) {
+    int flags = isSyncSample(sampleIndex) ? C.BUFFER_FLAG_KEY_FRAME : 0;
+    if (sampleIndex == sampleCount - 1) {
+      flags |= C.BUFFER_FLAG_LAST_SAMPLE;
     }
+    return flags;
   }
 
   /**
@@ -79,13 +226,12 @@ import com.google.android.exoplayer2.util.Util;
   public int getIndexOfEarlierOrEqualSynchronizationSample(long timeUs) {
     // Video frame timestamps may not be sorted, so the behavior of this call can be undefined.
     // Frames are not reordered past synchronization samples so this works in practice.
-    int startIndex = Util.binarySearchFloor(timestampsUs, timeUs, true, false);
-    for (int i = startIndex; i >= 0; i--) {
-      if ((flags[i] & C.BUFFER_FLAG_KEY_FRAME) != 0) {
-        return i;
-      }
+    int startIndex = timestampsUs.binarySearchFloor(timeUs, true, false);
+    if (startIndex < 0 || syncSampleIndices == null) {
+      return startIndex < 0 ? C.INDEX_UNSET : startIndex;
     }
-    return C.INDEX_UNSET;
+    int syncIndex = Util.binarySearchFloor(syncSampleIndices, startIndex, true, false);
+    return syncIndex < 0 ? C.INDEX_UNSET : syncSampleIndices[syncIndex];
   }
 
   /**
@@ -96,13 +242,47 @@ import com.google.android.exoplayer2.util.Util;
    * @return index Index of the synchronization sample, or {@link C#INDEX_UNSET} if none.
    */
   public int getIndexOfLaterOrEqualSynchronizationSample(long timeUs) {
-    int startIndex = Util.binarySearchCeil(timestampsUs, timeUs, true, false);
-    for (int i = startIndex; i < timestampsUs.length; i++) {
-      if ((flags[i] & C.BUFFER_FLAG_KEY_FRAME) != 0) {
-        return i;
-      }
+    int startIndex = timestampsUs.binarySearchCeil(timeUs, true, false);
+    if (startIndex >= sampleCount || syncSampleIndices == null) {
+      return startIndex >= sampleCount ? C.INDEX_UNSET : startIndex;
+    }
+    int syncIndex = Util.binarySearchCeil(syncSampleIndices, startIndex, true, false);
+    return syncIndex >= syncSampleIndices.length ? C.INDEX_UNSET : syncSampleIndices[syncIndex];
+  }
+
+  // Internal methods.
+
+  private boolean isSyncSample(int sampleIndex) {
+    return syncSampleIndices == null || Arrays.binarySearch(syncSampleIndices, sampleIndex) >= 0;
+  }
+
+  private static void writeSignedVarLong(DataOutputStream output, long value) throws IOException {
+    // Zigzag encode the value, so that small negative values are written as few bytes.
+    writeVarLong(output, (value << 1) ^ (value >> 63));
+  }
+
+  private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      output.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
     }
-    return C.INDEX_UNSET;
+    output.writeByte((int) value);
+  }
+
+  private static long readSignedVarLong(DataInputStream input) throws IOException {
+    long value = readVarLong(input);
+    return (value >>> 1) ^ -(value & 1);
   }
 
+  private static long readVarLong(DataInputStream input) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = input.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new ParserException("Invalid variable length value");
+  }
 }
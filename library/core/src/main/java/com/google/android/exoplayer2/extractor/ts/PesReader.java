@@ -22,6 +22,7 @@ import com.google.android.exoplayer2.util.Log;
 import com.google.android.exoplayer2.util.ParsableBitArray;
 import com.google.android.exoplayer2.util.ParsableByteArray;
 import com.google.android.exoplayer2.util.TimestampAdjuster;
+import java.util.concurrent.Executor;
 
 /**
  * Parses PES packet data and extracts samples.
@@ -39,9 +40,10 @@ public final class PesReader implements TsPayloadReader {
   private static final int MAX_HEADER_EXTENSION_SIZE = 10;
   private static final int PES_SCRATCH_SIZE = 10; // max(HEADER_SIZE, MAX_HEADER_EXTENSION_SIZE)
 
-  private final ElementaryStreamReader reader;
   private final ParsableBitArray pesScratch;
 
+  private ElementaryStreamReader reader;
+
   private int state;
   private int bytesRead;
 
@@ -60,6 +62,21 @@ public final class PesReader implements TsPayloadReader {
     state = STATE_FINDING_HEADER;
   }
 
+  /**
+   * Makes the reader forward calls to its {@link ElementaryStreamReader} on the specified {@link
+   * Executor}. PES headers, and so timestamps, are still parsed on the calling thread. Must be
+   * called before {@link #init}.
+   *
+   * @param executor The {@link Executor} on which the elementary stream is read.
+   * @return The {@link PipelinedElementaryStreamReader} to which calls are now passed.
+   */
+  /* package */ PipelinedElementaryStreamReader pipelineElementaryStreamReader(Executor executor) {
+    PipelinedElementaryStreamReader pipelinedReader =
+        new PipelinedElementaryStreamReader(reader, executor);
+    reader = pipelinedReader;
+    return pipelinedReader;
+  }
+
   @Override
   public void init(TimestampAdjuster timestampAdjuster, ExtractorOutput extractorOutput,
       TrackIdGenerator idGenerator) {
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor.ts;
+
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.ParserException;
+import com.google.android.exoplayer2.extractor.ExtractorOutput;
+import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.ParsableByteArray;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link ElementaryStreamReader} that forwards calls to another reader on an {@link Executor},
+ * so that readers of different elementary streams can run in parallel with each other and with the
+ * thread that reads the transport stream.
+ *
+ * <p>Calls are forwarded in order. Data passed to {@link #consume(ParsableByteArray)} is copied, so
+ * callers may reuse their buffers. {@link #createTracks} is forwarded synchronously, so that tracks
+ * are created before it returns. Callers must call {@link #blockUntilIdle()} before they rely on
+ * all forwarded calls having completed, for example before reporting that the extracted data has
+ * been output.
+ */
+/* package */ final class PipelinedElementaryStreamReader implements ElementaryStreamReader {
+
+  private static final int DATA_BUFFER_SIZE = 4096;
+
+  private static final int TYPE_SEEK = 0;
+  private static final int TYPE_PACKET_STARTED = 1;
+  private static final int TYPE_CONSUME = 2;
+  private static final int TYPE_PACKET_FINISHED = 3;
+
+  private final ElementaryStreamReader reader;
+  private final Executor executor;
+  private final Runnable runOperationsRunnable;
+  private final ParsableByteArray consumeData;
+
+  // Accessed only by the thread that calls the ElementaryStreamReader methods.
+  @Nullable private Operation pendingConsumeOperation;
+
+  // Guarded by this.
+  private final ArrayDeque<Operation> queuedOperations;
+  private final ArrayDeque<Operation> recycledOperations;
+  private boolean running;
+  @Nullable private ParserException pendingParserException;
+  @Nullable private RuntimeException pendingRuntimeException;
+
+  /**
+   * @param reader The {@link ElementaryStreamReader} to which calls are forwarded.
+   * @param executor The {@link Executor} on which calls are forwarded.
+   */
+  public PipelinedElementaryStreamReader(ElementaryStreamReader reader, Executor executor) {
+    this.reader = reader;
+    this.executor = executor;
+    runOperationsRunnable = this::runOperations;
+    consumeData = new ParsableByteArray();
+    queuedOperations = new ArrayDeque<>();
+    recycledOperations = new ArrayDeque<>();
+  }
+
+  /**
+   * Blocks until all forwarded calls have completed. The wait is not interruptible, so that the
+   * wrapped reader never writes to its outputs after this method has returned. Forwarding only
+   * takes as long as parsing the data passed since the last call, so the wait is short.
+   *
+   * @throws ParserException If a forwarded call to {@link #consume(ParsableByteArray)} threw.
+   */
+  public void blockUntilIdle() throws ParserException {
+    flushPendingConsumeOperation();
+    boolean wasInterrupted = false;
+    synchronized (this) {
+      while (running) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          wasInterrupted = true;
+        }
+      }
+      if (wasInterrupted) {
+        Thread.currentThread().interrupt();
+      }
+      ParserException parserException = pendingParserException;
+      RuntimeException runtimeException = pendingRuntimeException;
+      pendingParserException = null;
+      pendingRuntimeException = null;
+      if (parserException != null) {
+        throw parserException;
+      } else if (runtimeException != null) {
+        throw runtimeException;
+      }
+    }
+  }
+
+  // ElementaryStreamReader implementation.
+
+  @Override
+  public void seek() {
+    queueOperation(obtainOperation(TYPE_SEEK));
+  }
+
+  @Override
+  public void createTracks(
+      ExtractorOutput extractorOutput, PesReader.TrackIdGenerator idGenerator) {
+    reader.createTracks(extractorOutput, idGenerator);
+  }
+
+  @Override
+  public void packetStarted(long pesTimeUs, @TsPayloadReader.Flags int flags) {
+    Operation operation = obtainOperation(TYPE_PACKET_STARTED);
+    operation.pesTimeUs = pesTimeUs;
+    operation.flags = flags;
+    queueOperation(operation);
+  }
+
+  @Override
+  public void consume(ParsableByteArray data) {
+    while (data.bytesLeft() > 0) {
+      if (pendingConsumeOperation == null) {
+        pendingConsumeOperation = obtainOperation(TYPE_CONSUME);
+      }
+      Operation operation = pendingConsumeOperation;
+      byte[] operationData = Assertions.checkNotNull(operation.data);
+      int length = Math.min(data.bytesLeft(), operationData.length - operation.dataLength);
+      data.readBytes(operationData, operation.dataLength, length);
+      operation.dataLength += length;
+      if (operation.dataLength == operationData.length) {
+        flushPendingConsumeOperation();
+      }
+    }
+  }
+
+  @Override
+  public void packetFinished() {
+    queueOperation(obtainOperation(TYPE_PACKET_FINISHED));
+  }
+
+  // Internal methods.
+
+  private Operation obtainOperation(int type) {
+    Operation operation;
+    synchronized (this) {
+      operation = recycledOperations.poll();
+    }
+    if (operation == null) {
+      operation = new Operation();
+    }
+    operation.type = type;
+    if (type == TYPE_CONSUME && operation.data == null) {
+      operation.data = new byte[DATA_BUFFER_SIZE];
+    }
+    return operation;
+  }
+
+  private void flushPendingConsumeOperation() {
+    if (pendingConsumeOperation != null) {
+      Operation operation = pendingConsumeOperation;
+      pendingConsumeOperation = null;
+      queueOperationInternal(operation);
+    }
+  }
+
+  private void queueOperation(Operation operation) {
+    flushPendingConsumeOperation();
+    queueOperationInternal(operation);
+  }
+
+  private void queueOperationInternal(Operation operation) {
+    boolean startRunning;
+    synchronized (this) {
+      queuedOperations.add(operation);
+      startRunning = !running;
+      running = true;
+    }
+    if (startRunning) {
+      try {
+        executor.execute(runOperationsRunnable);
+      } catch (RuntimeException e) {
+        // For example a RejectedExecutionException from an executor that has been shut down. The
+        // queued calls will never run, so drop them and report the error as if a call had thrown.
+        synchronized (this) {
+          recycledOperations.addAll(queuedOperations);
+          queuedOperations.clear();
+          running = false;
+          if (pendingParserException == null && pendingRuntimeException == null) {
+            pendingRuntimeException = e;
+          }
+          notifyAll();
+        }
+        throw e;
+      }
+    }
+  }
+
+  private void runOperations() {
+    while (true) {
+      Operation operation;
+      boolean skip;
+      synchronized (this) {
+        operation = queuedOperations.poll();
+        if (operation == null) {
+          running = false;
+          notifyAll();
+          return;
+        }
+        // Once a call has thrown, the remaining calls are skipped until the error is reported.
+        skip = pendingParserException != null || pendingRuntimeException != null;
+      }
+      if (!skip) {
+        try {
+          runOperation(operation);
+        } catch (ParserException e) {
+          synchronized (this) {
+            pendingParserException = e;
+          }
+        } catch (RuntimeException e) {
+          synchronized (this) {
+            pendingRuntimeException = e;
+          }
+        }
+      }
+      operation.dataLength = 0;
+      synchronized (this) {
+        recycledOperations.add(operation);
+      }
+    }
+  }
+
+  private void runOperation(Operation operation) throws ParserException {
+    switch (operation.type) {
+      case TYPE_SEEK:
+        reader.seek();
+        break;
+      case TYPE_PACKET_STARTED:
+        reader.packetStarted(operation.pesTimeUs, operation.flags);
+        break;
+      case TYPE_CONSUME:
+        consumeData.reset(Assertions.checkNotNull(operation.data), operation.dataLength);
+        reader.consume(consumeData);
+        break;
+      case TYPE_PACKET_FINISHED:
+        reader.packetFinished();
+        break;
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  private static final class Operation {
+
+    public int type;
+    public long pesTimeUs;
+    @TsPayloadReader.Flags public int flags;
+    @Nullable public byte[] data;
+    public int dataLength;
+  }
+}
@@ -18,6 +18,7 @@ package com.google.android.exoplayer2.extractor.ts;
 import static com.google.android.exoplayer2.extractor.ts.TsPayloadReader.FLAG_PAYLOAD_UNIT_START_INDICATOR;
 
 import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
 import android.util.SparseArray;
 import android.util.SparseBooleanArray;
 import android.util.SparseIntArray;
@@ -47,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Extracts data from the MPEG-2 TS container format.
@@ -118,6 +120,8 @@ public final class TsExtractor implements Extractor {
   private final SparseBooleanArray trackIds;
   private final SparseBooleanArray trackPids;
   private final TsDurationReader durationReader;
+  @Nullable private final Executor elementaryStreamExecutor;
+  private final ArrayList<PipelinedElementaryStreamReader> pipelinedReaders;
 
   // Accessed only by the loading thread.
   private TsBinarySearchSeeker tsBinarySearchSeeker;
@@ -165,7 +169,29 @@ public final class TsExtractor implements Extractor {
       @Mode int mode,
       TimestampAdjuster timestampAdjuster,
       TsPayloadReader.Factory payloadReaderFactory) {
+    this(mode, timestampAdjuster, payloadReaderFactory, /* elementaryStreamExecutor= */ null);
+  }
+
+  /**
+   * @param mode Mode for the extractor. One of {@link #MODE_MULTI_PMT}, {@link #MODE_SINGLE_PMT}
+   *     and {@link #MODE_HLS}.
+   * @param timestampAdjuster A timestamp adjuster for offsetting and scaling sample timestamps.
+   * @param payloadReaderFactory Factory for injecting a custom set of payload readers.
+   * @param elementaryStreamExecutor An {@link Executor} on which the elementary streams of {@link
+   *     PesReader}s created by {@code payloadReaderFactory} are read, or null to read them on the
+   *     loading thread. Each elementary stream is read in order, but different streams may be read
+   *     in parallel with each other and with the demultiplexing of the transport stream. Samples
+   *     are then written to the {@link TrackOutput}s from the executor's threads, but all of them
+   *     have been written by the time each call to {@link #read} returns. The executor should have
+   *     at least as many threads as the number of elementary streams that are read in parallel.
+   */
+  public TsExtractor(
+      @Mode int mode,
+      TimestampAdjuster timestampAdjuster,
+      TsPayloadReader.Factory payloadReaderFactory,
+      @Nullable Executor elementaryStreamExecutor) {
     this.payloadReaderFactory = Assertions.checkNotNull(payloadReaderFactory);
+    this.elementaryStreamExecutor = elementaryStreamExecutor;
     this.mode = mode;
     if (mode == MODE_SINGLE_PMT || mode == MODE_HLS) {
       timestampAdjusters = Collections.singletonList(timestampAdjuster);
@@ -179,6 +205,7 @@ public final class TsExtractor implements Extractor {
     tsPayloadReaders = new SparseArray<>();
     continuityCounters = new SparseIntArray();
     durationReader = new TsDurationReader();
+    pipelinedReaders = new ArrayList<>();
     pcrPid = -1;
     resetPayloadReaders();
   }
@@ -240,11 +267,14 @@ public final class TsExtractor implements Extractor {
       tsPayloadReaders.valueAt(i).seek();
     }
     bytesSinceLastSync = 0;
+    // Make sure that the readers have been reset before returning.
+    blockUntilPipelinedReadersIdleIgnoringErrors();
   }
 
   @Override
   public void release() {
-    // Do nothing
+    blockUntilPipelinedReadersIdleIgnoringErrors();
+    pipelinedReaders.clear();
   }
 
   @Override
@@ -277,12 +307,37 @@ public final class TsExtractor implements Extractor {
       return RESULT_END_OF_INPUT;
     }
 
-    int endOfPacket = findEndOfFirstTsPacketInBuffer();
-    int limit = tsPacketBuffer.limit();
-    if (endOfPacket > limit) {
-      return RESULT_CONTINUE;
+    // Read all complete packets in the buffer, rather than returning after each one. Stop early if
+    // the tracks end, because this may require reading the duration or seeking to the start.
+    boolean wereTracksEnded = tracksEnded;
+    try {
+      int endOfPacket = findEndOfFirstTsPacketInBuffer();
+      while (endOfPacket <= tsPacketBuffer.limit()) {
+        readPacket(endOfPacket);
+        if (tracksEnded != wereTracksEnded) {
+          if (mode != MODE_HLS && inputLength != C.LENGTH_UNSET) {
+            // We have read all tracks from all PMTs in this non-live stream. Now seek to the
+            // beginning and read again to make sure we output all media, including any contained
+            // in packets prior to those containing the track information.
+            pendingSeekToStart = true;
+          }
+          break;
+        }
+        endOfPacket = findEndOfFirstTsPacketInBuffer();
+      }
+    } catch (Throwable e) {
+      // Make sure that no samples are output after returning, without masking the original error.
+      blockUntilPipelinedReadersIdle(/* readError= */ e);
+      throw e;
     }
+    // Make sure that all samples have been output before returning.
+    blockUntilPipelinedReadersIdle(/* readError= */ null);
+    return RESULT_CONTINUE;
+  }
+
+  // Internals.
 
+  private void readPacket(int endOfPacket) throws ParserException {
     @TsPayloadReader.Flags int packetHeaderFlags = 0;
 
     // Note: See ISO/IEC 13818-1, section 2.4.3.2 for details of the header format.
@@ -290,7 +345,7 @@ public final class TsExtractor implements Extractor {
     if ((tsPacketHeader & 0x800000) != 0) { // transport_error_indicator
       // There are uncorrectable errors in this packet.
       tsPacketBuffer.setPosition(endOfPacket);
-      return RESULT_CONTINUE;
+      return;
     }
     packetHeaderFlags |= (tsPacketHeader & 0x400000) != 0 ? FLAG_PAYLOAD_UNIT_START_INDICATOR : 0;
     // Ignoring transport_priority (tsPacketHeader & 0x200000)
@@ -299,10 +354,12 @@ public final class TsExtractor implements Extractor {
     boolean adaptationFieldExists = (tsPacketHeader & 0x20) != 0;
     boolean payloadExists = (tsPacketHeader & 0x10) != 0;
 
+    // Packets of programs and elementary streams that aren't being read, which are most packets of
+    // a multi-program stream, are skipped without further parsing.
     TsPayloadReader payloadReader = payloadExists ? tsPayloadReaders.get(pid) : null;
     if (payloadReader == null) {
       tsPacketBuffer.setPosition(endOfPacket);
-      return RESULT_CONTINUE;
+      return;
     }
 
     // Discontinuity check.
@@ -313,7 +370,7 @@ public final class TsExtractor implements Extractor {
       if (previousCounter == continuityCounter) {
         // Duplicate packet found.
         tsPacketBuffer.setPosition(endOfPacket);
-        return RESULT_CONTINUE;
+        return;
       } else if (continuityCounter != ((previousCounter + 1) & 0xF)) {
         // Discontinuity found.
         payloadReader.seek();
@@ -333,25 +390,15 @@ public final class TsExtractor implements Extractor {
     }
 
     // Read the payload.
-    boolean wereTracksEnded = tracksEnded;
     if (shouldConsumePacketPayload(pid)) {
+      int limit = tsPacketBuffer.limit();
       tsPacketBuffer.setLimit(endOfPacket);
       payloadReader.consume(tsPacketBuffer, packetHeaderFlags);
       tsPacketBuffer.setLimit(limit);
     }
-    if (mode != MODE_HLS && !wereTracksEnded && tracksEnded && inputLength != C.LENGTH_UNSET) {
-      // We have read all tracks from all PMTs in this non-live stream. Now seek to the beginning
-      // and read again to make sure we output all media, including any contained in packets prior
-      // to those containing the track information.
-      pendingSeekToStart = true;
-    }
-
     tsPacketBuffer.setPosition(endOfPacket);
-    return RESULT_CONTINUE;
   }
 
-  // Internals.
-
   private void maybeOutputSeekMap(long inputLength) {
     if (!hasOutputSeekMap) {
       hasOutputSeekMap = true;
@@ -424,6 +471,55 @@ public final class TsExtractor implements Extractor {
         || !trackPids.get(packetPid, /* valueIfKeyNotFound= */ false); // It's a PSI packet
   }
 
+  private void maybePipelineElementaryStreamReader(TsPayloadReader reader) {
+    if (elementaryStreamExecutor != null && reader instanceof PesReader) {
+      pipelinedReaders.add(
+          ((PesReader) reader).pipelineElementaryStreamReader(elementaryStreamExecutor));
+    }
+  }
+
+  /**
+   * Blocks until all pipelined readers are idle.
+   *
+   * @param readError An error thrown while reading, or null. If not null, errors reported by the
+   *     readers are added to it as suppressed exceptions rather than thrown.
+   * @throws ParserException If {@code readError} is null and a reader reported a {@link
+   *     ParserException}.
+   */
+  private void blockUntilPipelinedReadersIdle(@Nullable Throwable readError)
+      throws ParserException {
+    Exception readerError = null;
+    for (int i = 0; i < pipelinedReaders.size(); i++) {
+      try {
+        pipelinedReaders.get(i).blockUntilIdle();
+      } catch (ParserException | RuntimeException e) {
+        if (e == readError) {
+          // The error was thrown when forwarding a call to the reader, and is already being thrown.
+          continue;
+        }
+        if (readError == null && readerError == null) {
+          readerError = e;
+        } else if (Util.SDK_INT >= 19) {
+          // Throwable.addSuppressed is only available from API level 19.
+          (readError != null ? readError : readerError).addSuppressed(e);
+        }
+      }
+    }
+    if (readerError instanceof ParserException) {
+      throw (ParserException) readerError;
+    } else if (readerError != null) {
+      throw (RuntimeException) readerError;
+    }
+  }
+
+  private void blockUntilPipelinedReadersIdleIgnoringErrors() {
+    try {
+      blockUntilPipelinedReadersIdle(/* readError= */ null);
+    } catch (ParserException | RuntimeException e) {
+      // Errors caused by data that was read before a seek or release are no longer relevant.
+    }
+  }
+
   private void resetPayloadReaders() {
     trackIds.clear();
     tsPayloadReaders.clear();
@@ -563,6 +659,7 @@ public final class TsExtractor implements Extractor {
         // appears intermittently during playback. See [Internal: b/20261500].
         EsInfo dummyEsInfo = new EsInfo(TS_STREAM_TYPE_ID3, null, null, Util.EMPTY_BYTE_ARRAY);
         id3Reader = payloadReaderFactory.createPayloadReader(TS_STREAM_TYPE_ID3, dummyEsInfo);
+        maybePipelineElementaryStreamReader(id3Reader);
         id3Reader.init(timestampAdjuster, output,
             new TrackIdGenerator(programNumber, TS_STREAM_TYPE_ID3, MAX_PID_PLUS_ONE));
       }
@@ -606,6 +703,7 @@ public final class TsExtractor implements Extractor {
         TsPayloadReader reader = trackIdToReaderScratch.valueAt(i);
         if (reader != null) {
           if (reader != id3Reader) {
+            maybePipelineElementaryStreamReader(reader);
             reader.init(timestampAdjuster, output,
                 new TrackIdGenerator(programNumber, trackId, MAX_PID_PLUS_ONE));
           }
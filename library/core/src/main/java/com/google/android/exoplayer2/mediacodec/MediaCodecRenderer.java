@@ -570,6 +570,11 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
     }
   }
 
+  /** Returns the operating rate most recently set by {@link #setOperatingRate(float)}. */
+  protected final float getOperatingRate() {
+    return rendererOperatingRate;
+  }
+
   @Override
   protected void onDisabled() {
     inputFormat = null;
@@ -650,8 +655,18 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
     if (codec != null) {
       long drainStartTimeMs = SystemClock.elapsedRealtime();
       TraceUtil.beginSection("drainAndFeed");
-      while (drainOutputBuffer(positionUs, elapsedRealtimeUs)) {}
-      while (feedInputBuffer() && shouldContinueFeeding(drainStartTimeMs)) {}
+      boolean madeProgress;
+      do {
+        madeProgress = false;
+        while (drainOutputBuffer(positionUs, elapsedRealtimeUs)) {
+          madeProgress = true;
+        }
+        while (feedInputBuffer() && shouldContinueFeeding(drainStartTimeMs)) {
+          madeProgress = true;
+        }
+      } while (madeProgress
+          && shouldContinueDrainingAndFeeding()
+          && shouldContinueFeeding(drainStartTimeMs));
       TraceUtil.endSection();
     } else {
       decoderCounters.skippedInputBufferCount += skipSource(positionUs);
@@ -1280,6 +1295,17 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
     // Do nothing.
   }
 
+  /**
+   * Returns whether {@link #render(long, long)} should drain and feed the codec again after doing
+   * so made progress, rather than waiting for the next call. This allows renderers that are
+   * rendered infrequently to fill a large output buffer.
+   *
+   * <p>The default implementation returns {@code false}.
+   */
+  protected boolean shouldContinueDrainingAndFeeding() {
+    return false;
+  }
+
   /**
    * Determines whether the existing {@link MediaCodec} can be kept for a new format, and if it can
    * whether it requires reconfiguration.
@@ -187,29 +187,32 @@ public final class DefaultDownloadIndex implements WritableDownloadIndex {
   @Override
   public void putDownload(Download download) throws DatabaseIOException {
     ensureInitialized();
-    ContentValues values = new ContentValues();
-    values.put(COLUMN_ID, download.request.id);
-    values.put(COLUMN_TYPE, download.request.type);
-    values.put(COLUMN_URI, download.request.uri.toString());
-    values.put(COLUMN_STREAM_KEYS, encodeStreamKeys(download.request.streamKeys));
-    values.put(COLUMN_CUSTOM_CACHE_KEY, download.request.customCacheKey);
-    values.put(COLUMN_DATA, download.request.data);
-    values.put(COLUMN_STATE, download.state);
-    values.put(COLUMN_START_TIME_MS, download.startTimeMs);
-    values.put(COLUMN_UPDATE_TIME_MS, download.updateTimeMs);
-    values.put(COLUMN_CONTENT_LENGTH, download.contentLength);
-    values.put(COLUMN_STOP_REASON, download.stopReason);
-    values.put(COLUMN_FAILURE_REASON, download.failureReason);
-    values.put(COLUMN_PERCENT_DOWNLOADED, download.getPercentDownloaded());
-    values.put(COLUMN_BYTES_DOWNLOADED, download.getBytesDownloaded());
     try {
-      SQLiteDatabase writableDatabase = databaseProvider.getWritableDatabase();
-      writableDatabase.replaceOrThrow(tableName, /* nullColumnHack= */ null, values);
+      putDownloadInternal(databaseProvider.getWritableDatabase(), download);
     } catch (SQLiteException e) {
       throw new DatabaseIOException(e);
     }
   }
 
+  @Override
+  public void putDownloads(List<Download> downloads) throws DatabaseIOException {
+    ensureInitialized();
+    try {
+      SQLiteDatabase writableDatabase = databaseProvider.getWritableDatabase();
+      writableDatabase.beginTransaction();
+      try {
+        for (int i = 0; i < downloads.size(); i++) {
+          putDownloadInternal(writableDatabase, downloads.get(i));
+        }
+        writableDatabase.setTransactionSuccessful();
+      } finally {
+        writableDatabase.endTransaction();
+      }
+    } catch (SQLException e) {
+      throw new DatabaseIOException(e);
+    }
+  }
+
   @Override
   public void removeDownload(String id) throws DatabaseIOException {
     ensureInitialized();
@@ -220,6 +223,27 @@ public final class DefaultDownloadIndex implements WritableDownloadIndex {
     }
   }
 
+  @Override
+  public void removeDownloads(List<String> ids) throws DatabaseIOException {
+    ensureInitialized();
+    try {
+      SQLiteDatabase writableDatabase = databaseProvider.getWritableDatabase();
+      writableDatabase.beginTransaction();
+      try {
+        String[] whereArgs = new String[1];
+        for (int i = 0; i < ids.size(); i++) {
+          whereArgs[0] = ids.get(i);
+          writableDatabase.delete(tableName, WHERE_ID_EQUALS, whereArgs);
+        }
+        writableDatabase.setTransactionSuccessful();
+      } finally {
+        writableDatabase.endTransaction();
+      }
+    } catch (SQLException e) {
+      throw new DatabaseIOException(e);
+    }
+  }
+
   @Override
   public void setDownloadingStatesToQueued() throws DatabaseIOException {
     ensureInitialized();
@@ -302,6 +326,25 @@ public final class DefaultDownloadIndex implements WritableDownloadIndex {
     }
   }
 
+  private void putDownloadInternal(SQLiteDatabase writableDatabase, Download download) {
+    ContentValues values = new ContentValues();
+    values.put(COLUMN_ID, download.request.id);
+    values.put(COLUMN_TYPE, download.request.type);
+    values.put(COLUMN_URI, download.request.uri.toString());
+    values.put(COLUMN_STREAM_KEYS, encodeStreamKeys(download.request.streamKeys));
+    values.put(COLUMN_CUSTOM_CACHE_KEY, download.request.customCacheKey);
+    values.put(COLUMN_DATA, download.request.data);
+    values.put(COLUMN_STATE, download.state);
+    values.put(COLUMN_START_TIME_MS, download.startTimeMs);
+    values.put(COLUMN_UPDATE_TIME_MS, download.updateTimeMs);
+    values.put(COLUMN_CONTENT_LENGTH, download.contentLength);
+    values.put(COLUMN_STOP_REASON, download.stopReason);
+    values.put(COLUMN_FAILURE_REASON, download.failureReason);
+    values.put(COLUMN_PERCENT_DOWNLOADED, download.getPercentDownloaded());
+    values.put(COLUMN_BYTES_DOWNLOADED, download.getBytesDownloaded());
+    writableDatabase.replaceOrThrow(tableName, /* nullColumnHack= */ null, values);
+  }
+
   private Cursor getCursor(String selection, @Nullable String[] selectionArgs)
       throws DatabaseIOException {
     try {
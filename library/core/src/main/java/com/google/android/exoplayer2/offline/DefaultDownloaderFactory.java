@@ -17,8 +17,10 @@ package com.google.android.exoplayer2.offline;
 
 import android.net.Uri;
 import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
 import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Default {@link DownloaderFactory}, supporting creation of progressive, DASH, HLS and
@@ -69,10 +71,56 @@ public class DefaultDownloaderFactory implements DownloaderFactory {
   }
 
   private final DownloaderConstructorHelper downloaderConstructorHelper;
+  private final int maxParallelProgressiveRequests;
+  private final Executor progressiveRequestExecutor;
+  private final long liveUpdateIntervalMs;
 
   /** @param downloaderConstructorHelper A helper for instantiating downloaders. */
   public DefaultDownloaderFactory(DownloaderConstructorHelper downloaderConstructorHelper) {
+    this(
+        downloaderConstructorHelper,
+        /* maxParallelProgressiveRequests= */ 1,
+        /* progressiveRequestExecutor= */ Runnable::run);
+  }
+
+  /**
+   * @param downloaderConstructorHelper A helper for instantiating downloaders.
+   * @param maxParallelProgressiveRequests The maximum number of parallel range requests used by
+   *     each {@link ProgressiveDownloader}. If 1, progressive streams are downloaded sequentially.
+   * @param progressiveRequestExecutor An {@link Executor} on which {@link ProgressiveDownloader}s
+   *     make their additional parallel range requests.
+   */
+  public DefaultDownloaderFactory(
+      DownloaderConstructorHelper downloaderConstructorHelper,
+      int maxParallelProgressiveRequests,
+      Executor progressiveRequestExecutor) {
+    this(
+        downloaderConstructorHelper,
+        maxParallelProgressiveRequests,
+        progressiveRequestExecutor,
+        C.TIME_UNSET);
+  }
+
+  /**
+   * @param downloaderConstructorHelper A helper for instantiating downloaders.
+   * @param maxParallelProgressiveRequests The maximum number of parallel range requests used by
+   *     each {@link ProgressiveDownloader}. If 1, progressive streams are downloaded sequentially.
+   * @param progressiveRequestExecutor An {@link Executor} on which {@link ProgressiveDownloader}s
+   *     make their additional parallel range requests.
+   * @param liveUpdateIntervalMs The interval at which {@link SegmentDownloader}s refresh the
+   *     manifests of live streams to download newly appended segments, or {@link C#TIME_UNSET} to
+   *     complete downloads of live streams once the segments in their initial manifests have been
+   *     downloaded. See {@link SegmentDownloader#setLiveUpdateIntervalMs(long)}.
+   */
+  public DefaultDownloaderFactory(
+      DownloaderConstructorHelper downloaderConstructorHelper,
+      int maxParallelProgressiveRequests,
+      Executor progressiveRequestExecutor,
+      long liveUpdateIntervalMs) {
     this.downloaderConstructorHelper = downloaderConstructorHelper;
+    this.maxParallelProgressiveRequests = maxParallelProgressiveRequests;
+    this.progressiveRequestExecutor = progressiveRequestExecutor;
+    this.liveUpdateIntervalMs = liveUpdateIntervalMs;
   }
 
   @Override
@@ -80,7 +128,12 @@ public class DefaultDownloaderFactory implements DownloaderFactory {
     switch (request.type) {
       case DownloadRequest.TYPE_PROGRESSIVE:
         return new ProgressiveDownloader(
-            request.uri, request.customCacheKey, downloaderConstructorHelper);
+            request.uri,
+            request.customCacheKey,
+            downloaderConstructorHelper,
+            maxParallelProgressiveRequests,
+            ProgressiveDownloader.DEFAULT_RANGE_LENGTH_BYTES,
+            progressiveRequestExecutor);
       case DownloadRequest.TYPE_DASH:
         return createDownloader(request, DASH_DOWNLOADER_CONSTRUCTOR);
       case DownloadRequest.TYPE_HLS:
@@ -97,11 +150,17 @@ public class DefaultDownloaderFactory implements DownloaderFactory {
     if (constructor == null) {
       throw new IllegalStateException("Module missing for: " + request.type);
     }
+    Downloader downloader;
     try {
-      return constructor.newInstance(request.uri, request.streamKeys, downloaderConstructorHelper);
+      downloader =
+          constructor.newInstance(request.uri, request.streamKeys, downloaderConstructorHelper);
     } catch (Exception e) {
       throw new RuntimeException("Failed to instantiate downloader for: " + request.type, e);
     }
+    if (downloader instanceof SegmentDownloader) {
+      ((SegmentDownloader<?>) downloader).setLiveUpdateIntervalMs(liveUpdateIntervalMs);
+    }
+    return downloader;
   }
 
   // LINT.IfChange
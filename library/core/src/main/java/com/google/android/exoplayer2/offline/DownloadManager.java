@@ -49,6 +49,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -118,6 +119,10 @@ public final class DownloadManager {
   public static final int DEFAULT_MIN_RETRY_COUNT = 5;
   /** The default requirement is that the device has network connectivity. */
   public static final Requirements DEFAULT_REQUIREMENTS = new Requirements(Requirements.NETWORK);
+  /**
+   * The default interval at which the progress of active downloads is persisted, in milliseconds.
+   */
+  public static final int DEFAULT_PROGRESS_UPDATE_INTERVAL_MS = 5000;
 
   // Messages posted to the main handler.
   private static final int MSG_INITIALIZED = 0;
@@ -131,13 +136,16 @@ public final class DownloadManager {
   private static final int MSG_SET_STOP_REASON = 3;
   private static final int MSG_SET_MAX_PARALLEL_DOWNLOADS = 4;
   private static final int MSG_SET_MIN_RETRY_COUNT = 5;
-  private static final int MSG_ADD_DOWNLOAD = 6;
-  private static final int MSG_REMOVE_DOWNLOAD = 7;
-  private static final int MSG_REMOVE_ALL_DOWNLOADS = 8;
-  private static final int MSG_TASK_STOPPED = 9;
-  private static final int MSG_CONTENT_LENGTH_CHANGED = 10;
-  private static final int MSG_UPDATE_PROGRESS = 11;
-  private static final int MSG_RELEASE = 12;
+  private static final int MSG_SET_PROGRESS_UPDATE_INTERVAL = 6;
+  private static final int MSG_ADD_DOWNLOAD = 7;
+  private static final int MSG_ADD_DOWNLOADS = 8;
+  private static final int MSG_REMOVE_DOWNLOAD = 9;
+  private static final int MSG_REMOVE_DOWNLOADS = 10;
+  private static final int MSG_REMOVE_ALL_DOWNLOADS = 11;
+  private static final int MSG_TASK_STOPPED = 12;
+  private static final int MSG_CONTENT_LENGTH_CHANGED = 13;
+  private static final int MSG_UPDATE_PROGRESS = 14;
+  private static final int MSG_RELEASE = 15;
 
   private static final String TAG = "DownloadManager";
 
@@ -154,6 +162,7 @@ public final class DownloadManager {
   private boolean downloadsPaused;
   private int maxParallelDownloads;
   private int minRetryCount;
+  private int progressUpdateIntervalMs;
   private int notMetRequirements;
   private List<Download> downloads;
   private RequirementsWatcher requirementsWatcher;
@@ -190,6 +199,7 @@ public final class DownloadManager {
 
     maxParallelDownloads = DEFAULT_MAX_PARALLEL_DOWNLOADS;
     minRetryCount = DEFAULT_MIN_RETRY_COUNT;
+    progressUpdateIntervalMs = DEFAULT_PROGRESS_UPDATE_INTERVAL_MS;
     downloadsPaused = true;
     downloads = Collections.emptyList();
     listeners = new CopyOnWriteArraySet<>();
@@ -207,6 +217,7 @@ public final class DownloadManager {
             mainHandler,
             maxParallelDownloads,
             minRetryCount,
+            progressUpdateIntervalMs,
             downloadsPaused);
 
     @SuppressWarnings("methodref.receiver.bound.invalid")
@@ -347,6 +358,35 @@ public final class DownloadManager {
         .sendToTarget();
   }
 
+  /**
+   * Returns the interval at which the progress of active downloads is persisted to the download
+   * index, in milliseconds.
+   */
+  public int getProgressUpdateIntervalMs() {
+    return progressUpdateIntervalMs;
+  }
+
+  /**
+   * Sets the interval at which the progress of active downloads is persisted to the download index.
+   * Progress updates for all active downloads are written together in a single batch. Increasing
+   * the interval reduces the number of database writes, at the cost of losing more progress
+   * information if the process is killed.
+   *
+   * @param progressUpdateIntervalMs The interval in milliseconds. Must be greater than 0.
+   */
+  public void setProgressUpdateIntervalMs(int progressUpdateIntervalMs) {
+    Assertions.checkArgument(progressUpdateIntervalMs > 0);
+    if (this.progressUpdateIntervalMs == progressUpdateIntervalMs) {
+      return;
+    }
+    this.progressUpdateIntervalMs = progressUpdateIntervalMs;
+    pendingMessages++;
+    internalHandler
+        .obtainMessage(
+            MSG_SET_PROGRESS_UPDATE_INTERVAL, progressUpdateIntervalMs, /* unused */ 0)
+        .sendToTarget();
+  }
+
   /** Returns the used {@link DownloadIndex}. */
   public DownloadIndex getDownloadIndex() {
     return downloadIndex;
@@ -437,6 +477,36 @@ public final class DownloadManager {
         .sendToTarget();
   }
 
+  /**
+   * Adds downloads defined by the given requests. This is equivalent to calling {@link
+   * #addDownload(DownloadRequest)} for each request, but the download index is updated in a single
+   * batch.
+   *
+   * @param requests The download requests.
+   */
+  public void addDownloads(List<DownloadRequest> requests) {
+    addDownloads(requests, STOP_REASON_NONE);
+  }
+
+  /**
+   * Adds downloads defined by the given requests and with the specified stop reason. This is
+   * equivalent to calling {@link #addDownload(DownloadRequest, int)} for each request, but the
+   * download index is updated in a single batch.
+   *
+   * @param requests The download requests.
+   * @param stopReason An initial stop reason for the downloads, or {@link
+   *     Download#STOP_REASON_NONE} if the downloads should be started.
+   */
+  public void addDownloads(List<DownloadRequest> requests, int stopReason) {
+    if (requests.isEmpty()) {
+      return;
+    }
+    pendingMessages++;
+    internalHandler
+        .obtainMessage(MSG_ADD_DOWNLOADS, stopReason, /* unused */ 0, new ArrayList<>(requests))
+        .sendToTarget();
+  }
+
   /**
    * Cancels the download with the {@code id} and removes all downloaded data.
    *
@@ -447,6 +517,21 @@ public final class DownloadManager {
     internalHandler.obtainMessage(MSG_REMOVE_DOWNLOAD, id).sendToTarget();
   }
 
+  /**
+   * Cancels the downloads with the given {@code ids} and removes all downloaded data. This is
+   * equivalent to calling {@link #removeDownload(String)} for each id, but the download index is
+   * updated in a single batch.
+   *
+   * @param ids The unique content ids of the downloads to be removed.
+   */
+  public void removeDownloads(List<String> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    pendingMessages++;
+    internalHandler.obtainMessage(MSG_REMOVE_DOWNLOADS, new ArrayList<>(ids)).sendToTarget();
+  }
+
   /** Cancels all pending downloads and removes all downloaded data. */
   public void removeAllDownloads() {
     pendingMessages++;
@@ -584,8 +669,6 @@ public final class DownloadManager {
 
   private static final class InternalHandler extends Handler {
 
-    private static final int UPDATE_PROGRESS_INTERVAL_MS = 5000;
-
     public boolean released;
 
     private final HandlerThread thread;
@@ -594,11 +677,13 @@ public final class DownloadManager {
     private final Handler mainHandler;
     private final ArrayList<Download> downloads;
     private final HashMap<String, Task> activeTasks;
+    private final ArrayList<DownloadUpdate> pendingRemoveUpdates;
 
     @Requirements.RequirementFlags private int notMetRequirements;
     private boolean downloadsPaused;
     private int maxParallelDownloads;
     private int minRetryCount;
+    private int progressUpdateIntervalMs;
     private int activeDownloadTaskCount;
 
     public InternalHandler(
@@ -608,6 +693,7 @@ public final class DownloadManager {
         Handler mainHandler,
         int maxParallelDownloads,
         int minRetryCount,
+        int progressUpdateIntervalMs,
         boolean downloadsPaused) {
       super(thread.getLooper());
       this.thread = thread;
@@ -616,14 +702,21 @@ public final class DownloadManager {
       this.mainHandler = mainHandler;
       this.maxParallelDownloads = maxParallelDownloads;
       this.minRetryCount = minRetryCount;
+      this.progressUpdateIntervalMs = progressUpdateIntervalMs;
       this.downloadsPaused = downloadsPaused;
       downloads = new ArrayList<>();
       activeTasks = new HashMap<>();
+      pendingRemoveUpdates = new ArrayList<>();
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public void handleMessage(Message message) {
       boolean processedExternalMessage = true;
+      if (message.what != MSG_TASK_STOPPED) {
+        // Other messages may read or write the index entries of downloads being removed.
+        removePendingDownloadsFromIndex();
+      }
       switch (message.what) {
         case MSG_INITIALIZE:
           int notMetRequirements = message.arg1;
@@ -650,21 +743,37 @@ public final class DownloadManager {
           int minRetryCount = message.arg1;
           setMinRetryCount(minRetryCount);
           break;
+        case MSG_SET_PROGRESS_UPDATE_INTERVAL:
+          int progressUpdateIntervalMs = message.arg1;
+          setProgressUpdateIntervalMs(progressUpdateIntervalMs);
+          break;
         case MSG_ADD_DOWNLOAD:
           DownloadRequest request = (DownloadRequest) message.obj;
           stopReason = message.arg1;
           addDownload(request, stopReason);
           break;
+        case MSG_ADD_DOWNLOADS:
+          List<DownloadRequest> requests = (List<DownloadRequest>) message.obj;
+          stopReason = message.arg1;
+          addDownloads(requests, stopReason);
+          break;
         case MSG_REMOVE_DOWNLOAD:
           id = (String) message.obj;
           removeDownload(id);
           break;
+        case MSG_REMOVE_DOWNLOADS:
+          List<String> ids = (List<String>) message.obj;
+          removeDownloads(ids);
+          break;
         case MSG_REMOVE_ALL_DOWNLOADS:
           removeAllDownloads();
           break;
         case MSG_TASK_STOPPED:
           Task task = (Task) message.obj;
           onTaskStopped(task);
+          if (!hasMessages(MSG_TASK_STOPPED)) {
+            removePendingDownloadsFromIndex();
+          }
           processedExternalMessage = false; // This message is posted internally.
           break;
         case MSG_CONTENT_LENGTH_CHANGED:
@@ -778,22 +887,40 @@ public final class DownloadManager {
       this.minRetryCount = minRetryCount;
     }
 
+    private void setProgressUpdateIntervalMs(int progressUpdateIntervalMs) {
+      this.progressUpdateIntervalMs = progressUpdateIntervalMs;
+      if (activeDownloadTaskCount > 0) {
+        removeMessages(MSG_UPDATE_PROGRESS);
+        sendEmptyMessageDelayed(MSG_UPDATE_PROGRESS, progressUpdateIntervalMs);
+      }
+    }
+
     private void addDownload(DownloadRequest request, int stopReason) {
       Download download = getDownload(request.id, /* loadFromIndex= */ true);
+      putDownload(
+          createOrMergeDownload(download, request, stopReason, System.currentTimeMillis()));
+      syncTasks();
+    }
+
+    private void addDownloads(List<DownloadRequest> requests, int stopReason) {
       long nowMs = System.currentTimeMillis();
-      if (download != null) {
-        putDownload(mergeRequest(download, request, stopReason, nowMs));
-      } else {
-        putDownload(
-            new Download(
-                request,
-                stopReason != STOP_REASON_NONE ? STATE_STOPPED : STATE_QUEUED,
-                /* startTimeMs= */ nowMs,
-                /* updateTimeMs= */ nowMs,
-                /* contentLength= */ C.LENGTH_UNSET,
-                stopReason,
-                FAILURE_REASON_NONE));
+      ArrayList<Download> addedDownloads = new ArrayList<>(requests.size());
+      HashMap<String, Integer> addedDownloadIndices = new HashMap<>();
+      for (int i = 0; i < requests.size(); i++) {
+        DownloadRequest request = requests.get(i);
+        Integer addedDownloadIndex = addedDownloadIndices.get(request.id);
+        if (addedDownloadIndex != null) {
+          // The same content was requested earlier in the batch.
+          Download download = addedDownloads.get(addedDownloadIndex);
+          addedDownloads.set(
+              addedDownloadIndex, createOrMergeDownload(download, request, stopReason, nowMs));
+        } else {
+          Download download = getDownload(request.id, /* loadFromIndex= */ true);
+          addedDownloadIndices.put(request.id, addedDownloads.size());
+          addedDownloads.add(createOrMergeDownload(download, request, stopReason, nowMs));
+        }
       }
+      putDownloads(addedDownloads);
       syncTasks();
     }
 
@@ -807,6 +934,28 @@ public final class DownloadManager {
       syncTasks();
     }
 
+    private void removeDownloads(List<String> ids) {
+      ArrayList<Download> removingDownloads = new ArrayList<>(ids.size());
+      HashSet<String> removingIds = new HashSet<>();
+      for (int i = 0; i < ids.size(); i++) {
+        String id = ids.get(i);
+        if (!removingIds.add(id)) {
+          continue;
+        }
+        Download download = getDownload(id, /* loadFromIndex= */ true);
+        if (download == null) {
+          Log.e(TAG, "Failed to remove nonexistent download: " + id);
+        } else {
+          removingDownloads.add(copyDownloadWithState(download, STATE_REMOVING));
+        }
+      }
+      if (removingDownloads.isEmpty()) {
+        return;
+      }
+      putDownloads(removingDownloads);
+      syncTasks();
+    }
+
     private void removeAllDownloads() {
       List<Download> terminalDownloads = new ArrayList<>();
       try (DownloadCursor cursor = downloadIndex.getDownloads(STATE_COMPLETED, STATE_FAILED)) {
@@ -923,7 +1072,7 @@ public final class DownloadManager {
               /* internalHandler= */ this);
       activeTasks.put(download.request.id, activeTask);
       if (activeDownloadTaskCount++ == 0) {
-        sendEmptyMessageDelayed(MSG_UPDATE_PROGRESS, UPDATE_PROGRESS_INTERVAL_MS);
+        sendEmptyMessageDelayed(MSG_UPDATE_PROGRESS, progressUpdateIntervalMs);
       }
       activeTask.start();
       return activeTask;
@@ -1059,31 +1208,50 @@ public final class DownloadManager {
       } else {
         int removeIndex = getDownloadIndex(download.request.id);
         downloads.remove(removeIndex);
-        try {
-          downloadIndex.removeDownload(download.request.id);
-        } catch (IOException e) {
-          Log.e(TAG, "Failed to remove from database");
-        }
-        DownloadUpdate update =
-            new DownloadUpdate(download, /* isRemove= */ true, new ArrayList<>(downloads));
-        mainHandler.obtainMessage(MSG_DOWNLOAD_UPDATE, update).sendToTarget();
+        // Removals that complete together are applied to the index in a single transaction. The
+        // main thread is notified once the download is no longer in the index.
+        pendingRemoveUpdates.add(
+            new DownloadUpdate(download, /* isRemove= */ true, new ArrayList<>(downloads)));
       }
     }
 
+    private void removePendingDownloadsFromIndex() {
+      if (pendingRemoveUpdates.isEmpty()) {
+        return;
+      }
+      ArrayList<String> ids = new ArrayList<>(pendingRemoveUpdates.size());
+      for (int i = 0; i < pendingRemoveUpdates.size(); i++) {
+        ids.add(pendingRemoveUpdates.get(i).download.request.id);
+      }
+      try {
+        downloadIndex.removeDownloads(ids);
+      } catch (IOException e) {
+        Log.e(TAG, "Failed to remove from database");
+      }
+      for (int i = 0; i < pendingRemoveUpdates.size(); i++) {
+        mainHandler.obtainMessage(MSG_DOWNLOAD_UPDATE, pendingRemoveUpdates.get(i)).sendToTarget();
+      }
+      pendingRemoveUpdates.clear();
+    }
+
     // Progress updates.
 
     private void updateProgress() {
+      ArrayList<Download> downloadingDownloads = new ArrayList<>(activeDownloadTaskCount);
       for (int i = 0; i < downloads.size(); i++) {
         Download download = downloads.get(i);
         if (download.state == STATE_DOWNLOADING) {
-          try {
-            downloadIndex.putDownload(download);
-          } catch (IOException e) {
-            Log.e(TAG, "Failed to update index.", e);
-          }
+          downloadingDownloads.add(download);
+        }
+      }
+      if (!downloadingDownloads.isEmpty()) {
+        try {
+          downloadIndex.putDownloads(downloadingDownloads);
+        } catch (IOException e) {
+          Log.e(TAG, "Failed to update index.", e);
         }
       }
-      sendEmptyMessageDelayed(MSG_UPDATE_PROGRESS, UPDATE_PROGRESS_INTERVAL_MS);
+      sendEmptyMessageDelayed(MSG_UPDATE_PROGRESS, progressUpdateIntervalMs);
     }
 
     // Helper methods.
@@ -1125,6 +1293,34 @@ public final class DownloadManager {
       return download;
     }
 
+    private void putDownloads(List<Download> downloadsToPut) {
+      for (int i = 0; i < downloadsToPut.size(); i++) {
+        Download download = downloadsToPut.get(i);
+        // Downloads in terminal states shouldn't be in the downloads list.
+        Assertions.checkState(
+            download.state != STATE_COMPLETED && download.state != STATE_FAILED);
+        int changedIndex = getDownloadIndex(download.request.id);
+        if (changedIndex == C.INDEX_UNSET) {
+          downloads.add(download);
+        } else {
+          downloads.set(changedIndex, download);
+        }
+      }
+      Collections.sort(downloads, InternalHandler::compareStartTimes);
+      try {
+        downloadIndex.putDownloads(downloadsToPut);
+      } catch (IOException e) {
+        Log.e(TAG, "Failed to update index.", e);
+      }
+      // All updates share a single copy of the downloads list, which reflects the whole batch.
+      ArrayList<Download> updateList = new ArrayList<>(downloads);
+      for (int i = 0; i < downloadsToPut.size(); i++) {
+        DownloadUpdate update =
+            new DownloadUpdate(downloadsToPut.get(i), /* isRemove= */ false, updateList);
+        mainHandler.obtainMessage(MSG_DOWNLOAD_UPDATE, update).sendToTarget();
+      }
+    }
+
     @Nullable
     private Download getDownload(String id, boolean loadFromIndex) {
       int index = getDownloadIndex(id);
@@ -1151,6 +1347,21 @@ public final class DownloadManager {
       return C.INDEX_UNSET;
     }
 
+    private static Download createOrMergeDownload(
+        @Nullable Download download, DownloadRequest request, int stopReason, long nowMs) {
+      if (download != null) {
+        return mergeRequest(download, request, stopReason, nowMs);
+      }
+      return new Download(
+          request,
+          stopReason != STOP_REASON_NONE ? STATE_STOPPED : STATE_QUEUED,
+          /* startTimeMs= */ nowMs,
+          /* updateTimeMs= */ nowMs,
+          /* contentLength= */ C.LENGTH_UNSET,
+          stopReason,
+          FAILURE_REASON_NONE);
+    }
+
     private static Download copyDownloadWithState(Download download, @Download.State int state) {
       return new Download(
           download.request,
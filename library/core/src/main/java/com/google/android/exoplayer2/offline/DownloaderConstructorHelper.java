@@ -37,6 +37,8 @@ public final class DownloaderConstructorHelper {
   private final Cache cache;
   @Nullable private final CacheKeyFactory cacheKeyFactory;
   @Nullable private final PriorityTaskManager priorityTaskManager;
+  private final DataSource.Factory upstreamFactory;
+  private final DataSink.Factory cacheWriteDataSinkFactory;
   private final CacheDataSourceFactory onlineCacheDataSourceFactory;
   private final CacheDataSourceFactory offlineCacheDataSourceFactory;
 
@@ -132,6 +134,8 @@ public final class DownloaderConstructorHelper {
             /* eventListener= */ null,
             cacheKeyFactory);
     this.cache = cache;
+    this.upstreamFactory = upstreamFactory;
+    this.cacheWriteDataSinkFactory = cacheWriteDataSinkFactory;
     this.priorityTaskManager = priorityTaskManager;
     this.cacheKeyFactory = cacheKeyFactory;
   }
@@ -153,6 +157,19 @@ public final class DownloaderConstructorHelper {
     return priorityTaskManager != null ? priorityTaskManager : new PriorityTaskManager();
   }
 
+  /**
+   * Returns a new {@link DataSource} instance for reading data directly from upstream, bypassing
+   * the cache.
+   */
+  public DataSource createUpstreamDataSource() {
+    return upstreamFactory.createDataSource();
+  }
+
+  /** Returns a new {@link DataSink} instance for writing data to the cache. */
+  public DataSink createCacheDataSink() {
+    return cacheWriteDataSinkFactory.createDataSink();
+  }
+
   /** Returns a new {@link CacheDataSource} instance. */
   public CacheDataSource createCacheDataSource() {
     return onlineCacheDataSourceFactory.createDataSource();
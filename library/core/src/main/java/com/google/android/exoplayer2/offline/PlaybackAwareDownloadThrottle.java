@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.offline;
+
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DataRateLimiter;
+import com.google.android.exoplayer2.upstream.RateLimitedDataSourceFactory;
+import com.google.android.exoplayer2.util.Assertions;
+
+/**
+ * Adjusts a {@link DataRateLimiter} used by downloads according to the state of a foreground
+ * player, so that downloads do not cause the player to rebuffer.
+ *
+ * <p>To use this class, pass a {@link RateLimitedDataSourceFactory} that uses the limiter as the
+ * upstream factory of the {@link DownloaderConstructorHelper} used by the {@link DownloadManager},
+ * and register the throttle as a listener on the foreground {@link Player} and on the {@link
+ * BandwidthMeter} used for playback. The download rate is then:
+ *
+ * <ul>
+ *   <li>Unlimited whilst the player is idle or has ended.
+ *   <li>Zero, meaning downloads are paused, whilst the player is rebuffering.
+ *   <li>A fraction of the estimated playback bandwidth otherwise. The rate is unlimited until the
+ *       first bandwidth sample is reported.
+ * </ul>
+ *
+ * <p>All methods must be called on the same thread, which is normally the application's main
+ * thread.
+ */
+public final class PlaybackAwareDownloadThrottle
+    implements Player.EventListener, BandwidthMeter.EventListener {
+
+  /** The default fraction of the estimated bandwidth that downloads may use during playback. */
+  public static final float DEFAULT_DOWNLOAD_BANDWIDTH_FRACTION = 0.25f;
+
+  private final DataRateLimiter rateLimiter;
+  private final float downloadBandwidthFraction;
+
+  private boolean playbackActive;
+  private boolean rebuffering;
+  private long bitrateEstimate;
+  private boolean hasBitrateEstimate;
+
+  /**
+   * Creates an instance using {@link #DEFAULT_DOWNLOAD_BANDWIDTH_FRACTION}.
+   *
+   * @param rateLimiter The {@link DataRateLimiter} used by downloads.
+   */
+  public PlaybackAwareDownloadThrottle(DataRateLimiter rateLimiter) {
+    this(rateLimiter, DEFAULT_DOWNLOAD_BANDWIDTH_FRACTION);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param rateLimiter The {@link DataRateLimiter} used by downloads.
+   * @param downloadBandwidthFraction The fraction of the estimated bandwidth that downloads may use
+   *     whilst the player is playing or buffering without having stalled playback. Must be in the
+   *     range [0, 1].
+   */
+  public PlaybackAwareDownloadThrottle(
+      DataRateLimiter rateLimiter, float downloadBandwidthFraction) {
+    Assertions.checkArgument(downloadBandwidthFraction >= 0 && downloadBandwidthFraction <= 1);
+    this.rateLimiter = rateLimiter;
+    this.downloadBandwidthFraction = downloadBandwidthFraction;
+    updateRate();
+  }
+
+  // Player.EventListener implementation.
+
+  @Override
+  public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
+    playbackActive =
+        playbackState == Player.STATE_BUFFERING || playbackState == Player.STATE_READY;
+    rebuffering = playWhenReady && playbackState == Player.STATE_BUFFERING;
+    updateRate();
+  }
+
+  // BandwidthMeter.EventListener implementation.
+
+  @Override
+  public void onBandwidthSample(int elapsedMs, long bytesTransferred, long bitrateEstimate) {
+    this.bitrateEstimate = bitrateEstimate;
+    hasBitrateEstimate = true;
+    updateRate();
+  }
+
+  // Internal methods.
+
+  private void updateRate() {
+    long maxBytesPerSecond;
+    if (!playbackActive || (!rebuffering && !hasBitrateEstimate)) {
+      maxBytesPerSecond = DataRateLimiter.RATE_UNLIMITED;
+    } else if (rebuffering) {
+      maxBytesPerSecond = 0;
+    } else {
+      maxBytesPerSecond = (long) (bitrateEstimate * downloadBandwidthFraction / 8);
+    }
+    if (maxBytesPerSecond != rateLimiter.getMaxBytesPerSecond()) {
+      rateLimiter.setMaxBytesPerSecond(maxBytesPerSecond);
+    }
+  }
+}
@@ -18,20 +18,54 @@ package com.google.android.exoplayer2.offline;
 import android.net.Uri;
 import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSink;
+import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.upstream.cache.Cache;
 import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
 import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheSpan;
 import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadata;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadataMutations;
+import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.PriorityTaskManager;
+import com.google.android.exoplayer2.util.Util;
+import java.io.EOFException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A downloader for progressive media streams.
+ *
+ * <p>By default the stream is downloaded sequentially using a single request. If the downloader is
+ * created with {@code maxParallelRequests > 1}, the stream is instead split into byte ranges that
+ * are downloaded into the cache by up to that many parallel requests. The requests are made on the
+ * thread calling {@link #download(ProgressListener)} and on tasks submitted to the {@link Executor}
+ * passed to the constructor. In this case:
+ *
+ * <ul>
+ *   <li>Only the ranges that are not already fully cached are requested, so a download that was
+ *       interrupted resumes by filling the remaining holes in the cache.
+ *   <li>Each range is verified to be fully cached once it has been downloaded, and the download
+ *       fails if the server returns less data than requested.
+ *   <li>The content in the cache is locked for the duration of the download, so playbacks using
+ *       the same cache key read from upstream without writing to the cache until it completes.
+ *   <li>If the length of the stream cannot be resolved, the download falls back to being
+ *       sequential.
+ * </ul>
  */
 public final class ProgressiveDownloader implements Downloader {
 
+  /** The default length of the byte ranges requested when using parallel requests. */
+  public static final long DEFAULT_RANGE_LENGTH_BYTES = 4 * 1024 * 1024;
+
   private static final int BUFFER_SIZE_BYTES = 128 * 1024;
 
   private final DataSpec dataSpec;
@@ -39,6 +73,10 @@ public final class ProgressiveDownloader implements Downloader {
   private final CacheDataSource dataSource;
   private final CacheKeyFactory cacheKeyFactory;
   private final PriorityTaskManager priorityTaskManager;
+  private final DownloaderConstructorHelper constructorHelper;
+  private final int maxParallelRequests;
+  private final long rangeLengthBytes;
+  private final Executor executor;
   private final AtomicBoolean isCanceled;
 
   /**
@@ -49,6 +87,37 @@ public final class ProgressiveDownloader implements Downloader {
    */
   public ProgressiveDownloader(
       Uri uri, @Nullable String customCacheKey, DownloaderConstructorHelper constructorHelper) {
+    this(
+        uri,
+        customCacheKey,
+        constructorHelper,
+        /* maxParallelRequests= */ 1,
+        DEFAULT_RANGE_LENGTH_BYTES,
+        /* executor= */ Runnable::run);
+  }
+
+  /**
+   * @param uri Uri of the data to be downloaded.
+   * @param customCacheKey A custom key that uniquely identifies the original stream. Used for cache
+   *     indexing. May be null.
+   * @param constructorHelper A {@link DownloaderConstructorHelper} instance.
+   * @param maxParallelRequests The maximum number of parallel range requests used to download the
+   *     stream. If 1, the stream is downloaded sequentially.
+   * @param rangeLengthBytes The length of the byte ranges requested when using parallel requests.
+   * @param executor An {@link Executor} to which up to {@code maxParallelRequests - 1} tasks are
+   *     submitted to make the additional parallel requests. {@link #download(ProgressListener)}
+   *     returns once all of the submitted tasks have finished, so if the executor cannot run them
+   *     concurrently the download is still made, but with fewer parallel requests.
+   */
+  public ProgressiveDownloader(
+      Uri uri,
+      @Nullable String customCacheKey,
+      DownloaderConstructorHelper constructorHelper,
+      int maxParallelRequests,
+      long rangeLengthBytes,
+      Executor executor) {
+    Assertions.checkArgument(maxParallelRequests > 0);
+    Assertions.checkArgument(rangeLengthBytes > 0);
     this.dataSpec =
         new DataSpec(
             uri,
@@ -60,6 +129,10 @@ public final class ProgressiveDownloader implements Downloader {
     this.dataSource = constructorHelper.createCacheDataSource();
     this.cacheKeyFactory = constructorHelper.getCacheKeyFactory();
     this.priorityTaskManager = constructorHelper.getPriorityTaskManager();
+    this.constructorHelper = constructorHelper;
+    this.maxParallelRequests = maxParallelRequests;
+    this.rangeLengthBytes = rangeLengthBytes;
+    this.executor = Assertions.checkNotNull(executor);
     isCanceled = new AtomicBoolean();
   }
 
@@ -68,6 +141,9 @@ public final class ProgressiveDownloader implements Downloader {
       throws InterruptedException, IOException {
     priorityTaskManager.add(C.PRIORITY_DOWNLOAD);
     try {
+      if (maxParallelRequests > 1 && downloadInParallel(progressListener)) {
+        return;
+      }
       CacheUtil.cache(
           dataSpec,
           cache,
@@ -94,6 +170,385 @@ public final class ProgressiveDownloader implements Downloader {
     CacheUtil.remove(dataSpec, cache, cacheKeyFactory);
   }
 
+  // Internal methods.
+
+  /**
+   * Downloads the stream using parallel range requests.
+   *
+   * @param progressListener A listener to receive progress updates, or {@code null}.
+   * @return Whether the stream was downloaded. False if its length could not be resolved, in which
+   *     case nothing was downloaded and the stream should be downloaded sequentially instead.
+   */
+  private boolean downloadInParallel(@Nullable ProgressListener progressListener)
+      throws InterruptedException, IOException {
+    String key = cacheKeyFactory.buildCacheKey(dataSpec);
+    CacheSpan holeSpan = lockFirstHole(key);
+    if (holeSpan == null) {
+      // The stream is fully cached.
+      if (progressListener != null) {
+        long contentLength = ContentMetadata.getContentLength(cache.getContentMetadata(key));
+        progressListener.onProgress(contentLength, contentLength, /* percentDownloaded= */ 100f);
+      }
+      return true;
+    }
+    try {
+      long contentLength = ContentMetadata.getContentLength(cache.getContentMetadata(key));
+      if (contentLength == C.LENGTH_UNSET) {
+        contentLength = resolveContentLength(key, holeSpan.position);
+        if (contentLength == C.LENGTH_UNSET) {
+          return false;
+        }
+      }
+      ArrayList<Long> rangePositions = new ArrayList<>();
+      for (long position = 0; position < contentLength; position += rangeLengthBytes) {
+        if (!cache.isCached(key, position, Math.min(rangeLengthBytes, contentLength - position))) {
+          rangePositions.add(position);
+        }
+      }
+      ProgressCounter progressCounter = null;
+      if (progressListener != null) {
+        progressCounter =
+            new ProgressCounter(
+                progressListener,
+                contentLength,
+                CacheUtil.getCached(dataSpec, cache, cacheKeyFactory).second);
+      }
+      ParallelDownload parallelDownload =
+          new ParallelDownload(key, contentLength, rangePositions, progressCounter);
+      parallelDownload.run(Math.min(maxParallelRequests, rangePositions.size()));
+      return true;
+    } finally {
+      cache.releaseHoleSpan(holeSpan);
+    }
+  }
+
+  /**
+   * Locks the content in the cache by starting a write at the first hole.
+   *
+   * @param key The cache key of the stream.
+   * @return The locked hole {@link CacheSpan}, or null if the stream is fully cached.
+   */
+  @Nullable
+  private CacheSpan lockFirstHole(String key) throws InterruptedException, IOException {
+    while (true) {
+      throwExceptionIfInterruptedOrCanceled(isCanceled);
+      long contentLength = ContentMetadata.getContentLength(cache.getContentMetadata(key));
+      long position = 0;
+      long blockLength;
+      while ((blockLength = cache.getCachedLength(key, position, Long.MAX_VALUE)) > 0) {
+        position += blockLength;
+      }
+      if (contentLength != C.LENGTH_UNSET && position >= contentLength) {
+        return null;
+      }
+      CacheSpan span = cache.startReadWrite(key, position);
+      if (span.isHoleSpan()) {
+        return span;
+      }
+      // The hole was filled whilst we were waiting for the lock. Try again.
+    }
+  }
+
+  /**
+   * Resolves the length of the stream by opening a request from {@code position}, and stores it in
+   * the cache's content metadata.
+   *
+   * @param key The cache key of the stream.
+   * @param position The position from which to open the request.
+   * @return The resolved length of the stream, or {@link C#LENGTH_UNSET} if it's unknown.
+   */
+  private long resolveContentLength(String key, long position) throws IOException {
+    DataSource upstream = constructorHelper.createUpstreamDataSource();
+    try {
+      long length = upstream.open(buildDataSpec(key, position, C.LENGTH_UNSET));
+      if (length == C.LENGTH_UNSET) {
+        return C.LENGTH_UNSET;
+      }
+      long contentLength = position + length;
+      ContentMetadataMutations mutations = new ContentMetadataMutations();
+      ContentMetadataMutations.setContentLength(mutations, contentLength);
+      cache.applyContentMetadataMutations(key, mutations);
+      return contentLength;
+    } finally {
+      Util.closeQuietly(upstream);
+    }
+  }
+
+  private DataSpec buildDataSpec(String key, long position, long length) {
+    return new DataSpec(dataSpec.uri, position, length, key, dataSpec.flags);
+  }
+
+  private static void throwExceptionIfInterruptedOrCanceled(AtomicBoolean isCanceled)
+      throws InterruptedException {
+    if (Thread.interrupted() || isCanceled.get()) {
+      throw new InterruptedException();
+    }
+  }
+
+  private static float getPercentDownloaded(long contentLength, long bytesCached) {
+    return contentLength == C.LENGTH_UNSET || contentLength == 0
+        ? C.PERCENTAGE_UNSET
+        : ((bytesCached * 100f) / contentLength);
+  }
+
+  /** Downloads a list of byte ranges of the stream using parallel requests. */
+  private final class ParallelDownload {
+
+    private final String key;
+    private final long contentLength;
+    private final ArrayList<Long> rangePositions;
+    @Nullable private final ProgressCounter progressCounter;
+    private final AtomicInteger nextRangeIndex;
+    private final AtomicBoolean isStopped;
+    private final HashSet<Thread> downloadingThreads;
+
+    @Nullable private Throwable error;
+
+    public ParallelDownload(
+        String key,
+        long contentLength,
+        ArrayList<Long> rangePositions,
+        @Nullable ProgressCounter progressCounter) {
+      this.key = key;
+      this.contentLength = contentLength;
+      this.rangePositions = rangePositions;
+      this.progressCounter = progressCounter;
+      nextRangeIndex = new AtomicInteger();
+      isStopped = new AtomicBoolean();
+      downloadingThreads = new HashSet<>();
+    }
+
+    /**
+     * Downloads the ranges using the calling thread and {@code requestCount - 1} tasks submitted to
+     * the {@link Executor}, and returns once all of the tasks have finished.
+     */
+    public void run(int requestCount) throws InterruptedException, IOException {
+      Thread downloadThread = Thread.currentThread();
+      int taskCount = Math.max(0, requestCount - 1);
+      CountDownLatch tasksFinished = new CountDownLatch(taskCount);
+      for (int i = 0; i < taskCount; i++) {
+        try {
+          executor.execute(
+              () -> {
+                try {
+                  downloadRangesInTask(downloadThread);
+                } finally {
+                  tasksFinished.countDown();
+                }
+              });
+        } catch (RejectedExecutionException e) {
+          stop(e);
+          for (int j = i; j < taskCount; j++) {
+            tasksFinished.countDown();
+          }
+          break;
+        }
+      }
+      downloadRanges();
+      // The content must remain locked until the tasks have committed their data, so wait for them
+      // even if we're interrupted.
+      boolean interrupted = false;
+      while (tasksFinished.getCount() > 0) {
+        try {
+          tasksFinished.await();
+        } catch (InterruptedException e) {
+          interrupted = true;
+          stop(e);
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      maybeThrowError();
+    }
+
+    private void downloadRangesInTask(Thread downloadThread) {
+      Thread currentThread = Thread.currentThread();
+      if (currentThread == downloadThread) {
+        // The executor ran the task directly.
+        downloadRanges();
+        return;
+      }
+      synchronized (this) {
+        downloadingThreads.add(currentThread);
+      }
+      try {
+        downloadRanges();
+      } finally {
+        synchronized (this) {
+          downloadingThreads.remove(currentThread);
+          // The thread belongs to the executor, so don't leave it interrupted by stop().
+          Thread.interrupted();
+        }
+      }
+    }
+
+    private void downloadRanges() {
+      byte[] buffer = new byte[BUFFER_SIZE_BYTES];
+      try {
+        int rangeIndex;
+        while ((rangeIndex = nextRangeIndex.getAndIncrement()) < rangePositions.size()) {
+          long position = rangePositions.get(rangeIndex);
+          downloadRange(position, Math.min(position + rangeLengthBytes, contentLength), buffer);
+        }
+      } catch (Throwable e) {
+        stop(e);
+      }
+    }
+
+    private void downloadRange(long startPosition, long endPosition, byte[] buffer)
+        throws InterruptedException, IOException {
+      long position = startPosition;
+      while (position < endPosition) {
+        throwExceptionIfInterruptedOrStopped();
+        long blockLength = cache.getCachedLength(key, position, endPosition - position);
+        if (blockLength > 0) {
+          // Skip already cached data.
+          position += blockLength;
+          continue;
+        }
+        long holeEndPosition = position - blockLength;
+        try {
+          downloadHole(position, holeEndPosition, buffer);
+        } catch (PriorityTaskManager.PriorityTooLowException e) {
+          // Data read before the exception was committed. Download the rest of the hole once we're
+          // allowed to proceed.
+          continue;
+        }
+        if (!cache.isCached(key, position, holeEndPosition - position)) {
+          throw new IOException(
+              "Range " + position + "-" + holeEndPosition + " was not cached for " + key);
+        }
+        position = holeEndPosition;
+      }
+      // Check the range as a whole, in case data cached before a hole was evicted meanwhile.
+      long rangeLength = endPosition - startPosition;
+      long cachedLength = cache.getCachedLength(key, startPosition, rangeLength);
+      if (cachedLength != rangeLength) {
+        throw new IOException(
+            "Range "
+                + startPosition
+                + "-"
+                + endPosition
+                + " has "
+                + Math.max(0, cachedLength)
+                + " cached bytes for "
+                + key);
+      }
+    }
+
+    private void downloadHole(long position, long endPosition, byte[] buffer)
+        throws InterruptedException, IOException {
+      priorityTaskManager.proceed(C.PRIORITY_DOWNLOAD);
+      DataSpec holeDataSpec = buildDataSpec(key, position, endPosition - position);
+      DataSource upstream = constructorHelper.createUpstreamDataSource();
+      DataSink cacheSink = constructorHelper.createCacheDataSink();
+      @Nullable Throwable error = null;
+      try {
+        upstream.open(holeDataSpec);
+        cacheSink.open(holeDataSpec);
+        while (position < endPosition) {
+          throwExceptionIfInterruptedOrStopped();
+          int bytesRead =
+              upstream.read(buffer, 0, (int) Math.min(buffer.length, endPosition - position));
+          if (bytesRead == C.RESULT_END_OF_INPUT) {
+            throw new EOFException();
+          }
+          cacheSink.write(buffer, 0, bytesRead);
+          position += bytesRead;
+          if (progressCounter != null) {
+            progressCounter.onBytesCached(bytesRead);
+          }
+        }
+      } catch (Throwable e) {
+        error = e;
+        throw e;
+      } finally {
+        Util.closeQuietly(upstream);
+        closeCacheSink(cacheSink, error);
+      }
+    }
+
+    /**
+     * Closes a cache sink. If closing fails after {@code error} was thrown, the failure is added to
+     * {@code error} as a suppressed exception rather than replacing it.
+     */
+    private void closeCacheSink(DataSink cacheSink, @Nullable Throwable error) throws IOException {
+      try {
+        cacheSink.close();
+      } catch (IOException e) {
+        if (error == null) {
+          throw e;
+        }
+        // Throwable.addSuppressed is only available from API level 19.
+        if (Util.SDK_INT >= 19) {
+          error.addSuppressed(e);
+        }
+      }
+    }
+
+    private void throwExceptionIfInterruptedOrStopped() throws InterruptedException {
+      throwExceptionIfInterruptedOrCanceled(isCanceled);
+      if (isStopped.get()) {
+        throw new InterruptedException();
+      }
+    }
+
+    private synchronized void stop(Throwable e) {
+      if (error == null) {
+        error = e;
+      }
+      isStopped.set(true);
+      // Wake up tasks that are waiting, for example for the PriorityTaskManager. The thread calling
+      // download is not interrupted, since it may be waiting for the tasks to finish.
+      for (Thread thread : downloadingThreads) {
+        if (thread != Thread.currentThread()) {
+          thread.interrupt();
+        }
+      }
+    }
+
+    private synchronized void maybeThrowError() throws InterruptedException, IOException {
+      if (error == null) {
+        return;
+      }
+      if (error instanceof InterruptedException) {
+        throw (InterruptedException) error;
+      } else if (error instanceof IOException) {
+        throw (IOException) error;
+      } else if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      } else if (error instanceof Error) {
+        throw (Error) error;
+      }
+      throw new IllegalStateException(error);
+    }
+  }
+
+  /** Reports the progress of a download whose ranges are downloaded on multiple threads. */
+  private static final class ProgressCounter {
+
+    private final ProgressListener progressListener;
+    private final long contentLength;
+
+    private long bytesCached;
+
+    public ProgressCounter(
+        ProgressListener progressListener, long contentLength, long bytesCached) {
+      this.progressListener = progressListener;
+      this.contentLength = contentLength;
+      this.bytesCached = bytesCached;
+      progressListener.onProgress(
+          contentLength, bytesCached, getPercentDownloaded(contentLength, bytesCached));
+    }
+
+    public synchronized void onBytesCached(long newBytesCached) {
+      bytesCached += newBytesCached;
+      progressListener.onProgress(
+          contentLength, bytesCached, getPercentDownloaded(contentLength, bytesCached));
+    }
+  }
+
   private static final class ProgressForwarder implements CacheUtil.ProgressListener {
 
     private final ProgressListener progessListener;
@@ -104,11 +559,8 @@ public final class ProgressiveDownloader implements Downloader {
 
     @Override
     public void onProgress(long contentLength, long bytesCached, long newBytesCached) {
-      float percentDownloaded =
-          contentLength == C.LENGTH_UNSET || contentLength == 0
-              ? C.PERCENTAGE_UNSET
-              : ((bytesCached * 100f) / contentLength);
-      progessListener.onProgress(contentLength, bytesCached, percentDownloaded);
+      progessListener.onProgress(
+          contentLength, bytesCached, getPercentDownloaded(contentLength, bytesCached));
     }
   }
 }
@@ -20,23 +20,42 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Pair;
 import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.ByteArrayDataSource;
+import com.google.android.exoplayer2.upstream.DataSink;
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
 import com.google.android.exoplayer2.upstream.cache.Cache;
 import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
 import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
 import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadata;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadataMutations;
+import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.PriorityTaskManager;
 import com.google.android.exoplayer2.util.Util;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Base class for multi segment stream downloaders.
  *
+ * <p>By default, a download of a live stream completes once the segments that are listed in the
+ * manifest when the download starts have been downloaded. If live updates are enabled with {@link
+ * #setLiveUpdateIntervalMs(long)}, the download instead continues until the live stream ends. The
+ * manifest is refreshed periodically, and only the segments that are appended to it are downloaded.
+ * The time up to which the segments of every stream have been downloaded is stored in the cache
+ * together with the manifest, so that later updates don't need to check the segments before it.
+ * This only applies to segments that identify their {@link Segment#streamId stream}.
+ *
  * @param <M> The type of the manifest object.
  */
 public abstract class SegmentDownloader<M extends FilterableManifest<M>> implements Downloader {
@@ -50,10 +69,23 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
     /** The {@link DataSpec} of the segment. */
     public final DataSpec dataSpec;
 
-    /** Constructs a Segment. */
+    /**
+     * Identifies the stream to which the segment belongs, for example the URL of its media
+     * playlist, or null if the segment doesn't belong to a single stream. Segments of a stream
+     * must be appended in order of increasing start time.
+     */
+    @Nullable public final String streamId;
+
+    /** Constructs a Segment that doesn't belong to a single stream. */
     public Segment(long startTimeUs, DataSpec dataSpec) {
+      this(startTimeUs, dataSpec, /* streamId= */ null);
+    }
+
+    /** Constructs a Segment. */
+    public Segment(long startTimeUs, DataSpec dataSpec, @Nullable String streamId) {
       this.startTimeUs = startTimeUs;
       this.dataSpec = dataSpec;
+      this.streamId = streamId;
     }
 
     @Override
@@ -63,16 +95,31 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
   }
 
   private static final int BUFFER_SIZE_BYTES = 128 * 1024;
+  private static final long CANCELATION_CHECK_INTERVAL_MS = 100;
+
+  /**
+   * Metadata key for the start time up to which the segments of every stream have been downloaded.
+   */
+  private static final String METADATA_NAME_DOWNLOADED_UP_TO_TIME_US = "exo_dl_time_us";
+  /**
+   * Metadata key for the number of bytes downloaded for the segments that have a stream identifier
+   * and start up to that time.
+   */
+  private static final String METADATA_NAME_DOWNLOADED_UP_TO_BYTES = "exo_dl_bytes";
 
   private final DataSpec manifestDataSpec;
   private final Cache cache;
   private final CacheDataSource dataSource;
   private final CacheDataSource offlineDataSource;
+  private final DataSource upstreamDataSource;
+  private final DataSink cacheWriteDataSink;
   private final CacheKeyFactory cacheKeyFactory;
   private final PriorityTaskManager priorityTaskManager;
   private final ArrayList<StreamKey> streamKeys;
   private final AtomicBoolean isCanceled;
 
+  private long liveUpdateIntervalMs;
+
   /**
    * @param manifestUri The {@link Uri} of the manifest to be downloaded.
    * @param streamKeys Keys defining which streams in the manifest should be selected for download.
@@ -86,14 +133,31 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
     this.cache = constructorHelper.getCache();
     this.dataSource = constructorHelper.createCacheDataSource();
     this.offlineDataSource = constructorHelper.createOfflineCacheDataSource();
+    this.upstreamDataSource = constructorHelper.createUpstreamDataSource();
+    this.cacheWriteDataSink = constructorHelper.createCacheDataSink();
     this.cacheKeyFactory = constructorHelper.getCacheKeyFactory();
     this.priorityTaskManager = constructorHelper.getPriorityTaskManager();
     isCanceled = new AtomicBoolean();
+    liveUpdateIntervalMs = C.TIME_UNSET;
+  }
+
+  /**
+   * Sets the interval at which the manifest of a live stream is refreshed to download newly
+   * appended segments. Must be called before {@link #download(ProgressListener)}.
+   *
+   * @param liveUpdateIntervalMs The refresh interval in milliseconds, or {@link C#TIME_UNSET} to
+   *     complete the download once the segments listed in the initial manifest have been
+   *     downloaded.
+   */
+  public final void setLiveUpdateIntervalMs(long liveUpdateIntervalMs) {
+    Assertions.checkArgument(liveUpdateIntervalMs == C.TIME_UNSET || liveUpdateIntervalMs > 0);
+    this.liveUpdateIntervalMs = liveUpdateIntervalMs;
   }
 
   /**
    * Downloads the selected streams in the media. If multiple streams are selected, they are
-   * downloaded in sync with one another.
+   * downloaded in sync with one another. If live updates are enabled and the media is a live
+   * stream, this method blocks until the live stream ends.
    *
    * @throws IOException Thrown when there is an error downloading.
    * @throws InterruptedException If the thread has been interrupted.
@@ -103,67 +167,32 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
       throws IOException, InterruptedException {
     priorityTaskManager.add(C.PRIORITY_DOWNLOAD);
     try {
-      // Get the manifest and all of the segments.
-      M manifest = getManifest(dataSource, manifestDataSpec);
-      if (!streamKeys.isEmpty()) {
-        manifest = manifest.copy(streamKeys);
-      }
-      List<Segment> segments = getSegments(dataSource, manifest, /* allowIncompleteList= */ false);
-
-      // Scan the segments, removing any that are fully downloaded.
-      int totalSegments = segments.size();
-      int segmentsDownloaded = 0;
-      long contentLength = 0;
-      long bytesDownloaded = 0;
-      for (int i = segments.size() - 1; i >= 0; i--) {
-        Segment segment = segments.get(i);
-        Pair<Long, Long> segmentLengthAndBytesDownloaded =
-            CacheUtil.getCached(segment.dataSpec, cache, cacheKeyFactory);
-        long segmentLength = segmentLengthAndBytesDownloaded.first;
-        long segmentBytesDownloaded = segmentLengthAndBytesDownloaded.second;
-        bytesDownloaded += segmentBytesDownloaded;
-        if (segmentLength != C.LENGTH_UNSET) {
-          if (segmentLength == segmentBytesDownloaded) {
-            // The segment is fully downloaded.
-            segmentsDownloaded++;
-            segments.remove(i);
-          }
-          if (contentLength != C.LENGTH_UNSET) {
-            contentLength += segmentLength;
-          }
-        } else {
-          contentLength = C.LENGTH_UNSET;
+      boolean liveUpdatesEnabled = liveUpdateIntervalMs != C.TIME_UNSET;
+      RefreshDataSource refreshDataSource = null;
+      while (true) {
+        // Get the manifest and all of the segments. When refreshing a live stream the cached
+        // manifests may be out of date, so they're loaded from upstream instead. The cached copies
+        // are only replaced once loading and parsing has succeeded, so that the download can still
+        // be played and removed if the refresh fails.
+        DataSource manifestDataSource = refreshDataSource != null ? refreshDataSource : dataSource;
+        M manifest = getManifest(manifestDataSource, manifestDataSpec);
+        if (!streamKeys.isEmpty()) {
+          manifest = manifest.copy(streamKeys);
         }
-      }
-      Collections.sort(segments);
-
-      // Download the segments.
-      ProgressNotifier progressNotifier = null;
-      if (progressListener != null) {
-        progressNotifier =
-            new ProgressNotifier(
-                progressListener,
-                contentLength,
-                totalSegments,
-                bytesDownloaded,
-                segmentsDownloaded);
-      }
-      byte[] buffer = new byte[BUFFER_SIZE_BYTES];
-      for (int i = 0; i < segments.size(); i++) {
-        CacheUtil.cache(
-            segments.get(i).dataSpec,
-            cache,
-            cacheKeyFactory,
-            dataSource,
-            buffer,
-            priorityTaskManager,
-            C.PRIORITY_DOWNLOAD,
-            progressNotifier,
-            isCanceled,
-            true);
-        if (progressNotifier != null) {
-          progressNotifier.onSegmentDownloaded();
+        if (refreshDataSource != null) {
+          refreshDataSource.refreshDataSpecs(getPlaylistDataSpecs(manifest));
+        }
+        List<Segment> segments =
+            getSegments(manifestDataSource, manifest, /* allowIncompleteList= */ false);
+        if (refreshDataSource != null) {
+          replaceCachedManifests(refreshDataSource);
         }
+        downloadSegments(segments, progressListener, liveUpdatesEnabled);
+        if (!liveUpdatesEnabled || !isLive(dataSource, manifest)) {
+          break;
+        }
+        waitForLiveUpdate();
+        refreshDataSource = new RefreshDataSource();
       }
     } finally {
       priorityTaskManager.remove(C.PRIORITY_DOWNLOAD);
@@ -193,6 +222,31 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
 
   // Internal methods.
 
+  /**
+   * Returns whether the manifest describes a live stream to which segments may still be appended.
+   * The default implementation returns false.
+   *
+   * @param dataSource The {@link DataSource} through which to load any required data.
+   * @param manifest The manifest, after any filtering by the selected stream keys.
+   * @return Whether the manifest describes a live stream.
+   * @throws IOException If an error occurs loading required data.
+   */
+  protected boolean isLive(DataSource dataSource, M manifest) throws IOException {
+    return false;
+  }
+
+  /**
+   * Returns the {@link DataSpec}s of any playlists that are referenced by the manifest and cached
+   * by {@link #getSegments(DataSource, FilterableManifest, boolean)}, and which may change whilst a
+   * live stream is in progress. The default implementation returns an empty list.
+   *
+   * @param manifest The manifest.
+   * @return The {@link DataSpec}s of the playlists.
+   */
+  protected List<DataSpec> getPlaylistDataSpecs(M manifest) {
+    return Collections.emptyList();
+  }
+
   /**
    * Loads and parses the manifest.
    *
@@ -220,6 +274,194 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
       DataSource dataSource, M manifest, boolean allowIncompleteList)
       throws InterruptedException, IOException;
 
+  private void downloadSegments(
+      List<Segment> segments, @Nullable ProgressListener progressListener, boolean isIncremental)
+      throws IOException, InterruptedException {
+    String manifestCacheKey = cacheKeyFactory.buildCacheKey(manifestDataSpec);
+    long downloadedUpToTimeUs = C.TIME_UNSET;
+    long bytesDownloaded = 0;
+    if (isIncremental) {
+      ContentMetadata metadata = cache.getContentMetadata(manifestCacheKey);
+      downloadedUpToTimeUs = metadata.get(METADATA_NAME_DOWNLOADED_UP_TO_TIME_US, C.TIME_UNSET);
+      bytesDownloaded = metadata.get(METADATA_NAME_DOWNLOADED_UP_TO_BYTES, /* defaultValue= */ 0);
+    }
+    // The segments of each stream up to this time are downloaded once all segments are. Streams
+    // may be at different times, for example if their segments don't line up, so this is the
+    // minimum over all streams of the start time of their last segment.
+    long newDownloadedUpToTimeUs =
+        isIncremental ? getMinLastSegmentStartTimeUs(segments) : C.TIME_UNSET;
+    if (newDownloadedUpToTimeUs == C.TIME_UNSET
+        || (downloadedUpToTimeUs != C.TIME_UNSET
+            && newDownloadedUpToTimeUs < downloadedUpToTimeUs)) {
+      // The streams have changed. Stop skipping segments, and check them all in the cache.
+      downloadedUpToTimeUs = C.TIME_UNSET;
+      bytesDownloaded = 0;
+    }
+    long skippedBytesDownloaded = bytesDownloaded;
+    List<Segment> allSegments = isIncremental ? new ArrayList<>(segments) : segments;
+
+    // Scan the segments, removing any that are fully downloaded.
+    int totalSegments = segments.size();
+    int segmentsDownloaded = 0;
+    long contentLength = 0;
+    for (int i = segments.size() - 1; i >= 0; i--) {
+      Segment segment = segments.get(i);
+      if (isDownloadedUpTo(segment, downloadedUpToTimeUs)) {
+        // The segment was downloaded by a previous update, and its bytes are already counted.
+        segmentsDownloaded++;
+        segments.remove(i);
+        contentLength = C.LENGTH_UNSET;
+        continue;
+      }
+      Pair<Long, Long> segmentLengthAndBytesDownloaded =
+          CacheUtil.getCached(segment.dataSpec, cache, cacheKeyFactory);
+      long segmentLength = segmentLengthAndBytesDownloaded.first;
+      long segmentBytesDownloaded = segmentLengthAndBytesDownloaded.second;
+      bytesDownloaded += segmentBytesDownloaded;
+      if (segmentLength != C.LENGTH_UNSET) {
+        if (segmentLength == segmentBytesDownloaded) {
+          // The segment is fully downloaded.
+          segmentsDownloaded++;
+          segments.remove(i);
+        }
+        if (contentLength != C.LENGTH_UNSET) {
+          contentLength += segmentLength;
+        }
+      } else {
+        contentLength = C.LENGTH_UNSET;
+      }
+    }
+    Collections.sort(segments);
+
+    // Download the segments.
+    ProgressNotifier progressNotifier =
+        new ProgressNotifier(
+            progressListener, contentLength, totalSegments, bytesDownloaded, segmentsDownloaded);
+    byte[] buffer = new byte[BUFFER_SIZE_BYTES];
+    for (int i = 0; i < segments.size(); i++) {
+      CacheUtil.cache(
+          segments.get(i).dataSpec,
+          cache,
+          cacheKeyFactory,
+          dataSource,
+          buffer,
+          priorityTaskManager,
+          C.PRIORITY_DOWNLOAD,
+          progressNotifier,
+          isCanceled,
+          true);
+      progressNotifier.onSegmentDownloaded();
+    }
+
+    if (isIncremental && newDownloadedUpToTimeUs != C.TIME_UNSET) {
+      // All segments have been downloaded. Store the time up to which every stream is complete so
+      // that the next update doesn't need to check the segments before it, together with the bytes
+      // of those segments. The bytes of segments that were skipped are already known.
+      long newDownloadedUpToBytes = skippedBytesDownloaded;
+      for (int i = 0; i < allSegments.size(); i++) {
+        Segment segment = allSegments.get(i);
+        if (!isDownloadedUpTo(segment, downloadedUpToTimeUs)
+            && isDownloadedUpTo(segment, newDownloadedUpToTimeUs)) {
+          newDownloadedUpToBytes +=
+              CacheUtil.getCached(segment.dataSpec, cache, cacheKeyFactory).second;
+        }
+      }
+      setDownloadedUpTo(manifestCacheKey, newDownloadedUpToTimeUs, newDownloadedUpToBytes);
+    }
+  }
+
+  /**
+   * Returns the minimum over all streams of the start time of their last segment, or {@link
+   * C#TIME_UNSET} if no segment has a stream identifier.
+   */
+  private static long getMinLastSegmentStartTimeUs(List<Segment> segments) {
+    HashMap<String, Long> lastSegmentStartTimesUs = new HashMap<>();
+    for (int i = 0; i < segments.size(); i++) {
+      Segment segment = segments.get(i);
+      if (segment.streamId != null) {
+        Long lastSegmentStartTimeUs = lastSegmentStartTimesUs.get(segment.streamId);
+        if (lastSegmentStartTimeUs == null || lastSegmentStartTimeUs < segment.startTimeUs) {
+          lastSegmentStartTimesUs.put(segment.streamId, segment.startTimeUs);
+        }
+      }
+    }
+    long minLastSegmentStartTimeUs = C.TIME_UNSET;
+    for (long lastSegmentStartTimeUs : lastSegmentStartTimesUs.values()) {
+      if (minLastSegmentStartTimeUs == C.TIME_UNSET
+          || lastSegmentStartTimeUs < minLastSegmentStartTimeUs) {
+        minLastSegmentStartTimeUs = lastSegmentStartTimeUs;
+      }
+    }
+    return minLastSegmentStartTimeUs;
+  }
+
+  private static boolean isDownloadedUpTo(Segment segment, long downloadedUpToTimeUs) {
+    return downloadedUpToTimeUs != C.TIME_UNSET
+        && segment.streamId != null
+        && segment.startTimeUs <= downloadedUpToTimeUs;
+  }
+
+  private void replaceCachedManifests(RefreshDataSource refreshDataSource)
+      throws IOException, InterruptedException {
+    List<Pair<DataSpec, byte[]>> loadedData = refreshDataSource.getLoadedData();
+    // Removing the manifest's data also removes its metadata, so carry the download state over.
+    String manifestCacheKey = cacheKeyFactory.buildCacheKey(manifestDataSpec);
+    ContentMetadata metadata = cache.getContentMetadata(manifestCacheKey);
+    long downloadedUpToTimeUs = metadata.get(METADATA_NAME_DOWNLOADED_UP_TO_TIME_US, C.TIME_UNSET);
+    long downloadedUpToBytes = metadata.get(METADATA_NAME_DOWNLOADED_UP_TO_BYTES, 0);
+    byte[] buffer = new byte[BUFFER_SIZE_BYTES];
+    for (int i = 0; i < loadedData.size(); i++) {
+      DataSpec dataSpec = loadedData.get(i).first;
+      CacheDataSource cacheWriteDataSource =
+          new CacheDataSource(
+              cache,
+              new ByteArrayDataSource(loadedData.get(i).second),
+              new FileDataSource(),
+              cacheWriteDataSink,
+              CacheDataSource.FLAG_BLOCK_ON_CACHE,
+              /* eventListener= */ null,
+              cacheKeyFactory);
+      removeDataSpec(dataSpec);
+      CacheUtil.cache(
+          dataSpec,
+          cache,
+          cacheKeyFactory,
+          cacheWriteDataSource,
+          buffer,
+          priorityTaskManager,
+          C.PRIORITY_DOWNLOAD,
+          /* progressListener= */ null,
+          isCanceled,
+          /* enableEOFException= */ true);
+    }
+    if (downloadedUpToTimeUs != C.TIME_UNSET) {
+      setDownloadedUpTo(manifestCacheKey, downloadedUpToTimeUs, downloadedUpToBytes);
+    }
+  }
+
+  private void setDownloadedUpTo(String manifestCacheKey, long timeUs, long bytes) {
+    ContentMetadataMutations mutations = new ContentMetadataMutations();
+    mutations.set(METADATA_NAME_DOWNLOADED_UP_TO_TIME_US, timeUs);
+    mutations.set(METADATA_NAME_DOWNLOADED_UP_TO_BYTES, bytes);
+    try {
+      cache.applyContentMetadataMutations(manifestCacheKey, mutations);
+    } catch (Cache.CacheException e) {
+      // Ignore. The segments will be checked in the cache instead.
+    }
+  }
+
+  private void waitForLiveUpdate() throws InterruptedException {
+    long remainingMs = liveUpdateIntervalMs;
+    while (remainingMs > 0) {
+      if (isCanceled.get()) {
+        throw new InterruptedException();
+      }
+      long sleepMs = Math.min(remainingMs, CANCELATION_CHECK_INTERVAL_MS);
+      Thread.sleep(sleepMs);
+      remainingMs -= sleepMs;
+    }
+  }
+
   private void removeDataSpec(DataSpec dataSpec) {
     CacheUtil.remove(dataSpec, cache, cacheKeyFactory);
   }
@@ -233,9 +475,137 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
         /* flags= */ DataSpec.FLAG_ALLOW_GZIP);
   }
 
+  /**
+   * A {@link DataSource} for refreshing the manifest of a live stream. The manifest and the
+   * playlists whose {@link DataSpec}s are {@link #refreshDataSpecs(List) refreshed} are read from
+   * upstream without touching the cache, and their data is kept so that it can replace the cached
+   * copies later. Any other data is read through the cache.
+   */
+  private final class RefreshDataSource implements DataSource {
+
+    private final HashSet<String> refreshedCacheKeys;
+    private final ArrayList<Pair<DataSpec, byte[]>> loadedData;
+
+    @Nullable private DataSource currentDataSource;
+    @Nullable private DataSpec currentDataSpec;
+    @Nullable private ByteArrayOutputStream currentData;
+    private long bytesRemaining;
+    private boolean hasIncompleteData;
+
+    public RefreshDataSource() {
+      refreshedCacheKeys = new HashSet<>();
+      refreshedCacheKeys.add(cacheKeyFactory.buildCacheKey(manifestDataSpec));
+      loadedData = new ArrayList<>();
+    }
+
+    /** Reads the data of the given {@link DataSpec}s from upstream as well. */
+    public void refreshDataSpecs(List<DataSpec> dataSpecs) {
+      for (int i = 0; i < dataSpecs.size(); i++) {
+        refreshedCacheKeys.add(cacheKeyFactory.buildCacheKey(dataSpecs.get(i)));
+      }
+    }
+
+    /**
+     * Returns the {@link DataSpec} and data of everything that was read from upstream.
+     *
+     * @throws IOException If any of the data wasn't read completely.
+     */
+    public List<Pair<DataSpec, byte[]>> getLoadedData() throws IOException {
+      if (hasIncompleteData) {
+        throw new IOException("Refreshed manifest data wasn't read completely");
+      }
+      return loadedData;
+    }
+
+    @Override
+    public void addTransferListener(TransferListener transferListener) {
+      upstreamDataSource.addTransferListener(transferListener);
+      dataSource.addTransferListener(transferListener);
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+      if (dataSpec.absoluteStreamPosition == 0
+          && dataSpec.length == C.LENGTH_UNSET
+          && refreshedCacheKeys.contains(cacheKeyFactory.buildCacheKey(dataSpec))) {
+        currentDataSource = upstreamDataSource;
+        currentDataSpec = dataSpec;
+        bytesRemaining = upstreamDataSource.open(dataSpec);
+        currentData = new ByteArrayOutputStream();
+        return bytesRemaining;
+      }
+      currentDataSource = dataSource;
+      return dataSource.open(dataSpec);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int readLength) throws IOException {
+      if (currentData == null) {
+        return Assertions.checkNotNull(currentDataSource).read(buffer, offset, readLength);
+      }
+      if (bytesRemaining == 0) {
+        onUpstreamDataEnded();
+        return C.RESULT_END_OF_INPUT;
+      }
+      int bytesRead = upstreamDataSource.read(buffer, offset, readLength);
+      if (bytesRead == C.RESULT_END_OF_INPUT) {
+        onUpstreamDataEnded();
+      } else {
+        currentData.write(buffer, offset, bytesRead);
+        if (bytesRemaining != C.LENGTH_UNSET) {
+          bytesRemaining -= bytesRead;
+        }
+      }
+      return bytesRead;
+    }
+
+    @Override
+    public @Nullable Uri getUri() {
+      return currentDataSource != null ? currentDataSource.getUri() : null;
+    }
+
+    @Override
+    public Map<String, List<String>> getResponseHeaders() {
+      return currentDataSource != null
+          ? currentDataSource.getResponseHeaders()
+          : Collections.emptyMap();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (currentData != null) {
+          // Parsers may stop before the end of the data, but the cached copy must be complete.
+          byte[] buffer = new byte[BUFFER_SIZE_BYTES];
+          while (currentData != null) {
+            read(buffer, /* offset= */ 0, buffer.length);
+          }
+        }
+      } catch (IOException e) {
+        hasIncompleteData = true;
+        currentData = null;
+        throw e;
+      } finally {
+        if (currentDataSource != null) {
+          currentDataSource.close();
+          currentDataSource = null;
+        }
+      }
+    }
+
+    private void onUpstreamDataEnded() {
+      loadedData.add(
+          Pair.create(
+              Assertions.checkNotNull(currentDataSpec),
+              Assertions.checkNotNull(currentData).toByteArray()));
+      currentDataSpec = null;
+      currentData = null;
+    }
+  }
+
   private static final class ProgressNotifier implements CacheUtil.ProgressListener {
 
-    private final ProgressListener progressListener;
+    @Nullable private final ProgressListener progressListener;
 
     private final long contentLength;
     private final int totalSegments;
@@ -244,7 +614,7 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
     private int segmentsDownloaded;
 
     public ProgressNotifier(
-        ProgressListener progressListener,
+        @Nullable ProgressListener progressListener,
         long contentLength,
         int totalSegments,
         long bytesDownloaded,
@@ -259,12 +629,18 @@ public abstract class SegmentDownloader<M extends FilterableManifest<M>> impleme
     @Override
     public void onProgress(long requestLength, long bytesCached, long newBytesCached) {
       bytesDownloaded += newBytesCached;
-      progressListener.onProgress(contentLength, bytesDownloaded, getPercentDownloaded());
+      maybeNotifyProgress();
     }
 
     public void onSegmentDownloaded() {
       segmentsDownloaded++;
-      progressListener.onProgress(contentLength, bytesDownloaded, getPercentDownloaded());
+      maybeNotifyProgress();
+    }
+
+    private void maybeNotifyProgress() {
+      if (progressListener != null) {
+        progressListener.onProgress(contentLength, bytesDownloaded, getPercentDownloaded());
+      }
     }
 
     private float getPercentDownloaded() {
@@ -16,6 +16,7 @@
 package com.google.android.exoplayer2.offline;
 
 import java.io.IOException;
+import java.util.List;
 
 /** A writable index of {@link Download Downloads}. */
 public interface WritableDownloadIndex extends DownloadIndex {
@@ -28,6 +29,19 @@ public interface WritableDownloadIndex extends DownloadIndex {
    */
   void putDownload(Download download) throws IOException;
 
+  /**
+   * Adds or replaces multiple {@link Download Downloads}. Implementations should apply the changes
+   * in a single transaction where possible.
+   *
+   * @param downloads The {@link Download Downloads} to be added.
+   * @throws IOException If an error occurs setting the states.
+   */
+  default void putDownloads(List<Download> downloads) throws IOException {
+    for (int i = 0; i < downloads.size(); i++) {
+      putDownload(downloads.get(i));
+    }
+  }
+
   /**
    * Removes the download with the given ID. Does nothing if a download with the given ID does not
    * exist.
@@ -37,6 +51,19 @@ public interface WritableDownloadIndex extends DownloadIndex {
    */
   void removeDownload(String id) throws IOException;
 
+  /**
+   * Removes the downloads with the given IDs. IDs for which a download does not exist are ignored.
+   * Implementations should apply the changes in a single transaction where possible.
+   *
+   * @param ids The IDs of the downloads to remove.
+   * @throws IOException If an error occurs removing the states.
+   */
+  default void removeDownloads(List<String> ids) throws IOException {
+    for (int i = 0; i < ids.size(); i++) {
+      removeDownload(ids.get(i));
+    }
+  }
+
   /**
    * Sets all {@link Download#STATE_DOWNLOADING} states to {@link Download#STATE_QUEUED}.
    *
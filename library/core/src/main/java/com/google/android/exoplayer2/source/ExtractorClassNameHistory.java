@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.source;
+
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class names of the extractors that most recently read progressive streams, keyed by the
+ * location of each stream without its file name. Streams from the same location are usually in
+ * the same format, so their extractor is tried first.
+ *
+ * <p>Instances are thread-safe, so that they can be shared by the periods of all media sources
+ * created by a {@link ProgressiveMediaSource.Factory}.
+ */
+/* package */ final class ExtractorClassNameHistory {
+
+  private static final int MAX_SIZE = 32;
+
+  private final LinkedHashMap<String, String> extractorClassNames;
+
+  public ExtractorClassNameHistory() {
+    extractorClassNames =
+        new LinkedHashMap<String, String>(
+            /* initialCapacity= */ 16, /* loadFactor= */ 0.75f, /* accessOrder= */ true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_SIZE;
+          }
+        };
+  }
+
+  /**
+   * Returns the class name of the extractor that last read a stream from the same location as
+   * {@code uri}, or null if there is none.
+   */
+  @Nullable
+  public synchronized String get(Uri uri) {
+    return extractorClassNames.get(getLocation(uri));
+  }
+
+  /**
+   * Records the class name of the extractor that read the stream at {@code uri}.
+   *
+   * @param uri The {@link Uri} of the stream.
+   * @param extractorClassName The class name of the extractor.
+   */
+  public synchronized void put(Uri uri, String extractorClassName) {
+    extractorClassNames.put(getLocation(uri), extractorClassName);
+  }
+
+  /** Returns the location of the stream at {@code uri}, without its file name or query. */
+  private static String getLocation(Uri uri) {
+    String uriString = uri.toString();
+    int endIndex = uriString.length();
+    int queryIndex = uriString.indexOf('?');
+    if (queryIndex != -1) {
+      endIndex = queryIndex;
+    }
+    int fragmentIndex = uriString.indexOf('#');
+    if (fragmentIndex != -1 && fragmentIndex < endIndex) {
+      endIndex = fragmentIndex;
+    }
+    int fileNameIndex = uriString.lastIndexOf('/', endIndex - 1);
+    return fileNameIndex != -1 ? uriString.substring(0, fileNameIndex + 1) : uriString;
+  }
+}
@@ -329,6 +329,9 @@ public final class ExtractorMediaSource extends BaseMediaSource
             extractorsFactory,
             loadableLoadErrorHandlingPolicy,
             customCacheKey,
+            /* contentMetadataCache= */ null,
+            /* cacheKeyFactory= */ null,
+            /* extractorClassNameHistory= */ null,
             continueLoadingCheckIntervalBytes,
             tag);
   }
@@ -28,7 +28,9 @@ import com.google.android.exoplayer2.extractor.DefaultExtractorInput;
 import com.google.android.exoplayer2.extractor.Extractor;
 import com.google.android.exoplayer2.extractor.ExtractorInput;
 import com.google.android.exoplayer2.extractor.ExtractorOutput;
+import com.google.android.exoplayer2.extractor.ExtractorsFactory;
 import com.google.android.exoplayer2.extractor.PositionHolder;
+import com.google.android.exoplayer2.extractor.RestorableExtractor;
 import com.google.android.exoplayer2.extractor.SeekMap;
 import com.google.android.exoplayer2.extractor.SeekMap.SeekPoints;
 import com.google.android.exoplayer2.extractor.SeekMap.Unseekable;
@@ -46,15 +48,24 @@ import com.google.android.exoplayer2.upstream.Loader;
 import com.google.android.exoplayer2.upstream.Loader.LoadErrorAction;
 import com.google.android.exoplayer2.upstream.Loader.Loadable;
 import com.google.android.exoplayer2.upstream.StatsDataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadata;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadataMutations;
 import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.ConditionVariable;
+import com.google.android.exoplayer2.util.Log;
 import com.google.android.exoplayer2.util.MimeTypes;
 import com.google.android.exoplayer2.util.ParsableByteArray;
 import com.google.android.exoplayer2.util.Util;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import org.checkerframework.checker.nullness.compatqual.NullableType;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 
 /** A {@link MediaPeriod} that extracts data using an {@link Extractor}. */
 /* package */ final class ProgressiveMediaPeriod
@@ -100,6 +111,7 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
   private final ExtractorHolder extractorHolder;
   private final ConditionVariable loadCondition;
   private final Runnable maybeFinishPrepareRunnable;
+  private final Runnable maybeUpdateSeekMapRunnable;
   private final Runnable onContinueLoadingRequestedRunnable;
   private final Handler handler;
 
@@ -133,13 +145,20 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
   /**
    * @param uri The {@link Uri} of the media stream.
    * @param dataSource The data source to read the media.
-   * @param extractors The extractors to use to read the data source.
+   * @param extractorsFactory The factory of the extractors to use to read the data source.
    * @param loadErrorHandlingPolicy The {@link LoadErrorHandlingPolicy}.
    * @param eventDispatcher A dispatcher to notify of events.
    * @param listener A listener to notify when information about the period changes.
    * @param allocator An {@link Allocator} from which to obtain media buffer allocations.
    * @param customCacheKey A custom key that uniquely identifies the original stream. Used for cache
    *     indexing. May be null.
+   * @param contentMetadataCache A {@link Cache} in whose content metadata the class name of the
+   *     extractor that reads the stream is recorded, if the stream is being cached, so that the
+   *     extractor is tried first when the stream is played again. May be null.
+   * @param cacheKeyFactory The {@link CacheKeyFactory} used to key the stream in {@code
+   *     contentMetadataCache}. May be null, in which case the default cache key is used.
+   * @param extractorClassNameHistory The {@link ExtractorClassNameHistory} used to order the
+   *     extractors, and in which the extractor that reads the stream is recorded. May be null.
    * @param continueLoadingCheckIntervalBytes The number of bytes that should be loaded between each
    *     invocation of {@link Callback#onContinueLoadingRequested(SequenceableLoader)}.
    */
@@ -151,12 +170,15 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
   public ProgressiveMediaPeriod(
       Uri uri,
       DataSource dataSource,
-      Extractor[] extractors,
+      ExtractorsFactory extractorsFactory,
       LoadErrorHandlingPolicy loadErrorHandlingPolicy,
       EventDispatcher eventDispatcher,
       Listener listener,
       Allocator allocator,
       @Nullable String customCacheKey,
+      @Nullable Cache contentMetadataCache,
+      @Nullable CacheKeyFactory cacheKeyFactory,
+      @Nullable ExtractorClassNameHistory extractorClassNameHistory,
       int continueLoadingCheckIntervalBytes) {
     this.uri = uri;
     this.dataSource = dataSource;
@@ -167,9 +189,15 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
     this.customCacheKey = customCacheKey;
     this.continueLoadingCheckIntervalBytes = continueLoadingCheckIntervalBytes;
     loader = new Loader("Loader:ProgressiveMediaPeriod");
-    extractorHolder = new ExtractorHolder(extractors);
+    extractorHolder =
+        new ExtractorHolder(
+            extractorsFactory,
+            contentMetadataCache,
+            cacheKeyFactory != null ? cacheKeyFactory : CacheUtil.DEFAULT_CACHE_KEY_FACTORY,
+            extractorClassNameHistory);
     loadCondition = new ConditionVariable();
     maybeFinishPrepareRunnable = this::maybeFinishPrepare;
+    maybeUpdateSeekMapRunnable = this::maybeUpdateSeekMap;
     onContinueLoadingRequestedRunnable =
         () -> {
           if (!released) {
@@ -629,6 +657,7 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
   public void seekMap(SeekMap seekMap) {
     this.seekMap = icyHeaders == null ? seekMap : new Unseekable(/* durationUs */ C.TIME_UNSET);
     handler.post(maybeFinishPrepareRunnable);
+    handler.post(maybeUpdateSeekMapRunnable);
   }
 
   // Icy metadata. Called by the loading thread.
@@ -716,6 +745,24 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
     Assertions.checkNotNull(callback).onPrepared(this);
   }
 
+  /**
+   * Uses a seek map that the extractor output after preparation, for example because the duration
+   * became known once the whole stream had been read.
+   */
+  private void maybeUpdateSeekMap() {
+    SeekMap seekMap = this.seekMap;
+    if (released || !prepared || seekMap == null) {
+      // Until preparation has finished, the seek map is handled by maybeFinishPrepare.
+      return;
+    }
+    getPreparedState().seekMap = seekMap;
+    long seekMapDurationUs = seekMap.getDurationUs();
+    if (durationUs == C.TIME_UNSET && seekMapDurationUs != C.TIME_UNSET) {
+      durationUs = seekMapDurationUs;
+      listener.onSourceInfoRefreshed(durationUs, seekMap.isSeekable());
+    }
+  }
+
   private PreparedState getPreparedState() {
     return Assertions.checkNotNull(preparedState);
   }
@@ -944,7 +991,9 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
             icyTrackOutput.format(ICY_FORMAT);
           }
           input = new DefaultExtractorInput(extractorDataSource, position, length);
-          Extractor extractor = extractorHolder.selectExtractor(input, extractorOutput, uri);
+          Extractor extractor =
+              extractorHolder.selectExtractor(
+                  input, extractorOutput, dataSpec, uri, dataSource.getResponseHeaders());
           if (pendingExtractorSeek) {
             extractor.seek(position, seekTimeUs);
             pendingExtractorSeek = false;
@@ -952,6 +1001,7 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
           while (result == Extractor.RESULT_CONTINUE && !loadCanceled) {
             loadCondition.block();
             result = extractor.read(input, positionHolder);
+            extractorHolder.maybeRecordExtractorState();
             if (input.getPosition() > position + continueLoadingCheckIntervalBytes) {
               position = input.getPosition();
               loadCondition.close();
@@ -1008,72 +1058,259 @@ import org.checkerframework.checker.nullness.compatqual.NullableType;
     }
   }
 
-  /** Stores a list of extractors and a selected extractor when the format has been detected. */
+  /**
+   * Creates a list of extractors, and stores the selected extractor when the format has been
+   * detected.
+   */
   private static final class ExtractorHolder {
 
-    private final Extractor[] extractors;
+    private static final String TAG = "ExtractorHolder";
+
+    /**
+     * The maximum size of an extractor state to record in the content metadata, which is rewritten
+     * in full whenever the cache index is stored.
+     */
+    private static final int MAX_EXTRACTOR_STATE_SIZE = 1024 * 1024;
+
+    private final ExtractorsFactory extractorsFactory;
+    @Nullable private final Cache contentMetadataCache;
+    private final CacheKeyFactory cacheKeyFactory;
+    @Nullable private final ExtractorClassNameHistory extractorClassNameHistory;
 
+    @MonotonicNonNull private Extractor[] extractors;
     private @Nullable Extractor extractor;
+    @Nullable private String extractorStateCacheKey;
 
     /**
      * Creates a holder that will select an extractor and initialize it using the specified output.
      *
-     * @param extractors One or more extractors to choose from.
+     * @param extractorsFactory The factory of the extractors to choose from.
+     * @param contentMetadataCache A {@link Cache} in whose content metadata the selected extractor
+     *     is recorded, or null.
+     * @param cacheKeyFactory The {@link CacheKeyFactory} that keys the stream in {@code
+     *     contentMetadataCache}.
+     * @param extractorClassNameHistory An {@link ExtractorClassNameHistory} in which the selected
+     *     extractor is recorded, or null.
      */
-    public ExtractorHolder(Extractor[] extractors) {
-      this.extractors = extractors;
+    public ExtractorHolder(
+        ExtractorsFactory extractorsFactory,
+        @Nullable Cache contentMetadataCache,
+        CacheKeyFactory cacheKeyFactory,
+        @Nullable ExtractorClassNameHistory extractorClassNameHistory) {
+      this.extractorsFactory = extractorsFactory;
+      this.contentMetadataCache = contentMetadataCache;
+      this.cacheKeyFactory = cacheKeyFactory;
+      this.extractorClassNameHistory = extractorClassNameHistory;
     }
 
     /**
      * Returns an initialized extractor for reading {@code input}, and returns the same extractor on
      * later calls.
      *
+     * <p>The extractor that read the stream before according to the content metadata cache is
+     * tried first, followed by the extractor that last read a stream from the same location. The
+     * other extractors are then tried in the order returned by the {@link ExtractorsFactory}. If
+     * the content metadata cache also holds the header state of the recorded extractor, the state
+     * is restored instead of sniffing, unless it's invalid for {@code input}.
+     *
      * @param input The {@link ExtractorInput} from which data should be read.
      * @param output The {@link ExtractorOutput} that will be used to initialize the selected
      *     extractor.
+     * @param dataSpec The {@link DataSpec} of the data.
      * @param uri The {@link Uri} of the data.
+     * @param responseHeaders The response headers of the data.
      * @return An initialized extractor for reading {@code input}.
      * @throws UnrecognizedInputFormatException Thrown if the input format could not be detected.
      * @throws IOException Thrown if the input could not be read.
      * @throws InterruptedException Thrown if the thread was interrupted.
      */
-    public Extractor selectExtractor(ExtractorInput input, ExtractorOutput output, Uri uri)
+    public Extractor selectExtractor(
+        ExtractorInput input,
+        ExtractorOutput output,
+        DataSpec dataSpec,
+        Uri uri,
+        Map<String, List<String>> responseHeaders)
         throws IOException, InterruptedException {
       if (extractor != null) {
         return extractor;
       }
-      for (Extractor extractor : extractors) {
-        try {
-          if (extractor.sniff(input)) {
-            this.extractor = extractor;
-            break;
-          }
-        } catch (EOFException e) {
-          // Do nothing.
-        } finally {
-          input.resetPeekPosition();
+      if (extractors == null) {
+        extractors = extractorsFactory.createExtractors(uri, responseHeaders);
+      }
+      @Nullable String cacheKey = null;
+      @Nullable ContentMetadata contentMetadata = null;
+      @Nullable String recordedExtractorClassName = null;
+      if (contentMetadataCache != null) {
+        cacheKey = cacheKeyFactory.buildCacheKey(dataSpec);
+        contentMetadata = contentMetadataCache.getContentMetadata(cacheKey);
+        recordedExtractorClassName = ContentMetadata.getExtractorClassName(contentMetadata);
+      }
+      @Nullable
+      String previousExtractorClassName =
+          extractorClassNameHistory != null ? extractorClassNameHistory.get(uri) : null;
+      boolean[] sniffedExtractors = new boolean[extractors.length];
+      boolean restoredExtractorState = false;
+      if (recordedExtractorClassName != null) {
+        @Nullable
+        byte[] extractorState =
+            ContentMetadata.getExtractorState(Assertions.checkNotNull(contentMetadata));
+        if (extractorState != null) {
+          extractor =
+              restoreExtractor(recordedExtractorClassName, extractorState, input.getLength());
+          restoredExtractorState = extractor != null;
+        }
+        if (extractor == null) {
+          extractor = sniffWithExtractor(recordedExtractorClassName, input, sniffedExtractors);
+        }
+      }
+      if (extractor == null
+          && previousExtractorClassName != null
+          && !previousExtractorClassName.equals(recordedExtractorClassName)) {
+        extractor = sniffWithExtractor(previousExtractorClassName, input, sniffedExtractors);
+      }
+      for (int i = 0; extractor == null && i < extractors.length; i++) {
+        if (!sniffedExtractors[i] && sniff(extractors[i], input)) {
+          extractor = extractors[i];
         }
       }
       if (extractor == null) {
         throw new UnrecognizedInputFormatException("None of the available extractors ("
             + Util.getCommaDelimitedSimpleClassNames(extractors) + ") could read the stream.", uri);
       }
+      String extractorClassName = extractor.getClass().getName();
+      if (extractorClassNameHistory != null
+          && !extractorClassName.equals(previousExtractorClassName)) {
+        extractorClassNameHistory.put(uri, extractorClassName);
+      }
+      if (contentMetadataCache != null
+          && !extractorClassName.equals(recordedExtractorClassName)
+          && ContentMetadata.getContentLength(Assertions.checkNotNull(contentMetadata))
+              != C.LENGTH_UNSET) {
+        // Only record the extractor for a stream whose length the cache has stored, as applying the
+        // mutation would otherwise add an uncached stream to the cache index.
+        recordExtractorClassName(
+            contentMetadataCache, Assertions.checkNotNull(cacheKey), extractorClassName);
+      }
+      if (contentMetadataCache != null
+          && extractor instanceof RestorableExtractor
+          && !restoredExtractorState
+          && ContentMetadata.getContentLength(Assertions.checkNotNull(contentMetadata))
+              != C.LENGTH_UNSET) {
+        extractorStateCacheKey = cacheKey;
+      }
       extractor.init(output);
       return extractor;
     }
 
+    /**
+     * Records the header state of the selected extractor in the content metadata cache, if it
+     * needs recording and the extractor has read the headers. Should be called after each read.
+     */
+    public void maybeRecordExtractorState() {
+      if (extractorStateCacheKey == null) {
+        return;
+      }
+      @Nullable
+      byte[] extractorState =
+          ((RestorableExtractor) Assertions.checkNotNull(extractor)).getHeaderState();
+      if (extractorState == null) {
+        return;
+      }
+      String cacheKey = extractorStateCacheKey;
+      extractorStateCacheKey = null;
+      if (extractorState.length > MAX_EXTRACTOR_STATE_SIZE) {
+        return;
+      }
+      ContentMetadataMutations mutations = new ContentMetadataMutations();
+      ContentMetadataMutations.setExtractorState(mutations, extractorState);
+      try {
+        Assertions.checkNotNull(contentMetadataCache)
+            .applyContentMetadataMutations(cacheKey, mutations);
+      } catch (Cache.CacheException e) {
+        // The headers will be read from the stream again next time.
+        Log.w(TAG, "Failed to record extractor state", e);
+      }
+    }
+
     public void release() {
       if (extractor != null) {
         extractor.release();
         extractor = null;
       }
     }
+
+    private static void recordExtractorClassName(
+        Cache contentMetadataCache, String cacheKey, String extractorClassName) {
+      ContentMetadataMutations mutations = new ContentMetadataMutations();
+      ContentMetadataMutations.setExtractorClassName(mutations, extractorClassName);
+      try {
+        contentMetadataCache.applyContentMetadataMutations(cacheKey, mutations);
+      } catch (Cache.CacheException e) {
+        // The extractor will be selected by sniffing again next time.
+        Log.w(TAG, "Failed to record extractor class name", e);
+      }
+    }
+
+    /**
+     * Restores the header state of the extractor of the specified class, if there is one that
+     * supports it.
+     *
+     * @return The extractor, if its header state was restored, or null.
+     */
+    @Nullable
+    private Extractor restoreExtractor(
+        String extractorClassName, byte[] extractorState, long inputLength) {
+      for (Extractor extractor : Assertions.checkNotNull(extractors)) {
+        if (extractor.getClass().getName().equals(extractorClassName)) {
+          if (!(extractor instanceof RestorableExtractor)) {
+            return null;
+          }
+          RestorableExtractor restorableExtractor = (RestorableExtractor) extractor;
+          return restorableExtractor.restoreHeaderState(extractorState, inputLength)
+              ? extractor
+              : null;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Sniffs {@code input} with the extractor of the specified class, if there is one that has not
+     * been sniffed with yet, and marks it as sniffed.
+     *
+     * @return The extractor, if it can read {@code input}, or null.
+     */
+    @Nullable
+    private Extractor sniffWithExtractor(
+        String extractorClassName, ExtractorInput input, boolean[] sniffedExtractors)
+        throws IOException, InterruptedException {
+      Extractor[] extractors = Assertions.checkNotNull(this.extractors);
+      for (int i = 0; i < extractors.length; i++) {
+        Extractor extractor = extractors[i];
+        if (!sniffedExtractors[i] && extractor.getClass().getName().equals(extractorClassName)) {
+          sniffedExtractors[i] = true;
+          return sniff(extractor, input) ? extractor : null;
+        }
+      }
+      return null;
+    }
+
+    private static boolean sniff(Extractor extractor, ExtractorInput input)
+        throws IOException, InterruptedException {
+      try {
+        return extractor.sniff(input);
+      } catch (EOFException e) {
+        return false;
+      } finally {
+        input.resetPeekPosition();
+      }
+    }
   }
 
   /** Stores state that is initialized when preparation completes. */
   private static final class PreparedState {
 
-    public final SeekMap seekMap;
+    public SeekMap seekMap;
     public final TrackGroupArray tracks;
     public final boolean[] trackIsAudioVideoFlags;
     public final boolean[] trackEnabledStates;
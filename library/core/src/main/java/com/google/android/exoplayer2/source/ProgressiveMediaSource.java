@@ -27,6 +27,9 @@ import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DefaultLoadErrorHandlingPolicy;
 import com.google.android.exoplayer2.upstream.LoadErrorHandlingPolicy;
 import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadata;
 import com.google.android.exoplayer2.util.Assertions;
 import java.io.IOException;
 
@@ -48,9 +51,12 @@ public final class ProgressiveMediaSource extends BaseMediaSource
   public static final class Factory implements AdsMediaSource.MediaSourceFactory {
 
     private final DataSource.Factory dataSourceFactory;
+    private final ExtractorClassNameHistory extractorClassNameHistory;
 
     private ExtractorsFactory extractorsFactory;
     @Nullable private String customCacheKey;
+    @Nullable private Cache contentMetadataCache;
+    @Nullable private CacheKeyFactory cacheKeyFactory;
     @Nullable private Object tag;
     private LoadErrorHandlingPolicy loadErrorHandlingPolicy;
     private int continueLoadingCheckIntervalBytes;
@@ -75,6 +81,7 @@ public final class ProgressiveMediaSource extends BaseMediaSource
     public Factory(DataSource.Factory dataSourceFactory, ExtractorsFactory extractorsFactory) {
       this.dataSourceFactory = dataSourceFactory;
       this.extractorsFactory = extractorsFactory;
+      extractorClassNameHistory = new ExtractorClassNameHistory();
       loadErrorHandlingPolicy = new DefaultLoadErrorHandlingPolicy();
       continueLoadingCheckIntervalBytes = DEFAULT_LOADING_CHECK_INTERVAL_BYTES;
     }
@@ -114,6 +121,38 @@ public final class ProgressiveMediaSource extends BaseMediaSource
       return this;
     }
 
+    /**
+     * Equivalent to {@link #setContentMetadataCache(Cache, CacheKeyFactory)
+     * setContentMetadataCache(contentMetadataCache, null)}.
+     */
+    public Factory setContentMetadataCache(@Nullable Cache contentMetadataCache) {
+      return setContentMetadataCache(contentMetadataCache, /* cacheKeyFactory= */ null);
+    }
+
+    /**
+     * Sets a {@link Cache} in whose {@link ContentMetadata} the class name of the extractor that
+     * reads the stream is recorded. When the stream is played again, that extractor sniffs the
+     * stream first, rather than each extractor in turn. Unlike the history of extractors kept by
+     * this factory, the record outlives the process. The extractor is only recorded for streams
+     * whose length has been stored in the cache, so the cache and the {@link CacheKeyFactory}
+     * should be the ones used by the {@link
+     * com.google.android.exoplayer2.upstream.cache.CacheDataSource}s that read the media. The
+     * default value is {@code null}.
+     *
+     * @param contentMetadataCache The {@link Cache}, or {@code null}.
+     * @param cacheKeyFactory The {@link CacheKeyFactory} used to key the streams in the cache, or
+     *     {@code null} to use the default cache keys.
+     * @return This factory, for convenience.
+     * @throws IllegalStateException If one of the {@code create} methods has already been called.
+     */
+    public Factory setContentMetadataCache(
+        @Nullable Cache contentMetadataCache, @Nullable CacheKeyFactory cacheKeyFactory) {
+      Assertions.checkState(!isCreateCalled);
+      this.contentMetadataCache = contentMetadataCache;
+      this.cacheKeyFactory = cacheKeyFactory;
+      return this;
+    }
+
     /**
      * Sets a tag for the media source which will be published in the {@link
      * com.google.android.exoplayer2.Timeline} of the source as {@link
@@ -175,6 +214,9 @@ public final class ProgressiveMediaSource extends BaseMediaSource
           extractorsFactory,
           loadErrorHandlingPolicy,
           customCacheKey,
+          contentMetadataCache,
+          cacheKeyFactory,
+          extractorClassNameHistory,
           continueLoadingCheckIntervalBytes,
           tag);
     }
@@ -196,6 +238,9 @@ public final class ProgressiveMediaSource extends BaseMediaSource
   private final ExtractorsFactory extractorsFactory;
   private final LoadErrorHandlingPolicy loadableLoadErrorHandlingPolicy;
   @Nullable private final String customCacheKey;
+  @Nullable private final Cache contentMetadataCache;
+  @Nullable private final CacheKeyFactory cacheKeyFactory;
+  @Nullable private final ExtractorClassNameHistory extractorClassNameHistory;
   private final int continueLoadingCheckIntervalBytes;
   @Nullable private final Object tag;
 
@@ -210,6 +255,9 @@ public final class ProgressiveMediaSource extends BaseMediaSource
       ExtractorsFactory extractorsFactory,
       LoadErrorHandlingPolicy loadableLoadErrorHandlingPolicy,
       @Nullable String customCacheKey,
+      @Nullable Cache contentMetadataCache,
+      @Nullable CacheKeyFactory cacheKeyFactory,
+      @Nullable ExtractorClassNameHistory extractorClassNameHistory,
       int continueLoadingCheckIntervalBytes,
       @Nullable Object tag) {
     this.uri = uri;
@@ -217,6 +265,9 @@ public final class ProgressiveMediaSource extends BaseMediaSource
     this.extractorsFactory = extractorsFactory;
     this.loadableLoadErrorHandlingPolicy = loadableLoadErrorHandlingPolicy;
     this.customCacheKey = customCacheKey;
+    this.contentMetadataCache = contentMetadataCache;
+    this.cacheKeyFactory = cacheKeyFactory;
+    this.extractorClassNameHistory = extractorClassNameHistory;
     this.continueLoadingCheckIntervalBytes = continueLoadingCheckIntervalBytes;
     this.timelineDurationUs = C.TIME_UNSET;
     this.tag = tag;
@@ -248,12 +299,15 @@ public final class ProgressiveMediaSource extends BaseMediaSource
     return new ProgressiveMediaPeriod(
         uri,
         dataSource,
-        extractorsFactory.createExtractors(),
+        extractorsFactory,
         loadableLoadErrorHandlingPolicy,
         createEventDispatcher(id),
         this,
         allocator,
         customCacheKey,
+        contentMetadataCache,
+        cacheKeyFactory,
+        extractorClassNameHistory,
         continueLoadingCheckIntervalBytes);
   }
 
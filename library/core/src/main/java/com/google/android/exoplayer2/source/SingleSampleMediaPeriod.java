@@ -22,6 +22,7 @@ import com.google.android.exoplayer2.FormatHolder;
 import com.google.android.exoplayer2.SeekParameters;
 import com.google.android.exoplayer2.decoder.DecoderInputBuffer;
 import com.google.android.exoplayer2.source.MediaSourceEventListener.EventDispatcher;
+import com.google.android.exoplayer2.text.subrip.SubripSegmenter;
 import com.google.android.exoplayer2.trackselection.TrackSelection;
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DataSpec;
@@ -31,6 +32,8 @@ import com.google.android.exoplayer2.upstream.Loader.LoadErrorAction;
 import com.google.android.exoplayer2.upstream.Loader.Loadable;
 import com.google.android.exoplayer2.upstream.StatsDataSource;
 import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.LongArray;
 import com.google.android.exoplayer2.util.MimeTypes;
 import com.google.android.exoplayer2.util.Util;
 import java.io.IOException;
@@ -39,6 +42,10 @@ import java.util.Arrays;
 
 /**
  * A {@link MediaPeriod} with a single sample.
+ *
+ * <p>If subtitle streaming is enabled and the sample is a SubRip subtitle, the sample is instead
+ * split into segments of cues as it's loaded, and each segment is output as a sample as soon as
+ * it's available. This allows the first cues to be shown before the whole file has loaded.
  */
 /* package */ final class SingleSampleMediaPeriod implements MediaPeriod,
     Loader.Callback<SingleSampleMediaPeriod.SourceLoadable>  {
@@ -61,12 +68,14 @@ import java.util.Arrays;
   /* package */ final Loader loader;
   /* package */ final Format format;
   /* package */ final boolean treatLoadErrorsAsEndOfStream;
+  /* package */ final boolean segmented;
 
   /* package */ boolean notifiedReadingStarted;
   /* package */ boolean loadingFinished;
   /* package */ boolean loadingSucceeded;
   /* package */ byte[] sampleData;
   /* package */ int sampleSize;
+  @Nullable /* package */ SourceLoadable loadable;
 
   public SingleSampleMediaPeriod(
       DataSpec dataSpec,
@@ -76,10 +85,16 @@ import java.util.Arrays;
       long durationUs,
       LoadErrorHandlingPolicy loadErrorHandlingPolicy,
       EventDispatcher eventDispatcher,
-      boolean treatLoadErrorsAsEndOfStream) {
+      boolean treatLoadErrorsAsEndOfStream,
+      boolean streamSubtitles) {
     this.dataSpec = dataSpec;
     this.dataSourceFactory = dataSourceFactory;
     this.transferListener = transferListener;
+    segmented = streamSubtitles && MimeTypes.APPLICATION_SUBRIP.equals(format.sampleMimeType);
+    if (segmented && format.subsampleOffsetUs == Format.OFFSET_SAMPLE_RELATIVE) {
+      // The cue times are relative to the start of the file, not to the segment sample times.
+      format = format.copyWithSubsampleOffsetUs(0);
+    }
     this.format = format;
     this.durationUs = durationUs;
     this.loadErrorHandlingPolicy = loadErrorHandlingPolicy;
@@ -121,6 +136,7 @@ import java.util.Arrays;
       }
       if (streams[i] == null && selections[i] != null) {
         SampleStreamImpl stream = new SampleStreamImpl();
+        stream.reset(positionUs);
         sampleStreams.add(stream);
         streams[i] = stream;
         streamResetFlags[i] = true;
@@ -148,9 +164,10 @@ import java.util.Arrays;
     if (transferListener != null) {
       dataSource.addTransferListener(transferListener);
     }
+    loadable = new SourceLoadable(dataSpec, dataSource, segmented);
     long elapsedRealtimeMs =
         loader.startLoading(
-            new SourceLoadable(dataSpec, dataSource),
+            loadable,
             /* callback= */ this,
             loadErrorHandlingPolicy.getMinimumLoadableRetryCount(C.DATA_TYPE_MEDIA));
     eventDispatcher.loadStarted(
@@ -188,7 +205,7 @@ import java.util.Arrays;
   @Override
   public long seekToUs(long positionUs) {
     for (int i = 0; i < sampleStreams.size(); i++) {
-      sampleStreams.get(i).reset();
+      sampleStreams.get(i).reset(positionUs);
     }
     return positionUs;
   }
@@ -294,16 +311,18 @@ import java.util.Arrays;
 
     private int streamState;
     private boolean notifiedDownstreamFormat;
+    private int nextSegmentIndex;
 
-    public void reset() {
+    public void reset(long positionUs) {
       if (streamState == STREAM_STATE_END_OF_STREAM) {
         streamState = STREAM_STATE_SEND_SAMPLE;
       }
+      nextSegmentIndex = loadable != null ? loadable.getSegmentIndex(positionUs) : 0;
     }
 
     @Override
     public boolean isReady() {
-      return loadingFinished;
+      return loadingFinished || (loadable != null && nextSegmentIndex < loadable.getSegmentCount());
     }
 
     @Override
@@ -324,6 +343,8 @@ import java.util.Arrays;
         formatHolder.format = format;
         streamState = STREAM_STATE_SEND_SAMPLE;
         return C.RESULT_FORMAT_READ;
+      } else if (segmented) {
+        return readSegment(buffer);
       } else if (loadingFinished) {
         if (loadingSucceeded) {
           buffer.addFlag(C.BUFFER_FLAG_KEY_FRAME);
@@ -345,6 +366,9 @@ import java.util.Arrays;
     @Override
     public int skipData(long positionUs) {
       maybeNotifyDownstreamFormat();
+      if (segmented) {
+        return skipSegments(positionUs);
+      }
       if (positionUs > 0 && streamState != STREAM_STATE_END_OF_STREAM) {
         streamState = STREAM_STATE_END_OF_STREAM;
         return 1;
@@ -352,6 +376,38 @@ import java.util.Arrays;
       return 0;
     }
 
+    private int readSegment(DecoderInputBuffer buffer) {
+      if (loadable != null && nextSegmentIndex < loadable.getSegmentCount()) {
+        buffer.addFlag(C.BUFFER_FLAG_KEY_FRAME);
+        buffer.timeUs = loadable.getSegmentTimeUs(nextSegmentIndex);
+        if (buffer.isFlagsOnly()) {
+          return C.RESULT_BUFFER_READ;
+        }
+        loadable.readSegmentData(nextSegmentIndex, buffer);
+        nextSegmentIndex++;
+        return C.RESULT_BUFFER_READ;
+      } else if (loadingFinished) {
+        buffer.addFlag(C.BUFFER_FLAG_END_OF_STREAM);
+        streamState = STREAM_STATE_END_OF_STREAM;
+        return C.RESULT_BUFFER_READ;
+      }
+      return C.RESULT_NOTHING_READ;
+    }
+
+    private int skipSegments(long positionUs) {
+      if (loadable == null || streamState == STREAM_STATE_END_OF_STREAM) {
+        return 0;
+      }
+      // Skip the segments that are replaced by a later segment that starts before the position.
+      int skippedCount = 0;
+      while (nextSegmentIndex + 1 < loadable.getSegmentCount()
+          && loadable.getSegmentTimeUs(nextSegmentIndex + 1) <= positionUs) {
+        nextSegmentIndex++;
+        skippedCount++;
+      }
+      return skippedCount;
+    }
+
     private void maybeNotifyDownstreamFormat() {
       if (!notifiedDownstreamFormat) {
         eventDispatcher.downstreamFormatChanged(
@@ -365,17 +421,73 @@ import java.util.Arrays;
     }
   }
 
-  /* package */ static final class SourceLoadable implements Loadable {
+  /* package */ static final class SourceLoadable implements Loadable, SubripSegmenter.Output {
 
     public final DataSpec dataSpec;
 
     private final StatsDataSource dataSource;
+    @Nullable private final SubripSegmenter segmenter;
 
     private byte[] sampleData;
-
-    public SourceLoadable(DataSpec dataSpec, DataSource dataSource) {
+    private int loadedSegmentCount;
+
+    // Guarded by this. Written by the loading thread, and read by the playback thread.
+    private final LongArray segmentTimesUs;
+    private final LongArray segmentEndPositions;
+    @Nullable private byte[] segmentData;
+
+    /**
+     * @param dataSpec The {@link DataSpec} of the sample.
+     * @param dataSource The {@link DataSource} from which to load the sample.
+     * @param segmented Whether the sample is a SubRip subtitle that's split into segments as it's
+     *     loaded.
+     */
+    public SourceLoadable(DataSpec dataSpec, DataSource dataSource, boolean segmented) {
       this.dataSpec = dataSpec;
       this.dataSource = new StatsDataSource(dataSource);
+      segmenter =
+          segmented
+              ? new SubripSegmenter(/* output= */ this, SubripSegmenter.DEFAULT_MIN_SEGMENT_SIZE)
+              : null;
+      segmentTimesUs = new LongArray();
+      segmentEndPositions = new LongArray();
+    }
+
+    /** Returns the number of segments that have been loaded. */
+    public synchronized int getSegmentCount() {
+      return segmentTimesUs.size();
+    }
+
+    /** Returns the time of the sample for a loaded segment, in microseconds. */
+    public synchronized long getSegmentTimeUs(int index) {
+      return segmentTimesUs.get(index);
+    }
+
+    /**
+     * Returns the index of the last loaded segment that starts at or before the specified time, or
+     * 0 if there's no such segment.
+     */
+    public synchronized int getSegmentIndex(long timeUs) {
+      // Binary search for the last segment at or before the time. Segment times are increasing.
+      int low = 0;
+      int high = segmentTimesUs.size() - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (segmentTimesUs.get(mid) <= timeUs) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return Math.max(0, high);
+    }
+
+    /** Writes the data of a loaded segment to a buffer. */
+    public synchronized void readSegmentData(int index, DecoderInputBuffer buffer) {
+      int offset = index == 0 ? 0 : (int) segmentEndPositions.get(index - 1);
+      int size = (int) segmentEndPositions.get(index) - offset;
+      buffer.ensureSpaceForWrite(size);
+      buffer.data.put(Assertions.checkNotNull(segmentData), offset, size);
     }
 
     @Override
@@ -387,6 +499,10 @@ import java.util.Arrays;
     public void load() throws IOException, InterruptedException {
       // We always load from the beginning, so reset bytesRead to 0.
       dataSource.resetBytesRead();
+      loadedSegmentCount = 0;
+      if (segmenter != null) {
+        segmenter.reset();
+      }
       try {
         // Create and open the input.
         dataSource.open(dataSpec);
@@ -400,12 +516,33 @@ import java.util.Arrays;
             sampleData = Arrays.copyOf(sampleData, sampleData.length * 2);
           }
           result = dataSource.read(sampleData, sampleSize, sampleData.length - sampleSize);
+          if (segmenter != null && result != C.RESULT_END_OF_INPUT) {
+            segmenter.consume(sampleData, (int) dataSource.getBytesRead());
+          }
+        }
+        if (segmenter != null) {
+          segmenter.endOfInput(sampleData, (int) dataSource.getBytesRead());
         }
       } finally {
         Util.closeQuietly(dataSource);
       }
     }
 
+    // SubripSegmenter.Output implementation.
+
+    @Override
+    public void onSegment(int offset, int size, long timeUs) {
+      synchronized (this) {
+        segmentData = sampleData;
+        // If the load is retried, the segments that were loaded by a previous attempt are skipped.
+        if (loadedSegmentCount == segmentTimesUs.size()) {
+          segmentTimesUs.add(timeUs);
+          segmentEndPositions.add(offset + size);
+        }
+      }
+      loadedSegmentCount++;
+    }
+
   }
 
 }
@@ -59,6 +59,7 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
 
     private LoadErrorHandlingPolicy loadErrorHandlingPolicy;
     private boolean treatLoadErrorsAsEndOfStream;
+    private boolean streamSubtitles;
     private boolean isCreateCalled;
     private @Nullable Object tag;
 
@@ -137,6 +138,21 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
       return this;
     }
 
+    /**
+     * Sets whether subtitles are output progressively as they're loaded, rather than once the whole
+     * file has loaded. This reduces the delay before the first cues are shown for large files. It's
+     * currently supported for SubRip subtitles only. The default value is false.
+     *
+     * @param streamSubtitles Whether subtitles are output progressively as they're loaded.
+     * @return This factory, for convenience.
+     * @throws IllegalStateException If one of the {@code create} methods has already been called.
+     */
+    public Factory setStreamSubtitles(boolean streamSubtitles) {
+      Assertions.checkState(!isCreateCalled);
+      this.streamSubtitles = streamSubtitles;
+      return this;
+    }
+
     /**
      * Returns a new {@link SingleSampleMediaSource} using the current parameters.
      *
@@ -154,6 +170,7 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
           durationUs,
           loadErrorHandlingPolicy,
           treatLoadErrorsAsEndOfStream,
+          streamSubtitles,
           tag);
     }
 
@@ -183,6 +200,7 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
   private final long durationUs;
   private final LoadErrorHandlingPolicy loadErrorHandlingPolicy;
   private final boolean treatLoadErrorsAsEndOfStream;
+  private final boolean streamSubtitles;
   private final Timeline timeline;
   @Nullable private final Object tag;
 
@@ -231,6 +249,7 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
         durationUs,
         new DefaultLoadErrorHandlingPolicy(minLoadableRetryCount),
         /* treatLoadErrorsAsEndOfStream= */ false,
+        /* streamSubtitles= */ false,
         /* tag= */ null);
   }
 
@@ -268,6 +287,7 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
         durationUs,
         new DefaultLoadErrorHandlingPolicy(minLoadableRetryCount),
         treatLoadErrorsAsEndOfStream,
+        /* streamSubtitles= */ false,
         /* tag= */ null);
     if (eventHandler != null && eventListener != null) {
       addEventListener(eventHandler, new EventListenerWrapper(eventListener, eventSourceId));
@@ -281,12 +301,14 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
       long durationUs,
       LoadErrorHandlingPolicy loadErrorHandlingPolicy,
       boolean treatLoadErrorsAsEndOfStream,
+      boolean streamSubtitles,
       @Nullable Object tag) {
     this.dataSourceFactory = dataSourceFactory;
     this.format = format;
     this.durationUs = durationUs;
     this.loadErrorHandlingPolicy = loadErrorHandlingPolicy;
     this.treatLoadErrorsAsEndOfStream = treatLoadErrorsAsEndOfStream;
+    this.streamSubtitles = streamSubtitles;
     this.tag = tag;
     dataSpec = new DataSpec(uri, DataSpec.FLAG_ALLOW_GZIP);
     timeline =
@@ -322,7 +344,8 @@ public final class SingleSampleMediaSource extends BaseMediaSource {
         durationUs,
         loadErrorHandlingPolicy,
         createEventDispatcher(id),
-        treatLoadErrorsAsEndOfStream);
+        treatLoadErrorsAsEndOfStream,
+        streamSubtitles);
   }
 
   @Override
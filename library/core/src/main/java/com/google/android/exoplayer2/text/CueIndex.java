@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text;
+
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.LongArray;
+import com.google.android.exoplayer2.util.Util;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.checker.nullness.compatqual.NullableType;
+
+/**
+ * An index of the cues that are active at any given time, for use by {@link Subtitle}
+ * implementations.
+ *
+ * <p>The start and end times of the cues divide the timeline into intervals in which the same cues
+ * are active. The cues of each interval are computed once when the index is created, so {@link
+ * #getCues(long)} is a binary search over the interval boundaries that doesn't allocate.
+ */
+public final class CueIndex {
+
+  /** Merges the cues that are active in an interval into the cues that are output. */
+  public interface CueMerger {
+
+    /**
+     * Returns the cues to output for an interval.
+     *
+     * @param cues The cues that are active in the interval, in the order in which they were passed
+     *     to the index. The list must not be modified or retained.
+     * @return The cues to output for the interval.
+     */
+    List<Cue> mergeCues(List<Cue> cues);
+  }
+
+  private final long[] intervalStartTimesUs;
+  private final List<Cue>[] intervalCues;
+
+  /**
+   * Creates an index in which the cues active in an interval are output unchanged.
+   *
+   * @param cues The cues.
+   * @param startTimesUs The start times of the cues, in microseconds.
+   * @param endTimesUs The end times of the cues, in microseconds, or {@link C#TIME_END_OF_SOURCE}
+   *     for cues that remain active indefinitely.
+   */
+  public CueIndex(List<? extends Cue> cues, long[] startTimesUs, long[] endTimesUs) {
+    this(cues, startTimesUs, endTimesUs, /* cueMerger= */ null);
+  }
+
+  /**
+   * @param cues The cues.
+   * @param startTimesUs The start times of the cues, in microseconds.
+   * @param endTimesUs The end times of the cues, in microseconds, or {@link C#TIME_END_OF_SOURCE}
+   *     for cues that remain active indefinitely.
+   * @param cueMerger A {@link CueMerger} to merge the cues active in each interval, or null to
+   *     output them unchanged.
+   */
+  @SuppressWarnings("unchecked")
+  public CueIndex(
+      List<? extends Cue> cues,
+      long[] startTimesUs,
+      long[] endTimesUs,
+      @Nullable CueMerger cueMerger) {
+    int cueCount = cues.size();
+    Assertions.checkArgument(startTimesUs.length == cueCount && endTimesUs.length == cueCount);
+
+    // The interval boundaries are the distinct start and end times, in order.
+    long[] boundaryTimesUs = new long[2 * cueCount];
+    int boundaryCount = 0;
+    for (int i = 0; i < cueCount; i++) {
+      boundaryTimesUs[boundaryCount++] = startTimesUs[i];
+      if (endTimesUs[i] != C.TIME_END_OF_SOURCE) {
+        boundaryTimesUs[boundaryCount++] = endTimesUs[i];
+      }
+    }
+    Arrays.sort(boundaryTimesUs, 0, boundaryCount);
+    int intervalCount = 0;
+    for (int i = 0; i < boundaryCount; i++) {
+      if (intervalCount == 0 || boundaryTimesUs[i] != boundaryTimesUs[intervalCount - 1]) {
+        boundaryTimesUs[intervalCount++] = boundaryTimesUs[i];
+      }
+    }
+    intervalStartTimesUs = Arrays.copyOf(boundaryTimesUs, intervalCount);
+
+    // Add each cue to the intervals in which it's active, preserving the order of the cues.
+    ArrayList<Cue>[] activeCues = new ArrayList[intervalCount];
+    for (int i = 0; i < cueCount; i++) {
+      long startTimeUs = startTimesUs[i];
+      long endTimeUs = endTimesUs[i];
+      if (endTimeUs != C.TIME_END_OF_SOURCE && endTimeUs <= startTimeUs) {
+        continue;
+      }
+      int startIndex = Arrays.binarySearch(intervalStartTimesUs, startTimeUs);
+      int endIndex =
+          endTimeUs == C.TIME_END_OF_SOURCE
+              ? intervalCount
+              : Arrays.binarySearch(intervalStartTimesUs, endTimeUs);
+      for (int j = startIndex; j < endIndex; j++) {
+        if (activeCues[j] == null) {
+          activeCues[j] = new ArrayList<>();
+        }
+        activeCues[j].add(cues.get(i));
+      }
+    }
+
+    intervalCues = new List[intervalCount];
+    for (int i = 0; i < intervalCount; i++) {
+      ArrayList<Cue> cuesInInterval = activeCues[i];
+      if (cuesInInterval == null) {
+        intervalCues[i] = Collections.emptyList();
+      } else if (i > 0 && cuesInInterval.equals(activeCues[i - 1])) {
+        // Adjacent intervals only have the same cues if a cue with no duration separates them.
+        intervalCues[i] = intervalCues[i - 1];
+      } else if (cueMerger != null) {
+        intervalCues[i] = Collections.unmodifiableList(cueMerger.mergeCues(cuesInInterval));
+      } else if (cuesInInterval.size() == 1) {
+        intervalCues[i] = Collections.singletonList(cuesInInterval.get(0));
+      } else {
+        cuesInInterval.trimToSize();
+        intervalCues[i] = Collections.unmodifiableList(cuesInInterval);
+      }
+    }
+  }
+
+  /**
+   * Creates an index from a sequence of cue times, in which each time is the start time of a cue,
+   * or the end time of the previous cue if there's no cue at that time. Each cue is active from its
+   * time until the next time in the sequence. The last cue remains active indefinitely if there's
+   * no time after it.
+   *
+   * @param cues The cues, with null entries for times at which no cue starts.
+   * @param cueTimesUs The cue times, in microseconds.
+   * @return The index.
+   */
+  public static CueIndex fromCueTimes(@NullableType Cue[] cues, long[] cueTimesUs) {
+    ArrayList<Cue> indexedCues = new ArrayList<>();
+    LongArray startTimesUs = new LongArray();
+    LongArray endTimesUs = new LongArray();
+    for (int i = 0; i < cueTimesUs.length; i++) {
+      Cue cue = cues[i];
+      if (cue != null) {
+        indexedCues.add(cue);
+        startTimesUs.add(cueTimesUs[i]);
+        endTimesUs.add(i + 1 < cueTimesUs.length ? cueTimesUs[i + 1] : C.TIME_END_OF_SOURCE);
+      }
+    }
+    return new CueIndex(indexedCues, startTimesUs.toArray(), endTimesUs.toArray());
+  }
+
+  /**
+   * Returns the cues that are active at a given time.
+   *
+   * @param timeUs The time, in microseconds.
+   * @return The cues that are active at the time. The returned list is shared and must not be
+   *     modified.
+   */
+  public List<Cue> getCues(long timeUs) {
+    int index =
+        Util.binarySearchFloor(
+            intervalStartTimesUs, timeUs, /* inclusive= */ true, /* stayInBounds= */ false);
+    return index == -1 ? Collections.emptyList() : intervalCues[index];
+  }
+}
@@ -24,6 +24,7 @@ import android.text.Spanned;
 import android.text.style.ForegroundColorSpan;
 import android.text.style.StyleSpan;
 import android.text.style.UnderlineSpan;
+import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.text.Cue;
 import com.google.android.exoplayer2.text.Subtitle;
@@ -234,6 +235,8 @@ public final class Cea608Decoder extends CeaDecoder {
   private final int selectedField;
   private final int selectedChannel;
   private final ArrayList<CueBuilder> cueBuilders;
+  private final ArrayList<CueBuilder> spareCueBuilders;
+  private final ArrayList<Cue> cueBuilderCues;
 
   private CueBuilder currentCueBuilder;
   private List<Cue> cues;
@@ -256,6 +259,8 @@ public final class Cea608Decoder extends CeaDecoder {
   public Cea608Decoder(String mimeType, int accessibilityChannel) {
     ccData = new ParsableByteArray();
     cueBuilders = new ArrayList<>();
+    spareCueBuilders = new ArrayList<>();
+    cueBuilderCues = new ArrayList<>();
     currentCueBuilder = new CueBuilder(CC_MODE_UNKNOWN, DEFAULT_CAPTIONS_ROW_COUNT);
     currentChannel = NTSC_CC_CHANNEL_1;
     packetLength = MimeTypes.APPLICATION_MP4CEA608.equals(mimeType) ? 2 : 3;
@@ -401,7 +406,7 @@ public final class Cea608Decoder extends CeaDecoder {
         } else if (isPreambleAddressCode(ccData1, ccData2)) {
           handlePreambleAddressCode(ccData1, ccData2);
         } else if (isTabCtrlCode(ccData1, ccData2)) {
-          currentCueBuilder.tabOffset = ccData2 - 0x20;
+          currentCueBuilder.setTabOffset(ccData2 - 0x20);
         } else if (isMiscCode(ccData1, ccData2)) {
           handleMiscCode(ccData2);
         }
@@ -481,10 +486,10 @@ public final class Cea608Decoder extends CeaDecoder {
 
     if (row != currentCueBuilder.row) {
       if (captionMode != CC_MODE_ROLL_UP && !currentCueBuilder.isEmpty()) {
-        currentCueBuilder = new CueBuilder(captionMode, captionRowCount);
+        currentCueBuilder = obtainCueBuilder();
         cueBuilders.add(currentCueBuilder);
       }
-      currentCueBuilder.row = row;
+      currentCueBuilder.setRow(row);
     }
 
     // cc2 - 0|1|N|0|STYLE|U
@@ -498,7 +503,7 @@ public final class Cea608Decoder extends CeaDecoder {
     currentCueBuilder.setStyle(isCursor ? STYLE_UNCHANGED : cursorOrStyle, underline);
 
     if (isCursor) {
-      currentCueBuilder.indent = COLUMN_INDICES[cursorOrStyle];
+      currentCueBuilder.setIndent(COLUMN_INDICES[cursorOrStyle]);
     }
   }
 
@@ -572,7 +577,7 @@ public final class Cea608Decoder extends CeaDecoder {
     // preference, then middle alignment, then end alignment.
     @Cue.AnchorType int positionAnchor = Cue.ANCHOR_TYPE_END;
     int cueBuilderCount = cueBuilders.size();
-    List<Cue> cueBuilderCues = new ArrayList<>(cueBuilderCount);
+    cueBuilderCues.clear();
     for (int i = 0; i < cueBuilderCount; i++) {
       Cue cue = cueBuilders.get(i).build(/* forcedPositionAnchor= */ Cue.TYPE_UNSET);
       cueBuilderCues.add(cue);
@@ -581,19 +586,24 @@ public final class Cea608Decoder extends CeaDecoder {
       }
     }
 
-    // Skip null cues and rebuild any that don't have the preferred alignment.
-    List<Cue> displayCues = new ArrayList<>(cueBuilderCount);
+    // Skip null cues and rebuild any that don't have the preferred alignment. The cue builders
+    // return the same cue instances until their content changes, so the cues only need to be
+    // copied into a new list if they differ from the cues that are currently displayed.
+    int displayCueCount = 0;
     for (int i = 0; i < cueBuilderCount; i++) {
       Cue cue = cueBuilderCues.get(i);
       if (cue != null) {
         if (cue.positionAnchor != positionAnchor) {
           cue = cueBuilders.get(i).build(positionAnchor);
         }
-        displayCues.add(cue);
+        cueBuilderCues.set(displayCueCount++, cue);
       }
     }
-
-    return displayCues;
+    List<Cue> displayCues = cueBuilderCues.subList(0, displayCueCount);
+    if (cues != null && containsSameCues(cues, displayCues)) {
+      return cues;
+    }
+    return displayCueCount == 0 ? Collections.emptyList() : new ArrayList<>(displayCues);
   }
 
   private void setCaptionMode(int captionMode) {
@@ -628,10 +638,26 @@ public final class Cea608Decoder extends CeaDecoder {
 
   private void resetCueBuilders() {
     currentCueBuilder.reset(captionMode);
+    for (int i = 0; i < cueBuilders.size(); i++) {
+      CueBuilder cueBuilder = cueBuilders.get(i);
+      if (cueBuilder != currentCueBuilder) {
+        spareCueBuilders.add(cueBuilder);
+      }
+    }
     cueBuilders.clear();
     cueBuilders.add(currentCueBuilder);
   }
 
+  private CueBuilder obtainCueBuilder() {
+    if (spareCueBuilders.isEmpty()) {
+      return new CueBuilder(captionMode, captionRowCount);
+    }
+    CueBuilder cueBuilder = spareCueBuilders.remove(spareCueBuilders.size() - 1);
+    cueBuilder.reset(captionMode);
+    cueBuilder.setCaptionRowCount(captionRowCount);
+    return cueBuilder;
+  }
+
   private void maybeUpdateIsInCaptionService(byte cc1, byte cc2) {
     if (isXdsControlCode(cc1)) {
       isInCaptionService = false;
@@ -655,6 +681,19 @@ public final class Cea608Decoder extends CeaDecoder {
     }
   }
 
+  private static boolean containsSameCues(List<Cue> cues, List<Cue> otherCues) {
+    int cueCount = cues.size();
+    if (cueCount != otherCues.size()) {
+      return false;
+    }
+    for (int i = 0; i < cueCount; i++) {
+      if (cues.get(i) != otherCues.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static char getBasicChar(byte ccData) {
     int index = (ccData & 0x7F) - 0x20;
     return (char) BASIC_CHARACTER_SET[index];
@@ -753,6 +792,7 @@ public final class Cea608Decoder extends CeaDecoder {
     private static final int BASE_ROW = 15;
 
     private final List<CueStyle> cueStyles;
+    private final List<CueStyle> spareCueStyles;
     private final List<SpannableString> rolledUpCaptions;
     private final StringBuilder captionStringBuilder;
 
@@ -762,22 +802,28 @@ public final class Cea608Decoder extends CeaDecoder {
     private int captionMode;
     private int captionRowCount;
 
+    // The last built cues, which are returned by build until the content of the builder changes.
+    @Nullable private Cue cue;
+    @Nullable private Cue forcedAnchorCue;
+
     public CueBuilder(int captionMode, int captionRowCount) {
       cueStyles = new ArrayList<>();
+      spareCueStyles = new ArrayList<>();
       rolledUpCaptions = new ArrayList<>();
-      captionStringBuilder = new StringBuilder();
+      captionStringBuilder = new StringBuilder(SCREEN_CHARWIDTH);
       reset(captionMode);
       setCaptionRowCount(captionRowCount);
     }
 
     public void reset(int captionMode) {
       this.captionMode = captionMode;
-      cueStyles.clear();
+      clearCueStyles();
       rolledUpCaptions.clear();
       captionStringBuilder.setLength(0);
       row = BASE_ROW;
       indent = 0;
       tabOffset = 0;
+      invalidateCues();
     }
 
     public boolean isEmpty() {
@@ -788,6 +834,22 @@ public final class Cea608Decoder extends CeaDecoder {
 
     public void setCaptionMode(int captionMode) {
       this.captionMode = captionMode;
+      invalidateCues();
+    }
+
+    public void setRow(int row) {
+      this.row = row;
+      invalidateCues();
+    }
+
+    public void setIndent(int indent) {
+      this.indent = indent;
+      invalidateCues();
+    }
+
+    public void setTabOffset(int tabOffset) {
+      this.tabOffset = tabOffset;
+      invalidateCues();
     }
 
     public void setCaptionRowCount(int captionRowCount) {
@@ -795,7 +857,13 @@ public final class Cea608Decoder extends CeaDecoder {
     }
 
     public void setStyle(int style, boolean underline) {
-      cueStyles.add(new CueStyle(style, underline, captionStringBuilder.length()));
+      CueStyle cueStyle =
+          spareCueStyles.isEmpty()
+              ? new CueStyle()
+              : spareCueStyles.remove(spareCueStyles.size() - 1);
+      cueStyle.set(style, underline, captionStringBuilder.length());
+      cueStyles.add(cueStyle);
+      invalidateCues();
     }
 
     public void backspace() {
@@ -812,24 +880,63 @@ public final class Cea608Decoder extends CeaDecoder {
             break;
           }
         }
+        invalidateCues();
       }
     }
 
     public void append(char text) {
       captionStringBuilder.append(text);
+      invalidateCues();
     }
 
     public void rollUp() {
       rolledUpCaptions.add(buildCurrentLine());
       captionStringBuilder.setLength(0);
-      cueStyles.clear();
+      clearCueStyles();
       int numRows = Math.min(captionRowCount, row);
       while (rolledUpCaptions.size() >= numRows) {
         rolledUpCaptions.remove(0);
       }
+      invalidateCues();
     }
 
+    /**
+     * Returns a cue for the content of the builder, or null if the builder is empty. The same
+     * instance is returned until the content of the builder changes.
+     *
+     * @param forcedPositionAnchor The position anchor to use, or {@link Cue#TYPE_UNSET} to infer
+     *     it from the padding either side of the text.
+     */
+    @Nullable
     public Cue build(@Cue.AnchorType int forcedPositionAnchor) {
+      if (rolledUpCaptions.isEmpty() && captionStringBuilder.length() == 0) {
+        // The cue is empty.
+        return null;
+      }
+      if (forcedPositionAnchor == Cue.TYPE_UNSET) {
+        if (cue == null) {
+          cue = buildCue(forcedPositionAnchor);
+        }
+        return cue;
+      }
+      if (forcedAnchorCue == null || forcedAnchorCue.positionAnchor != forcedPositionAnchor) {
+        forcedAnchorCue = buildCue(forcedPositionAnchor);
+      }
+      return forcedAnchorCue;
+    }
+
+    private void invalidateCues() {
+      cue = null;
+      forcedAnchorCue = null;
+    }
+
+    private void clearCueStyles() {
+      spareCueStyles.addAll(cueStyles);
+      cueStyles.clear();
+    }
+
+    @Nullable
+    private Cue buildCue(@Cue.AnchorType int forcedPositionAnchor) {
       SpannableStringBuilder cueString = new SpannableStringBuilder();
       // Add any rolled up captions, separated by new lines.
       for (int i = 0; i < rolledUpCaptions.size(); i++) {
@@ -996,12 +1103,11 @@ public final class Cea608Decoder extends CeaDecoder {
 
     private static class CueStyle {
 
-      public final int style;
-      public final boolean underline;
-
+      public int style;
+      public boolean underline;
       public int start;
 
-      public CueStyle(int style, boolean underline, int start) {
+      public void set(int style, boolean underline, int start) {
         this.style = style;
         this.underline = underline;
         this.start = start;
@@ -25,6 +25,7 @@ import android.text.style.BackgroundColorSpan;
 import android.text.style.ForegroundColorSpan;
 import android.text.style.StyleSpan;
 import android.text.style.UnderlineSpan;
+import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Format;
 import com.google.android.exoplayer2.text.Cue;
@@ -144,12 +145,14 @@ public final class Cea708Decoder extends CeaDecoder {
 
   private final int selectedServiceNumber;
   private final CueBuilder[] cueBuilders;
+  private final DtvCcPacket dtvCcPacket;
+  private final ArrayList<Cea708Cue> displayCues;
 
   private CueBuilder currentCueBuilder;
   private List<Cue> cues;
   private List<Cue> lastCues;
 
-  private DtvCcPacket currentDtvCcPacket;
+  @Nullable private DtvCcPacket currentDtvCcPacket;
   private int currentWindow;
 
   public Cea708Decoder(int accessibilityChannel, List<byte[]> initializationData) {
@@ -161,6 +164,8 @@ public final class Cea708Decoder extends CeaDecoder {
     for (int i = 0; i < NUM_WINDOWS; i++) {
       cueBuilders[i] = new CueBuilder();
     }
+    dtvCcPacket = new DtvCcPacket();
+    displayCues = new ArrayList<>(NUM_WINDOWS);
 
     currentCueBuilder = cueBuilders[0];
     resetCueBuilders();
@@ -226,7 +231,8 @@ public final class Cea708Decoder extends CeaDecoder {
           packetSize = 64;
         }
 
-        currentDtvCcPacket = new DtvCcPacket(sequenceNumber, packetSize);
+        currentDtvCcPacket = dtvCcPacket;
+        currentDtvCcPacket.reset(sequenceNumber, packetSize);
         currentDtvCcPacket.packetData[currentDtvCcPacket.currentIndex++] = ccData2;
       } else {
         // The only remaining valid packet type is DTVCC_PACKET_DATA
@@ -739,14 +745,32 @@ public final class Cea708Decoder extends CeaDecoder {
   }
 
   private List<Cue> getDisplayCues() {
-    List<Cea708Cue> displayCues = new ArrayList<>();
+    displayCues.clear();
     for (int i = 0; i < NUM_WINDOWS; i++) {
       if (!cueBuilders[i].isEmpty() && cueBuilders[i].isVisible()) {
         displayCues.add(cueBuilders[i].build());
       }
     }
     Collections.sort(displayCues);
-    return Collections.unmodifiableList(displayCues);
+    // The cue builders return the same cue instances until their content changes, so the cues only
+    // need to be copied into a new list if they differ from the cues that are currently displayed.
+    if (cues != null && containsSameCues(cues, displayCues)) {
+      return cues;
+    }
+    return Collections.unmodifiableList(new ArrayList<>(displayCues));
+  }
+
+  private static boolean containsSameCues(List<Cue> cues, List<Cea708Cue> otherCues) {
+    int cueCount = cues.size();
+    if (cueCount != otherCues.size()) {
+      return false;
+    }
+    for (int i = 0; i < cueCount; i++) {
+      if (cues.get(i) != otherCues.get(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   private void resetCueBuilders() {
@@ -757,16 +781,22 @@ public final class Cea708Decoder extends CeaDecoder {
 
   private static final class DtvCcPacket {
 
-    public final int sequenceNumber;
-    public final int packetSize;
+    // The maximum packet size is 64 byte pairs, the first of which contributes a single byte.
+    private static final int MAX_PACKET_DATA_LENGTH = 2 * 64 - 1;
+
     public final byte[] packetData;
 
+    public int sequenceNumber;
+    public int packetSize;
     int currentIndex;
 
-    public DtvCcPacket(int sequenceNumber, int packetSize) {
+    public DtvCcPacket() {
+      packetData = new byte[MAX_PACKET_DATA_LENGTH];
+    }
+
+    public void reset(int sequenceNumber, int packetSize) {
       this.sequenceNumber = sequenceNumber;
       this.packetSize = packetSize;
-      packetData = new byte[2 * packetSize - 1];
       currentIndex = 0;
     }
 
@@ -883,6 +913,9 @@ public final class Cea708Decoder extends CeaDecoder {
     private int backgroundColor;
     private int row;
 
+    // The last built cue, which is returned by build until the content of the builder changes.
+    @Nullable private Cea708Cue cue;
+
     public CueBuilder() {
       rolledUpCaptions = new ArrayList<>();
       captionStringBuilder = new SpannableStringBuilder();
@@ -922,6 +955,7 @@ public final class Cea708Decoder extends CeaDecoder {
       foregroundColorStartPosition = C.POSITION_UNSET;
       backgroundColorStartPosition = C.POSITION_UNSET;
       row = 0;
+      cue = null;
     }
 
     public boolean isDefined() {
@@ -947,6 +981,7 @@ public final class Cea708Decoder extends CeaDecoder {
       this.verticalAnchor = verticalAnchor;
       this.horizontalAnchor = horizontalAnchor;
       this.anchorId = anchorId;
+      cue = null;
 
       // Decoders must add one to rowCount to get the desired number of rows.
       if (this.rowCount != rowCount + 1) {
@@ -994,7 +1029,7 @@ public final class Cea708Decoder extends CeaDecoder {
       // TODO: Add support for other scroll directions.
       // TODO: Add support for other print directions.
       this.justification = justification;
-
+      cue = null;
     }
 
     public void setPenAttributes(int textTag, int offset, int penSize, boolean italicsToggle,
@@ -1002,6 +1037,7 @@ public final class Cea708Decoder extends CeaDecoder {
       // TODO: Add support for text tags.
       // TODO: Add support for other offsets.
       // TODO: Add support for other pen sizes.
+      cue = null;
 
       if (italicsStartPosition != C.POSITION_UNSET) {
         if (!italicsToggle) {
@@ -1028,6 +1064,7 @@ public final class Cea708Decoder extends CeaDecoder {
     }
 
     public void setPenColor(int foregroundColor, int backgroundColor, int edgeColor) {
+      cue = null;
       if (foregroundColorStartPosition != C.POSITION_UNSET) {
         if (this.foregroundColor != foregroundColor) {
           captionStringBuilder.setSpan(new ForegroundColorSpan(this.foregroundColor),
@@ -1072,10 +1109,12 @@ public final class Cea708Decoder extends CeaDecoder {
       int length = captionStringBuilder.length();
       if (length > 0) {
         captionStringBuilder.delete(length - 1, length);
+        cue = null;
       }
     }
 
     public void append(char text) {
+      cue = null;
       if (text == '\n') {
         rolledUpCaptions.add(buildSpannableString());
         captionStringBuilder.clear();
@@ -1132,12 +1171,23 @@ public final class Cea708Decoder extends CeaDecoder {
       return new SpannableString(spannableStringBuilder);
     }
 
+    /**
+     * Returns a cue for the content of the window, or null if the window is empty. The same
+     * instance is returned until the content of the window changes.
+     */
+    @Nullable
     public Cea708Cue build() {
       if (isEmpty()) {
         // The cue is empty.
         return null;
       }
+      if (cue == null) {
+        cue = buildCue();
+      }
+      return cue;
+    }
 
+    private Cea708Cue buildCue() {
       SpannableStringBuilder cueString = new SpannableStringBuilder();
 
       // Add any rolled up captions, separated by new lines.
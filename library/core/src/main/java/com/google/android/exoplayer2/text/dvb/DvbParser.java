@@ -27,6 +27,7 @@ import com.google.android.exoplayer2.util.Log;
 import com.google.android.exoplayer2.util.ParsableBitArray;
 import com.google.android.exoplayer2.util.Util;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -84,6 +85,7 @@ import java.util.List;
   private final DisplayDefinition defaultDisplayDefinition;
   private final ClutDefinition defaultClutDefinition;
   private final SubtitleService subtitleService;
+  private final SparseArray<RenderedRegion> renderedRegions;
 
   private Bitmap bitmap;
 
@@ -107,6 +109,7 @@ import java.util.List;
     defaultClutDefinition = new ClutDefinition(0, generateDefault2BitClutEntries(),
         generateDefault4BitClutEntries(), generateDefault8BitClutEntries());
     subtitleService = new SubtitleService(subtitlePageId, ancillaryPageId);
+    renderedRegions = new SparseArray<>();
   }
 
   /**
@@ -114,6 +117,7 @@ import java.util.List;
    */
   public void reset() {
     subtitleService.reset();
+    renderedRegions.clear();
   }
 
   /**
@@ -149,22 +153,14 @@ import java.util.List;
     List<Cue> cues = new ArrayList<>();
     SparseArray<PageRegion> pageRegions = subtitleService.pageComposition.regions;
     for (int i = 0; i < pageRegions.size(); i++) {
-      // Save clean clipping state.
-      canvas.save();
       PageRegion pageRegion = pageRegions.valueAt(i);
       int regionId = pageRegions.keyAt(i);
       RegionComposition regionComposition = subtitleService.regions.get(regionId);
 
-      // Clip drawing to the current region and display definition window.
       int baseHorizontalAddress = pageRegion.horizontalAddress
           + displayDefinition.horizontalPositionMinimum;
       int baseVerticalAddress = pageRegion.verticalAddress
           + displayDefinition.verticalPositionMinimum;
-      int clipRight = Math.min(baseHorizontalAddress + regionComposition.width,
-          displayDefinition.horizontalPositionMaximum);
-      int clipBottom = Math.min(baseVerticalAddress + regionComposition.height,
-          displayDefinition.verticalPositionMaximum);
-      canvas.clipRect(baseHorizontalAddress, baseVerticalAddress, clipRight, clipBottom);
       ClutDefinition clutDefinition = subtitleService.cluts.get(regionComposition.clutId);
       if (clutDefinition == null) {
         clutDefinition = subtitleService.ancillaryCluts.get(regionComposition.clutId);
@@ -172,15 +168,39 @@ import java.util.List;
           clutDefinition = defaultClutDefinition;
         }
       }
-
       SparseArray<RegionObject> regionObjects = regionComposition.regionObjects;
+      ObjectData[] objectDatas = new ObjectData[regionObjects.size()];
       for (int j = 0; j < regionObjects.size(); j++) {
         int objectId = regionObjects.keyAt(j);
-        RegionObject regionObject = regionObjects.valueAt(j);
         ObjectData objectData = subtitleService.objects.get(objectId);
         if (objectData == null) {
           objectData = subtitleService.ancillaryObjects.get(objectId);
         }
+        objectDatas[j] = objectData;
+      }
+
+      // Regions are often sent again without changes, in which case the previous cue is reused
+      // rather than painting the region again.
+      RenderedRegion renderedRegion = renderedRegions.get(regionId);
+      if (renderedRegion != null
+          && renderedRegion.matches(displayDefinition, baseHorizontalAddress, baseVerticalAddress,
+              regionComposition, clutDefinition, objectDatas)) {
+        cues.add(renderedRegion.cue);
+        continue;
+      }
+
+      // Save clean clipping state.
+      canvas.save();
+      // Clip drawing to the current region and display definition window.
+      int clipRight = Math.min(baseHorizontalAddress + regionComposition.width,
+          displayDefinition.horizontalPositionMaximum);
+      int clipBottom = Math.min(baseVerticalAddress + regionComposition.height,
+          displayDefinition.verticalPositionMaximum);
+      canvas.clipRect(baseHorizontalAddress, baseVerticalAddress, clipRight, clipBottom);
+
+      for (int j = 0; j < regionObjects.size(); j++) {
+        RegionObject regionObject = regionObjects.valueAt(j);
+        ObjectData objectData = objectDatas[j];
         if (objectData != null) {
           Paint paint = objectData.nonModifyingColorFlag ? null : defaultPaint;
           paintPixelDataSubBlocks(objectData, clutDefinition, regionComposition.depth,
@@ -207,16 +227,27 @@ import java.util.List;
 
       Bitmap cueBitmap = Bitmap.createBitmap(bitmap, baseHorizontalAddress, baseVerticalAddress,
           regionComposition.width, regionComposition.height);
-      cues.add(new Cue(cueBitmap, (float) baseHorizontalAddress / displayDefinition.width,
+      Cue cue = new Cue(cueBitmap, (float) baseHorizontalAddress / displayDefinition.width,
           Cue.ANCHOR_TYPE_START, (float) baseVerticalAddress / displayDefinition.height,
           Cue.ANCHOR_TYPE_START, (float) regionComposition.width / displayDefinition.width,
-          (float) regionComposition.height / displayDefinition.height));
+          (float) regionComposition.height / displayDefinition.height);
+      cues.add(cue);
+      renderedRegions.put(regionId, new RenderedRegion(cue, displayDefinition,
+          baseHorizontalAddress, baseVerticalAddress, regionComposition, clutDefinition,
+          objectDatas));
 
       canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
       // Restore clean clipping state.
       canvas.restore();
     }
 
+    // Discard rendered regions that are no longer part of the page.
+    for (int i = renderedRegions.size() - 1; i >= 0; i--) {
+      if (pageRegions.get(renderedRegions.keyAt(i)) == null) {
+        renderedRegions.removeAt(i);
+      }
+    }
+
     return Collections.unmodifiableList(cues);
   }
 
@@ -867,6 +898,16 @@ import java.util.List;
       this.verticalPositionMaximum = verticalPositionMaximum;
     }
 
+    public boolean hasSameContent(DisplayDefinition other) {
+      return this == other
+          || (width == other.width
+              && height == other.height
+              && horizontalPositionMinimum == other.horizontalPositionMinimum
+              && horizontalPositionMaximum == other.horizontalPositionMaximum
+              && verticalPositionMinimum == other.verticalPositionMinimum
+              && verticalPositionMaximum == other.verticalPositionMaximum);
+    }
+
   }
 
   /**
@@ -943,6 +984,32 @@ import java.util.List;
       this.regionObjects = regionObjects;
     }
 
+    public boolean hasSameContent(RegionComposition other) {
+      if (this == other) {
+        return true;
+      }
+      if (fillFlag != other.fillFlag
+          || width != other.width
+          || height != other.height
+          || depth != other.depth
+          || pixelCode8Bit != other.pixelCode8Bit
+          || pixelCode4Bit != other.pixelCode4Bit
+          || pixelCode2Bit != other.pixelCode2Bit
+          || regionObjects.size() != other.regionObjects.size()) {
+        return false;
+      }
+      for (int i = 0; i < regionObjects.size(); i++) {
+        RegionObject regionObject = regionObjects.valueAt(i);
+        RegionObject otherRegionObject = other.regionObjects.valueAt(i);
+        if (regionObjects.keyAt(i) != other.regionObjects.keyAt(i)
+            || regionObject.horizontalPosition != otherRegionObject.horizontalPosition
+            || regionObject.verticalPosition != otherRegionObject.verticalPosition) {
+          return false;
+        }
+      }
+      return true;
+    }
+
     public void mergeFrom(RegionComposition otherRegionComposition) {
       if (otherRegionComposition == null) {
         return;
@@ -1001,6 +1068,13 @@ import java.util.List;
       this.clutEntries8Bit = clutEntries8bit;
     }
 
+    public boolean hasSameContent(ClutDefinition other) {
+      return this == other
+          || (Arrays.equals(clutEntries2Bit, other.clutEntries2Bit)
+              && Arrays.equals(clutEntries4Bit, other.clutEntries4Bit)
+              && Arrays.equals(clutEntries8Bit, other.clutEntries8Bit));
+    }
+
   }
 
   /**
@@ -1023,6 +1097,67 @@ import java.util.List;
       this.bottomFieldData = bottomFieldData;
     }
 
+    public boolean hasSameContent(ObjectData other) {
+      return this == other
+          || (nonModifyingColorFlag == other.nonModifyingColorFlag
+              && Arrays.equals(topFieldData, other.topFieldData)
+              && Arrays.equals(bottomFieldData, other.bottomFieldData));
+    }
+
+  }
+
+  /**
+   * A region that has been painted, and the data that it was painted from.
+   */
+  private static final class RenderedRegion {
+
+    public final Cue cue;
+
+    private final DisplayDefinition displayDefinition;
+    private final int horizontalAddress;
+    private final int verticalAddress;
+    private final RegionComposition regionComposition;
+    private final ClutDefinition clutDefinition;
+    private final ObjectData[] objectDatas;
+
+    public RenderedRegion(Cue cue, DisplayDefinition displayDefinition, int horizontalAddress,
+        int verticalAddress, RegionComposition regionComposition, ClutDefinition clutDefinition,
+        ObjectData[] objectDatas) {
+      this.cue = cue;
+      this.displayDefinition = displayDefinition;
+      this.horizontalAddress = horizontalAddress;
+      this.verticalAddress = verticalAddress;
+      this.regionComposition = regionComposition;
+      this.clutDefinition = clutDefinition;
+      this.objectDatas = objectDatas;
+    }
+
+    /**
+     * Returns whether painting the given data would produce the same cue as {@link #cue}.
+     */
+    public boolean matches(DisplayDefinition displayDefinition, int horizontalAddress,
+        int verticalAddress, RegionComposition regionComposition, ClutDefinition clutDefinition,
+        ObjectData[] objectDatas) {
+      if (horizontalAddress != this.horizontalAddress
+          || verticalAddress != this.verticalAddress
+          || !this.displayDefinition.hasSameContent(displayDefinition)
+          || !this.regionComposition.hasSameContent(regionComposition)
+          || !this.clutDefinition.hasSameContent(clutDefinition)
+          || objectDatas.length != this.objectDatas.length) {
+        return false;
+      }
+      for (int i = 0; i < objectDatas.length; i++) {
+        ObjectData objectData = objectDatas[i];
+        ObjectData otherObjectData = this.objectDatas[i];
+        if (objectData == null
+            ? otherObjectData != null
+            : otherObjectData == null || !objectData.hasSameContent(otherObjectData)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
   }
 
 }
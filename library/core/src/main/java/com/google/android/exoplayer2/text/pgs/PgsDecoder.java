@@ -16,6 +16,7 @@
 package com.google.android.exoplayer2.text.pgs;
 
 import android.graphics.Bitmap;
+import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.text.Cue;
 import com.google.android.exoplayer2.text.SimpleSubtitleDecoder;
 import com.google.android.exoplayer2.text.Subtitle;
@@ -115,6 +116,18 @@ public final class PgsDecoder extends SimpleSubtitleDecoder {
     private final ParsableByteArray bitmapData;
     private final int[] colors;
 
+    // The decoded pixels, which are reused for each bitmap.
+    private int[] argbBitmapData;
+
+    // The last decoded bitmap and the data from which it was decoded. Display sets often repeat the
+    // same object, in which case the bitmap is reused rather than decoded again.
+    @Nullable private Bitmap lastBitmap;
+    private final int[] lastColors;
+    private byte[] lastBitmapData;
+    private int lastBitmapDataLength;
+    private int lastBitmapWidth;
+    private int lastBitmapHeight;
+
     private boolean colorsSet;
     private int planeWidth;
     private int planeHeight;
@@ -126,6 +139,9 @@ public final class PgsDecoder extends SimpleSubtitleDecoder {
     public CueBuilder() {
       bitmapData = new ParsableByteArray();
       colors = new int[256];
+      argbBitmapData = new int[0];
+      lastColors = new int[256];
+      lastBitmapData = new byte[0];
     }
 
     private void parsePaletteSection(ParsableByteArray buffer, int sectionLength) {
@@ -207,30 +223,7 @@ public final class PgsDecoder extends SimpleSubtitleDecoder {
           || !colorsSet) {
         return null;
       }
-      // Build the bitmapData.
-      bitmapData.setPosition(0);
-      int[] argbBitmapData = new int[bitmapWidth * bitmapHeight];
-      int argbBitmapDataIndex = 0;
-      while (argbBitmapDataIndex < argbBitmapData.length) {
-        int colorIndex = bitmapData.readUnsignedByte();
-        if (colorIndex != 0) {
-          argbBitmapData[argbBitmapDataIndex++] = colors[colorIndex];
-        } else {
-          int switchBits = bitmapData.readUnsignedByte();
-          if (switchBits != 0) {
-            int runLength =
-                (switchBits & 0x40) == 0
-                    ? (switchBits & 0x3F)
-                    : (((switchBits & 0x3F) << 8) | bitmapData.readUnsignedByte());
-            int color = (switchBits & 0x80) == 0 ? 0 : colors[bitmapData.readUnsignedByte()];
-            Arrays.fill(
-                argbBitmapData, argbBitmapDataIndex, argbBitmapDataIndex + runLength, color);
-            argbBitmapDataIndex += runLength;
-          }
-        }
-      }
-      Bitmap bitmap =
-          Bitmap.createBitmap(argbBitmapData, bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+      Bitmap bitmap = isLastBitmap() ? lastBitmap : buildBitmap();
       // Build the cue.
       return new Cue(
           bitmap,
@@ -252,5 +245,76 @@ public final class PgsDecoder extends SimpleSubtitleDecoder {
       bitmapData.reset(0);
       colorsSet = false;
     }
+
+    private boolean isLastBitmap() {
+      if (lastBitmap == null
+          || bitmapWidth != lastBitmapWidth
+          || bitmapHeight != lastBitmapHeight
+          || bitmapData.limit() != lastBitmapDataLength
+          || !Arrays.equals(colors, lastColors)) {
+        return false;
+      }
+      byte[] data = bitmapData.data;
+      for (int i = 0; i < lastBitmapDataLength; i++) {
+        if (data[i] != lastBitmapData[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private Bitmap buildBitmap() {
+      // Decode the run-length encoded bitmapData into the reused pixel buffer.
+      int pixelCount = bitmapWidth * bitmapHeight;
+      if (argbBitmapData.length < pixelCount) {
+        argbBitmapData = new int[pixelCount];
+      }
+      int[] argbBitmapData = this.argbBitmapData;
+      bitmapData.setPosition(0);
+      int argbBitmapDataIndex = 0;
+      while (argbBitmapDataIndex < pixelCount) {
+        int colorIndex = bitmapData.readUnsignedByte();
+        if (colorIndex != 0) {
+          argbBitmapData[argbBitmapDataIndex++] = colors[colorIndex];
+        } else {
+          int switchBits = bitmapData.readUnsignedByte();
+          if (switchBits != 0) {
+            int runLength =
+                (switchBits & 0x40) == 0
+                    ? (switchBits & 0x3F)
+                    : (((switchBits & 0x3F) << 8) | bitmapData.readUnsignedByte());
+            int color = (switchBits & 0x80) == 0 ? 0 : colors[bitmapData.readUnsignedByte()];
+            Arrays.fill(
+                argbBitmapData,
+                argbBitmapDataIndex,
+                Math.min(argbBitmapDataIndex + runLength, pixelCount),
+                color);
+            argbBitmapDataIndex += runLength;
+          }
+        }
+      }
+      Bitmap bitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+      bitmap.setPixels(
+          argbBitmapData,
+          /* offset= */ 0,
+          /* stride= */ bitmapWidth,
+          /* x= */ 0,
+          /* y= */ 0,
+          bitmapWidth,
+          bitmapHeight);
+
+      // Retain the data from which the bitmap was decoded.
+      int bitmapDataLength = bitmapData.limit();
+      if (lastBitmapData.length < bitmapDataLength) {
+        lastBitmapData = new byte[bitmapDataLength];
+      }
+      System.arraycopy(bitmapData.data, 0, lastBitmapData, 0, bitmapDataLength);
+      lastBitmapDataLength = bitmapDataLength;
+      System.arraycopy(colors, 0, lastColors, 0, colors.length);
+      lastBitmapWidth = bitmapWidth;
+      lastBitmapHeight = bitmapHeight;
+      lastBitmap = bitmap;
+      return bitmap;
+    }
   }
 }
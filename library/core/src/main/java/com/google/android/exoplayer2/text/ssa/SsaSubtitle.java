@@ -17,10 +17,11 @@ package com.google.android.exoplayer2.text.ssa;
 
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.text.Cue;
+import com.google.android.exoplayer2.text.CueIndex;
 import com.google.android.exoplayer2.text.Subtitle;
 import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.Util;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -28,7 +29,7 @@ import java.util.List;
  */
 /* package */ final class SsaSubtitle implements Subtitle {
 
-  private final Cue[] cues;
+  private final CueIndex cueIndex;
   private final long[] cueTimesUs;
 
   /**
@@ -36,8 +37,10 @@ import java.util.List;
    * @param cueTimesUs The cue times, in microseconds.
    */
   public SsaSubtitle(Cue[] cues, long[] cueTimesUs) {
-    this.cues = cues;
-    this.cueTimesUs = cueTimesUs;
+    cueIndex = CueIndex.fromCueTimes(cues, cueTimesUs);
+    // The times of overlapping cues are out of order, because each cue is followed by its end time.
+    this.cueTimesUs = Arrays.copyOf(cueTimesUs, cueTimesUs.length);
+    Arrays.sort(this.cueTimesUs);
   }
 
   @Override
@@ -60,13 +63,7 @@ import java.util.List;
 
   @Override
   public List<Cue> getCues(long timeUs) {
-    int index = Util.binarySearchFloor(cueTimesUs, timeUs, true, false);
-    if (index == -1 || cues[index] == null) {
-      // timeUs is earlier than the start of the first cue, or we have an empty cue.
-      return Collections.emptyList();
-    } else {
-      return Collections.singletonList(cues[index]);
-    }
+    return cueIndex.getCues(timeUs);
   }
 
 }
@@ -41,7 +41,7 @@ public final class SubripDecoder extends SimpleSubtitleDecoder {
   private static final String TAG = "SubripDecoder";
 
   private static final String SUBRIP_TIMECODE = "(?:(\\d+):)?(\\d+):(\\d+),(\\d+)";
-  private static final Pattern SUBRIP_TIMING_LINE =
+  /* package */ static final Pattern SUBRIP_TIMING_LINE =
       Pattern.compile("\\s*(" + SUBRIP_TIMECODE + ")\\s*-->\\s*(" + SUBRIP_TIMECODE + ")?\\s*");
 
   private static final Pattern SUBRIP_TAG_PATTERN = Pattern.compile("\\{\\\\.*?\\}");
@@ -232,7 +232,7 @@ public final class SubripDecoder extends SimpleSubtitleDecoder {
         Cue.DIMEN_UNSET);
   }
 
-  private static long parseTimecode(Matcher matcher, int groupOffset) {
+  /* package */ static long parseTimecode(Matcher matcher, int groupOffset) {
     long timestampMs = Long.parseLong(matcher.group(groupOffset + 1)) * 60 * 60 * 1000;
     timestampMs += Long.parseLong(matcher.group(groupOffset + 2)) * 60 * 1000;
     timestampMs += Long.parseLong(matcher.group(groupOffset + 3)) * 1000;
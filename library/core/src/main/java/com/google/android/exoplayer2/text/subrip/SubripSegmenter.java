@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text.subrip;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.util.Util;
+import java.util.regex.Matcher;
+
+/**
+ * Splits SubRip data into segments at cue boundaries as it's loaded, so that each segment can be
+ * decoded by a {@link SubripDecoder} before the rest of the data is available.
+ *
+ * <p>Segments are only split before a cue that starts after all previous cues have ended, so the
+ * segment start times are increasing and no cue of a segment is active after the next segment
+ * starts. Cues without an end time are treated as ending when they start.
+ */
+public final class SubripSegmenter {
+
+  /** Receives the segments of the data. */
+  public interface Output {
+
+    /**
+     * Called when a segment has been found.
+     *
+     * @param offset The offset of the segment in the data.
+     * @param size The size of the segment, in bytes.
+     * @param timeUs The start time of the first cue in the segment, in microseconds.
+     */
+    void onSegment(int offset, int size, long timeUs);
+  }
+
+  /** The default minimum size of a segment, in bytes. */
+  public static final int DEFAULT_MIN_SEGMENT_SIZE = 16 * 1024;
+
+  private static final byte[] UTF8_BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  private final Output output;
+  private final int minSegmentSize;
+
+  private int scanPosition;
+  private int previousLineStart;
+  private boolean previousLineIsIndex;
+  private int segmentStart;
+  private long segmentTimeUs;
+  private long maxEndTimeUs;
+
+  /**
+   * @param output The {@link Output} that receives the segments.
+   * @param minSegmentSize The minimum size of a segment, in bytes, except for the last segment.
+   */
+  public SubripSegmenter(Output output, int minSegmentSize) {
+    this.output = output;
+    this.minSegmentSize = minSegmentSize;
+    reset();
+  }
+
+  /** Resets the segmenter to process data from the start. */
+  public void reset() {
+    scanPosition = 0;
+    previousLineStart = 0;
+    previousLineIsIndex = false;
+    segmentStart = 0;
+    segmentTimeUs = C.TIME_UNSET;
+    maxEndTimeUs = C.TIME_UNSET;
+  }
+
+  /**
+   * Scans the complete lines that were added to the data since the last call, outputting any
+   * segments that are complete.
+   *
+   * @param data The data, starting from the start of the SubRip file.
+   * @param limit The limit of the data that has been loaded.
+   */
+  public void consume(byte[] data, int limit) {
+    while (true) {
+      int lineEnd = findLineEnd(data, scanPosition, limit);
+      if (lineEnd == C.INDEX_UNSET) {
+        return;
+      }
+      processLine(data, scanPosition, lineEnd);
+      scanPosition = lineEnd + 1;
+    }
+  }
+
+  /**
+   * Outputs the last segment, which ends at the end of the data.
+   *
+   * @param data The data, starting from the start of the SubRip file.
+   * @param limit The limit of the data.
+   */
+  public void endOfInput(byte[] data, int limit) {
+    consume(data, limit);
+    if (scanPosition < limit) {
+      // Process the last line, which isn't terminated.
+      processLine(data, scanPosition, limit);
+      scanPosition = limit;
+    }
+    if (segmentTimeUs != C.TIME_UNSET) {
+      output.onSegment(segmentStart, limit - segmentStart, segmentTimeUs);
+    }
+  }
+
+  // Internal methods.
+
+  private void processLine(byte[] data, int lineStart, int lineEnd) {
+    if (lineEnd > lineStart && data[lineEnd - 1] == '\r') {
+      lineEnd--;
+    }
+    int contentStart = lineStart;
+    if (lineStart == 0 && hasUtf8ByteOrderMark(data, lineEnd)) {
+      contentStart += UTF8_BYTE_ORDER_MARK.length;
+    }
+    if (previousLineIsIndex && containsTimingArrow(data, lineStart, lineEnd)) {
+      Matcher matcher =
+          SubripDecoder.SUBRIP_TIMING_LINE.matcher(
+              Util.fromUtf8Bytes(data, lineStart, lineEnd - lineStart));
+      if (matcher.matches()) {
+        onCue(
+            /* cueStart= */ previousLineStart,
+            SubripDecoder.parseTimecode(matcher, 1),
+            matcher.group(6) != null ? SubripDecoder.parseTimecode(matcher, 6) : C.TIME_UNSET);
+      }
+    }
+    previousLineStart = lineStart;
+    previousLineIsIndex = isIndexLine(data, contentStart, lineEnd);
+  }
+
+  private void onCue(int cueStart, long startTimeUs, long endTimeUs) {
+    if (segmentTimeUs == C.TIME_UNSET) {
+      segmentTimeUs = startTimeUs;
+    } else if (cueStart - segmentStart >= minSegmentSize && startTimeUs >= maxEndTimeUs) {
+      output.onSegment(segmentStart, cueStart - segmentStart, segmentTimeUs);
+      segmentStart = cueStart;
+      segmentTimeUs = startTimeUs;
+    }
+    maxEndTimeUs = Math.max(maxEndTimeUs, Math.max(startTimeUs, endTimeUs));
+  }
+
+  private static int findLineEnd(byte[] data, int position, int limit) {
+    for (int i = position; i < limit; i++) {
+      if (data[i] == '\n') {
+        return i;
+      }
+    }
+    return C.INDEX_UNSET;
+  }
+
+  private static boolean isIndexLine(byte[] data, int lineStart, int lineEnd) {
+    if (lineEnd == lineStart) {
+      return false;
+    }
+    for (int i = lineStart; i < lineEnd; i++) {
+      if (data[i] < '0' || data[i] > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasUtf8ByteOrderMark(byte[] data, int limit) {
+    if (limit < UTF8_BYTE_ORDER_MARK.length) {
+      return false;
+    }
+    for (int i = 0; i < UTF8_BYTE_ORDER_MARK.length; i++) {
+      if (data[i] != UTF8_BYTE_ORDER_MARK[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean containsTimingArrow(byte[] data, int lineStart, int lineEnd) {
+    for (int i = lineStart; i + 2 < lineEnd; i++) {
+      if (data[i] == '-' && data[i + 1] == '-' && data[i + 2] == '>') {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -15,25 +15,39 @@
  */
 package com.google.android.exoplayer2.text.ttml;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.text.Cue;
 import com.google.android.exoplayer2.text.Subtitle;
+import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.Util;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * A representation of a TTML subtitle.
+ *
+ * <p>The cues only change at the event times, so they're rendered once for each interval between
+ * consecutive event times. For documents with up to {@link #MAX_PRECOMPUTED_INTERVAL_COUNT}
+ * intervals, the cues of all intervals are rendered when the subtitle is created. For larger
+ * documents, the cues are rendered when first requested and at most {@link
+ * #MAX_CACHED_INTERVAL_COUNT} intervals are retained.
  */
 /* package */ final class TtmlSubtitle implements Subtitle {
 
+  @VisibleForTesting /* package */ static final int MAX_PRECOMPUTED_INTERVAL_COUNT = 1000;
+  private static final int MAX_CACHED_INTERVAL_COUNT = 100;
+
   private final TtmlNode root;
   private final long[] eventTimesUs;
   private final Map<String, TtmlStyle> globalStyles;
   private final Map<String, TtmlRegion> regionMap;
   private final Map<String, String> imageMap;
+  @Nullable private final List<Cue>[] precomputedIntervalCues;
+  @Nullable private final Map<Integer, List<Cue>> cachedIntervalCues;
 
   public TtmlSubtitle(
       TtmlNode root,
@@ -46,6 +60,27 @@ import java.util.Map;
     this.globalStyles =
         globalStyles != null ? Collections.unmodifiableMap(globalStyles) : Collections.emptyMap();
     this.eventTimesUs = root.getEventTimesUs();
+    // The first interval is before the first event time.
+    int intervalCount = eventTimesUs.length + 1;
+    if (intervalCount <= MAX_PRECOMPUTED_INTERVAL_COUNT) {
+      @SuppressWarnings("unchecked")
+      List<Cue>[] intervalCues = new List[intervalCount];
+      for (int i = 0; i < intervalCount; i++) {
+        intervalCues[i] = renderCues(getIntervalStartTimeUs(i));
+      }
+      precomputedIntervalCues = intervalCues;
+      cachedIntervalCues = null;
+    } else {
+      precomputedIntervalCues = null;
+      cachedIntervalCues =
+          new LinkedHashMap<Integer, List<Cue>>(
+              /* initialCapacity= */ 16, /* loadFactor= */ 0.75f, /* accessOrder= */ true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Cue>> eldest) {
+              return size() > MAX_CACHED_INTERVAL_COUNT;
+            }
+          };
+    }
   }
 
   @Override
@@ -71,11 +106,33 @@ import java.util.Map;
 
   @Override
   public List<Cue> getCues(long timeUs) {
-    return root.getCues(timeUs, globalStyles, regionMap, imageMap);
+    int intervalIndex =
+        Util.binarySearchFloor(
+                eventTimesUs, timeUs, /* inclusive= */ true, /* stayInBounds= */ false)
+            + 1;
+    if (precomputedIntervalCues != null) {
+      return precomputedIntervalCues[intervalIndex];
+    }
+    Map<Integer, List<Cue>> cachedIntervalCues = Assertions.checkNotNull(this.cachedIntervalCues);
+    List<Cue> cues = cachedIntervalCues.get(intervalIndex);
+    if (cues == null) {
+      cues = renderCues(getIntervalStartTimeUs(intervalIndex));
+      cachedIntervalCues.put(intervalIndex, cues);
+    }
+    return cues;
   }
 
   @VisibleForTesting
   /* package */ Map<String, TtmlStyle> getGlobalStyles() {
     return globalStyles;
   }
+
+  private long getIntervalStartTimeUs(int intervalIndex) {
+    // Any time before the first event time is in the first interval.
+    return intervalIndex == 0 ? Long.MIN_VALUE : eventTimesUs[intervalIndex - 1];
+  }
+
+  private List<Cue> renderCues(long timeUs) {
+    return Collections.unmodifiableList(root.getCues(timeUs, globalStyles, regionMap, imageMap));
+  }
 }
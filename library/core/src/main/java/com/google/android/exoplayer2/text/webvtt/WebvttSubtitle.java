@@ -18,12 +18,12 @@ package com.google.android.exoplayer2.text.webvtt;
 import android.text.SpannableStringBuilder;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.text.Cue;
+import com.google.android.exoplayer2.text.CueIndex;
 import com.google.android.exoplayer2.text.Subtitle;
 import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.Util;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -31,25 +31,25 @@ import java.util.List;
  */
 /* package */ final class WebvttSubtitle implements Subtitle {
 
-  private final List<WebvttCue> cues;
-  private final int numCues;
-  private final long[] cueTimesUs;
+  private final CueIndex cueIndex;
   private final long[] sortedCueTimesUs;
 
   /**
    * @param cues A list of the cues in this subtitle.
    */
   public WebvttSubtitle(List<WebvttCue> cues) {
-    this.cues = cues;
-    numCues = cues.size();
-    cueTimesUs = new long[2 * numCues];
-    for (int cueIndex = 0; cueIndex < numCues; cueIndex++) {
-      WebvttCue cue = cues.get(cueIndex);
-      int arrayIndex = cueIndex * 2;
-      cueTimesUs[arrayIndex] = cue.startTime;
-      cueTimesUs[arrayIndex + 1] = cue.endTime;
+    int numCues = cues.size();
+    long[] startTimesUs = new long[numCues];
+    long[] endTimesUs = new long[numCues];
+    for (int i = 0; i < numCues; i++) {
+      WebvttCue cue = cues.get(i);
+      startTimesUs[i] = cue.startTime;
+      endTimesUs[i] = cue.endTime;
     }
-    sortedCueTimesUs = Arrays.copyOf(cueTimesUs, cueTimesUs.length);
+    cueIndex = new CueIndex(cues, startTimesUs, endTimesUs, WebvttSubtitle::mergeCues);
+    sortedCueTimesUs = new long[2 * numCues];
+    System.arraycopy(startTimesUs, 0, sortedCueTimesUs, 0, numCues);
+    System.arraycopy(endTimesUs, 0, sortedCueTimesUs, numCues, numCues);
     Arrays.sort(sortedCueTimesUs);
   }
 
@@ -73,31 +73,30 @@ import java.util.List;
 
   @Override
   public List<Cue> getCues(long timeUs) {
-    ArrayList<Cue> list = null;
+    return cueIndex.getCues(timeUs);
+  }
+
+  private static List<Cue> mergeCues(List<Cue> cues) {
+    ArrayList<Cue> list = new ArrayList<>();
     WebvttCue firstNormalCue = null;
     SpannableStringBuilder normalCueTextBuilder = null;
 
-    for (int i = 0; i < numCues; i++) {
-      if ((cueTimesUs[i * 2] <= timeUs) && (timeUs < cueTimesUs[i * 2 + 1])) {
-        if (list == null) {
-          list = new ArrayList<>();
-        }
-        WebvttCue cue = cues.get(i);
-        if (cue.isNormalCue()) {
-          // we want to merge all of the normal cues into a single cue to ensure they are drawn
-          // correctly (i.e. don't overlap) and to emulate roll-up, but only if there are multiple
-          // normal cues, otherwise we can just append the single normal cue
-          if (firstNormalCue == null) {
-            firstNormalCue = cue;
-          } else if (normalCueTextBuilder == null) {
-            normalCueTextBuilder = new SpannableStringBuilder();
-            normalCueTextBuilder.append(firstNormalCue.text).append("\n").append(cue.text);
-          } else {
-            normalCueTextBuilder.append("\n").append(cue.text);
-          }
+    for (int i = 0; i < cues.size(); i++) {
+      WebvttCue cue = (WebvttCue) cues.get(i);
+      if (cue.isNormalCue()) {
+        // we want to merge all of the normal cues into a single cue to ensure they are drawn
+        // correctly (i.e. don't overlap) and to emulate roll-up, but only if there are multiple
+        // normal cues, otherwise we can just append the single normal cue
+        if (firstNormalCue == null) {
+          firstNormalCue = cue;
+        } else if (normalCueTextBuilder == null) {
+          normalCueTextBuilder = new SpannableStringBuilder();
+          normalCueTextBuilder.append(firstNormalCue.text).append("\n").append(cue.text);
         } else {
-          list.add(cue);
+          normalCueTextBuilder.append("\n").append(cue.text);
         }
+      } else {
+        list.add(cue);
       }
     }
     if (normalCueTextBuilder != null) {
@@ -107,12 +106,7 @@ import java.util.List;
       // there was only a single normal cue, so just add it to the list
       list.add(firstNormalCue);
     }
-
-    if (list != null) {
-      return list;
-    } else {
-      return Collections.emptyList();
-    }
+    return list;
   }
 
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream;
+
+import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.Clock;
+
+/**
+ * Limits the rate at which data is transferred by one or more {@link RateLimitedDataSource}s.
+ *
+ * <p>The limiter is a token bucket that is refilled at {@link #getMaxBytesPerSecond()}, and that
+ * can hold at most the number of bytes that would be refilled in {@link #BURST_DURATION_MS}. The
+ * rate can be changed at any time, and may be set to zero to pause all transfers until it's
+ * increased again. Rates of at least {@link #MAX_LIMITED_RATE} are treated as {@link
+ * #RATE_UNLIMITED}.
+ *
+ * <p>This class is thread-safe. A single instance may be shared by data sources being read on
+ * different threads, in which case the limit applies to their combined rate.
+ */
+public final class DataRateLimiter {
+
+  /** Value for {@link #setMaxBytesPerSecond(long)} that disables rate limiting. */
+  public static final long RATE_UNLIMITED = Long.MAX_VALUE;
+  /** Duration of transfer at the maximum rate that may be granted in a single burst. */
+  public static final int BURST_DURATION_MS = 100;
+  /**
+   * The rate in bytes per second from which rates are treated as {@link #RATE_UNLIMITED}. Lower
+   * rates can be limited without the token arithmetic overflowing.
+   */
+  public static final long MAX_LIMITED_RATE = Long.MAX_VALUE / 1_000_000;
+
+  private static final int MIN_BURST_BYTES = 4096;
+
+  private final Clock clock;
+
+  private long maxBytesPerSecond;
+  private long maxAvailableBytes;
+  private long availableBytes;
+  private long lastRefillTimeMs;
+  private long refillRemainder;
+
+  /**
+   * Creates an instance.
+   *
+   * @param maxBytesPerSecond The initial maximum rate in bytes per second, {@link
+   *     #RATE_UNLIMITED}, or zero to pause transfers.
+   */
+  public DataRateLimiter(long maxBytesPerSecond) {
+    this(maxBytesPerSecond, Clock.DEFAULT);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param maxBytesPerSecond The initial maximum rate in bytes per second, {@link
+   *     #RATE_UNLIMITED}, or zero to pause transfers.
+   * @param clock The {@link Clock} used to measure elapsed time.
+   */
+  public DataRateLimiter(long maxBytesPerSecond, Clock clock) {
+    this.clock = clock;
+    lastRefillTimeMs = clock.elapsedRealtime();
+    setMaxBytesPerSecond(maxBytesPerSecond);
+  }
+
+  /** Returns the maximum rate in bytes per second, or {@link #RATE_UNLIMITED}. */
+  public synchronized long getMaxBytesPerSecond() {
+    return maxBytesPerSecond;
+  }
+
+  /**
+   * Sets the maximum rate. Transfers blocked in {@link #acquire(int)} are woken up so that they can
+   * proceed at the new rate.
+   *
+   * @param maxBytesPerSecond The maximum rate in bytes per second, {@link #RATE_UNLIMITED}, or zero
+   *     to pause transfers.
+   */
+  public synchronized void setMaxBytesPerSecond(long maxBytesPerSecond) {
+    Assertions.checkArgument(maxBytesPerSecond >= 0);
+    if (maxBytesPerSecond >= MAX_LIMITED_RATE) {
+      maxBytesPerSecond = RATE_UNLIMITED;
+    }
+    refill();
+    this.maxBytesPerSecond = maxBytesPerSecond;
+    maxAvailableBytes =
+        maxBytesPerSecond == RATE_UNLIMITED
+            ? Long.MAX_VALUE
+            : maxBytesPerSecond == 0
+                ? 0
+                : Math.max(MIN_BURST_BYTES, maxBytesPerSecond * BURST_DURATION_MS / 1000);
+    availableBytes = Math.min(availableBytes, maxAvailableBytes);
+    refillRemainder = 0;
+    notifyAll();
+  }
+
+  /**
+   * Returns the number of bytes that may be transferred immediately, up to {@code length}, and
+   * deducts them from the available bytes. Returns zero if no bytes are currently available.
+   *
+   * @param length The number of bytes that the caller would like to transfer.
+   * @return The number of bytes that may be transferred.
+   */
+  public synchronized int tryAcquire(int length) {
+    if (maxBytesPerSecond == RATE_UNLIMITED) {
+      return length;
+    }
+    refill();
+    int acquiredBytes = (int) Math.min(length, availableBytes);
+    availableBytes -= acquiredBytes;
+    return acquiredBytes;
+  }
+
+  /**
+   * Blocks until at least one byte may be transferred, then returns the number of bytes that may be
+   * transferred, up to {@code length}, and deducts them from the available bytes.
+   *
+   * @param length The number of bytes that the caller would like to transfer. Must be positive.
+   * @return The number of bytes that may be transferred.
+   * @throws InterruptedException If the thread is interrupted whilst waiting.
+   */
+  public synchronized int acquire(int length) throws InterruptedException {
+    Assertions.checkArgument(length > 0);
+    while (true) {
+      int acquiredBytes = tryAcquire(length);
+      if (acquiredBytes > 0) {
+        return acquiredBytes;
+      }
+      if (maxBytesPerSecond == 0) {
+        wait();
+      } else {
+        // Wait until a small chunk is available, rather than a single byte, to avoid busy looping.
+        long chunkBytes = Math.min(length, Math.max(1, maxAvailableBytes / 4));
+        wait(Math.max(1, chunkBytes * 1000 / maxBytesPerSecond));
+      }
+    }
+  }
+
+  /**
+   * Returns bytes that were acquired but not transferred, so that they can be used by later
+   * transfers.
+   *
+   * @param length The number of bytes to return.
+   */
+  public synchronized void release(int length) {
+    if (maxBytesPerSecond == RATE_UNLIMITED || length <= 0) {
+      return;
+    }
+    availableBytes = Math.min(maxAvailableBytes, availableBytes + length);
+    notifyAll();
+  }
+
+  private void refill() {
+    long nowMs = clock.elapsedRealtime();
+    long elapsedMs = nowMs - lastRefillTimeMs;
+    lastRefillTimeMs = nowMs;
+    if (maxBytesPerSecond == RATE_UNLIMITED || maxBytesPerSecond == 0 || elapsedMs <= 0) {
+      return;
+    }
+    if (elapsedMs >= (maxAvailableBytes * 1000) / maxBytesPerSecond + 1) {
+      // The bucket will be full regardless of its current level. Avoid overflow below.
+      availableBytes = maxAvailableBytes;
+      refillRemainder = 0;
+      return;
+    }
+    // Keep track of the sub-byte remainder so that slow rates are not rounded down to zero.
+    long refillBytesTimes1000 = elapsedMs * maxBytesPerSecond + refillRemainder;
+    refillRemainder = refillBytesTimes1000 % 1000;
+    availableBytes = Math.min(maxAvailableBytes, availableBytes + refillBytesTimes1000 / 1000);
+  }
+}
@@ -32,8 +32,9 @@ public final class DataSpec {
 
   /**
    * The flags that apply to any request for data. Possible flag values are {@link
-   * #FLAG_ALLOW_GZIP}, {@link #FLAG_ALLOW_ICY_METADATA}, {@link #FLAG_DONT_CACHE_IF_LENGTH_UNKNOWN}
-   * and {@link #FLAG_ALLOW_CACHE_FRAGMENTATION}.
+   * #FLAG_ALLOW_GZIP}, {@link #FLAG_ALLOW_ICY_METADATA}, {@link
+   * #FLAG_DONT_CACHE_IF_LENGTH_UNKNOWN}, {@link #FLAG_ALLOW_CACHE_FRAGMENTATION} and {@link
+   * #FLAG_PRODUCED_DURING_TRANSFER}.
    */
   @Documented
   @Retention(RetentionPolicy.SOURCE)
@@ -43,7 +44,8 @@ public final class DataSpec {
         FLAG_ALLOW_GZIP,
         FLAG_ALLOW_ICY_METADATA,
         FLAG_DONT_CACHE_IF_LENGTH_UNKNOWN,
-        FLAG_ALLOW_CACHE_FRAGMENTATION
+        FLAG_ALLOW_CACHE_FRAGMENTATION,
+        FLAG_PRODUCED_DURING_TRANSFER
       })
   public @interface Flags {}
   /**
@@ -69,6 +71,12 @@ public final class DataSpec {
    * whilst writing another).
    */
   public static final int FLAG_ALLOW_CACHE_FRAGMENTATION = 1 << 4; // 8
+  /**
+   * Indicates that the data may still be being produced while it's transferred, for example a low
+   * latency live segment delivered using chunked transfer encoding. The transfer rate is then
+   * limited by the rate at which the data is produced, rather than by the network.
+   */
+  public static final int FLAG_PRODUCED_DURING_TRANSFER = 1 << 5; // 32
 
   /**
    * The set of HTTP methods that are supported by ExoPlayer {@link HttpDataSource}s. One of {@link
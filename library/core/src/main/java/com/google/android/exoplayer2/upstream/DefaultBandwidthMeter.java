@@ -44,6 +44,10 @@ import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
  * time a transfer ends. The initial estimate is based on the current operator's network country
  * code or the locale of the user, as well as the network connection type. This can be configured in
  * the {@link Builder}.
+ *
+ * <p>For transfers with {@link DataSpec#FLAG_PRODUCED_DURING_TRANSFER} set, periods without any
+ * bytes being transferred are excluded from the elapsed time, because they're spent waiting for
+ * data to be produced rather than transferring it.
  */
 public final class DefaultBandwidthMeter implements BandwidthMeter, TransferListener {
 
@@ -217,6 +221,11 @@ public final class DefaultBandwidthMeter implements BandwidthMeter, TransferList
 
   private static final int ELAPSED_MILLIS_FOR_ESTIMATE = 2000;
   private static final int BYTES_TRANSFERRED_FOR_ESTIMATE = 512 * 1024;
+  /**
+   * The minimum time without any bytes being transferred after which transfers of data that's
+   * produced during the transfer are considered to be waiting for the data to be produced.
+   */
+  private static final int MIN_PRODUCTION_WAIT_TIME_MS = 50;
 
   @Nullable private final Context context;
   private final SparseArray<Long> initialBitrateEstimates;
@@ -227,6 +236,9 @@ public final class DefaultBandwidthMeter implements BandwidthMeter, TransferList
   private int streamCount;
   private long sampleStartTimeMs;
   private long sampleBytesTransferred;
+  private long sampleProductionWaitTimeMs;
+  private int producedDuringTransferStreamCount;
+  private long lastBytesTransferredTimeMs;
 
   @C.NetworkType private int networkType;
   private long totalElapsedTimeMs;
@@ -316,10 +328,15 @@ public final class DefaultBandwidthMeter implements BandwidthMeter, TransferList
     if (!isNetwork) {
       return;
     }
+    long nowMs = clock.elapsedRealtime();
     if (streamCount == 0) {
-      sampleStartTimeMs = clock.elapsedRealtime();
+      sampleStartTimeMs = nowMs;
     }
     streamCount++;
+    if (dataSpec.isFlagSet(DataSpec.FLAG_PRODUCED_DURING_TRANSFER)) {
+      producedDuringTransferStreamCount++;
+    }
+    lastBytesTransferredTimeMs = nowMs;
   }
 
   @Override
@@ -329,6 +346,17 @@ public final class DefaultBandwidthMeter implements BandwidthMeter, TransferList
       return;
     }
     sampleBytesTransferred += bytes;
+    if (producedDuringTransferStreamCount > 0) {
+      long nowMs = clock.elapsedRealtime();
+      long timeSinceLastBytesMs = nowMs - lastBytesTransferredTimeMs;
+      // If all transfers are of data that's being produced, a long gap without any bytes means that
+      // they were waiting for data to be produced, which doesn't reflect the network bandwidth.
+      if (producedDuringTransferStreamCount == streamCount
+          && timeSinceLastBytesMs >= MIN_PRODUCTION_WAIT_TIME_MS) {
+        sampleProductionWaitTimeMs += timeSinceLastBytesMs;
+      }
+      lastBytesTransferredTimeMs = nowMs;
+    }
   }
 
   @Override
@@ -338,7 +366,7 @@ public final class DefaultBandwidthMeter implements BandwidthMeter, TransferList
     }
     Assertions.checkState(streamCount > 0);
     long nowMs = clock.elapsedRealtime();
-    int sampleElapsedTimeMs = (int) (nowMs - sampleStartTimeMs);
+    int sampleElapsedTimeMs = (int) (nowMs - sampleStartTimeMs - sampleProductionWaitTimeMs);
     totalElapsedTimeMs += sampleElapsedTimeMs;
     totalBytesTransferred += sampleBytesTransferred;
     if (sampleElapsedTimeMs > 0) {
@@ -351,8 +379,12 @@ public final class DefaultBandwidthMeter implements BandwidthMeter, TransferList
       maybeNotifyBandwidthSample(sampleElapsedTimeMs, sampleBytesTransferred, bitrateEstimate);
       sampleStartTimeMs = nowMs;
       sampleBytesTransferred = 0;
+      sampleProductionWaitTimeMs = 0;
     } // Else any sample bytes transferred will be carried forward into the next sample.
     streamCount--;
+    if (dataSpec.isFlagSet(DataSpec.FLAG_PRODUCED_DURING_TRANSFER)) {
+      producedDuringTransferStreamCount--;
+    }
   }
 
   private synchronized void onConnectivityAction() {
@@ -375,12 +407,14 @@ public final class DefaultBandwidthMeter implements BandwidthMeter, TransferList
     // Reset the bitrate estimate and report it, along with any bytes transferred.
     this.bitrateEstimate = getInitialBitrateEstimateForNetworkType(networkType);
     long nowMs = clock.elapsedRealtime();
-    int sampleElapsedTimeMs = streamCount > 0 ? (int) (nowMs - sampleStartTimeMs) : 0;
+    int sampleElapsedTimeMs =
+        streamCount > 0 ? (int) (nowMs - sampleStartTimeMs - sampleProductionWaitTimeMs) : 0;
     maybeNotifyBandwidthSample(sampleElapsedTimeMs, sampleBytesTransferred, bitrateEstimate);
 
     // Reset the remainder of the state.
     sampleStartTimeMs = nowMs;
     sampleBytesTransferred = 0;
+    sampleProductionWaitTimeMs = 0;
     totalBytesTransferred = 0;
     totalElapsedTimeMs = 0;
     slidingPercentile.reset();
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream;
+
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.util.Assertions;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DataSource} whose reads are limited to the rate allowed by a {@link DataRateLimiter}.
+ *
+ * <p>Calls to {@link #read(byte[], int, int)} block until the limiter allows at least one byte to
+ * be read, and then read at most the number of bytes allowed. If the thread is interrupted whilst
+ * blocked, an {@link InterruptedIOException} is thrown.
+ */
+public final class RateLimitedDataSource implements DataSource {
+
+  private final DataSource upstream;
+  private final DataRateLimiter rateLimiter;
+
+  /**
+   * @param upstream The upstream {@link DataSource}.
+   * @param rateLimiter The {@link DataRateLimiter} that limits the rate of reads.
+   */
+  public RateLimitedDataSource(DataSource upstream, DataRateLimiter rateLimiter) {
+    this.upstream = Assertions.checkNotNull(upstream);
+    this.rateLimiter = Assertions.checkNotNull(rateLimiter);
+  }
+
+  @Override
+  public void addTransferListener(TransferListener transferListener) {
+    upstream.addTransferListener(transferListener);
+  }
+
+  @Override
+  public long open(DataSpec dataSpec) throws IOException {
+    return upstream.open(dataSpec);
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int readLength) throws IOException {
+    if (readLength == 0) {
+      return 0;
+    }
+    int allowedLength;
+    try {
+      allowedLength = rateLimiter.acquire(readLength);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    int bytesRead = C.RESULT_END_OF_INPUT;
+    try {
+      bytesRead = upstream.read(buffer, offset, allowedLength);
+    } finally {
+      rateLimiter.release(allowedLength - Math.max(0, bytesRead));
+    }
+    return bytesRead;
+  }
+
+  @Override
+  @Nullable
+  public Uri getUri() {
+    return upstream.getUri();
+  }
+
+  @Override
+  public Map<String, List<String>> getResponseHeaders() {
+    return upstream.getResponseHeaders();
+  }
+
+  @Override
+  public void close() throws IOException {
+    upstream.close();
+  }
+}
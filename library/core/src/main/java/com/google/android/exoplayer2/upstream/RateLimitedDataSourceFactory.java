@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream;
+
+import com.google.android.exoplayer2.upstream.DataSource.Factory;
+
+/**
+ * A {@link DataSource.Factory} that produces {@link RateLimitedDataSource} instances, all of which
+ * share the same {@link DataRateLimiter}.
+ */
+public final class RateLimitedDataSourceFactory implements Factory {
+
+  private final Factory upstreamFactory;
+  private final DataRateLimiter rateLimiter;
+
+  /**
+   * @param upstreamFactory A {@link DataSource.Factory} to be used to create an upstream {@link
+   *     DataSource} for {@link RateLimitedDataSource}.
+   * @param rateLimiter The {@link DataRateLimiter} shared by the created data sources.
+   */
+  public RateLimitedDataSourceFactory(Factory upstreamFactory, DataRateLimiter rateLimiter) {
+    this.upstreamFactory = upstreamFactory;
+    this.rateLimiter = rateLimiter;
+  }
+
+  @Override
+  public RateLimitedDataSource createDataSource() {
+    return new RateLimitedDataSource(upstreamFactory.createDataSource(), rateLimiter);
+  }
+}
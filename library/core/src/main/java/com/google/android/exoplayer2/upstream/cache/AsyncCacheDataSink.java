@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream.cache;
+
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSink;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSink.CacheDataSinkException;
+import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.Log;
+import com.google.android.exoplayer2.util.Util;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes data into a cache on a separate writer thread.
+ *
+ * <p>Data passed to {@link #write(byte[], int, int)} is copied into blocks of a fixed size, which
+ * are handed to the writer {@link Executor} once full. The writer writes each block to the cache
+ * file with a single call, and rolls over to the next cache file (committing the previous one) when
+ * a fragment is complete. This means that slow storage does not stall the thread that reads from
+ * the upstream {@link com.google.android.exoplayer2.upstream.DataSource}.
+ *
+ * <p>If the number of blocks waiting to be written reaches the configured maximum, the sink stops
+ * caching for the remainder of the current {@link DataSpec} rather than blocking the caller. Data
+ * that was already written is committed to the cache when the sink is closed.
+ *
+ * <p>{@link #close()} blocks until all pending blocks have been written, so that the final cache
+ * file is committed while the caller still holds the lock on the corresponding cache span.
+ *
+ * <p>If the {@link DataSpec} passed to {@link #open(DataSpec)} has the {@code length} field set to
+ * {@link C#LENGTH_UNSET} and {@link DataSpec#FLAG_DONT_CACHE_IF_LENGTH_UNKNOWN} set, then {@link
+ * #write(byte[], int, int)} calls are ignored.
+ */
+public final class AsyncCacheDataSink implements DataSink {
+
+  /** Default size of the blocks passed to the writer thread, in bytes. */
+  public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+  /** Default maximum number of blocks waiting to be written. */
+  public static final int DEFAULT_MAX_PENDING_BLOCKS = 16;
+
+  private static final long MIN_RECOMMENDED_FRAGMENT_SIZE = 2 * 1024 * 1024;
+  private static final String TAG = "AsyncCacheDataSink";
+
+  private final Cache cache;
+  private final long fragmentSize;
+  private final int blockSize;
+  private final int maxPendingBlocks;
+  private final Executor writeExecutor;
+  private final Runnable writeRunnable;
+
+  // Accessed on the thread calling the DataSink methods.
+  @Nullable private DataSpec dataSpec;
+  @Nullable private Block currentBlock;
+  private boolean skipCaching;
+
+  // Guarded by this.
+  private final ArrayDeque<Block> pendingBlocks;
+  private final ArrayDeque<Block> recycledBlocks;
+  private boolean writing;
+  @Nullable private IOException writeException;
+
+  // Accessed on the writer thread, or on the calling thread whilst the writer is idle.
+  @Nullable private DataSpec writerDataSpec;
+  private long writerFragmentSize;
+  @Nullable private File file;
+  @Nullable private FileOutputStream outputStream;
+  private long outputStreamBytesWritten;
+  private long dataSpecBytesWritten;
+
+  /**
+   * Constructs an instance using {@link #DEFAULT_BLOCK_SIZE} and {@link
+   * #DEFAULT_MAX_PENDING_BLOCKS}.
+   *
+   * @param cache The cache into which data should be written.
+   * @param fragmentSize For requests that should be fragmented into multiple cache files, this is
+   *     the maximum size of a cache file in bytes. If set to {@link C#LENGTH_UNSET} then no
+   *     fragmentation will occur. Values under {@code (2 * 1024 * 1024)} are not recommended.
+   * @param writeExecutor The {@link Executor} on which data is written. Must execute tasks
+   *     sequentially, for example an executor backed by a single thread.
+   */
+  public AsyncCacheDataSink(Cache cache, long fragmentSize, Executor writeExecutor) {
+    this(cache, fragmentSize, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_PENDING_BLOCKS, writeExecutor);
+  }
+
+  /**
+   * @param cache The cache into which data should be written.
+   * @param fragmentSize For requests that should be fragmented into multiple cache files, this is
+   *     the maximum size of a cache file in bytes. If set to {@link C#LENGTH_UNSET} then no
+   *     fragmentation will occur. Values under {@code (2 * 1024 * 1024)} are not recommended.
+   * @param blockSize The size of the blocks passed to the writer, in bytes.
+   * @param maxPendingBlocks The maximum number of blocks waiting to be written. If this number is
+   *     reached, caching is skipped for the remainder of the current {@link DataSpec}.
+   * @param writeExecutor The {@link Executor} on which data is written. Must execute tasks
+   *     sequentially, for example an executor backed by a single thread.
+   */
+  public AsyncCacheDataSink(
+      Cache cache, long fragmentSize, int blockSize, int maxPendingBlocks, Executor writeExecutor) {
+    Assertions.checkState(
+        fragmentSize > 0 || fragmentSize == C.LENGTH_UNSET,
+        "fragmentSize must be positive or C.LENGTH_UNSET.");
+    if (fragmentSize != C.LENGTH_UNSET && fragmentSize < MIN_RECOMMENDED_FRAGMENT_SIZE) {
+      Log.w(
+          TAG,
+          "fragmentSize is below the minimum recommended value of "
+              + MIN_RECOMMENDED_FRAGMENT_SIZE
+              + ". This may cause poor cache performance.");
+    }
+    Assertions.checkArgument(blockSize > 0);
+    Assertions.checkArgument(maxPendingBlocks > 0);
+    this.cache = Assertions.checkNotNull(cache);
+    this.fragmentSize = fragmentSize == C.LENGTH_UNSET ? Long.MAX_VALUE : fragmentSize;
+    this.blockSize = blockSize;
+    this.maxPendingBlocks = maxPendingBlocks;
+    this.writeExecutor = Assertions.checkNotNull(writeExecutor);
+    writeRunnable = this::writePendingBlocks;
+    pendingBlocks = new ArrayDeque<>();
+    recycledBlocks = new ArrayDeque<>();
+  }
+
+  @Override
+  public void open(DataSpec dataSpec) throws CacheDataSinkException {
+    if (dataSpec.length == C.LENGTH_UNSET
+        && dataSpec.isFlagSet(DataSpec.FLAG_DONT_CACHE_IF_LENGTH_UNKNOWN)) {
+      this.dataSpec = null;
+      return;
+    }
+    this.dataSpec = dataSpec;
+    skipCaching = false;
+    // The writer is idle, since close() waits for all pending blocks to be written.
+    writerDataSpec = dataSpec;
+    writerFragmentSize =
+        dataSpec.isFlagSet(DataSpec.FLAG_ALLOW_CACHE_FRAGMENTATION) ? fragmentSize : Long.MAX_VALUE;
+    dataSpecBytesWritten = 0;
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int length) throws CacheDataSinkException {
+    if (dataSpec == null || skipCaching) {
+      return;
+    }
+    int bytesCopied = 0;
+    while (bytesCopied < length) {
+      if (currentBlock == null) {
+        currentBlock = obtainBlock();
+      }
+      int bytesToCopy = Math.min(length - bytesCopied, blockSize - currentBlock.length);
+      System.arraycopy(
+          buffer, offset + bytesCopied, currentBlock.data, currentBlock.length, bytesToCopy);
+      currentBlock.length += bytesToCopy;
+      bytesCopied += bytesToCopy;
+      if (currentBlock.length == blockSize) {
+        Block block = currentBlock;
+        currentBlock = null;
+        if (!queueBlock(block, /* force= */ false)) {
+          Log.w(TAG, "Write queue full. Skipping caching for the rest of " + dataSpec.key);
+          skipCaching = true;
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() throws CacheDataSinkException {
+    if (dataSpec == null) {
+      return;
+    }
+    Block block = currentBlock;
+    currentBlock = null;
+    if (block != null) {
+      if (skipCaching || block.length == 0) {
+        synchronized (this) {
+          recycleBlock(block);
+        }
+      } else {
+        queueBlock(block, /* force= */ true);
+      }
+    }
+    dataSpec = null;
+    IOException exception = waitForWriter();
+    try {
+      if (exception == null) {
+        closeCurrentOutputStream();
+      } else {
+        abortCurrentOutputStream();
+        throw exception;
+      }
+    } catch (IOException e) {
+      throw new CacheDataSinkException(e);
+    } finally {
+      writerDataSpec = null;
+    }
+  }
+
+  // Internal methods.
+
+  private Block obtainBlock() {
+    synchronized (this) {
+      if (!recycledBlocks.isEmpty()) {
+        Block block = recycledBlocks.removeFirst();
+        block.length = 0;
+        return block;
+      }
+    }
+    return new Block(blockSize);
+  }
+
+  private void recycleBlock(Block block) {
+    // Keep enough blocks to fill the queue, plus one that's being filled by the caller.
+    if (recycledBlocks.size() <= maxPendingBlocks) {
+      recycledBlocks.addLast(block);
+    }
+  }
+
+  /**
+   * Queues a block for writing.
+   *
+   * @param block The block to write.
+   * @param force Whether to queue the block even if the queue is full.
+   * @return Whether the block was queued.
+   * @throws CacheDataSinkException If a previous write failed.
+   */
+  private synchronized boolean queueBlock(Block block, boolean force)
+      throws CacheDataSinkException {
+    if (writeException != null) {
+      recycleBlock(block);
+      throw new CacheDataSinkException(writeException);
+    }
+    if (!force && pendingBlocks.size() >= maxPendingBlocks) {
+      recycleBlock(block);
+      return false;
+    }
+    pendingBlocks.addLast(block);
+    if (!writing) {
+      writing = true;
+      writeExecutor.execute(writeRunnable);
+    }
+    return true;
+  }
+
+  /**
+   * Waits until the writer has written all pending blocks, and returns the exception thrown whilst
+   * writing them, if any.
+   *
+   * <p>If the calling thread is interrupted, blocks that the writer hasn't started to write are
+   * discarded, and this method returns an {@link InterruptedIOException} once the writer has
+   * finished writing the block it's currently writing, if any. The writer must be idle before the
+   * output stream can be aborted. The interrupt is re-asserted before returning.
+   */
+  @Nullable
+  private synchronized IOException waitForWriter() {
+    boolean interrupted = false;
+    while (writing) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+        while (!pendingBlocks.isEmpty()) {
+          recycleBlock(pendingBlocks.removeFirst());
+        }
+      }
+    }
+    IOException exception = writeException;
+    writeException = null;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+      if (exception == null) {
+        exception = new InterruptedIOException();
+      }
+    }
+    return exception;
+  }
+
+  private void writePendingBlocks() {
+    while (true) {
+      Block block;
+      synchronized (this) {
+        if (writeException != null) {
+          while (!pendingBlocks.isEmpty()) {
+            recycleBlock(pendingBlocks.removeFirst());
+          }
+        }
+        if (pendingBlocks.isEmpty()) {
+          writing = false;
+          notifyAll();
+          return;
+        }
+        block = pendingBlocks.removeFirst();
+      }
+      IOException exception = null;
+      try {
+        writeBlock(block);
+      } catch (IOException e) {
+        exception = e;
+      }
+      synchronized (this) {
+        recycleBlock(block);
+        if (exception != null) {
+          writeException = exception;
+        }
+      }
+    }
+  }
+
+  private void writeBlock(Block block) throws IOException {
+    int bytesWritten = 0;
+    while (bytesWritten < block.length) {
+      if (outputStream == null) {
+        openNextOutputStream();
+      } else if (outputStreamBytesWritten == writerFragmentSize) {
+        closeCurrentOutputStream();
+        openNextOutputStream();
+      }
+      int bytesToWrite =
+          (int)
+              Math.min(
+                  block.length - bytesWritten, writerFragmentSize - outputStreamBytesWritten);
+      outputStream.write(block.data, bytesWritten, bytesToWrite);
+      bytesWritten += bytesToWrite;
+      outputStreamBytesWritten += bytesToWrite;
+      dataSpecBytesWritten += bytesToWrite;
+    }
+  }
+
+  private void openNextOutputStream() throws IOException {
+    DataSpec dataSpec = Assertions.checkNotNull(writerDataSpec);
+    long length =
+        dataSpec.length == C.LENGTH_UNSET
+            ? C.LENGTH_UNSET
+            : Math.min(dataSpec.length - dataSpecBytesWritten, writerFragmentSize);
+    file =
+        cache.startFile(
+            dataSpec.key, dataSpec.absoluteStreamPosition + dataSpecBytesWritten, length);
+    outputStream = new FileOutputStream(file);
+    outputStreamBytesWritten = 0;
+  }
+
+  @SuppressWarnings("ThrowFromFinallyBlock")
+  private void closeCurrentOutputStream() throws IOException {
+    if (outputStream == null) {
+      return;
+    }
+
+    boolean success = false;
+    try {
+      outputStream.flush();
+      success = true;
+    } finally {
+      Util.closeQuietly(outputStream);
+      outputStream = null;
+      File fileToCommit = file;
+      file = null;
+      if (success) {
+        cache.commitFile(fileToCommit, outputStreamBytesWritten);
+      } else {
+        fileToCommit.delete();
+      }
+    }
+  }
+
+  private void abortCurrentOutputStream() {
+    if (outputStream == null) {
+      return;
+    }
+    Util.closeQuietly(outputStream);
+    outputStream = null;
+    File fileToDelete = file;
+    file = null;
+    fileToDelete.delete();
+  }
+
+  private static final class Block {
+
+    public final byte[] data;
+    public int length;
+
+    public Block(int size) {
+      data = new byte[size];
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream.cache;
+
+import com.google.android.exoplayer2.upstream.DataSink;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link DataSink.Factory} that produces {@link AsyncCacheDataSink}. All sinks created by the
+ * factory share the same writer {@link Executor}, which is owned by the caller.
+ */
+public final class AsyncCacheDataSinkFactory implements DataSink.Factory {
+
+  private final Cache cache;
+  private final long fragmentSize;
+  private final int blockSize;
+  private final int maxPendingBlocks;
+  private final Executor writeExecutor;
+
+  /** @see AsyncCacheDataSink#AsyncCacheDataSink(Cache, long, Executor) */
+  public AsyncCacheDataSinkFactory(Cache cache, long fragmentSize, Executor writeExecutor) {
+    this(
+        cache,
+        fragmentSize,
+        AsyncCacheDataSink.DEFAULT_BLOCK_SIZE,
+        AsyncCacheDataSink.DEFAULT_MAX_PENDING_BLOCKS,
+        writeExecutor);
+  }
+
+  /** @see AsyncCacheDataSink#AsyncCacheDataSink(Cache, long, int, int, Executor) */
+  public AsyncCacheDataSinkFactory(
+      Cache cache, long fragmentSize, int blockSize, int maxPendingBlocks, Executor writeExecutor) {
+    this.cache = cache;
+    this.fragmentSize = fragmentSize;
+    this.blockSize = blockSize;
+    this.maxPendingBlocks = maxPendingBlocks;
+    this.writeExecutor = writeExecutor;
+  }
+
+  @Override
+  public DataSink createDataSink() {
+    return new AsyncCacheDataSink(cache, fragmentSize, blockSize, maxPendingBlocks, writeExecutor);
+  }
+}
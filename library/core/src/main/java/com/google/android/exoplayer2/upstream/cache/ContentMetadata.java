@@ -34,6 +34,10 @@ public interface ContentMetadata {
   String KEY_REDIRECTED_URI = "exo_redir";
   /** Key for content length in bytes (type: long). */
   String KEY_CONTENT_LENGTH = "exo_len";
+  /** Key for the class name of the extractor that read the content (type: String). */
+  String KEY_EXTRACTOR_CLASS_NAME = "exo_extr";
+  /** Key for the header state of the extractor that read the content (type: byte[]). */
+  String KEY_EXTRACTOR_STATE = "exo_extr_state";
 
   /**
    * Returns a metadata value.
@@ -84,4 +88,18 @@ public interface ContentMetadata {
     String redirectedUri = contentMetadata.get(KEY_REDIRECTED_URI, (String) null);
     return redirectedUri == null ? null : Uri.parse(redirectedUri);
   }
+
+  /**
+   * Returns the value stored under {@link #KEY_EXTRACTOR_CLASS_NAME}, or {@code null} if not set.
+   */
+  @Nullable
+  static String getExtractorClassName(ContentMetadata contentMetadata) {
+    return contentMetadata.get(KEY_EXTRACTOR_CLASS_NAME, (String) null);
+  }
+
+  /** Returns the value stored under {@link #KEY_EXTRACTOR_STATE}, or {@code null} if not set. */
+  @Nullable
+  static byte[] getExtractorState(ContentMetadata contentMetadata) {
+    return contentMetadata.get(KEY_EXTRACTOR_STATE, (byte[]) null);
+  }
 }
@@ -63,6 +63,30 @@ public class ContentMetadataMutations {
     }
   }
 
+  /**
+   * Adds a mutation to set the {@link ContentMetadata#KEY_EXTRACTOR_CLASS_NAME} value.
+   *
+   * @param mutations The mutations to modify.
+   * @param extractorClassName The class name of the extractor that read the content.
+   * @return The mutations instance, for convenience.
+   */
+  public static ContentMetadataMutations setExtractorClassName(
+      ContentMetadataMutations mutations, String extractorClassName) {
+    return mutations.set(ContentMetadata.KEY_EXTRACTOR_CLASS_NAME, extractorClassName);
+  }
+
+  /**
+   * Adds a mutation to set the {@link ContentMetadata#KEY_EXTRACTOR_STATE} value.
+   *
+   * @param mutations The mutations to modify.
+   * @param extractorState The header state of the extractor that read the content.
+   * @return The mutations instance, for convenience.
+   */
+  public static ContentMetadataMutations setExtractorState(
+      ContentMetadataMutations mutations, byte[] extractorState) {
+    return mutations.set(ContentMetadata.KEY_EXTRACTOR_STATE, extractorState);
+  }
+
   private final Map<String, Object> editedValues;
   private final List<String> removedValues;
 
@@ -446,10 +446,21 @@ public final class NalUnitUtil {
     }
 
     int limit = endOffset - 1;
+    int fastSkipLimit = limit - 9;
     // We're looking for the NAL unit start code prefix 0x000001. The value of i tracks the index of
     // the third byte.
     for (int i = startOffset + 2; i < limit; i += 3) {
-      if ((data[i] & 0xFE) != 0) {
+      if (i < fastSkipLimit
+          && (((data[i] & 0xFE) - 1)
+                  | ((data[i + 3] & 0xFE) - 1)
+                  | ((data[i + 6] & 0xFE) - 1)
+                  | ((data[i + 9] & 0xFE) - 1))
+              >= 0) {
+        // (x & 0xFE) - 1 is negative only if x is 0 or 1, so none of the four bytes sampled here
+        // can be part of a NAL prefix. This is equivalent to four iterations of the branch below,
+        // but needs a single branch for every twelve bytes of data. The loop advances by three.
+        i += 9;
+      } else if ((data[i] & 0xFE) != 0) {
         // There isn't a NAL prefix here, or at the next two positions. Do nothing and let the
         // loop advance the index by three.
       } else if (data[i - 2] == 0 && data[i - 1] == 0 && data[i] == 1) {
@@ -28,6 +28,7 @@ import android.os.SystemClock;
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import android.util.Pair;
 import android.view.Surface;
 import com.google.android.exoplayer2.C;
@@ -90,6 +91,11 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
    * playbacks. See {@link #getCodecMaxValues(MediaCodecInfo, Format, Format[])}.
    */
   private static final float INITIAL_FORMAT_MAX_INPUT_SIZE_SCALE_FACTOR = 1.5f;
+  /**
+   * How early an output buffer can be released, in microseconds. From API 21 the platform times
+   * the release, so buffers can be handed over earlier than when we time the release ourselves.
+   */
+  private static final long RELEASE_EARLY_THRESHOLD_US = Util.SDK_INT >= 21 ? 50000 : 30000;
 
   private static boolean evaluatedDeviceNeedsSetOutputSurfaceWorkaround;
   private static boolean deviceNeedsSetOutputSurfaceWorkaround;
@@ -118,6 +124,7 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
   private int consecutiveDroppedFrameCount;
   private int buffersInCodecCount;
   private long lastRenderTimeUs;
+  private long pendingOutputBufferPresentationTimeUs;
 
   private int pendingRotationDegrees;
   private float pendingPixelWidthHeightRatio;
@@ -281,6 +288,7 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
     outputStreamOffsetUs = C.TIME_UNSET;
     lastInputTimeUs = C.TIME_UNSET;
     joiningDeadlineMs = C.TIME_UNSET;
+    pendingOutputBufferPresentationTimeUs = C.TIME_UNSET;
     currentWidth = Format.NO_VALUE;
     currentHeight = Format.NO_VALUE;
     currentPixelWidthHeightRatio = Format.NO_VALUE;
@@ -423,6 +431,17 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
     }
   }
 
+  @Override
+  public long getMaxRenderDelayUs(long positionUs, long elapsedRealtimeUs) {
+    if (getState() != STATE_STARTED || pendingOutputBufferPresentationTimeUs == C.TIME_UNSET) {
+      // We're not playing, or we're waiting for the decoder to output the next frame.
+      return C.TIME_UNSET;
+    }
+    long elapsedSinceStartOfLoopUs = SystemClock.elapsedRealtime() * 1000 - elapsedRealtimeUs;
+    long earlyUs = pendingOutputBufferPresentationTimeUs - positionUs - elapsedSinceStartOfLoopUs;
+    return getRenderDelayUs(earlyUs, getOperatingRate());
+  }
+
   @Override
   protected void onStarted() {
     super.onStarted();
@@ -594,6 +613,7 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
       super.releaseCodec();
     } finally {
       buffersInCodecCount = 0;
+      pendingOutputBufferPresentationTimeUs = C.TIME_UNSET;
     }
   }
 
@@ -604,6 +624,7 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
       return super.flushOrReleaseCodec();
     } finally {
       buffersInCodecCount = 0;
+      pendingOutputBufferPresentationTimeUs = C.TIME_UNSET;
     }
   }
 
@@ -686,6 +707,7 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
     if (initialPositionUs == C.TIME_UNSET) {
       initialPositionUs = positionUs;
     }
+    pendingOutputBufferPresentationTimeUs = C.TIME_UNSET;
 
     long presentationTimeUs = bufferPresentationTimeUs - outputStreamOffsetUs;
 
@@ -747,14 +769,14 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
 
     if (Util.SDK_INT >= 21) {
       // Let the underlying framework time the release.
-      if (earlyUs < 50000) {
+      if (earlyUs < RELEASE_EARLY_THRESHOLD_US) {
         notifyFrameMetadataListener(presentationTimeUs, adjustedReleaseTimeNs, format);
         renderOutputBufferV21(codec, bufferIndex, presentationTimeUs, adjustedReleaseTimeNs);
         return true;
       }
     } else {
       // We need to time the release ourselves.
-      if (earlyUs < 30000) {
+      if (earlyUs < RELEASE_EARLY_THRESHOLD_US) {
         if (earlyUs > 11000) {
           // We're a little too early to render the frame. Sleep until the frame can be rendered.
           // Note: The 11ms threshold was chosen fairly arbitrarily.
@@ -772,10 +794,24 @@ public class MediaCodecVideoRenderer extends MediaCodecRenderer {
       }
     }
 
-    // We're either not playing, or it's not time to render the frame yet.
+    // It's not time to render the frame yet.
+    pendingOutputBufferPresentationTimeUs = bufferPresentationTimeUs;
     return false;
   }
 
+  /**
+   * Returns how long until an output buffer can be released by {@link #processOutputBuffer}, in
+   * microseconds of real time.
+   *
+   * @param earlyUs How early the buffer is, in microseconds of media time.
+   * @param operatingRate The rate at which media time passes relative to real time.
+   * @return How long until the buffer can be released, or 0 if it can be released now.
+   */
+  @VisibleForTesting
+  /* package */ static long getRenderDelayUs(long earlyUs, float operatingRate) {
+    return Math.max(0, (long) ((earlyUs - RELEASE_EARLY_THRESHOLD_US) / operatingRate));
+  }
+
   private void processOutputFormat(MediaCodec codec, int width, int height) {
     currentWidth = width;
     currentHeight = height;
@@ -2608,8 +2608,75 @@ public final class ExoPlayerTest {
     assertThat(bufferedPositionAtFirstDiscontinuityMs.get()).isEqualTo(C.usToMs(windowDurationUs));
   }
 
+  @Test
+  public void testRendererDrivenScheduling_rendersAtMinimumMaxRenderDelay() throws Exception {
+    RenderCountingRenderer videoRenderer =
+        new RenderCountingRenderer(Builder.VIDEO_FORMAT, /* maxRenderDelayUs= */ 40_000);
+    RenderCountingRenderer audioRenderer =
+        new RenderCountingRenderer(Builder.AUDIO_FORMAT, /* maxRenderDelayUs= */ 80_000);
+
+    runWithRendererDrivenScheduling(videoRenderer, audioRenderer);
+
+    // The 10 second window is rendered every 40ms, plus once when preparing.
+    assertThat(videoRenderer.renderCount).isAtLeast(250);
+    assertThat(videoRenderer.renderCount).isAtMost(260);
+    assertThat(audioRenderer.renderCount).isEqualTo(videoRenderer.renderCount);
+  }
+
+  @Test
+  public void testRendererDrivenScheduling_limitsRenderingInterval() throws Exception {
+    RenderCountingRenderer audioRenderer =
+        new RenderCountingRenderer(Builder.AUDIO_FORMAT, /* maxRenderDelayUs= */ 500_000);
+
+    runWithRendererDrivenScheduling(audioRenderer);
+
+    // The 10 second window is rendered at least every 100ms.
+    assertThat(audioRenderer.renderCount).isAtLeast(100);
+    assertThat(audioRenderer.renderCount).isAtMost(110);
+  }
+
+  @Test
+  public void testRendererDrivenScheduling_withUnsetMaxRenderDelay_rendersAtDefaultInterval()
+      throws Exception {
+    RenderCountingRenderer videoRenderer =
+        new RenderCountingRenderer(Builder.VIDEO_FORMAT, /* maxRenderDelayUs= */ C.TIME_UNSET);
+    RenderCountingRenderer audioRenderer =
+        new RenderCountingRenderer(Builder.AUDIO_FORMAT, /* maxRenderDelayUs= */ 80_000);
+
+    runWithRendererDrivenScheduling(videoRenderer, audioRenderer);
+
+    // The 10 second window is rendered every 10ms.
+    assertThat(videoRenderer.renderCount).isAtLeast(1000);
+  }
+
   // Internal methods.
 
+  private void runWithRendererDrivenScheduling(RenderCountingRenderer... renderers)
+      throws Exception {
+    Format[] formats = new Format[renderers.length];
+    for (int i = 0; i < renderers.length; i++) {
+      formats[i] = renderers[i].format;
+    }
+    ActionSchedule actionSchedule =
+        new ActionSchedule.Builder("runWithRendererDrivenScheduling")
+            .executeRunnable(
+                new PlayerRunnable() {
+                  @Override
+                  public void run(SimpleExoPlayer player) {
+                    player.experimental_setRendererDrivenSchedulingEnabled(true);
+                  }
+                })
+            .build();
+    new Builder()
+        .setMediaSource(
+            new FakeMediaSource(new FakeTimeline(/* windowCount= */ 1), null, formats))
+        .setRenderers(renderers)
+        .setActionSchedule(actionSchedule)
+        .build(context)
+        .start()
+        .blockUntilEnded(TIMEOUT_MS);
+  }
+
   private static ActionSchedule.Builder addSurfaceSwitch(ActionSchedule.Builder builder) {
     final Surface surface1 = new Surface(new SurfaceTexture(/* texName= */ 0));
     final Surface surface2 = new Surface(new SurfaceTexture(/* texName= */ 1));
@@ -2632,6 +2699,31 @@ public final class ExoPlayerTest {
 
   // Internal classes.
 
+  private static final class RenderCountingRenderer extends FakeRenderer {
+
+    private final Format format;
+    private final long maxRenderDelayUs;
+
+    public int renderCount;
+
+    public RenderCountingRenderer(Format format, long maxRenderDelayUs) {
+      super(format);
+      this.format = format;
+      this.maxRenderDelayUs = maxRenderDelayUs;
+    }
+
+    @Override
+    public void render(long positionUs, long elapsedRealtimeUs) throws ExoPlaybackException {
+      renderCount++;
+      super.render(positionUs, elapsedRealtimeUs);
+    }
+
+    @Override
+    public long getMaxRenderDelayUs(long positionUs, long elapsedRealtimeUs) {
+      return maxRenderDelayUs;
+    }
+  }
+
   private static final class PositionGrabbingMessageTarget extends PlayerTarget {
 
     public int windowIndex;
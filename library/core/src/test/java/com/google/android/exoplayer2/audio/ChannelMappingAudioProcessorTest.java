@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.audio;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link ChannelMappingAudioProcessor}. */
+@RunWith(AndroidJUnit4.class)
+public final class ChannelMappingAudioProcessorTest {
+
+  private ChannelMappingAudioProcessor channelMappingAudioProcessor;
+
+  @Before
+  public void setUp() {
+    channelMappingAudioProcessor = new ChannelMappingAudioProcessor();
+  }
+
+  @Test
+  public void testReorderedChannels() throws Exception {
+    channelMappingAudioProcessor.setChannelMap(new int[] {1, 0, 2});
+    channelMappingAudioProcessor.configure(48000, 3, C.ENCODING_PCM_16BIT);
+
+    assertThat(queueInput(new short[] {1, 2, 3, 4, 5, 6}))
+        .isEqualTo(new short[] {2, 1, 3, 5, 4, 6});
+  }
+
+  @Test
+  public void testDiscardedChannels() throws Exception {
+    channelMappingAudioProcessor.setChannelMap(new int[] {2, 0});
+    channelMappingAudioProcessor.configure(48000, 3, C.ENCODING_PCM_16BIT);
+
+    assertThat(queueInput(new short[] {1, 2, 3, 4, 5, 6})).isEqualTo(new short[] {3, 1, 6, 4});
+  }
+
+  @Test
+  public void testChannelMapAndChannelCountChanged_usesNewChannelCount() throws Exception {
+    channelMappingAudioProcessor.setChannelMap(new int[] {1, 0});
+    channelMappingAudioProcessor.configure(48000, 2, C.ENCODING_PCM_16BIT);
+    channelMappingAudioProcessor.flush();
+
+    channelMappingAudioProcessor.setChannelMap(new int[] {2, 1, 0});
+    assertThat(channelMappingAudioProcessor.configure(48000, 3, C.ENCODING_PCM_16BIT)).isTrue();
+    channelMappingAudioProcessor.flush();
+
+    assertThat(queueInput(new short[] {1, 2, 3, 4, 5, 6}))
+        .isEqualTo(new short[] {3, 2, 1, 6, 5, 4});
+  }
+
+  @Test
+  public void testFloatInput_mapsChannels() throws Exception {
+    channelMappingAudioProcessor.setChannelMap(new int[] {1, 0});
+    channelMappingAudioProcessor.configure(48000, 3, C.ENCODING_PCM_FLOAT);
+    ByteBuffer input = ByteBuffer.allocateDirect(6 * 4).order(ByteOrder.nativeOrder());
+    input.asFloatBuffer().put(new float[] {0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f});
+
+    channelMappingAudioProcessor.queueInput(input);
+    float[] output = new float[4];
+    channelMappingAudioProcessor.getOutput().asFloatBuffer().get(output);
+
+    assertThat(output).isEqualTo(new float[] {0.2f, 0.1f, 0.5f, 0.4f});
+  }
+
+  private short[] queueInput(short[] samples) {
+    channelMappingAudioProcessor.queueInput(createBuffer(samples));
+    return getSamples(channelMappingAudioProcessor.getOutput());
+  }
+
+  private static ByteBuffer createBuffer(short[] samples) {
+    ByteBuffer buffer =
+        ByteBuffer.allocateDirect(samples.length * 2).order(ByteOrder.nativeOrder());
+    buffer.asShortBuffer().put(samples);
+    return buffer;
+  }
+
+  private static short[] getSamples(ByteBuffer buffer) {
+    short[] samples = new short[buffer.remaining() / 2];
+    buffer.asShortBuffer().get(samples);
+    return samples;
+  }
+}
@@ -19,6 +19,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.robolectric.annotation.Config.NEWEST_SDK;
 import static org.robolectric.annotation.Config.OLDEST_SDK;
 
+import android.media.AudioTrack;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.PlaybackParameters;
@@ -29,6 +30,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
 
 /**
  * Unit tests for {@link DefaultAudioSink}.
@@ -51,6 +54,8 @@ public final class DefaultAudioSinkTest {
   private static final int SAMPLE_RATE_44_1 = 44100;
   private static final int TRIM_100_MS_FRAME_COUNT = 4410;
   private static final int TRIM_10_MS_FRAME_COUNT = 441;
+  private static final long MAX_BUFFER_DURATION_US = 750_000;
+  private static final long LOW_POWER_BUFFER_DURATION_US = 4 * C.MICROS_PER_SECOND;
 
   private DefaultAudioSink defaultAudioSink;
   private ArrayAudioBufferSink arrayAudioBufferSink;
@@ -58,6 +63,7 @@ public final class DefaultAudioSinkTest {
   @Before
   public void setUp() {
     // For capturing output.
+    ConsumingShadowAudioTrack.reset();
     arrayAudioBufferSink = new ArrayAudioBufferSink();
     TeeAudioProcessor teeAudioProcessor = new TeeAudioProcessor(arrayAudioBufferSink);
     defaultAudioSink =
@@ -117,6 +123,50 @@ public final class DefaultAudioSinkTest {
     assertThat(defaultAudioSink.getPlaybackParameters()).isEqualTo(playbackParameters);
   }
 
+  @Test
+  public void appliesPlaybackParametersToFloatInput() throws Exception {
+    configureDefaultAudioSinkForFloatInput();
+    PlaybackParameters playbackParameters = new PlaybackParameters(1.5f);
+
+    assertThat(defaultAudioSink.setPlaybackParameters(playbackParameters))
+        .isEqualTo(playbackParameters);
+    defaultAudioSink.handleBuffer(createFloatSilenceBuffer(), /* presentationTimeUs= */ 0);
+    assertThat(defaultAudioSink.getPlaybackParameters()).isEqualTo(playbackParameters);
+  }
+
+  @Test
+  public void doesNotApplyPlaybackParametersToFloatInput_withChainNotSupportingFloat()
+      throws Exception {
+    defaultAudioSink =
+        new DefaultAudioSink(
+            AudioCapabilities.DEFAULT_AUDIO_CAPABILITIES,
+            new DefaultAudioSink.DefaultAudioProcessorChain(new ResamplingAudioProcessor()),
+            /* enableConvertHighResIntPcmToFloat= */ false);
+    configureDefaultAudioSinkForFloatInput();
+
+    assertThat(defaultAudioSink.setPlaybackParameters(new PlaybackParameters(1.5f)))
+        .isEqualTo(PlaybackParameters.DEFAULT);
+    defaultAudioSink.handleBuffer(createFloatSilenceBuffer(), /* presentationTimeUs= */ 0);
+    assertThat(defaultAudioSink.getPlaybackParameters()).isEqualTo(PlaybackParameters.DEFAULT);
+  }
+
+  @Test
+  public void configureFloatInput_withChainNotSupportingFloat_resetsChain() throws Exception {
+    TeeAudioProcessor teeAudioProcessor = new TeeAudioProcessor(arrayAudioBufferSink);
+    defaultAudioSink =
+        new DefaultAudioSink(
+            AudioCapabilities.DEFAULT_AUDIO_CAPABILITIES,
+            new DefaultAudioSink.DefaultAudioProcessorChain(
+                teeAudioProcessor, new ResamplingAudioProcessor()),
+            /* enableConvertHighResIntPcmToFloat= */ false);
+    configureDefaultAudioSink(CHANNEL_COUNT_STEREO);
+    assertThat(teeAudioProcessor.isActive()).isTrue();
+
+    configureDefaultAudioSinkForFloatInput();
+
+    assertThat(teeAudioProcessor.isActive()).isFalse();
+  }
+
   @Test
   public void trimsStartFrames() throws Exception {
     configureDefaultAudioSink(
@@ -192,6 +242,60 @@ public final class DefaultAudioSinkTest {
         .isTrue();
   }
 
+  @Config(shadows = ConsumingShadowAudioTrack.class)
+  @Test
+  public void getBufferedDurationUs_returnsDurationOfWrittenAudio() throws Exception {
+    assertThat(defaultAudioSink.getBufferedDurationUs()).isEqualTo(0);
+
+    configureDefaultAudioSink(CHANNEL_COUNT_STEREO);
+    defaultAudioSink.handleBuffer(createDefaultSilenceBuffer(), /* presentationTimeUs= */ 0);
+
+    // The track accepts the whole second of audio, none of which has been played yet.
+    assertThat(defaultAudioSink.getBufferedDurationUs()).isEqualTo(C.MICROS_PER_SECOND);
+  }
+
+  @Config(shadows = ConsumingShadowAudioTrack.class)
+  @Test
+  public void lowPowerMode_usesLargerBufferSize() throws Exception {
+    configureDefaultAudioSink(CHANNEL_COUNT_STEREO);
+    defaultAudioSink.handleBuffer(createDefaultSilenceBuffer(), /* presentationTimeUs= */ 0);
+    int defaultBufferSize = ConsumingShadowAudioTrack.lastBufferSizeInBytes;
+
+    defaultAudioSink.reset();
+    defaultAudioSink.setLowPowerModeEnabled(true);
+    configureDefaultAudioSink(CHANNEL_COUNT_STEREO);
+    defaultAudioSink.handleBuffer(createDefaultSilenceBuffer(), /* presentationTimeUs= */ 0);
+
+    assertThat(defaultBufferSize)
+        .isAtMost(getBytesForDurationUs(MAX_BUFFER_DURATION_US));
+    assertThat(ConsumingShadowAudioTrack.lastBufferSizeInBytes)
+        .isEqualTo(getBytesForDurationUs(LOW_POWER_BUFFER_DURATION_US));
+  }
+
+  @Config(shadows = ConsumingShadowAudioTrack.class)
+  @Test
+  public void setLowPowerModeEnabled_whilePlaying_keepsAudioTrackUntilFlush() throws Exception {
+    configureDefaultAudioSink(CHANNEL_COUNT_STEREO);
+    defaultAudioSink.handleBuffer(createDefaultSilenceBuffer(), /* presentationTimeUs= */ 0);
+    int defaultBufferSize = ConsumingShadowAudioTrack.lastBufferSizeInBytes;
+
+    defaultAudioSink.setLowPowerModeEnabled(true);
+    defaultAudioSink.handleBuffer(
+        createDefaultSilenceBuffer(), /* presentationTimeUs= */ C.MICROS_PER_SECOND);
+
+    // Changing the buffer size mustn't recreate the track, as that would cause a gap in playback.
+    assertThat(ConsumingShadowAudioTrack.setupCount).isEqualTo(1);
+    assertThat(defaultAudioSink.getBufferedDurationUs()).isEqualTo(2 * C.MICROS_PER_SECOND);
+
+    defaultAudioSink.flush();
+    defaultAudioSink.handleBuffer(createDefaultSilenceBuffer(), /* presentationTimeUs= */ 0);
+
+    assertThat(ConsumingShadowAudioTrack.setupCount).isEqualTo(2);
+    assertThat(ConsumingShadowAudioTrack.lastBufferSizeInBytes).isNotEqualTo(defaultBufferSize);
+    assertThat(ConsumingShadowAudioTrack.lastBufferSizeInBytes)
+        .isEqualTo(getBytesForDurationUs(LOW_POWER_BUFFER_DURATION_US));
+  }
+
   private void configureDefaultAudioSink(int channelCount) throws AudioSink.ConfigurationException {
     configureDefaultAudioSink(channelCount, /* trimStartFrames= */ 0, /* trimEndFrames= */ 0);
   }
@@ -208,6 +312,25 @@ public final class DefaultAudioSinkTest {
         /* trimEndFrames= */ trimEndFrames);
   }
 
+  private void configureDefaultAudioSinkForFloatInput() throws AudioSink.ConfigurationException {
+    defaultAudioSink.configure(
+        C.ENCODING_PCM_FLOAT,
+        CHANNEL_COUNT_STEREO,
+        SAMPLE_RATE_44_1,
+        /* specifiedBufferSize= */ 0,
+        /* outputChannels= */ null,
+        /* trimStartFrames= */ 0,
+        /* trimEndFrames= */ 0);
+  }
+
+  /** Returns the size in bytes of {@code durationUs} of 44.1 kHz stereo 16-bit audio. */
+  private static int getBytesForDurationUs(long durationUs) {
+    return (int)
+        (durationUs * SAMPLE_RATE_44_1 / C.MICROS_PER_SECOND)
+            * CHANNEL_COUNT_STEREO
+            * BYTES_PER_FRAME_16_BIT;
+  }
+
   /** Creates a one second silence buffer for 44.1 kHz stereo 16-bit audio. */
   private static ByteBuffer createDefaultSilenceBuffer() {
     return ByteBuffer.allocateDirect(
@@ -215,6 +338,12 @@ public final class DefaultAudioSinkTest {
         .order(ByteOrder.nativeOrder());
   }
 
+  /** Creates a one second silence buffer for 44.1 kHz stereo float audio. */
+  private static ByteBuffer createFloatSilenceBuffer() {
+    return ByteBuffer.allocateDirect(SAMPLE_RATE_44_1 * CHANNEL_COUNT_STEREO * 4)
+        .order(ByteOrder.nativeOrder());
+  }
+
   private static final class ArrayAudioBufferSink implements TeeAudioProcessor.AudioBufferSink {
 
     private byte[] output;
@@ -237,4 +366,45 @@ public final class DefaultAudioSinkTest {
       buffer.position(position);
     }
   }
+
+  /**
+   * Shadow for {@link AudioTrack} that consumes all written data and records the buffer size of
+   * each track created.
+   */
+  @Implements(AudioTrack.class)
+  public static final class ConsumingShadowAudioTrack {
+
+    private static int setupCount;
+    private static int lastBufferSizeInBytes;
+
+    public static void reset() {
+      setupCount = 0;
+      lastBufferSizeInBytes = 0;
+    }
+
+    @SuppressWarnings("unused")
+    @Implementation
+    protected int native_setup(
+        Object audioTrack,
+        Object attributes,
+        int[] sampleRate,
+        int channelMask,
+        int channelIndexMask,
+        int audioFormat,
+        int bufferSizeInBytes,
+        int mode,
+        int[] sessionId,
+        long nativeAudioTrack) {
+      setupCount++;
+      lastBufferSizeInBytes = bufferSizeInBytes;
+      return AudioTrack.SUCCESS;
+    }
+
+    @SuppressWarnings("unused")
+    @Implementation
+    protected int native_write_native_bytes(
+        Object audioData, int positionInBytes, int sizeInBytes, int format, boolean isBlocking) {
+      return sizeInBytes;
+    }
+  }
 }
@@ -21,8 +21,10 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.audio.AudioProcessor.UnhandledFormatException;
 import com.google.android.exoplayer2.util.Assertions;
+import com.google.android.exoplayer2.util.Util;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
 import org.junit.Before;
 import org.junit.Test;
@@ -274,6 +276,37 @@ public final class SilenceSkippingAudioProcessorTest {
     assertThat(silenceSkippingAudioProcessor.getSkippedFrames()).isEqualTo(42020);
   }
 
+  @Test
+  public void testSkipInAlternatingFloatTestSignal_hasCorrectOutputAndSkippedFrameCounts()
+      throws Exception {
+    // Given a float signal that alternates between silence and noise.
+    InputBufferProvider inputBufferProvider =
+        getInputBufferProviderForAlternatingSilenceAndNoise(
+            TEST_SIGNAL_SAMPLE_RATE_HZ,
+            TEST_SIGNAL_CHANNEL_COUNT,
+            C.ENCODING_PCM_FLOAT,
+            TEST_SIGNAL_SILENCE_DURATION_MS,
+            TEST_SIGNAL_NOISE_DURATION_MS,
+            TEST_SIGNAL_FRAME_COUNT);
+
+    // When processing the entire signal, using input buffers with as many frames as for 16-bit.
+    SilenceSkippingAudioProcessor silenceSkippingAudioProcessor =
+        new SilenceSkippingAudioProcessor();
+    silenceSkippingAudioProcessor.setEnabled(true);
+    boolean reconfigured =
+        silenceSkippingAudioProcessor.configure(
+            TEST_SIGNAL_SAMPLE_RATE_HZ, TEST_SIGNAL_CHANNEL_COUNT, C.ENCODING_PCM_FLOAT);
+    silenceSkippingAudioProcessor.flush();
+    assertThat(reconfigured).isTrue();
+    assertThat(silenceSkippingAudioProcessor.isActive()).isTrue();
+    long totalOutputFrames =
+        process(silenceSkippingAudioProcessor, inputBufferProvider, 2 * INPUT_BUFFER_SIZE);
+
+    // The same number of frames are skipped/output as for 16-bit input.
+    assertThat(totalOutputFrames).isEqualTo(57980);
+    assertThat(silenceSkippingAudioProcessor.getSkippedFrames()).isEqualTo(42020);
+  }
+
   @Test
   public void testSkipThenFlush_resetsSkippedFrameCount() throws Exception {
     // Given a signal that alternates between silence and noise.
@@ -312,20 +345,22 @@ public final class SilenceSkippingAudioProcessorTest {
       int inputBufferSize)
       throws UnhandledFormatException {
     processor.flush();
+    int outputFrameSize =
+        Util.getPcmFrameSize(processor.getOutputEncoding(), processor.getOutputChannelCount());
     long totalOutputFrames = 0;
     while (inputBufferProvider.hasRemaining()) {
       ByteBuffer inputBuffer = inputBufferProvider.getNextInputBuffer(inputBufferSize);
       while (inputBuffer.hasRemaining()) {
         processor.queueInput(inputBuffer);
         ByteBuffer outputBuffer = processor.getOutput();
-        totalOutputFrames += outputBuffer.remaining() / (2 * processor.getOutputChannelCount());
+        totalOutputFrames += outputBuffer.remaining() / outputFrameSize;
         outputBuffer.clear();
       }
     }
     processor.queueEndOfStream();
     while (!processor.isEnded()) {
       ByteBuffer outputBuffer = processor.getOutput();
-      totalOutputFrames += outputBuffer.remaining() / (2 * processor.getOutputChannelCount());
+      totalOutputFrames += outputBuffer.remaining() / outputFrameSize;
       outputBuffer.clear();
     }
     return totalOutputFrames;
@@ -341,6 +376,27 @@ public final class SilenceSkippingAudioProcessorTest {
       int silenceDurationMs,
       int noiseDurationMs,
       int totalFrameCount) {
+    return getInputBufferProviderForAlternatingSilenceAndNoise(
+        sampleRateHz,
+        channelCount,
+        C.ENCODING_PCM_16BIT,
+        silenceDurationMs,
+        noiseDurationMs,
+        totalFrameCount);
+  }
+
+  /**
+   * Returns an {@link InputBufferProvider} that provides input buffers in the specified {@code
+   * encoding} for a stream that alternates between silence/noise of the specified durations to fill
+   * {@code totalFrameCount}.
+   */
+  private static InputBufferProvider getInputBufferProviderForAlternatingSilenceAndNoise(
+      int sampleRateHz,
+      int channelCount,
+      @C.PcmEncoding int encoding,
+      int silenceDurationMs,
+      int noiseDurationMs,
+      int totalFrameCount) {
     Pcm16BitAudioBuilder audioBuilder = new Pcm16BitAudioBuilder(channelCount, totalFrameCount);
     while (!audioBuilder.isFull()) {
       int silenceDurationFrames = (silenceDurationMs * sampleRateHz) / 1000;
@@ -349,24 +405,34 @@ public final class SilenceSkippingAudioProcessorTest {
       audioBuilder.appendFrames(
           /* count= */ noiseDurationFrames, /* channelLevels= */ Short.MAX_VALUE);
     }
-    return new InputBufferProvider(audioBuilder.build());
+    return new InputBufferProvider(audioBuilder.build(), encoding);
   }
 
   /**
    * Wraps a {@link ShortBuffer} and provides a sequence of {@link ByteBuffer}s of specified sizes
-   * that contain copies of its data.
+   * that contain copies of its data, either as 16-bit or as float samples.
    */
   private static final class InputBufferProvider {
 
     private final ShortBuffer buffer;
+    @C.PcmEncoding private final int encoding;
 
-    public InputBufferProvider(ShortBuffer buffer) {
+    public InputBufferProvider(ShortBuffer buffer, @C.PcmEncoding int encoding) {
       this.buffer = buffer;
+      this.encoding = encoding;
     }
 
     /** Returns the next buffer with size up to {@code sizeBytes}. */
     public ByteBuffer getNextInputBuffer(int sizeBytes) {
       ByteBuffer inputBuffer = ByteBuffer.allocate(sizeBytes).order(ByteOrder.nativeOrder());
+      if (encoding == C.ENCODING_PCM_FLOAT) {
+        FloatBuffer inputBufferAsFloatBuffer = inputBuffer.asFloatBuffer();
+        while (inputBufferAsFloatBuffer.hasRemaining() && buffer.hasRemaining()) {
+          inputBufferAsFloatBuffer.put(buffer.get() / 32768f);
+        }
+        inputBuffer.limit(inputBufferAsFloatBuffer.position() * 4);
+        return inputBuffer;
+      }
       ShortBuffer inputBufferAsShortBuffer = inputBuffer.asShortBuffer();
       int limit = buffer.limit();
       buffer.limit(Math.min(buffer.position() + sizeBytes / 2, limit));
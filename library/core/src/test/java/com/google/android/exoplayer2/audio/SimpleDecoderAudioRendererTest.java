@@ -24,29 +24,60 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.media.AudioTrack;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.FormatHolder;
 import com.google.android.exoplayer2.RendererConfiguration;
 import com.google.android.exoplayer2.decoder.DecoderInputBuffer;
 import com.google.android.exoplayer2.decoder.SimpleDecoder;
 import com.google.android.exoplayer2.decoder.SimpleOutputBuffer;
 import com.google.android.exoplayer2.drm.DrmSessionManager;
 import com.google.android.exoplayer2.drm.ExoMediaCrypto;
+import com.google.android.exoplayer2.source.SampleStream;
 import com.google.android.exoplayer2.testutil.FakeSampleStream;
+import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.MimeTypes;
+import com.google.android.exoplayer2.util.Util;
+import java.nio.ByteBuffer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
 
 /** Unit test for {@link SimpleDecoderAudioRenderer}. */
 @RunWith(AndroidJUnit4.class)
 public class SimpleDecoderAudioRendererTest {
 
   private static final Format FORMAT = Format.createSampleFormat(null, MimeTypes.AUDIO_RAW, 0);
+  private static final int SAMPLE_RATE = 44100;
+  private static final int CHANNEL_COUNT = 2;
+  private static final int BYTES_PER_FRAME = 4;
+  private static final long SAMPLE_DURATION_US = 100_000;
+  private static final int SAMPLE_SIZE =
+      (int) (SAMPLE_RATE * SAMPLE_DURATION_US / C.MICROS_PER_SECOND) * BYTES_PER_FRAME;
+  private static final Format PCM_FORMAT =
+      Format.createAudioSampleFormat(
+          /* id= */ null,
+          MimeTypes.AUDIO_RAW,
+          /* codecs= */ null,
+          /* bitrate= */ Format.NO_VALUE,
+          /* maxInputSize= */ Format.NO_VALUE,
+          CHANNEL_COUNT,
+          SAMPLE_RATE,
+          C.ENCODING_PCM_16BIT,
+          /* initializationData= */ null,
+          /* drmInitData= */ null,
+          /* selectionFlags= */ 0,
+          /* language= */ null);
+  // Rendering intervals used by the player in audio-only low power mode.
+  private static final long RENDERING_INTERVAL_US = 10_000;
+  private static final long MAX_LOW_POWER_RENDERING_INTERVAL_US = 2_000_000;
 
   @Mock private AudioSink mockAudioSink;
   private SimpleDecoderAudioRenderer audioRenderer;
@@ -65,7 +96,7 @@ public class SimpleDecoderAudioRendererTest {
       protected SimpleDecoder<DecoderInputBuffer, ? extends SimpleOutputBuffer,
           ? extends AudioDecoderException> createDecoder(Format format, ExoMediaCrypto mediaCrypto)
           throws AudioDecoderException {
-        return new FakeDecoder();
+        return new FakeDecoder(/* inputBufferCount= */ 1, /* outputBufferCount= */ 1);
       }
     };
   }
@@ -105,11 +136,141 @@ public class SimpleDecoderAudioRendererTest {
     verify(mockAudioSink, times(1)).reset();
   }
 
+  @Config(shadows = PlayingShadowAudioTrack.class)
+  @Test
+  public void lowPowerMode_fillsAudioSinkAndIncreasesRenderingInterval() throws Exception {
+    long maxRenderingIntervalUs =
+        playAndGetMaxRenderingIntervalUs(/* lowPowerModeEnabled= */ false);
+    long lowPowerMaxRenderingIntervalUs =
+        playAndGetMaxRenderingIntervalUs(/* lowPowerModeEnabled= */ true);
+
+    // The default buffer holds at most 750ms of audio, and half of it is kept in reserve. The low
+    // power buffer holds 4 seconds, so once it's full the renderer can wait for 2 seconds.
+    assertThat(maxRenderingIntervalUs).isAtMost(375_000);
+    assertThat(lowPowerMaxRenderingIntervalUs).isEqualTo(MAX_LOW_POWER_RENDERING_INTERVAL_US);
+  }
+
+  /**
+   * Plays 20 seconds of audio through a {@link DefaultAudioSink}, rendering again when the maximum
+   * render delay reported by the renderer has elapsed, and returns the longest interval between
+   * renders.
+   */
+  private static long playAndGetMaxRenderingIntervalUs(boolean lowPowerModeEnabled)
+      throws Exception {
+    PlayingShadowAudioTrack.reset();
+    FakeDecoder decoder = new FakeDecoder(/* inputBufferCount= */ 2, /* outputBufferCount= */ 4);
+    SimpleDecoderAudioRenderer audioRenderer =
+        new SimpleDecoderAudioRenderer(
+            /* eventHandler= */ null,
+            /* eventListener= */ null,
+            /* drmSessionManager= */ null,
+            /* playClearSamplesWithoutKeys= */ false,
+            new DefaultAudioSink(
+                AudioCapabilities.DEFAULT_AUDIO_CAPABILITIES, new AudioProcessor[0])) {
+          @Override
+          protected int supportsFormatInternal(
+              DrmSessionManager<ExoMediaCrypto> drmSessionManager, Format format) {
+            return FORMAT_HANDLED;
+          }
+
+          @Override
+          protected SimpleDecoder<
+                  DecoderInputBuffer, ? extends SimpleOutputBuffer, ? extends AudioDecoderException>
+              createDecoder(Format format, ExoMediaCrypto mediaCrypto) {
+            return decoder;
+          }
+        };
+    PcmSampleStream sampleStream = new PcmSampleStream();
+    audioRenderer.handleMessage(C.MSG_SET_LOW_POWER_MODE_ENABLED, lowPowerModeEnabled);
+    audioRenderer.enable(
+        RendererConfiguration.DEFAULT,
+        new Format[] {PCM_FORMAT},
+        sampleStream,
+        /* positionUs= */ 0,
+        /* joining= */ false,
+        /* offsetUs= */ 0);
+    audioRenderer.start();
+
+    long maxRenderingIntervalUs = 0;
+    for (long timeUs = 0; timeUs < 20 * C.MICROS_PER_SECOND; ) {
+      audioRenderer.render(timeUs, timeUs);
+      // Let the decoder catch up, as it would between renders during playback.
+      decoder.blockUntilIdle(sampleStream.sampleCount);
+      long maxRenderDelayUs = audioRenderer.getMaxRenderDelayUs(timeUs, timeUs);
+      long renderingIntervalUs =
+          maxRenderDelayUs == C.TIME_UNSET
+              ? RENDERING_INTERVAL_US
+              : Util.constrainValue(
+                  maxRenderDelayUs, RENDERING_INTERVAL_US, MAX_LOW_POWER_RENDERING_INTERVAL_US);
+      maxRenderingIntervalUs = Math.max(maxRenderingIntervalUs, renderingIntervalUs);
+      PlayingShadowAudioTrack.advancePlayback(renderingIntervalUs);
+      timeUs += renderingIntervalUs;
+    }
+
+    audioRenderer.stop();
+    audioRenderer.disable();
+    return maxRenderingIntervalUs;
+  }
+
+  /** A sample stream that outputs {@link #PCM_FORMAT}, then silent samples indefinitely. */
+  private static final class PcmSampleStream implements SampleStream {
+
+    private boolean readFormat;
+    private int sampleCount;
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void maybeThrowError() {
+      // Do nothing.
+    }
+
+    @Override
+    public int readData(
+        FormatHolder formatHolder, DecoderInputBuffer buffer, boolean formatRequired) {
+      if (formatRequired || !readFormat) {
+        formatHolder.format = PCM_FORMAT;
+        readFormat = true;
+        return C.RESULT_FORMAT_READ;
+      }
+      buffer.timeUs = sampleCount * SAMPLE_DURATION_US;
+      buffer.ensureSpaceForWrite(SAMPLE_SIZE);
+      buffer.data.put(new byte[SAMPLE_SIZE]);
+      sampleCount++;
+      return C.RESULT_BUFFER_READ;
+    }
+
+    @Override
+    public int skipData(long positionUs) {
+      return 0;
+    }
+  }
+
   private static final class FakeDecoder
       extends SimpleDecoder<DecoderInputBuffer, SimpleOutputBuffer, AudioDecoderException> {
 
-    public FakeDecoder() {
-      super(new DecoderInputBuffer[1], new SimpleOutputBuffer[1]);
+    private final int outputBufferCount;
+
+    private int decodedBufferCount;
+    private int usedOutputBufferCount;
+
+    public FakeDecoder(int inputBufferCount, int outputBufferCount) {
+      super(
+          new DecoderInputBuffer[inputBufferCount], new SimpleOutputBuffer[outputBufferCount]);
+      this.outputBufferCount = outputBufferCount;
+    }
+
+    /**
+     * Blocks until {@code queuedBufferCount} input buffers have been decoded, or until decoding
+     * can't continue because all output buffers are in use.
+     */
+    public synchronized void blockUntilIdle(int queuedBufferCount) throws InterruptedException {
+      while (decodedBufferCount < queuedBufferCount && usedOutputBufferCount < outputBufferCount) {
+        wait();
+      }
     }
 
     @Override
@@ -137,10 +298,87 @@ public class SimpleDecoderAudioRendererTest {
         SimpleOutputBuffer outputBuffer, boolean reset) {
       if (inputBuffer.isEndOfStream()) {
         outputBuffer.setFlags(C.BUFFER_FLAG_END_OF_STREAM);
+      } else {
+        ByteBuffer inputData = Assertions.checkNotNull(inputBuffer.data);
+        ByteBuffer outputData = outputBuffer.init(inputBuffer.timeUs, inputData.remaining());
+        outputData.put(inputData);
+        outputData.flip();
+      }
+      synchronized (this) {
+        decodedBufferCount++;
+        usedOutputBufferCount++;
+        notifyAll();
       }
       return null;
     }
 
+    @Override
+    protected void releaseOutputBuffer(SimpleOutputBuffer outputBuffer) {
+      super.releaseOutputBuffer(outputBuffer);
+      synchronized (this) {
+        usedOutputBufferCount--;
+        notifyAll();
+      }
+    }
+
+  }
+
+  /**
+   * Shadow for {@link AudioTrack} that accepts data until its buffer is full, and plays it out as
+   * the test advances time.
+   */
+  @Implements(AudioTrack.class)
+  public static final class PlayingShadowAudioTrack {
+
+    private static int bufferSizeInBytes;
+    private static long writtenBytes;
+    private static long playedBytes;
+
+    public static void reset() {
+      bufferSizeInBytes = 0;
+      writtenBytes = 0;
+      playedBytes = 0;
+    }
+
+    /** Plays up to {@code durationUs} of the data written to the track. */
+    public static void advancePlayback(long durationUs) {
+      long frameCount = durationUs * SAMPLE_RATE / C.MICROS_PER_SECOND;
+      playedBytes = Math.min(writtenBytes, playedBytes + frameCount * BYTES_PER_FRAME);
+    }
+
+    @SuppressWarnings("unused")
+    @Implementation
+    protected int native_setup(
+        Object audioTrack,
+        Object attributes,
+        int[] sampleRate,
+        int channelMask,
+        int channelIndexMask,
+        int audioFormat,
+        int bufferSizeInBytes,
+        int mode,
+        int[] sessionId,
+        long nativeAudioTrack) {
+      PlayingShadowAudioTrack.bufferSizeInBytes = bufferSizeInBytes;
+      writtenBytes = 0;
+      playedBytes = 0;
+      return AudioTrack.SUCCESS;
+    }
+
+    @SuppressWarnings("unused")
+    @Implementation
+    protected int native_write_native_bytes(
+        Object audioData, int positionInBytes, int sizeInBytes, int format, boolean isBlocking) {
+      int bytesWritten =
+          (int) Math.min(sizeInBytes, bufferSizeInBytes - (writtenBytes - playedBytes));
+      writtenBytes += bytesWritten;
+      return bytesWritten;
+    }
+
+    @Implementation
+    protected int getPlaybackHeadPosition() {
+      return (int) (playedBytes / BYTES_PER_FRAME);
+    }
   }
 
 }
@@ -20,6 +20,11 @@ import static org.junit.Assert.fail;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.C;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,6 +33,12 @@ import org.junit.runner.RunWith;
 @RunWith(AndroidJUnit4.class)
 public final class SonicAudioProcessorTest {
 
+  // Output of the implementation before pitch search optimizations, for the inputs used below.
+  private static final int PITCH_CHANGE_OUTPUT_LENGTH = 44102;
+  private static final int PITCH_CHANGE_OUTPUT_HASH = 939628353;
+  private static final int SAMPLE_RATE_CHANGE_OUTPUT_LENGTH = 48000;
+  private static final int SAMPLE_RATE_CHANGE_OUTPUT_HASH = -785129791;
+
   private SonicAudioProcessor sonicAudioProcessor;
 
   @Before
@@ -111,7 +122,85 @@ public final class SonicAudioProcessorTest {
   }
 
   @Test
-  public void testDoesNotSupportNon16BitInput() throws Exception {
+  public void testHighSpeed_outputsExpectedFrameCount() throws Exception {
+    sonicAudioProcessor.setSpeed(3f);
+    sonicAudioProcessor.configure(48000, 6, C.ENCODING_PCM_16BIT);
+    sonicAudioProcessor.flush();
+    short[] input = createTone(/* frequencyHz= */ 200, /* sampleRateHz= */ 48000, 6, 48000, 8000);
+
+    short[] output = process(input);
+
+    assertThat(output.length / 6).isAtLeast(48000 / 3 - 1);
+    assertThat(output.length / 6).isAtMost(48000 / 3 + 1);
+  }
+
+  @Test
+  public void testHighSpeed_keepsPureToneClean() throws Exception {
+    // The pitch periods of these tones aren't whole numbers of frames, so splicing with a period
+    // that's even one frame off is audible as distortion.
+    assertHighSpeedKeepsPureToneClean(
+        /* frequencyHz= */ 196.1, /* sampleRateHz= */ 44100, C.ENCODING_PCM_16BIT);
+    // A loud tone with a long period, which used to overflow when comparing full resolution diffs.
+    assertHighSpeedKeepsPureToneClean(
+        /* frequencyHz= */ 393.9, /* sampleRateHz= */ 48000, C.ENCODING_PCM_16BIT);
+  }
+
+  @Test
+  public void testHighSpeedFloatInput_keepsPureToneClean() throws Exception {
+    assertHighSpeedKeepsPureToneClean(
+        /* frequencyHz= */ 196.1, /* sampleRateHz= */ 44100, C.ENCODING_PCM_FLOAT);
+    assertHighSpeedKeepsPureToneClean(
+        /* frequencyHz= */ 393.9, /* sampleRateHz= */ 48000, C.ENCODING_PCM_FLOAT);
+  }
+
+  @Test
+  public void testPitchChange_outputMatchesPreviousImplementation() throws Exception {
+    sonicAudioProcessor.setPitch(1.5f);
+    sonicAudioProcessor.configure(44100, 2, C.ENCODING_PCM_16BIT);
+    sonicAudioProcessor.flush();
+    short[] input = createTone(/* frequencyHz= */ 441, /* sampleRateHz= */ 44100, 2, 22050, 4000);
+
+    short[] output = process(input);
+
+    assertThat(output.length).isEqualTo(PITCH_CHANGE_OUTPUT_LENGTH);
+    assertThat(Arrays.hashCode(output)).isEqualTo(PITCH_CHANGE_OUTPUT_HASH);
+  }
+
+  @Test
+  public void testOutputSampleRateChange_outputMatchesPreviousImplementation() throws Exception {
+    sonicAudioProcessor.setOutputSampleRateHz(48000);
+    sonicAudioProcessor.configure(44100, 2, C.ENCODING_PCM_16BIT);
+    sonicAudioProcessor.flush();
+    short[] input = createTone(/* frequencyHz= */ 441, /* sampleRateHz= */ 44100, 2, 22050, 4000);
+
+    short[] output = process(input);
+
+    assertThat(output.length).isEqualTo(SAMPLE_RATE_CHANGE_OUTPUT_LENGTH);
+    assertThat(Arrays.hashCode(output)).isEqualTo(SAMPLE_RATE_CHANGE_OUTPUT_HASH);
+  }
+
+  @Test
+  public void testOutputSampleRateChangeFloatInput_matches16BitOutput() throws Exception {
+    short[] input = createTone(/* frequencyHz= */ 441, /* sampleRateHz= */ 44100, 2, 22050, 4000);
+    sonicAudioProcessor.setOutputSampleRateHz(48000);
+    sonicAudioProcessor.configure(44100, 2, C.ENCODING_PCM_16BIT);
+    sonicAudioProcessor.flush();
+    float[] expectedOutput = toFloat(process(input));
+
+    sonicAudioProcessor.configure(44100, 2, C.ENCODING_PCM_FLOAT);
+    sonicAudioProcessor.flush();
+    float[] output = processFloat(toFloat(input));
+
+    assertThat(sonicAudioProcessor.getOutputEncoding()).isEqualTo(C.ENCODING_PCM_FLOAT);
+    assertThat(output.length).isEqualTo(expectedOutput.length);
+    for (int i = 0; i < output.length; i++) {
+      // The 16-bit output is rounded towards zero.
+      assertThat(output[i]).isWithin(1f / 32768).of(expectedOutput[i]);
+    }
+  }
+
+  @Test
+  public void testDoesNotSupportNon16BitOrFloatInput() throws Exception {
     try {
       sonicAudioProcessor.configure(44100, 2, C.ENCODING_PCM_8BIT);
       fail();
@@ -132,4 +221,113 @@ public final class SonicAudioProcessorTest {
     }
   }
 
+
+  private void assertHighSpeedKeepsPureToneClean(
+      double frequencyHz, int sampleRateHz, @C.PcmEncoding int encoding) throws Exception {
+    short[] input = createTone(frequencyHz, sampleRateHz, 1, 2 * sampleRateHz, 16000);
+    for (float speed : new float[] {1.5f, 2f, 3f}) {
+      sonicAudioProcessor.setSpeed(speed);
+      sonicAudioProcessor.configure(sampleRateHz, 1, encoding);
+      sonicAudioProcessor.flush();
+
+      float[] output =
+          encoding == C.ENCODING_PCM_FLOAT
+              ? processFloat(toFloat(input))
+              : toFloat(process(input));
+
+      assertThat(getSignalToNoiseRatioDb(output, frequencyHz, sampleRateHz)).isAtLeast(30.0);
+    }
+  }
+  /** Returns an interleaved sine tone with the same samples on every channel. */
+  private static short[] createTone(
+      double frequencyHz, int sampleRateHz, int channelCount, int frameCount, int amplitude) {
+    short[] samples = new short[frameCount * channelCount];
+    for (int i = 0; i < frameCount; i++) {
+      short sample =
+          (short) Math.round(amplitude * Math.sin(2 * Math.PI * frequencyHz * i / sampleRateHz));
+      for (int j = 0; j < channelCount; j++) {
+        samples[i * channelCount + j] = sample;
+      }
+    }
+    return samples;
+  }
+
+  /** Queues {@code input} followed by the end of stream, and returns all output samples. */
+  private short[] process(short[] input) {
+    ByteBuffer inputBuffer =
+        ByteBuffer.allocateDirect(input.length * 2).order(ByteOrder.nativeOrder());
+    inputBuffer.asShortBuffer().put(input);
+    ShortBuffer output = ShortBuffer.allocate(input.length * 2);
+    sonicAudioProcessor.queueInput(inputBuffer);
+    assertThat(inputBuffer.hasRemaining()).isFalse();
+    output.put(sonicAudioProcessor.getOutput().asShortBuffer());
+    sonicAudioProcessor.queueEndOfStream();
+    output.put(sonicAudioProcessor.getOutput().asShortBuffer());
+    assertThat(sonicAudioProcessor.isEnded()).isTrue();
+    return Arrays.copyOf(output.array(), output.position());
+  }
+
+  /** Queues float {@code input} followed by the end of stream, and returns all output samples. */
+  private float[] processFloat(float[] input) {
+    ByteBuffer inputBuffer =
+        ByteBuffer.allocateDirect(input.length * 4).order(ByteOrder.nativeOrder());
+    inputBuffer.asFloatBuffer().put(input);
+    FloatBuffer output = FloatBuffer.allocate(input.length * 2);
+    sonicAudioProcessor.queueInput(inputBuffer);
+    assertThat(inputBuffer.hasRemaining()).isFalse();
+    output.put(sonicAudioProcessor.getOutput().asFloatBuffer());
+    sonicAudioProcessor.queueEndOfStream();
+    output.put(sonicAudioProcessor.getOutput().asFloatBuffer());
+    assertThat(sonicAudioProcessor.isEnded()).isTrue();
+    return Arrays.copyOf(output.array(), output.position());
+  }
+
+  /** Returns {@code samples} converted to float samples. */
+  private static float[] toFloat(short[] samples) {
+    float[] floatSamples = new float[samples.length];
+    for (int i = 0; i < samples.length; i++) {
+      floatSamples[i] = samples[i] / 32768f;
+    }
+    return floatSamples;
+  }
+
+  /**
+   * Returns the ratio of the power of a sine at {@code frequencyHz} fitted to each block of mono
+   * {@code samples} to the power of the residual, in decibels. The first and last blocks are
+   * skipped, as they include the start and end of the stream.
+   */
+  private static double getSignalToNoiseRatioDb(
+      float[] samples, double frequencyHz, int sampleRateHz) {
+    int blockSize = 1024;
+    double omega = 2 * Math.PI * frequencyHz / sampleRateHz;
+    double signalPower = 0;
+    double noisePower = 0;
+    for (int start = blockSize; start + 2 * blockSize <= samples.length; start += blockSize) {
+      // Least squares fit of a * sin + b * cos.
+      double sinSin = 0;
+      double sinCos = 0;
+      double cosCos = 0;
+      double sampleSin = 0;
+      double sampleCos = 0;
+      for (int i = 0; i < blockSize; i++) {
+        double sin = Math.sin(omega * i);
+        double cos = Math.cos(omega * i);
+        sinSin += sin * sin;
+        sinCos += sin * cos;
+        cosCos += cos * cos;
+        sampleSin += samples[start + i] * sin;
+        sampleCos += samples[start + i] * cos;
+      }
+      double determinant = sinSin * cosCos - sinCos * sinCos;
+      double a = (sampleSin * cosCos - sampleCos * sinCos) / determinant;
+      double b = (sampleCos * sinSin - sampleSin * sinCos) / determinant;
+      for (int i = 0; i < blockSize; i++) {
+        double fit = a * Math.sin(omega * i) + b * Math.cos(omega * i);
+        double noise = samples[start + i] - fit;
+        signalPower += fit * fit;
+        noisePower += noise * noise;
+      }
+    }
+    return 10 * Math.log10(signalPower / noisePower);
+  }
 }
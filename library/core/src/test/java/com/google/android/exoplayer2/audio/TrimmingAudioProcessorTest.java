@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.audio;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link TrimmingAudioProcessor}. */
+@RunWith(AndroidJUnit4.class)
+public final class TrimmingAudioProcessorTest {
+
+  private TrimmingAudioProcessor trimmingAudioProcessor;
+
+  @Before
+  public void setUp() {
+    trimmingAudioProcessor = new TrimmingAudioProcessor();
+  }
+
+  @Test
+  public void testTrimsStartAndEndFrames() throws Exception {
+    trimmingAudioProcessor.setTrimFrameCount(/* trimStartFrames= */ 2, /* trimEndFrames= */ 3);
+    trimmingAudioProcessor.configure(48000, 1, C.ENCODING_PCM_16BIT);
+    trimmingAudioProcessor.flush();
+
+    short[] output1 = queueInput(new short[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+    short[] output2 = queueInput(new short[] {11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+    // Reconfiguring for a gapless transition discards the frames held back from the end.
+    trimmingAudioProcessor.configure(48000, 1, C.ENCODING_PCM_16BIT);
+
+    assertThat(output1).isEqualTo(new short[] {3, 4, 5, 6, 7});
+    assertThat(output2).isEqualTo(new short[] {8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+    assertThat(trimmingAudioProcessor.getTrimmedFrameCount()).isEqualTo(5L);
+  }
+
+  @Test
+  public void testOutputsInputWithoutCopying() throws Exception {
+    trimmingAudioProcessor.setTrimFrameCount(/* trimStartFrames= */ 0, /* trimEndFrames= */ 1);
+    trimmingAudioProcessor.configure(48000, 1, C.ENCODING_PCM_16BIT);
+    trimmingAudioProcessor.flush();
+    ByteBuffer input = createBuffer(new short[] {1, 2, 3, 4});
+
+    trimmingAudioProcessor.queueInput(input);
+    ByteBuffer output = trimmingAudioProcessor.getOutput();
+    input.putShort(/* index= */ 0, (short) 5);
+
+    // The output is a view of the input, which is only consumed once the output has been read.
+    assertThat(input.position()).isEqualTo(0);
+    assertThat(readSamples(output)).isEqualTo(new short[] {5, 2, 3});
+    trimmingAudioProcessor.queueInput(input);
+    assertThat(input.hasRemaining()).isFalse();
+    assertThat(trimmingAudioProcessor.getOutput().hasRemaining()).isFalse();
+  }
+
+  private short[] queueInput(short[] samples) {
+    ByteBuffer input = createBuffer(samples);
+    short[] output = new short[0];
+    while (input.hasRemaining()) {
+      trimmingAudioProcessor.queueInput(input);
+      short[] newOutput = readSamples(trimmingAudioProcessor.getOutput());
+      output = Arrays.copyOf(output, output.length + newOutput.length);
+      System.arraycopy(newOutput, 0, output, output.length - newOutput.length, newOutput.length);
+    }
+    return output;
+  }
+
+  private static ByteBuffer createBuffer(short[] samples) {
+    ByteBuffer buffer =
+        ByteBuffer.allocateDirect(samples.length * 2).order(ByteOrder.nativeOrder());
+    buffer.asShortBuffer().put(samples);
+    return buffer;
+  }
+
+  private static short[] readSamples(ByteBuffer buffer) {
+    short[] samples = new short[buffer.remaining() / 2];
+    buffer.asShortBuffer().get(samples);
+    buffer.position(buffer.limit());
+    return samples;
+  }
+}
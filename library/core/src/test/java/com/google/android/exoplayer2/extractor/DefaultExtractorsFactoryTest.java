@@ -17,6 +17,7 @@ package com.google.android.exoplayer2.extractor;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import android.net.Uri;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.extractor.amr.AmrExtractor;
 import com.google.android.exoplayer2.extractor.flv.FlvExtractor;
@@ -32,7 +33,10 @@ import com.google.android.exoplayer2.extractor.ts.PsExtractor;
 import com.google.android.exoplayer2.extractor.ts.TsExtractor;
 import com.google.android.exoplayer2.extractor.wav.WavExtractor;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -70,4 +74,50 @@ public final class DefaultExtractorsFactoryTest {
     assertThat(listCreatedExtractorClasses).containsNoDuplicates();
     assertThat(listCreatedExtractorClasses).containsExactlyElementsIn(expectedExtractorClassses);
   }
+
+  @Test
+  public void testCreateExtractorsForUri_withExtension_returnsMatchingExtractorsFirst() {
+    DefaultExtractorsFactory defaultExtractorsFactory = new DefaultExtractorsFactory();
+
+    Extractor[] extractors =
+        defaultExtractorsFactory.createExtractors(
+            Uri.parse("https://example.com/media/track.MP3?token=abc"), Collections.emptyMap());
+
+    assertThat(extractors[0]).isInstanceOf(Mp3Extractor.class);
+    assertThat(extractors[1]).isInstanceOf(MatroskaExtractor.class);
+    assertThat(extractors).hasLength(defaultExtractorsFactory.createExtractors().length);
+  }
+
+  @Test
+  public void testCreateExtractorsForUri_withContentType_returnsMatchingExtractorsFirst() {
+    DefaultExtractorsFactory defaultExtractorsFactory = new DefaultExtractorsFactory();
+    Map<String, List<String>> responseHeaders = new HashMap<>();
+    responseHeaders.put(null, Collections.singletonList("HTTP/1.1 200 OK"));
+    responseHeaders.put("content-type", Collections.singletonList("video/MP4; charset=binary"));
+
+    Extractor[] extractors =
+        defaultExtractorsFactory.createExtractors(
+            Uri.parse("https://example.com/media/track.ts"), responseHeaders);
+
+    // The Content-Type header takes precedence over the file extension.
+    assertThat(extractors[0]).isInstanceOf(FragmentedMp4Extractor.class);
+    assertThat(extractors[1]).isInstanceOf(Mp4Extractor.class);
+    assertThat(extractors[2]).isInstanceOf(TsExtractor.class);
+    assertThat(extractors[3]).isInstanceOf(MatroskaExtractor.class);
+  }
+
+  @Test
+  public void testCreateExtractorsForUri_withUnknownType_returnsDefaultOrder() {
+    DefaultExtractorsFactory defaultExtractorsFactory = new DefaultExtractorsFactory();
+
+    Extractor[] extractors =
+        defaultExtractorsFactory.createExtractors(
+            Uri.parse("https://example.com/media/stream"), Collections.emptyMap());
+
+    Extractor[] defaultExtractors = defaultExtractorsFactory.createExtractors();
+    assertThat(extractors).hasLength(defaultExtractors.length);
+    for (int i = 0; i < extractors.length; i++) {
+      assertThat(extractors[i].getClass()).isEqualTo(defaultExtractors[i].getClass());
+    }
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor.mkv;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.PositionHolder;
+import com.google.android.exoplayer2.testutil.FakeExtractorInput;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link MatroskaBinarySearchSeeker}. */
+@RunWith(AndroidJUnit4.class)
+public final class MatroskaBinarySearchSeekerTest {
+
+  private static final long TIMECODE_SCALE = 1_000_000;
+  private static final int FIRST_CLUSTER_POSITION = 100;
+  private static final int CLUSTER_HEADER_SIZE = 16;
+  private static final int CLUSTER_SIZE = 50_000;
+  private static final int CLUSTER_COUNT = 20;
+  private static final int CLUSTER_DURATION_MS = 1000;
+
+  @Test
+  public void testSeek_findsClusterContainingTarget() throws IOException, InterruptedException {
+    byte[] data = createClusters(CLUSTER_COUNT);
+
+    assertThat(seek(data, /* timeUs= */ 5_500_000)).isEqualTo(getClusterPosition(5));
+    assertThat(seek(data, /* timeUs= */ 12_050_000)).isEqualTo(getClusterPosition(12));
+    assertThat(seek(data, /* timeUs= */ 19_999_000)).isEqualTo(getClusterPosition(19));
+  }
+
+  @Test
+  public void testSeekToStart_returnsFirstClusterContent()
+      throws IOException, InterruptedException {
+    byte[] data = createClusters(CLUSTER_COUNT);
+
+    assertThat(seek(data, /* timeUs= */ 0)).isEqualTo(FIRST_CLUSTER_POSITION + 12);
+  }
+
+  private static long seek(byte[] data, long timeUs) throws IOException, InterruptedException {
+    MatroskaBinarySearchSeeker seeker =
+        new MatroskaBinarySearchSeeker(
+            TIMECODE_SCALE,
+            /* durationUs= */ CLUSTER_COUNT * CLUSTER_DURATION_MS * 1000L,
+            /* firstClusterContentPosition= */ FIRST_CLUSTER_POSITION + 12,
+            /* endPosition= */ data.length);
+    FakeExtractorInput input = new FakeExtractorInput.Builder().setData(data).build();
+    PositionHolder positionHolder = new PositionHolder();
+    seeker.setSeekTargetUs(timeUs);
+    while (seeker.isSeeking()) {
+      int result = seeker.handlePendingSeek(input, positionHolder, /* outputFrameHolder= */ null);
+      if (result == Extractor.RESULT_SEEK) {
+        input.setPosition((int) positionHolder.position);
+      }
+    }
+    return input.getPosition();
+  }
+
+  private static long getClusterPosition(int index) {
+    return FIRST_CLUSTER_POSITION + (long) index * (CLUSTER_HEADER_SIZE + CLUSTER_SIZE);
+  }
+
+  /**
+   * Returns data containing clusters that each have a Timecode element and content of {@link
+   * #CLUSTER_SIZE} bytes, preceded by {@link #FIRST_CLUSTER_POSITION} bytes of padding.
+   */
+  private static byte[] createClusters(int count) {
+    byte[] data = new byte[(int) getClusterPosition(count)];
+    for (int i = 0; i < count; i++) {
+      int position = (int) getClusterPosition(i);
+      int timecode = i * CLUSTER_DURATION_MS;
+      byte[] header =
+          new byte[] {
+            // Cluster ID and size.
+            0x1F, 0x43, (byte) 0xB6, 0x75, 0x01, 0, 0, 0, 0, 0, (byte) 0xC3, 0x54,
+            // Timecode element.
+            (byte) 0xE7, (byte) 0x82, (byte) (timecode >> 8), (byte) timecode
+          };
+      System.arraycopy(header, 0, data, position, header.length);
+    }
+    return data;
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor.mp3;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.extractor.SeekMap.SeekPoints;
+import com.google.android.exoplayer2.extractor.SeekPoint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link IndexSeeker}. */
+@RunWith(AndroidJUnit4.class)
+public final class IndexSeekerTest {
+
+  private static final long DATA_START_POSITION = 100;
+  // 26 ms per frame, which is 1152 samples at 44.1 kHz rounded to the millisecond.
+  private static final long FRAME_DURATION_US = 26_000;
+  private static final int FRAME_SIZE = 418;
+
+  @Test
+  public void testMaybeAddSeekPoint_addsOnePointPerInterval() {
+    IndexSeeker seeker = createSeekerWithFrames(/* frameCount= */ 1000);
+
+    SeekPoints seekPoints = seeker.getSeekPoints(/* timeUs= */ 5_000_000);
+
+    // Every 39th frame is indexed, as that's the first frame at least one second after the last.
+    assertThat(seekPoints.first).isEqualTo(getFramePoint(/* frameIndex= */ 156));
+    assertThat(seekPoints.second).isEqualTo(getFramePoint(/* frameIndex= */ 195));
+  }
+
+  @Test
+  public void testGetSeekPoints_atIndexedPoint_returnsSinglePoint() {
+    IndexSeeker seeker = createSeekerWithFrames(/* frameCount= */ 1000);
+    SeekPoint indexedPoint = getFramePoint(/* frameIndex= */ 39);
+
+    SeekPoints seekPoints = seeker.getSeekPoints(indexedPoint.timeUs);
+
+    assertThat(seekPoints.first).isEqualTo(indexedPoint);
+    assertThat(seekPoints.second).isEqualTo(indexedPoint);
+  }
+
+  @Test
+  public void testGetSeekPoints_beyondIndex_returnsLastPoint() {
+    IndexSeeker seeker = createSeekerWithFrames(/* frameCount= */ 100);
+
+    SeekPoints seekPoints = seeker.getSeekPoints(/* timeUs= */ 60_000_000);
+
+    assertThat(seekPoints.first).isEqualTo(getFramePoint(/* frameIndex= */ 78));
+    assertThat(seekPoints.second).isEqualTo(getFramePoint(/* frameIndex= */ 78));
+    assertThat(seeker.isTimeUsInIndex(60_000_000)).isFalse();
+    assertThat(seeker.isTimeUsInIndex(getFramePoint(/* frameIndex= */ 99).timeUs)).isTrue();
+  }
+
+  @Test
+  public void testGetTimeUs_returnsTimeOfIndexedPointAtOrBeforePosition() {
+    IndexSeeker seeker = createSeekerWithFrames(/* frameCount= */ 1000);
+    SeekPoint indexedPoint = getFramePoint(/* frameIndex= */ 78);
+
+    assertThat(seeker.getTimeUs(indexedPoint.position)).isEqualTo(indexedPoint.timeUs);
+    assertThat(seeker.getTimeUs(indexedPoint.position + FRAME_SIZE))
+        .isEqualTo(indexedPoint.timeUs);
+    assertThat(seeker.getTimeUs(DATA_START_POSITION)).isEqualTo(0);
+  }
+
+  @Test
+  public void testMaybeAddSeekPoint_withEarlierTime_doesNotAddPoint() {
+    IndexSeeker seeker = createSeekerWithFrames(/* frameCount= */ 100);
+
+    seeker.maybeAddSeekPoint(/* timeUs= */ 0, DATA_START_POSITION);
+
+    assertThat(seeker.getSeekPoints(/* timeUs= */ 60_000_000).first)
+        .isEqualTo(getFramePoint(/* frameIndex= */ 78));
+  }
+
+  @Test
+  public void testSetDurationUs_updatesDuration() {
+    IndexSeeker seeker = new IndexSeeker(/* fallbackSeeker= */ null, DATA_START_POSITION);
+
+    seeker.setDurationUs(1_000_000);
+
+    assertThat(seeker.getDurationUs()).isEqualTo(1_000_000);
+  }
+
+  @Test
+  public void testGetSeekPoints_beyondIndexWithSeekableFallback_returnsFallbackPoint() {
+    FakeFallbackSeeker fallbackSeeker = new FakeFallbackSeeker(/* positionOffset= */ 0);
+    IndexSeeker seeker = createSeekerWithFrames(fallbackSeeker, /* frameCount= */ 100);
+
+    SeekPoints seekPoints = seeker.getSeekPoints(/* timeUs= */ 60_000_000);
+
+    assertThat(seekPoints).isEqualTo(fallbackSeeker.getSeekPoints(/* timeUs= */ 60_000_000));
+    assertThat(seeker.getTimeUs(seekPoints.first.position))
+        .isEqualTo(fallbackSeeker.getTimeUs(seekPoints.first.position));
+    assertThat(seeker.isPositionInIndex(seekPoints.first.position)).isFalse();
+  }
+
+  @Test
+  public void testGetSeekPoints_beyondIndexWithFallbackPointBeforeIndexEnd_returnsLastPoint() {
+    // The fallback seeker's estimate is before the end of the index, so reading forward from the
+    // last indexed point is better.
+    IndexSeeker seeker =
+        createSeekerWithFrames(
+            new FakeFallbackSeeker(/* positionOffset= */ -100_000), /* frameCount= */ 100);
+
+    SeekPoints seekPoints = seeker.getSeekPoints(/* timeUs= */ 4_000_000);
+
+    assertThat(seekPoints.first).isEqualTo(getFramePoint(/* frameIndex= */ 78));
+    assertThat(seeker.isPositionInIndex(seekPoints.first.position)).isTrue();
+  }
+
+  @Test
+  public void testConstructor_withFallback_usesFallbackDurationAndDataEndPosition() {
+    IndexSeeker seeker =
+        new IndexSeeker(new FakeFallbackSeeker(/* positionOffset= */ 0), DATA_START_POSITION);
+
+    assertThat(seeker.getDurationUs()).isEqualTo(FakeFallbackSeeker.DURATION_US);
+    assertThat(seeker.getDataEndPosition()).isEqualTo(FakeFallbackSeeker.DATA_END_POSITION);
+  }
+
+  @Test
+  public void testMaybeAddSeekPoint_whenFull_halvesResolution() {
+    // Points are 1.014 seconds apart, so this adds more than MAX_POINT_COUNT points.
+    int frameCount =
+        (int) ((IndexSeeker.MAX_POINT_COUNT + 100) * C.MICROS_PER_SECOND / FRAME_DURATION_US);
+    IndexSeeker seeker = createSeekerWithFrames(frameCount);
+
+    SeekPoints seekPoints = seeker.getSeekPoints(/* timeUs= */ 5_000_000);
+
+    // Every other point was dropped, so every 78th frame is indexed.
+    assertThat(seekPoints.first).isEqualTo(getFramePoint(/* frameIndex= */ 156));
+    assertThat(seekPoints.second).isEqualTo(getFramePoint(/* frameIndex= */ 234));
+    assertThat(seeker.isTimeUsInIndex(getFramePoint(frameCount - 1).timeUs)).isTrue();
+  }
+
+  private static IndexSeeker createSeekerWithFrames(int frameCount) {
+    return createSeekerWithFrames(/* fallbackSeeker= */ null, frameCount);
+  }
+
+  private static IndexSeeker createSeekerWithFrames(
+      @Nullable Mp3Extractor.Seeker fallbackSeeker, int frameCount) {
+    IndexSeeker seeker = new IndexSeeker(fallbackSeeker, DATA_START_POSITION);
+    for (int i = 1; i < frameCount; i++) {
+      SeekPoint framePoint = getFramePoint(i);
+      seeker.maybeAddSeekPoint(framePoint.timeUs, framePoint.position);
+    }
+    return seeker;
+  }
+
+  private static SeekPoint getFramePoint(int frameIndex) {
+    return new SeekPoint(
+        frameIndex * FRAME_DURATION_US, DATA_START_POSITION + frameIndex * FRAME_SIZE);
+  }
+
+  /** A seekable fallback seeker that maps times to positions linearly. */
+  private static final class FakeFallbackSeeker implements Mp3Extractor.Seeker {
+
+    public static final long DURATION_US = 100_000_000;
+    public static final long DATA_END_POSITION = 1_000_000;
+
+    private final long positionOffset;
+
+    public FakeFallbackSeeker(long positionOffset) {
+      this.positionOffset = positionOffset;
+    }
+
+    @Override
+    public long getTimeUs(long position) {
+      return (position - positionOffset - DATA_START_POSITION) * FRAME_DURATION_US / FRAME_SIZE;
+    }
+
+    @Override
+    public long getDataEndPosition() {
+      return DATA_END_POSITION;
+    }
+
+    @Override
+    public boolean isSeekable() {
+      return true;
+    }
+
+    @Override
+    public long getDurationUs() {
+      return DURATION_US;
+    }
+
+    @Override
+    public SeekPoints getSeekPoints(long timeUs) {
+      long position =
+          DATA_START_POSITION + positionOffset + timeUs * FRAME_SIZE / FRAME_DURATION_US;
+      return new SeekPoints(new SeekPoint(timeUs, position));
+    }
+  }
+}
@@ -15,8 +15,20 @@
  */
 package com.google.android.exoplayer2.extractor.mp3;
 
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.PositionHolder;
+import com.google.android.exoplayer2.extractor.SeekMap;
 import com.google.android.exoplayer2.testutil.ExtractorAsserts;
+import com.google.android.exoplayer2.testutil.FakeExtractorInput;
+import com.google.android.exoplayer2.testutil.FakeExtractorOutput;
+import com.google.android.exoplayer2.testutil.FakeTrackOutput;
+import com.google.android.exoplayer2.testutil.TestUtil;
+import com.google.android.exoplayer2.util.Util;
+import java.io.IOException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -33,4 +45,91 @@ public final class Mp3ExtractorTest {
   public void testTrimmedMp3Sample() throws Exception {
     ExtractorAsserts.assertBehavior(Mp3Extractor::new, "mp3/play-trimmed.mp3");
   }
+
+  @Test
+  public void testMp3SampleWithIndexSeeking_seekBeyondIndexWithUnknownLength_skipsToSeekTime()
+      throws Exception {
+    byte[] data =
+        TestUtil.getByteArray(ApplicationProvider.getApplicationContext(), "mp3/bear.mp3");
+    // Remove the Info header, so that its table of contents can't be used for seeking.
+    int infoHeaderIndex = Util.fromUtf8Bytes(data).indexOf("Info");
+    assertThat(infoHeaderIndex).isGreaterThan(0);
+    data[infoHeaderIndex] = 0;
+    FakeTrackOutput expectedTrackOutput = extractAll(new Mp3Extractor(), data);
+    Mp3Extractor extractor = new Mp3Extractor(Mp3Extractor.FLAG_ENABLE_INDEX_SEEKING);
+    FakeExtractorOutput output = new FakeExtractorOutput();
+    extractor.init(output);
+    // With an unknown length, there's no constant bitrate seeker to fall back to either.
+    FakeExtractorInput input =
+        new FakeExtractorInput.Builder().setData(data).setSimulateUnknownLength(true).build();
+    PositionHolder positionHolder = new PositionHolder();
+    while (output.seekMap == null) {
+      assertThat(extractor.read(input, positionHolder)).isEqualTo(Extractor.RESULT_CONTINUE);
+    }
+    long seekTimeUs = 2_000_000;
+    SeekMap.SeekPoints seekPoints = output.seekMap.getSeekPoints(seekTimeUs);
+
+    input.setPosition((int) seekPoints.first.position);
+    extractor.seek(seekPoints.first.position, seekTimeUs);
+    FakeTrackOutput trackOutput = output.trackOutputs.get(0);
+    trackOutput.clear();
+    while (extractor.read(input, positionHolder) != Extractor.RESULT_END_OF_INPUT) {}
+
+    // The index didn't cover the seek time, so samples long before it were discarded.
+    long minOutputTimeUs = seekTimeUs - IndexSeeker.MIN_TIME_BETWEEN_POINTS_US;
+    assertThat(seekPoints.first.timeUs).isLessThan(minOutputTimeUs);
+    long firstSampleTimeUs = trackOutput.getSampleTimeUs(0);
+    assertThat(firstSampleTimeUs).isAtMost(seekTimeUs);
+    assertThat(trackOutput.getSampleTimeUs(1)).isGreaterThan(minOutputTimeUs);
+    int expectedSampleIndex = expectedTrackOutput.getSampleTimesUs().indexOf(firstSampleTimeUs);
+    assertThat(trackOutput.getSampleCount())
+        .isEqualTo(expectedTrackOutput.getSampleCount() - expectedSampleIndex);
+    for (int i = 0; i < trackOutput.getSampleCount(); i++) {
+      assertThat(trackOutput.getSampleTimeUs(i))
+          .isEqualTo(expectedTrackOutput.getSampleTimeUs(expectedSampleIndex + i));
+      assertThat(trackOutput.getSampleData(i))
+          .isEqualTo(expectedTrackOutput.getSampleData(expectedSampleIndex + i));
+    }
+  }
+
+  @Test
+  public void testMp3SampleWithIndexSeeking_seekBeyondIndex_usesMetadataSeeker()
+      throws Exception {
+    byte[] data =
+        TestUtil.getByteArray(ApplicationProvider.getApplicationContext(), "mp3/bear.mp3");
+    Mp3Extractor extractor = new Mp3Extractor(Mp3Extractor.FLAG_ENABLE_INDEX_SEEKING);
+    FakeExtractorOutput output = new FakeExtractorOutput();
+    extractor.init(output);
+    FakeExtractorInput input = new FakeExtractorInput.Builder().setData(data).build();
+    PositionHolder positionHolder = new PositionHolder();
+    while (output.seekMap == null) {
+      assertThat(extractor.read(input, positionHolder)).isEqualTo(Extractor.RESULT_CONTINUE);
+    }
+    IndexSeeker indexSeeker = (IndexSeeker) output.seekMap;
+    long seekTimeUs = 2_000_000;
+    SeekMap.SeekPoints seekPoints = indexSeeker.getSeekPoints(seekTimeUs);
+
+    input.setPosition((int) seekPoints.first.position);
+    extractor.seek(seekPoints.first.position, seekTimeUs);
+    FakeTrackOutput trackOutput = output.trackOutputs.get(0);
+    trackOutput.clear();
+    while (extractor.read(input, positionHolder) != Extractor.RESULT_END_OF_INPUT) {}
+
+    // The stream was read from the position given by the Info header rather than from the end of
+    // the index, and the frames that were read weren't added to the index.
+    assertThat(indexSeeker.isPositionInIndex(seekPoints.first.position)).isFalse();
+    assertThat(trackOutput.getSampleTimeUs(0)).isAtLeast(seekTimeUs - 100_000);
+    assertThat(trackOutput.getSampleTimeUs(0)).isAtMost(seekTimeUs + 100_000);
+    assertThat(indexSeeker.isTimeUsInIndex(seekTimeUs)).isFalse();
+  }
+
+  private static FakeTrackOutput extractAll(Extractor extractor, byte[] data)
+      throws IOException, InterruptedException {
+    FakeExtractorOutput output = new FakeExtractorOutput();
+    extractor.init(output);
+    FakeExtractorInput input = new FakeExtractorInput.Builder().setData(data).build();
+    PositionHolder positionHolder = new PositionHolder();
+    while (extractor.read(input, positionHolder) != Extractor.RESULT_END_OF_INPUT) {}
+    return output.trackOutputs.get(0);
+  }
 }
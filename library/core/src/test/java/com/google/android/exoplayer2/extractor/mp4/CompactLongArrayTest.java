@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor.mp4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.util.Util;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link CompactLongArray}. */
+@RunWith(AndroidJUnit4.class)
+public final class CompactLongArrayTest {
+
+  @Test
+  public void testGet_returnsValues() {
+    long[] values = new long[100];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 10_000_000_000L + i * 1001L - (i % 3) * 2002L;
+    }
+
+    assertValues(CompactLongArray.of(values), values);
+  }
+
+  @Test
+  public void testGet_withLargeDifferences_returnsValues() {
+    long[] values = new long[] {0, Integer.MAX_VALUE + 1L, 5, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    assertValues(CompactLongArray.of(values), values);
+  }
+
+  @Test
+  public void testGet_withEmptyArray_hasZeroLength() {
+    assertThat(CompactLongArray.of(new long[0]).length).isEqualTo(0);
+  }
+
+  @Test
+  public void testBuilder_withLargeDifferenceAfterFirstBlock_returnsValues() {
+    long[] values = new long[70];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i == 50 ? Long.MAX_VALUE : i * 1000L;
+    }
+    CompactLongArray.Builder builder = new CompactLongArray.Builder(values.length);
+    for (long value : values) {
+      builder.add(value);
+    }
+
+    assertValues(builder.build(), values);
+  }
+
+  @Test
+  public void testBuilder_withFewerValuesThanCapacity_hasNumberOfAddedValues() {
+    CompactLongArray.Builder builder = new CompactLongArray.Builder(/* capacity= */ 100);
+    for (int i = 0; i < 40; i++) {
+      builder.add(i * 7L);
+    }
+
+    CompactLongArray array = builder.build();
+
+    assertThat(array.length).isEqualTo(40);
+    assertThat(array.get(39)).isEqualTo(39 * 7L);
+    assertThat(array.binarySearchCeil(1000, true, true)).isEqualTo(39);
+  }
+
+  @Test
+  public void testBinarySearch_matchesUtil() {
+    // Includes duplicates and a value out of order, like timestamps of reordered video frames.
+    long[] values = new long[] {0, 10, 10, 10, 40, 20, 30, 50, 50, 60};
+    CompactLongArray array = CompactLongArray.of(values);
+
+    for (long value = -5; value <= 65; value += 5) {
+      for (int i = 0; i < 4; i++) {
+        boolean inclusive = (i & 1) != 0;
+        boolean stayInBounds = (i & 2) != 0;
+        assertThat(array.binarySearchFloor(value, inclusive, stayInBounds))
+            .isEqualTo(Util.binarySearchFloor(values, value, inclusive, stayInBounds));
+        assertThat(array.binarySearchCeil(value, inclusive, stayInBounds))
+            .isEqualTo(Util.binarySearchCeil(values, value, inclusive, stayInBounds));
+      }
+    }
+  }
+
+  private static void assertValues(CompactLongArray array, long[] values) {
+    assertThat(array.length).isEqualTo(values.length);
+    for (int i = 0; i < values.length; i++) {
+      assertThat(array.get(i)).isEqualTo(values[i]);
+    }
+  }
+}
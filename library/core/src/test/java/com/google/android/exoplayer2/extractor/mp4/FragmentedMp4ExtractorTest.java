@@ -15,11 +15,23 @@
  */
 package com.google.android.exoplayer2.extractor.mp4;
 
+import static com.google.common.truth.Truth.assertThat;
+
 import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.PositionHolder;
 import com.google.android.exoplayer2.testutil.ExtractorAsserts;
 import com.google.android.exoplayer2.testutil.ExtractorAsserts.ExtractorFactory;
+import com.google.android.exoplayer2.testutil.FakeExtractorInput;
+import com.google.android.exoplayer2.testutil.FakeExtractorOutput;
+import com.google.android.exoplayer2.testutil.FakeTrackOutput;
+import com.google.android.exoplayer2.testutil.TestUtil;
 import com.google.android.exoplayer2.util.MimeTypes;
+import com.google.android.exoplayer2.util.Util;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import org.junit.Test;
@@ -29,6 +41,13 @@ import org.junit.runner.RunWith;
 @RunWith(AndroidJUnit4.class)
 public final class FragmentedMp4ExtractorTest {
 
+  private static final int TRACK_ID = 1;
+  private static final int KEY_ID_LENGTH = 16;
+  private static final byte IV_SIZE = 8;
+
+  @SuppressWarnings("ConstantField")
+  private static final int SAMPLE_GROUP_TYPE_seig = Util.getIntegerCodeForString("seig");
+
   @Test
   public void testSample() throws Exception {
     ExtractorAsserts.assertBehavior(
@@ -51,7 +70,158 @@ public final class FragmentedMp4ExtractorTest {
     ExtractorAsserts.assertBehavior(extractorFactory, "mp4/sample_fragmented_sei.mp4");
   }
 
+  @Test
+  public void testFragmentsWithSampleGroupEncryption_outputsEncryptedSamples() throws Exception {
+    byte[] firstKeyId = TestUtil.buildTestData(KEY_ID_LENGTH, /* seed= */ 1);
+    byte[] secondKeyId = TestUtil.buildTestData(KEY_ID_LENGTH, /* seed= */ 2);
+    // The atoms of the second fragment are larger than those of the first, and those of the third
+    // are smaller, so reused atom buffers must grow and then be read with a smaller limit.
+    int[][] sampleSizes = new int[][] {{10, 20}, {30, 5, 5, 5, 5}, {7}};
+    byte[][] keyIds = new byte[][] {firstKeyId, secondKeyId, secondKeyId};
+    byte[][] sampleData = new byte[3][];
+    byte[][] initializationVectors = new byte[3][];
+    byte[][] fragments = new byte[3][];
+    for (int i = 0; i < fragments.length; i++) {
+      int sampleCount = sampleSizes[i].length;
+      sampleData[i] = TestUtil.buildTestData(sum(sampleSizes[i]), /* seed= */ i);
+      initializationVectors[i] =
+          TestUtil.buildTestData(sampleCount * IV_SIZE, /* seed= */ 10 + i);
+      fragments[i] =
+          buildEncryptedFragment(
+              sampleSizes[i], sampleData[i], initializationVectors[i], keyIds[i]);
+    }
+    Track track =
+        new Track(
+            TRACK_ID,
+            C.TRACK_TYPE_AUDIO,
+            /* timescale= */ 1000,
+            /* movieTimescale= */ 1000,
+            /* durationUs= */ C.TIME_UNSET,
+            Format.createSampleFormat(
+                /* id= */ null, MimeTypes.AUDIO_AAC, /* subsampleOffsetUs= */ 0),
+            Track.TRANSFORMATION_NONE,
+            /* sampleDescriptionEncryptionBoxes= */ null,
+            /* nalUnitLengthFieldLength= */ 0,
+            /* editListDurations= */ null,
+            /* editListMediaTimes= */ null);
+    FragmentedMp4Extractor extractor =
+        new FragmentedMp4Extractor(
+            /* flags= */ 0,
+            /* timestampAdjuster= */ null,
+            track,
+            /* sideloadedDrmInitData= */ null);
+    FakeExtractorOutput output = new FakeExtractorOutput();
+    extractor.init(output);
+    FakeExtractorInput input =
+        new FakeExtractorInput.Builder().setData(TestUtil.joinByteArrays(fragments)).build();
+    PositionHolder positionHolder = new PositionHolder();
+    while (extractor.read(input, positionHolder) != Extractor.RESULT_END_OF_INPUT) {}
+
+    FakeTrackOutput trackOutput = output.trackOutputs.get(0);
+    trackOutput.assertSampleCount(8);
+    int sampleIndex = 0;
+    for (int i = 0; i < fragments.length; i++) {
+      int sampleOffset = 0;
+      for (int j = 0; j < sampleSizes[i].length; j++) {
+        int sampleSize = sampleSizes[i][j];
+        byte[] expectedSampleData =
+            TestUtil.joinByteArrays(
+                new byte[] {IV_SIZE},
+                Arrays.copyOfRange(initializationVectors[i], j * IV_SIZE, (j + 1) * IV_SIZE),
+                Arrays.copyOfRange(sampleData[i], sampleOffset, sampleOffset + sampleSize));
+        assertThat(trackOutput.getSampleData(sampleIndex)).isEqualTo(expectedSampleData);
+        assertThat(trackOutput.getSampleCryptoData(sampleIndex).encryptionKey)
+            .isEqualTo(keyIds[i]);
+        sampleOffset += sampleSize;
+        sampleIndex++;
+      }
+    }
+    // The third fragment defines the same encryption as the second, so its crypto data is reused.
+    assertThat(trackOutput.getSampleCryptoData(/* index= */ 7))
+        .isSameAs(trackOutput.getSampleCryptoData(/* index= */ 2));
+  }
+
   private static ExtractorFactory getExtractorFactory(final List<Format> closedCaptionFormats) {
     return () -> new FragmentedMp4Extractor(0, null, null, null, closedCaptionFormats);
   }
+
+  /**
+   * Returns a moof and mdat for a fragment of the track with {@link #TRACK_ID}, whose samples are
+   * encrypted with the specified key ID according to a seig sample group.
+   */
+  private static byte[] buildEncryptedFragment(
+      int[] sampleSizes, byte[] sampleData, byte[] initializationVectors, byte[] keyId) {
+    int sampleCount = sampleSizes.length;
+    byte[] tfhd =
+        buildFullAtom(
+            Atom.TYPE_tfhd,
+            /* flags= */ 0x08 /* default_sample_duration_present */,
+            buildInts(TRACK_ID, /* default_sample_duration= */ 1000));
+    byte[] senc =
+        buildFullAtom(
+            Atom.TYPE_senc, /* flags= */ 0, buildInts(sampleCount), initializationVectors);
+    byte[] sbgp =
+        buildFullAtom(
+            Atom.TYPE_sbgp,
+            /* flags= */ 0,
+            buildInts(
+                SAMPLE_GROUP_TYPE_seig,
+                /* entry_count= */ 1,
+                sampleCount,
+                /* group_description_index= */ 1));
+    byte[] sgpd =
+        buildFullAtom(
+            Atom.TYPE_sgpd,
+            /* version= */ 1,
+            /* flags= */ 0,
+            buildInts(SAMPLE_GROUP_TYPE_seig, /* default_length= */ 20, /* entry_count= */ 1),
+            new byte[] {/* reserved */ 0, /* pattern */ 0, /* isProtected */ 1, IV_SIZE},
+            keyId);
+    int trunSize = Atom.FULL_HEADER_SIZE + 8 + 4 * sampleCount;
+    int moofSize =
+        2 * Atom.HEADER_SIZE + tfhd.length + trunSize + senc.length + sbgp.length + sgpd.length;
+    byte[] trun =
+        buildFullAtom(
+            Atom.TYPE_trun,
+            /* flags= */ 0x01 /* data_offset_present */ | 0x200 /* sample_size_present */,
+            buildInts(sampleCount, /* data_offset= */ moofSize + Atom.HEADER_SIZE),
+            buildInts(sampleSizes));
+    byte[] traf = buildAtom(Atom.TYPE_traf, tfhd, trun, senc, sbgp, sgpd);
+    return TestUtil.joinByteArrays(
+        buildAtom(Atom.TYPE_moof, traf), buildAtom(Atom.TYPE_mdat, sampleData));
+  }
+
+  private static byte[] buildFullAtom(int type, int flags, byte[]... payloads) {
+    return buildFullAtom(type, /* version= */ 0, flags, payloads);
+  }
+
+  private static byte[] buildFullAtom(int type, int version, int flags, byte[]... payloads) {
+    return buildAtom(
+        type, buildInts((version << 24) | flags), TestUtil.joinByteArrays(payloads));
+  }
+
+  private static byte[] buildAtom(int type, byte[]... payloads) {
+    byte[] payload = TestUtil.joinByteArrays(payloads);
+    return ByteBuffer.allocate(Atom.HEADER_SIZE + payload.length)
+        .putInt(Atom.HEADER_SIZE + payload.length)
+        .putInt(type)
+        .put(payload)
+        .array();
+  }
+
+  private static byte[] buildInts(int... values) {
+    ByteBuffer buffer = ByteBuffer.allocate(4 * values.length);
+    for (int value : values) {
+      buffer.putInt(value);
+    }
+    return buffer.array();
+  }
+
+  private static int sum(int[] values) {
+    int sum = 0;
+    for (int value : values) {
+      sum += value;
+    }
+    return sum;
+  }
 }
@@ -15,8 +15,15 @@
  */
 package com.google.android.exoplayer2.extractor.mp4;
 
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.testutil.ExtractorAsserts;
+import com.google.android.exoplayer2.testutil.FakeExtractorOutput;
+import com.google.android.exoplayer2.testutil.TestUtil;
+import java.util.Arrays;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -28,4 +35,50 @@ public final class Mp4ExtractorTest {
   public void testMp4Sample() throws Exception {
     ExtractorAsserts.assertBehavior(Mp4Extractor::new, "mp4/sample.mp4");
   }
+
+  @Test
+  public void testRestoreHeaderState_outputsSameTracksAndSamples() throws Exception {
+    Context context = ApplicationProvider.getApplicationContext();
+    byte[] data = TestUtil.getByteArray(context, "mp4/sample.mp4");
+    byte[] state = getHeaderState(context);
+
+    Mp4Extractor extractor = new Mp4Extractor();
+    assertThat(extractor.restoreHeaderState(state, data.length)).isTrue();
+    FakeExtractorOutput output =
+        TestUtil.extractAllSamplesFromFile(extractor, context, "mp4/sample.mp4");
+
+    output.assertOutput(context, "mp4/sample.mp4.0.dump");
+    assertThat(extractor.getHeaderState()).isEqualTo(state);
+  }
+
+  @Test
+  public void testRestoreHeaderState_withDifferentLength_fails() throws Exception {
+    Context context = ApplicationProvider.getApplicationContext();
+    byte[] data = TestUtil.getByteArray(context, "mp4/sample.mp4");
+    byte[] state = getHeaderState(context);
+
+    assertThat(new Mp4Extractor().restoreHeaderState(state, data.length - 1)).isFalse();
+  }
+
+  @Test
+  public void testRestoreHeaderState_withTruncatedState_fails() throws Exception {
+    Context context = ApplicationProvider.getApplicationContext();
+    byte[] data = TestUtil.getByteArray(context, "mp4/sample.mp4");
+    byte[] state = getHeaderState(context);
+    Mp4Extractor extractor = new Mp4Extractor();
+
+    assertThat(extractor.restoreHeaderState(Arrays.copyOf(state, state.length - 1), data.length))
+        .isFalse();
+    // The extractor is unchanged, so reads the headers from the stream instead.
+    FakeExtractorOutput output =
+        TestUtil.extractAllSamplesFromFile(extractor, context, "mp4/sample.mp4");
+    output.assertOutput(context, "mp4/sample.mp4.0.dump");
+  }
+
+  private static byte[] getHeaderState(Context context) throws Exception {
+    Mp4Extractor extractor = new Mp4Extractor();
+    assertThat(extractor.getHeaderState()).isNull();
+    TestUtil.extractAllSamplesFromFile(extractor, context, "mp4/sample.mp4");
+    return extractor.getHeaderState();
+  }
 }
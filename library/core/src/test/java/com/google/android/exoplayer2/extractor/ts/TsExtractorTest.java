@@ -16,27 +16,39 @@
 package com.google.android.exoplayer2.extractor.ts;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
+import android.net.Uri;
 import android.util.SparseArray;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.extractor.DefaultExtractorInput;
 import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.ExtractorInput;
 import com.google.android.exoplayer2.extractor.ExtractorOutput;
 import com.google.android.exoplayer2.extractor.PositionHolder;
 import com.google.android.exoplayer2.extractor.TrackOutput;
 import com.google.android.exoplayer2.extractor.ts.TsPayloadReader.EsInfo;
 import com.google.android.exoplayer2.extractor.ts.TsPayloadReader.TrackIdGenerator;
 import com.google.android.exoplayer2.testutil.ExtractorAsserts;
+import com.google.android.exoplayer2.testutil.FakeDataSet;
+import com.google.android.exoplayer2.testutil.FakeDataSet.FakeData;
+import com.google.android.exoplayer2.testutil.FakeDataSource;
 import com.google.android.exoplayer2.testutil.FakeExtractorInput;
 import com.google.android.exoplayer2.testutil.FakeExtractorOutput;
 import com.google.android.exoplayer2.testutil.FakeTrackOutput;
 import com.google.android.exoplayer2.testutil.TestUtil;
+import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.util.ParsableByteArray;
 import com.google.android.exoplayer2.util.TimestampAdjuster;
 import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -52,6 +64,55 @@ public final class TsExtractorTest {
     ExtractorAsserts.assertBehavior(TsExtractor::new, "ts/sample.ts");
   }
 
+  @Test
+  public void testSampleWithElementaryStreamExecutor() throws Exception {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    try {
+      ExtractorAsserts.assertBehavior(
+          () ->
+              new TsExtractor(
+                  TsExtractor.MODE_SINGLE_PMT,
+                  new TimestampAdjuster(0),
+                  new DefaultTsPayloadReaderFactory(),
+                  executorService),
+          "ts/sample.ts");
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void testReadWithShutDownElementaryStreamExecutor_throwsWithoutBlocking()
+      throws Exception {
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    executorService.shutdown();
+    TsExtractor tsExtractor =
+        new TsExtractor(
+            TsExtractor.MODE_SINGLE_PMT,
+            new TimestampAdjuster(0),
+            new DefaultTsPayloadReaderFactory(),
+            executorService);
+    FakeExtractorInput input =
+        new FakeExtractorInput.Builder()
+            .setData(
+                TestUtil.getByteArray(ApplicationProvider.getApplicationContext(), "ts/sample.ts"))
+            .build();
+    tsExtractor.init(new FakeExtractorOutput());
+    PositionHolder seekPositionHolder = new PositionHolder();
+
+    try {
+      int readResult = Extractor.RESULT_CONTINUE;
+      while (readResult != Extractor.RESULT_END_OF_INPUT) {
+        readResult = tsExtractor.read(input, seekPositionHolder);
+      }
+      fail();
+    } catch (RejectedExecutionException e) {
+      // Expected.
+    }
+    // Releasing doesn't wait for the calls that were never run.
+    tsExtractor.release();
+  }
+
   @Test
   public void testStreamWithJunkData() throws Exception {
     Random random = new Random(0);
@@ -78,6 +139,46 @@ public final class TsExtractorTest {
         TsExtractor::new, "ts/sample.ts", fileData, ApplicationProvider.getApplicationContext());
   }
 
+  @Test
+  public void testReadWithPacketsSpanningBufferBoundaries() throws Exception {
+    byte[] fileData =
+        TestUtil.getByteArray(ApplicationProvider.getApplicationContext(), "ts/sample.ts");
+    // Upstream reads of 1000 bytes leave a partial packet at the end of the buffer after most
+    // reads, and eventually require the remaining bytes to be moved to the start of the buffer.
+    FakeDataSet fakeDataSet = new FakeDataSet();
+    FakeData fakeData = fakeDataSet.newDefaultData();
+    for (int i = 0; i < fileData.length; i += 1000) {
+      fakeData.appendReadData(
+          Arrays.copyOfRange(fileData, i, Math.min(i + 1000, fileData.length)));
+    }
+    FakeDataSource dataSource = new FakeDataSource(fakeDataSet);
+    TsExtractor tsExtractor = new TsExtractor();
+    FakeExtractorOutput output = new FakeExtractorOutput();
+    tsExtractor.init(output);
+
+    PositionHolder seekPositionHolder = new PositionHolder();
+    long position = 0;
+    int readCount = 0;
+    int readResult = Extractor.RESULT_CONTINUE;
+    while (readResult != Extractor.RESULT_END_OF_INPUT) {
+      long length = dataSource.open(new DataSpec(Uri.EMPTY, position, C.LENGTH_UNSET, null));
+      ExtractorInput input = new DefaultExtractorInput(dataSource, position, position + length);
+      try {
+        do {
+          readResult = tsExtractor.read(input, seekPositionHolder);
+          readCount++;
+        } while (readResult == Extractor.RESULT_CONTINUE);
+      } finally {
+        dataSource.close();
+      }
+      position = seekPositionHolder.position;
+    }
+
+    output.assertOutput(ApplicationProvider.getApplicationContext(), "ts/sample.ts.0.dump");
+    // Each call to read handles all complete packets in the buffer, rather than a single packet.
+    assertThat(readCount).isLessThan(fileData.length / TS_PACKET_SIZE);
+  }
+
   @Test
   public void testCustomPesReader() throws Exception {
     CustomTsPayloadReaderFactory factory = new CustomTsPayloadReaderFactory(true, false);
@@ -23,6 +23,9 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.android.exoplayer2.database.DatabaseIOException;
 import com.google.android.exoplayer2.database.ExoDatabaseProvider;
 import com.google.android.exoplayer2.database.VersionTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -123,6 +126,38 @@ public class DefaultDownloadIndexTest {
     assertThat(readDownload).isNull();
   }
 
+  @Test
+  public void putDownloads_addsAllDownloads() throws DatabaseIOException {
+    List<Download> downloads = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      downloads.add(new DownloadBuilder("id" + i).setStartTimeMs(i).build());
+    }
+
+    downloadIndex.putDownloads(downloads);
+
+    try (DownloadCursor cursor = downloadIndex.getDownloads()) {
+      assertThat(cursor.getCount()).isEqualTo(downloads.size());
+      for (int i = 0; i < downloads.size(); i++) {
+        cursor.moveToNext();
+        assertEqual(cursor.getDownload(), downloads.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void removeDownloads_removesOnlyGivenDownloads() throws DatabaseIOException {
+    Download download1 = new DownloadBuilder("id1").build();
+    Download download2 = new DownloadBuilder("id2").build();
+    Download download3 = new DownloadBuilder("id3").build();
+    downloadIndex.putDownloads(Arrays.asList(download1, download2, download3));
+
+    downloadIndex.removeDownloads(Arrays.asList("id1", "id3", "non existing id"));
+
+    assertThat(downloadIndex.getDownload("id1")).isNull();
+    assertEqual(downloadIndex.getDownload("id2"), download2);
+    assertThat(downloadIndex.getDownload("id3")).isNull();
+  }
+
   @Test
   public void getDownloads_emptyDownloadIndex_returnsEmptyArray() throws DatabaseIOException {
     assertThat(downloadIndex.getDownloads().getCount()).isEqualTo(0);
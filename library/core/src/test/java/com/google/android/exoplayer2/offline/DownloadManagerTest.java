@@ -69,6 +69,7 @@ public class DownloadManagerTest {
   private Uri uri3;
   private DummyMainThread dummyMainThread;
   private DefaultDownloadIndex downloadIndex;
+  private CountingDownloadIndex countingDownloadIndex;
   private TestDownloadManagerListener downloadManagerListener;
   private FakeDownloaderFactory downloaderFactory;
   private DownloadManager downloadManager;
@@ -82,6 +83,7 @@ public class DownloadManagerTest {
     uri3 = Uri.parse("http://abc.com/media3");
     dummyMainThread = new DummyMainThread();
     downloadIndex = new DefaultDownloadIndex(TestUtil.getTestDatabaseProvider());
+    countingDownloadIndex = new CountingDownloadIndex(downloadIndex);
     downloaderFactory = new FakeDownloaderFactory();
     setUpDownloadManager(100);
   }
@@ -264,6 +266,57 @@ public class DownloadManagerTest {
     assertThat(downloadIndex.getDownloads().getCount()).isEqualTo(0);
   }
 
+  @Test
+  public void addDownloads_manyDownloads_writesIndexInSingleBatch() throws Throwable {
+    int downloadCount = 1000;
+    List<DownloadRequest> requests = new ArrayList<>(downloadCount);
+    for (int i = 0; i < downloadCount; i++) {
+      requests.add(
+          new DownloadRequest(
+              "id" + i,
+              DownloadRequest.TYPE_PROGRESSIVE,
+              Uri.parse("http://abc.com/media" + i),
+              Collections.emptyList(),
+              /* customCacheKey= */ null,
+              /* data= */ null));
+    }
+
+    // Use a stop reason so that no download tasks are started.
+    runOnMainThread(() -> downloadManager.addDownloads(requests, APP_STOP_REASON));
+    downloadManagerListener.assertState(
+        "id" + (downloadCount - 1), Download.STATE_STOPPED, ASSERT_TRUE_TIMEOUT);
+    downloadManagerListener.blockUntilTasksCompleteAndThrowAnyDownloadError();
+
+    assertThat(countingDownloadIndex.putDownloadCount).isEqualTo(0);
+    assertThat(countingDownloadIndex.putDownloadsCount).isEqualTo(1);
+    assertThat(downloadIndex.getDownloads(Download.STATE_STOPPED).getCount())
+        .isEqualTo(downloadCount);
+    assertThat(downloadManager.getCurrentDownloads()).hasSize(downloadCount);
+  }
+
+  @Test
+  public void removeDownloads_removesAllDownloads() throws Throwable {
+    DownloadRunner runner1 = new DownloadRunner(uri1);
+    DownloadRunner runner2 = new DownloadRunner(uri2);
+    runner1.postDownloadRequest();
+    runner2.postDownloadRequest();
+    runner1.getDownloader(0).assertStarted();
+    runner2.getDownloader(0).assertStarted();
+
+    runOnMainThread(
+        () -> downloadManager.removeDownloads(Arrays.asList(uri1.toString(), uri2.toString())));
+    runner1.getDownloader(1).unblock();
+    runner2.getDownloader(1).unblock();
+    downloadManagerListener.blockUntilTasksCompleteAndThrowAnyDownloadError();
+
+    runner1.getTask().assertRemoved();
+    runner2.getTask().assertRemoved();
+    assertThat(downloadManager.getCurrentDownloads()).isEmpty();
+    assertThat(downloadIndex.getDownloads().getCount()).isEqualTo(0);
+    assertThat(countingDownloadIndex.removeDownloadCount).isEqualTo(0);
+    assertThat(countingDownloadIndex.removeDownloadsCount).isAtLeast(1);
+  }
+
   @Test
   public void differentDownloadRequestsMerged() throws Throwable {
     DownloadRunner runner = new DownloadRunner(uri1);
@@ -556,7 +609,9 @@ public class DownloadManagerTest {
           () -> {
             downloadManager =
                 new DownloadManager(
-                    ApplicationProvider.getApplicationContext(), downloadIndex, downloaderFactory);
+                    ApplicationProvider.getApplicationContext(),
+                    countingDownloadIndex,
+                    downloaderFactory);
             downloadManager.setMaxParallelDownloads(maxParallelDownloads);
             downloadManager.setMinRetryCount(MIN_RETRY_COUNT);
             downloadManager.setRequirements(new Requirements(0));
@@ -730,6 +785,78 @@ public class DownloadManagerTest {
     }
   }
 
+  private static final class CountingDownloadIndex implements WritableDownloadIndex {
+
+    private final WritableDownloadIndex downloadIndex;
+
+    private volatile int putDownloadCount;
+    private volatile int putDownloadsCount;
+    private volatile int removeDownloadCount;
+    private volatile int removeDownloadsCount;
+
+    public CountingDownloadIndex(WritableDownloadIndex downloadIndex) {
+      this.downloadIndex = downloadIndex;
+    }
+
+    @Override
+    public Download getDownload(String id) throws IOException {
+      return downloadIndex.getDownload(id);
+    }
+
+    @Override
+    public DownloadCursor getDownloads(@State int... states) throws IOException {
+      return downloadIndex.getDownloads(states);
+    }
+
+    @SuppressWarnings({"NonAtomicOperationOnVolatileField", "NonAtomicVolatileUpdate"})
+    @Override
+    public void putDownload(Download download) throws IOException {
+      putDownloadCount++;
+      downloadIndex.putDownload(download);
+    }
+
+    @SuppressWarnings({"NonAtomicOperationOnVolatileField", "NonAtomicVolatileUpdate"})
+    @Override
+    public void putDownloads(List<Download> downloads) throws IOException {
+      putDownloadsCount++;
+      downloadIndex.putDownloads(downloads);
+    }
+
+    @SuppressWarnings({"NonAtomicOperationOnVolatileField", "NonAtomicVolatileUpdate"})
+    @Override
+    public void removeDownload(String id) throws IOException {
+      removeDownloadCount++;
+      downloadIndex.removeDownload(id);
+    }
+
+    @SuppressWarnings({"NonAtomicOperationOnVolatileField", "NonAtomicVolatileUpdate"})
+    @Override
+    public void removeDownloads(List<String> ids) throws IOException {
+      removeDownloadsCount++;
+      downloadIndex.removeDownloads(ids);
+    }
+
+    @Override
+    public void setDownloadingStatesToQueued() throws IOException {
+      downloadIndex.setDownloadingStatesToQueued();
+    }
+
+    @Override
+    public void setStatesToRemoving() throws IOException {
+      downloadIndex.setStatesToRemoving();
+    }
+
+    @Override
+    public void setStopReason(int stopReason) throws IOException {
+      downloadIndex.setStopReason(stopReason);
+    }
+
+    @Override
+    public void setStopReason(String id, int stopReason) throws IOException {
+      downloadIndex.setStopReason(id, stopReason);
+    }
+  }
+
   private static final class FakeDownloaderFactory implements DownloaderFactory {
 
     private final HashMap<Uri, DownloadRunner> downloaders;
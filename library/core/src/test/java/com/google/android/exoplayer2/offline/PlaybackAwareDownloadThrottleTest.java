@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.offline;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.upstream.DataRateLimiter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit tests for {@link PlaybackAwareDownloadThrottle}. */
+@RunWith(AndroidJUnit4.class)
+public final class PlaybackAwareDownloadThrottleTest {
+
+  private DataRateLimiter rateLimiter;
+  private PlaybackAwareDownloadThrottle throttle;
+
+  @Before
+  public void setUp() {
+    rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 0);
+    throttle =
+        new PlaybackAwareDownloadThrottle(rateLimiter, /* downloadBandwidthFraction= */ 0.5f);
+  }
+
+  @Test
+  public void playerIdle_downloadsUnlimited() {
+    throttle.onPlayerStateChanged(/* playWhenReady= */ true, Player.STATE_IDLE);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(DataRateLimiter.RATE_UNLIMITED);
+  }
+
+  @Test
+  public void playerRebuffering_downloadsPaused() {
+    throttle.onBandwidthSample(
+        /* elapsedMs= */ 1000, /* bytesTransferred= */ 1000, /* bitrateEstimate= */ 8_000_000);
+
+    throttle.onPlayerStateChanged(/* playWhenReady= */ true, Player.STATE_BUFFERING);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(0);
+  }
+
+  @Test
+  public void playerReady_downloadsLimitedToFractionOfBandwidth() {
+    throttle.onPlayerStateChanged(/* playWhenReady= */ true, Player.STATE_READY);
+    throttle.onBandwidthSample(
+        /* elapsedMs= */ 1000, /* bytesTransferred= */ 1000, /* bitrateEstimate= */ 8_000_000);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(500_000);
+  }
+
+  @Test
+  public void playerReadyWithoutBandwidthSample_downloadsUnlimited() {
+    throttle.onPlayerStateChanged(/* playWhenReady= */ true, Player.STATE_READY);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(DataRateLimiter.RATE_UNLIMITED);
+  }
+
+  @Test
+  public void playerRebufferingWithoutBandwidthSample_downloadsPaused() {
+    throttle.onPlayerStateChanged(/* playWhenReady= */ true, Player.STATE_BUFFERING);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(0);
+  }
+
+  @Test
+  public void playerPausedWhilstBuffering_downloadsLimitedToFractionOfBandwidth() {
+    throttle.onBandwidthSample(
+        /* elapsedMs= */ 1000, /* bytesTransferred= */ 1000, /* bitrateEstimate= */ 8_000_000);
+
+    throttle.onPlayerStateChanged(/* playWhenReady= */ false, Player.STATE_BUFFERING);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(500_000);
+  }
+
+  @Test
+  public void playerEnded_downloadsUnlimited() {
+    throttle.onPlayerStateChanged(/* playWhenReady= */ true, Player.STATE_BUFFERING);
+
+    throttle.onPlayerStateChanged(/* playWhenReady= */ true, Player.STATE_ENDED);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(DataRateLimiter.RATE_UNLIMITED);
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.offline;
+
+import static com.google.android.exoplayer2.testutil.CacheAsserts.assertDataCached;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import android.net.Uri;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.testutil.FakeDataSet;
+import com.google.android.exoplayer2.testutil.FakeDataSource;
+import com.google.android.exoplayer2.testutil.TestUtil;
+import com.google.android.exoplayer2.upstream.DataSink;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import com.google.android.exoplayer2.upstream.cache.NoOpCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import com.google.android.exoplayer2.util.Util;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit tests for {@link ProgressiveDownloader}. */
+@RunWith(AndroidJUnit4.class)
+public final class ProgressiveDownloaderTest {
+
+  private static final Uri URI = Uri.parse("test://uri");
+  private static final String KEY = CacheUtil.generateKey(URI);
+
+  private File tempFolder;
+  private SimpleCache cache;
+  private byte[] data;
+  private boolean simulateUnknownLength;
+  private List<FakeDataSource> upstreamDataSources;
+  private DownloaderConstructorHelper constructorHelper;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws Exception {
+    tempFolder =
+        Util.createTempDirectory(ApplicationProvider.getApplicationContext(), "ExoPlayerTest");
+    cache = new SimpleCache(tempFolder, new NoOpCacheEvictor());
+    data = TestUtil.buildTestData(1000);
+    upstreamDataSources = new ArrayList<>();
+    DataSource.Factory upstreamFactory =
+        () -> {
+          // FakeDataSource isn't thread-safe when sharing a FakeDataSet, so use one per source.
+          FakeDataSet fakeDataSet = new FakeDataSet();
+          fakeDataSet
+              .newData(URI)
+              .setSimulateUnknownLength(simulateUnknownLength)
+              .appendReadData(data)
+              .endData();
+          FakeDataSource dataSource = new FakeDataSource(fakeDataSet);
+          synchronized (upstreamDataSources) {
+            upstreamDataSources.add(dataSource);
+          }
+          return dataSource;
+        };
+    constructorHelper = new DownloaderConstructorHelper(cache, upstreamFactory);
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+    cache.release();
+    Util.recursiveDelete(tempFolder);
+  }
+
+  @Test
+  public void download_withParallelRequests_cachesAllData() throws Exception {
+    ProgressiveDownloader downloader =
+        new ProgressiveDownloader(
+            URI,
+            /* customCacheKey= */ null,
+            constructorHelper,
+            /* maxParallelRequests= */ 4,
+            /* rangeLengthBytes= */ 100,
+            executor);
+    ProgressRecorder progressRecorder = new ProgressRecorder();
+
+    downloader.download(progressRecorder);
+
+    assertDataCached(cache, new DataSpec(URI), data);
+    assertThat(progressRecorder.contentLength).isEqualTo(data.length);
+    assertThat(progressRecorder.bytesDownloaded).isEqualTo(data.length);
+    // One request to resolve the length, and one per range.
+    assertThat(getOpenedDataSpecs()).hasSize(11);
+  }
+
+  @Test
+  public void download_withParallelRequests_submitsAdditionalRequestsToExecutor()
+      throws Exception {
+    AtomicInteger submittedTaskCount = new AtomicInteger();
+    ProgressiveDownloader downloader =
+        new ProgressiveDownloader(
+            URI,
+            /* customCacheKey= */ null,
+            constructorHelper,
+            /* maxParallelRequests= */ 4,
+            /* rangeLengthBytes= */ 100,
+            runnable -> {
+              submittedTaskCount.incrementAndGet();
+              executor.execute(runnable);
+            });
+
+    downloader.download(/* progressListener= */ null);
+
+    assertDataCached(cache, new DataSpec(URI), data);
+    assertThat(submittedTaskCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void download_withParallelRequestsAndPartiallyCachedData_requestsOnlyMissingData()
+      throws Exception {
+    // Cache the first range and part of the third range.
+    CacheUtil.cache(
+        new DataSpec(URI, 0, 100, KEY),
+        cache,
+        /* cacheKeyFactory= */ null,
+        constructorHelper.createUpstreamDataSource(),
+        /* progressListener= */ null,
+        /* isCanceled= */ null);
+    CacheUtil.cache(
+        new DataSpec(URI, 200, 50, KEY),
+        cache,
+        /* cacheKeyFactory= */ null,
+        constructorHelper.createUpstreamDataSource(),
+        /* progressListener= */ null,
+        /* isCanceled= */ null);
+    upstreamDataSources.clear();
+    ProgressiveDownloader downloader =
+        new ProgressiveDownloader(
+            URI,
+            /* customCacheKey= */ null,
+            constructorHelper,
+            /* maxParallelRequests= */ 2,
+            /* rangeLengthBytes= */ 300,
+            executor);
+    ProgressRecorder progressRecorder = new ProgressRecorder();
+
+    downloader.download(progressRecorder);
+
+    assertDataCached(cache, new DataSpec(URI), data);
+    assertThat(progressRecorder.bytesDownloaded).isEqualTo(data.length);
+    List<DataSpec> openedDataSpecs = getOpenedDataSpecs();
+    // The first request resolves the length from the first hole.
+    assertThat(openedDataSpecs.get(0).absoluteStreamPosition).isEqualTo(100);
+    assertThat(openedDataSpecs.get(0).length).isEqualTo(C.LENGTH_UNSET);
+    long bytesRequested = 0;
+    for (DataSpec dataSpec : openedDataSpecs.subList(1, openedDataSpecs.size())) {
+      bytesRequested += dataSpec.length;
+    }
+    assertThat(bytesRequested).isEqualTo(data.length - 150);
+  }
+
+  @Test
+  public void download_withParallelRequestsAndUnknownLength_downloadsSequentially()
+      throws Exception {
+    simulateUnknownLength = true;
+    ProgressiveDownloader downloader =
+        new ProgressiveDownloader(
+            URI,
+            /* customCacheKey= */ null,
+            constructorHelper,
+            /* maxParallelRequests= */ 4,
+            /* rangeLengthBytes= */ 100,
+            executor);
+
+    downloader.download(/* progressListener= */ null);
+
+    assertDataCached(cache, new DataSpec(URI), data);
+  }
+
+  @Test
+  public void download_withParallelRequestsAndFullyCachedData_requestsNothing() throws Exception {
+    ProgressiveDownloader downloader =
+        new ProgressiveDownloader(
+            URI,
+            /* customCacheKey= */ null,
+            constructorHelper,
+            /* maxParallelRequests= */ 4,
+            /* rangeLengthBytes= */ 100,
+            executor);
+    downloader.download(/* progressListener= */ null);
+    upstreamDataSources.clear();
+    ProgressRecorder progressRecorder = new ProgressRecorder();
+
+    downloader.download(progressRecorder);
+
+    assertThat(getOpenedDataSpecs()).isEmpty();
+    assertThat(progressRecorder.percentDownloaded).isEqualTo(100f);
+  }
+
+  @Test
+  public void download_withParallelRequestsAndFailingSinkClose_throwsReadError()
+      throws Exception {
+    IOException readError = new IOException("read");
+    DataSource.Factory upstreamFactory =
+        () -> {
+          FakeDataSet fakeDataSet = new FakeDataSet();
+          fakeDataSet
+              .newData(URI)
+              .appendReadData(Arrays.copyOf(data, 500))
+              .appendReadError(readError)
+              .appendReadData(Arrays.copyOfRange(data, 500, data.length))
+              .endData();
+          return new FakeDataSource(fakeDataSet);
+        };
+    DataSink.Factory failingSinkFactory =
+        () ->
+            new DataSink() {
+              @Override
+              public void open(DataSpec dataSpec) {}
+
+              @Override
+              public void write(byte[] buffer, int offset, int length) {}
+
+              @Override
+              public void close() throws IOException {
+                throw new IOException("close");
+              }
+            };
+    ProgressiveDownloader downloader =
+        new ProgressiveDownloader(
+            URI,
+            /* customCacheKey= */ null,
+            new DownloaderConstructorHelper(
+                cache,
+                upstreamFactory,
+                /* cacheReadDataSourceFactory= */ null,
+                failingSinkFactory,
+                /* priorityTaskManager= */ null),
+            /* maxParallelRequests= */ 2,
+            /* rangeLengthBytes= */ data.length,
+            executor);
+
+    try {
+      downloader.download(/* progressListener= */ null);
+      fail();
+    } catch (IOException e) {
+      assertThat(e).isSameAs(readError);
+    }
+  }
+
+  private List<DataSpec> getOpenedDataSpecs() {
+    ArrayList<DataSpec> openedDataSpecs = new ArrayList<>();
+    for (FakeDataSource dataSource : upstreamDataSources) {
+      openedDataSpecs.addAll(Arrays.asList(dataSource.getAndClearOpenedDataSpecs()));
+    }
+    return openedDataSpecs;
+  }
+
+  private static final class ProgressRecorder implements Downloader.ProgressListener {
+
+    private long contentLength;
+    private long bytesDownloaded;
+    private float percentDownloaded;
+
+    @Override
+    public synchronized void onProgress(
+        long contentLength, long bytesDownloaded, float percentDownloaded) {
+      this.contentLength = contentLength;
+      this.bytesDownloaded = bytesDownloaded;
+      this.percentDownloaded = percentDownloaded;
+    }
+  }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.source;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Timeline;
+import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.ExtractorInput;
+import com.google.android.exoplayer2.extractor.ExtractorOutput;
+import com.google.android.exoplayer2.extractor.PositionHolder;
+import com.google.android.exoplayer2.extractor.SeekMap;
+import com.google.android.exoplayer2.source.MediaSource.MediaPeriodId;
+import com.google.android.exoplayer2.testutil.FakeDataSet;
+import com.google.android.exoplayer2.testutil.FakeDataSource;
+import com.google.android.exoplayer2.testutil.MediaSourceTestRunner;
+import com.google.android.exoplayer2.testutil.RobolectricUtil;
+import com.google.android.exoplayer2.trackselection.FixedTrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelection;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSink;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSinkFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheKeyFactory;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadata;
+import com.google.android.exoplayer2.upstream.cache.ContentMetadataMutations;
+import com.google.android.exoplayer2.upstream.cache.NoOpCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import com.google.android.exoplayer2.util.ConditionVariable;
+import com.google.android.exoplayer2.util.MimeTypes;
+import com.google.android.exoplayer2.util.Util;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+/** Unit tests for {@link ProgressiveMediaSource}. */
+@RunWith(AndroidJUnit4.class)
+@Config(shadows = {RobolectricUtil.CustomLooper.class, RobolectricUtil.CustomMessageQueue.class})
+public final class ProgressiveMediaSourceTest {
+
+  private static final Uri TEST_URI = Uri.parse("test://media");
+  private static final long DURATION_US = 5_000_000;
+  private static final String CACHE_KEY = "key";
+
+  private FakeDataSet fakeDataSet;
+  private File tempFolder;
+  private SimpleCache cache;
+  private List<String> sniffedExtractorClassNames;
+
+  @Before
+  public void setUp() throws Exception {
+    fakeDataSet = new FakeDataSet().setRandomData(TEST_URI, /* length= */ 100);
+    tempFolder =
+        Util.createTempDirectory(ApplicationProvider.getApplicationContext(), "ExoPlayerTest");
+    cache = new SimpleCache(tempFolder, new NoOpCacheEvictor());
+    sniffedExtractorClassNames = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @After
+  public void tearDown() {
+    cache.release();
+    Util.recursiveDelete(tempFolder);
+  }
+
+  @Test
+  public void testSeekMapWithDurationAfterPreparation_updatesTimeline() throws Exception {
+    ConditionVariable readCondition = new ConditionVariable();
+    ProgressiveMediaSource mediaSource =
+        new ProgressiveMediaSource.Factory(
+                () -> new FakeDataSource(fakeDataSet),
+                () -> new Extractor[] {new DurationAtEndOfInputExtractor(readCondition)})
+            .createMediaSource(TEST_URI);
+    DefaultAllocator allocator =
+        new DefaultAllocator(/* trimOnReset= */ true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
+    MediaSourceTestRunner testRunner = new MediaSourceTestRunner(mediaSource, allocator);
+    try {
+      Timeline timeline = testRunner.prepareSource();
+      assertThat(timeline.getWindow(0, new Timeline.Window()).durationUs)
+          .isEqualTo(C.TIME_UNSET);
+
+      MediaPeriodId mediaPeriodId =
+          new MediaPeriodId(timeline.getUidOfPeriod(/* periodIndex= */ 0));
+      MediaPeriod mediaPeriod = testRunner.createPeriod(mediaPeriodId);
+      CountDownLatch preparedCountDown =
+          testRunner.preparePeriod(mediaPeriod, /* positionUs= */ 0);
+      assertThat(
+              preparedCountDown.await(MediaSourceTestRunner.TIMEOUT_MS, TimeUnit.MILLISECONDS))
+          .isTrue();
+      // Only let the extractor read the input once the period has been prepared.
+      readCondition.open();
+      testRunner.runOnPlaybackThread(
+          () -> {
+            TrackSelection trackSelection =
+                new FixedTrackSelection(mediaPeriod.getTrackGroups().get(0), /* track= */ 0);
+            mediaPeriod.selectTracks(
+                new TrackSelection[] {trackSelection},
+                /* mayRetainStreamFlags= */ new boolean[1],
+                /* streams= */ new SampleStream[1],
+                /* streamResetFlags= */ new boolean[1],
+                /* positionUs= */ 0);
+            mediaPeriod.continueLoading(/* positionUs= */ 0);
+          });
+      timeline = testRunner.assertTimelineChangeBlocking();
+
+      // The duration is taken from the seek map output at the end of the input.
+      assertThat(timeline.getWindow(0, new Timeline.Window()).durationUs).isEqualTo(DURATION_US);
+      testRunner.releasePeriod(mediaPeriod);
+      testRunner.releaseSource();
+    } finally {
+      testRunner.release();
+    }
+  }
+
+  @Test
+  public void testPrepareCachedStream_recordsExtractorUnderCustomCacheKey() throws Exception {
+    CacheKeyFactory cacheKeyFactory = dataSpec -> CACHE_KEY;
+
+    preparePeriod(
+        createMediaSource(createCacheDataSourceFactory(cacheKeyFactory), cacheKeyFactory));
+
+    assertThat(ContentMetadata.getExtractorClassName(cache.getContentMetadata(CACHE_KEY)))
+        .isEqualTo(MatchingExtractor.class.getName());
+    assertThat(cache.getKeys()).containsExactly(CACHE_KEY);
+  }
+
+  @Test
+  public void testPrepareUncachedStream_doesNotRecordExtractor() throws Exception {
+    preparePeriod(
+        createMediaSource(() -> new FakeDataSource(fakeDataSet), /* cacheKeyFactory= */ null));
+
+    assertThat(cache.getKeys()).isEmpty();
+  }
+
+  @Test
+  public void testPrepareAgain_sniffsWithRecordedExtractorOnly() throws Exception {
+    CacheKeyFactory cacheKeyFactory = dataSpec -> CACHE_KEY;
+    preparePeriod(
+        createMediaSource(createCacheDataSourceFactory(cacheKeyFactory), cacheKeyFactory));
+    sniffedExtractorClassNames.clear();
+
+    // Use a stream from another location with the same cache key, so that only the content
+    // metadata links the two playbacks.
+    Uri otherUri = Uri.parse("test://other/media");
+    fakeDataSet.setRandomData(otherUri, /* length= */ 100);
+    preparePeriod(
+        new ProgressiveMediaSource.Factory(
+                createCacheDataSourceFactory(cacheKeyFactory), this::createExtractors)
+            .setContentMetadataCache(cache, cacheKeyFactory)
+            .createMediaSource(otherUri));
+
+    assertThat(sniffedExtractorClassNames).containsExactly(MatchingExtractor.class.getName());
+  }
+
+  @Test
+  public void testPrepareWithStaleRecordedExtractor_fallsBackToSniffing() throws Exception {
+    cache.applyContentMetadataMutations(
+        CACHE_KEY,
+        ContentMetadataMutations.setExtractorClassName(
+            new ContentMetadataMutations(), NonMatchingExtractor.class.getName()));
+
+    CacheKeyFactory cacheKeyFactory = dataSpec -> CACHE_KEY;
+
+    preparePeriod(
+        createMediaSource(createCacheDataSourceFactory(cacheKeyFactory), cacheKeyFactory));
+
+    assertThat(sniffedExtractorClassNames)
+        .containsExactly(NonMatchingExtractor.class.getName(), MatchingExtractor.class.getName())
+        .inOrder();
+    assertThat(ContentMetadata.getExtractorClassName(cache.getContentMetadata(CACHE_KEY)))
+        .isEqualTo(MatchingExtractor.class.getName());
+  }
+
+  @Test
+  public void testPrepareStreamFromSameLocation_sniffsWithPreviousExtractorFirst()
+      throws Exception {
+    Uri firstUri = Uri.parse("test://host/path/first.media");
+    Uri secondUri = Uri.parse("test://host/path/second.media?query=1");
+    fakeDataSet
+        .setRandomData(firstUri, /* length= */ 100)
+        .setRandomData(secondUri, /* length= */ 100);
+    ProgressiveMediaSource.Factory factory =
+        new ProgressiveMediaSource.Factory(
+            () -> new FakeDataSource(fakeDataSet), this::createExtractors);
+
+    preparePeriod(factory.createMediaSource(firstUri));
+    assertThat(sniffedExtractorClassNames)
+        .containsExactly(NonMatchingExtractor.class.getName(), MatchingExtractor.class.getName())
+        .inOrder();
+    sniffedExtractorClassNames.clear();
+    preparePeriod(factory.createMediaSource(secondUri));
+
+    assertThat(sniffedExtractorClassNames).containsExactly(MatchingExtractor.class.getName());
+  }
+
+  @Test
+  public void testPrepareStreamFromOtherLocation_sniffsInFactoryOrder() throws Exception {
+    Uri firstUri = Uri.parse("test://host/path/first.media");
+    Uri secondUri = Uri.parse("test://host/other/second.media");
+    fakeDataSet
+        .setRandomData(firstUri, /* length= */ 100)
+        .setRandomData(secondUri, /* length= */ 100);
+    ProgressiveMediaSource.Factory factory =
+        new ProgressiveMediaSource.Factory(
+            () -> new FakeDataSource(fakeDataSet), this::createExtractors);
+
+    preparePeriod(factory.createMediaSource(firstUri));
+    sniffedExtractorClassNames.clear();
+    preparePeriod(factory.createMediaSource(secondUri));
+
+    assertThat(sniffedExtractorClassNames)
+        .containsExactly(NonMatchingExtractor.class.getName(), MatchingExtractor.class.getName())
+        .inOrder();
+  }
+
+  @Test
+  public void testPrepareStreamFromSameLocationWithOtherFactory_sniffsInFactoryOrder()
+      throws Exception {
+    Uri firstUri = Uri.parse("test://host/path/first.media");
+    Uri secondUri = Uri.parse("test://host/path/second.media");
+    fakeDataSet
+        .setRandomData(firstUri, /* length= */ 100)
+        .setRandomData(secondUri, /* length= */ 100);
+
+    preparePeriod(
+        new ProgressiveMediaSource.Factory(
+                () -> new FakeDataSource(fakeDataSet), this::createExtractors)
+            .createMediaSource(firstUri));
+    sniffedExtractorClassNames.clear();
+    preparePeriod(
+        new ProgressiveMediaSource.Factory(
+                () -> new FakeDataSource(fakeDataSet), this::createExtractors)
+            .createMediaSource(secondUri));
+
+    assertThat(sniffedExtractorClassNames)
+        .containsExactly(NonMatchingExtractor.class.getName(), MatchingExtractor.class.getName())
+        .inOrder();
+  }
+
+  private ProgressiveMediaSource createMediaSource(
+      DataSource.Factory dataSourceFactory, @Nullable CacheKeyFactory cacheKeyFactory) {
+    return new ProgressiveMediaSource.Factory(dataSourceFactory, this::createExtractors)
+        .setContentMetadataCache(cache, cacheKeyFactory)
+        .createMediaSource(TEST_URI);
+  }
+
+  private DataSource.Factory createCacheDataSourceFactory(CacheKeyFactory cacheKeyFactory) {
+    return new CacheDataSourceFactory(
+        cache,
+        () -> new FakeDataSource(fakeDataSet),
+        new FileDataSourceFactory(),
+        new CacheDataSinkFactory(cache, CacheDataSink.DEFAULT_FRAGMENT_SIZE),
+        /* flags= */ 0,
+        /* eventListener= */ null,
+        cacheKeyFactory);
+  }
+
+  private Extractor[] createExtractors() {
+    return new Extractor[] {
+      new NonMatchingExtractor(sniffedExtractorClassNames),
+      new MatchingExtractor(sniffedExtractorClassNames)
+    };
+  }
+
+  private static void preparePeriod(MediaSource mediaSource) throws Exception {
+    DefaultAllocator allocator =
+        new DefaultAllocator(/* trimOnReset= */ true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
+    MediaSourceTestRunner testRunner = new MediaSourceTestRunner(mediaSource, allocator);
+    try {
+      Timeline timeline = testRunner.prepareSource();
+      MediaPeriod mediaPeriod =
+          testRunner.createPeriod(
+              new MediaPeriodId(timeline.getUidOfPeriod(/* periodIndex= */ 0)));
+      CountDownLatch preparedCountDown =
+          testRunner.preparePeriod(mediaPeriod, /* positionUs= */ 0);
+      assertThat(
+              preparedCountDown.await(MediaSourceTestRunner.TIMEOUT_MS, TimeUnit.MILLISECONDS))
+          .isTrue();
+      testRunner.releasePeriod(mediaPeriod);
+      testRunner.releaseSource();
+    } finally {
+      testRunner.release();
+    }
+  }
+
+  /**
+   * Fake extractor that outputs an unseekable seek map with an unknown duration when initialized,
+   * and another one with a known duration once it has read all of its input. Reading blocks until
+   * the given condition is opened.
+   */
+  private static final class DurationAtEndOfInputExtractor implements Extractor {
+
+    private final ConditionVariable readCondition;
+
+    private ExtractorOutput output;
+
+    public DurationAtEndOfInputExtractor(ConditionVariable readCondition) {
+      this.readCondition = readCondition;
+    }
+
+    @Override
+    public boolean sniff(ExtractorInput input) {
+      return true;
+    }
+
+    @Override
+    public void init(ExtractorOutput output) {
+      this.output = output;
+      output
+          .track(/* id= */ 0, C.TRACK_TYPE_AUDIO)
+          .format(
+              Format.createSampleFormat(
+                  /* id= */ null, MimeTypes.AUDIO_AAC, /* subsampleOffsetUs= */ 0));
+      output.endTracks();
+      output.seekMap(new SeekMap.Unseekable(C.TIME_UNSET));
+    }
+
+    @Override
+    public int read(ExtractorInput input, PositionHolder seekPosition)
+        throws IOException, InterruptedException {
+      readCondition.block();
+      if (input.skip(/* length= */ 1024) != C.RESULT_END_OF_INPUT) {
+        return RESULT_CONTINUE;
+      }
+      output.seekMap(new SeekMap.Unseekable(DURATION_US));
+      return RESULT_END_OF_INPUT;
+    }
+
+    @Override
+    public void seek(long position, long timeUs) {
+      // Do nothing.
+    }
+
+    @Override
+    public void release() {
+      // Do nothing.
+    }
+  }
+
+  /** Fake extractor that logs when it sniffs, and reads any input as a single audio track. */
+  private static class MatchingExtractor implements Extractor {
+
+    private static final int SNIFF_LENGTH = 10;
+
+    private final List<String> sniffedExtractorClassNames;
+
+    public MatchingExtractor(List<String> sniffedExtractorClassNames) {
+      this.sniffedExtractorClassNames = sniffedExtractorClassNames;
+    }
+
+    @Override
+    public boolean sniff(ExtractorInput input) throws IOException, InterruptedException {
+      sniffedExtractorClassNames.add(getClass().getName());
+      input.peekFully(new byte[SNIFF_LENGTH], /* offset= */ 0, SNIFF_LENGTH);
+      return true;
+    }
+
+    @Override
+    public void init(ExtractorOutput output) {
+      output
+          .track(/* id= */ 0, C.TRACK_TYPE_AUDIO)
+          .format(
+              Format.createSampleFormat(
+                  /* id= */ null, MimeTypes.AUDIO_AAC, /* subsampleOffsetUs= */ 0));
+      output.endTracks();
+      output.seekMap(new SeekMap.Unseekable(DURATION_US));
+    }
+
+    @Override
+    public int read(ExtractorInput input, PositionHolder seekPosition)
+        throws IOException, InterruptedException {
+      return input.skip(/* length= */ 1024) == C.RESULT_END_OF_INPUT
+          ? RESULT_END_OF_INPUT
+          : RESULT_CONTINUE;
+    }
+
+    @Override
+    public void seek(long position, long timeUs) {
+      // Do nothing.
+    }
+
+    @Override
+    public void release() {
+      // Do nothing.
+    }
+  }
+
+  /** Fake extractor that logs when it sniffs, and can't read any input. */
+  private static final class NonMatchingExtractor extends MatchingExtractor {
+
+    public NonMatchingExtractor(List<String> sniffedExtractorClassNames) {
+      super(sniffedExtractorClassNames);
+    }
+
+    @Override
+    public boolean sniff(ExtractorInput input) throws IOException, InterruptedException {
+      super.sniff(input);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.source;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.Uri;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.FormatHolder;
+import com.google.android.exoplayer2.Timeline;
+import com.google.android.exoplayer2.decoder.DecoderInputBuffer;
+import com.google.android.exoplayer2.source.MediaSource.MediaPeriodId;
+import com.google.android.exoplayer2.testutil.FakeDataSet;
+import com.google.android.exoplayer2.testutil.FakeDataSource;
+import com.google.android.exoplayer2.testutil.MediaSourceTestRunner;
+import com.google.android.exoplayer2.testutil.RobolectricUtil;
+import com.google.android.exoplayer2.text.subrip.SubripSegmenter;
+import com.google.android.exoplayer2.trackselection.FixedTrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelection;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.google.android.exoplayer2.util.ConditionVariable;
+import com.google.android.exoplayer2.util.MimeTypes;
+import com.google.android.exoplayer2.util.Util;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+/** Unit tests for {@link SingleSampleMediaPeriod}. */
+@RunWith(AndroidJUnit4.class)
+@Config(shadows = {RobolectricUtil.CustomLooper.class, RobolectricUtil.CustomMessageQueue.class})
+public final class SingleSampleMediaPeriodTest {
+
+  private static final Uri TEST_URI = Uri.parse("test://subtitles.srt");
+  private static final Format SUBRIP_FORMAT =
+      Format.createTextSampleFormat(
+          /* id= */ null, MimeTypes.APPLICATION_SUBRIP, /* selectionFlags= */ 0, "en");
+  private static final int CUE_COUNT = 1000;
+  private static final long CUE_INTERVAL_US = 1_000_000;
+  // Splits the data after the first two segments, but before the end of the third.
+  private static final int FIRST_PART_SIZE = 40 * 1024;
+
+  private byte[] data;
+  private List<SegmentInfo> expectedSegments;
+  private FakeDataSet fakeDataSet;
+  private MediaSourceTestRunner testRunner;
+  private MediaPeriod mediaPeriod;
+  private SampleStream sampleStream;
+  private FormatHolder formatHolder;
+  private DecoderInputBuffer buffer;
+
+  @Before
+  public void setUp() {
+    data = createSubripData();
+    expectedSegments = getExpectedSegments(data);
+    fakeDataSet = new FakeDataSet();
+    formatHolder = new FormatHolder();
+    buffer = new DecoderInputBuffer(DecoderInputBuffer.BUFFER_REPLACEMENT_MODE_NORMAL);
+  }
+
+  @After
+  public void tearDown() {
+    if (testRunner != null) {
+      testRunner.releasePeriod(mediaPeriod);
+      testRunner.releaseSource();
+      testRunner.release();
+    }
+  }
+
+  @Test
+  public void testReadWhileLoading_readsSegmentsAsTheyLoad() throws Exception {
+    ConditionVariable loadPaused = new ConditionVariable();
+    ConditionVariable resumeLoad = new ConditionVariable();
+    setDataWithPause(loadPaused, resumeLoad);
+    startLoading();
+
+    assertThat(loadPaused.block(MediaSourceTestRunner.TIMEOUT_MS)).isTrue();
+    // The first two segments are complete, and the third isn't.
+    assertThat(readData()).isEqualTo(C.RESULT_FORMAT_READ);
+    assertReadsSegment(0);
+    assertReadsSegment(1);
+    assertThat(readData()).isEqualTo(C.RESULT_NOTHING_READ);
+    assertThat(isReady()).isFalse();
+
+    resumeLoad.open();
+    waitForLoadCompleted();
+    for (int i = 2; i < expectedSegments.size(); i++) {
+      assertReadsSegment(i);
+    }
+    assertReadsEndOfStream();
+  }
+
+  @Test
+  public void testSeekBackwardsWhileLoading_resumesAtSegmentContainingPosition()
+      throws Exception {
+    ConditionVariable loadPaused = new ConditionVariable();
+    ConditionVariable resumeLoad = new ConditionVariable();
+    setDataWithPause(loadPaused, resumeLoad);
+    startLoading();
+    assertThat(loadPaused.block(MediaSourceTestRunner.TIMEOUT_MS)).isTrue();
+    assertThat(readData()).isEqualTo(C.RESULT_FORMAT_READ);
+    assertReadsSegment(0);
+    assertReadsSegment(1);
+
+    // A position inside the second segment resumes at its start.
+    seekTo(expectedSegments.get(1).timeUs + CUE_INTERVAL_US);
+    assertReadsSegment(1);
+    // A position inside the first segment resumes at the start of the data.
+    seekTo(CUE_INTERVAL_US);
+    assertReadsSegment(0);
+
+    resumeLoad.open();
+    waitForLoadCompleted();
+    for (int i = 1; i < expectedSegments.size(); i++) {
+      assertReadsSegment(i);
+    }
+    assertReadsEndOfStream();
+  }
+
+  @Test
+  public void testSkipData_skipsSegmentsReplacedBeforePosition() throws Exception {
+    fakeDataSet.setData(TEST_URI, data);
+    startLoading();
+    waitForLoadCompleted();
+    assertThat(readData()).isEqualTo(C.RESULT_FORMAT_READ);
+
+    // The first segment is still needed for a position before the second segment starts.
+    assertThat(skipData(expectedSegments.get(1).timeUs - 1)).isEqualTo(0);
+    assertThat(skipData(expectedSegments.get(2).timeUs)).isEqualTo(2);
+    assertReadsSegment(2);
+    // The last segment is never skipped, as its cues may still be active.
+    int lastIndex = expectedSegments.size() - 1;
+    long endTimeUs = CUE_COUNT * CUE_INTERVAL_US;
+    assertThat(skipData(endTimeUs)).isEqualTo(lastIndex - 3);
+    assertReadsSegment(lastIndex);
+    assertReadsEndOfStream();
+  }
+
+  @Test
+  public void testRetriedLoad_doesNotOutputSegmentsAgain() throws Exception {
+    fakeDataSet
+        .newData(TEST_URI)
+        .appendReadData(Arrays.copyOf(data, FIRST_PART_SIZE))
+        .appendReadError(new IOException())
+        .appendReadData(Arrays.copyOfRange(data, FIRST_PART_SIZE, data.length));
+    startLoading();
+    waitForLoadCompleted();
+
+    assertThat(readData()).isEqualTo(C.RESULT_FORMAT_READ);
+    for (int i = 0; i < expectedSegments.size(); i++) {
+      assertReadsSegment(i);
+    }
+    assertReadsEndOfStream();
+  }
+
+  /**
+   * Sets the test data so that loading pauses after {@link #FIRST_PART_SIZE} bytes until {@code
+   * resumeLoad} is opened, opening {@code loadPaused} when it pauses.
+   */
+  private void setDataWithPause(ConditionVariable loadPaused, ConditionVariable resumeLoad) {
+    fakeDataSet
+        .newData(TEST_URI)
+        .appendReadData(Arrays.copyOf(data, FIRST_PART_SIZE))
+        .appendReadAction(
+            () -> {
+              loadPaused.open();
+              try {
+                resumeLoad.block();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            })
+        .appendReadData(Arrays.copyOfRange(data, FIRST_PART_SIZE, data.length));
+  }
+
+  private void startLoading() throws Exception {
+    SingleSampleMediaSource mediaSource =
+        new SingleSampleMediaSource.Factory(() -> new FakeDataSource(fakeDataSet))
+            .setStreamSubtitles(true)
+            .createMediaSource(TEST_URI, SUBRIP_FORMAT, /* durationUs= */ C.TIME_UNSET);
+    testRunner =
+        new MediaSourceTestRunner(
+            mediaSource,
+            new DefaultAllocator(/* trimOnReset= */ true, C.DEFAULT_BUFFER_SEGMENT_SIZE));
+    Timeline timeline = testRunner.prepareSource();
+    mediaPeriod =
+        testRunner.createPeriod(new MediaPeriodId(timeline.getUidOfPeriod(/* periodIndex= */ 0)));
+    testRunner.preparePeriod(mediaPeriod, /* positionUs= */ 0);
+    testRunner.runOnPlaybackThread(
+        () -> {
+          SampleStream[] streams = new SampleStream[1];
+          mediaPeriod.selectTracks(
+              new TrackSelection[] {
+                new FixedTrackSelection(mediaPeriod.getTrackGroups().get(0), /* track= */ 0)
+              },
+              /* mayRetainStreamFlags= */ new boolean[1],
+              streams,
+              /* streamResetFlags= */ new boolean[1],
+              /* positionUs= */ 0);
+          sampleStream = streams[0];
+          mediaPeriod.continueLoading(/* positionUs= */ 0);
+        });
+  }
+
+  private void waitForLoadCompleted() throws InterruptedException {
+    long deadlineMs = System.currentTimeMillis() + MediaSourceTestRunner.TIMEOUT_MS;
+    long[] bufferedPositionUs = new long[1];
+    do {
+      testRunner.runOnPlaybackThread(
+          () -> bufferedPositionUs[0] = mediaPeriod.getBufferedPositionUs());
+      if (bufferedPositionUs[0] == C.TIME_END_OF_SOURCE) {
+        return;
+      }
+      Thread.sleep(10);
+    } while (System.currentTimeMillis() < deadlineMs);
+    throw new AssertionError("Load didn't complete");
+  }
+
+  private void seekTo(long positionUs) {
+    testRunner.runOnPlaybackThread(() -> mediaPeriod.seekToUs(positionUs));
+  }
+
+  private boolean isReady() {
+    boolean[] isReady = new boolean[1];
+    testRunner.runOnPlaybackThread(() -> isReady[0] = sampleStream.isReady());
+    return isReady[0];
+  }
+
+  private int readData() {
+    int[] result = new int[1];
+    testRunner.runOnPlaybackThread(
+        () -> {
+          buffer.clear();
+          result[0] = sampleStream.readData(formatHolder, buffer, /* requireFormat= */ false);
+        });
+    return result[0];
+  }
+
+  private int skipData(long positionUs) {
+    int[] skippedCount = new int[1];
+    testRunner.runOnPlaybackThread(() -> skippedCount[0] = sampleStream.skipData(positionUs));
+    return skippedCount[0];
+  }
+
+  private void assertReadsSegment(int index) {
+    SegmentInfo segment = expectedSegments.get(index);
+    assertThat(readData()).isEqualTo(C.RESULT_BUFFER_READ);
+    assertThat(buffer.isEndOfStream()).isFalse();
+    assertThat(buffer.timeUs).isEqualTo(segment.timeUs);
+    buffer.flip();
+    byte[] segmentData = new byte[buffer.data.remaining()];
+    buffer.data.get(segmentData);
+    assertThat(segmentData)
+        .isEqualTo(Arrays.copyOfRange(data, segment.offset, segment.offset + segment.size));
+  }
+
+  private void assertReadsEndOfStream() {
+    assertThat(readData()).isEqualTo(C.RESULT_BUFFER_READ);
+    assertThat(buffer.isEndOfStream()).isTrue();
+  }
+
+  private static byte[] createSubripData() {
+    StringBuilder subrip = new StringBuilder();
+    for (int i = 0; i < CUE_COUNT; i++) {
+      long startTimeMs = C.usToMs(i * CUE_INTERVAL_US);
+      subrip
+          .append(i + 1)
+          .append('\n')
+          .append(formatTimecode(startTimeMs))
+          .append(" --> ")
+          .append(formatTimecode(startTimeMs + 500))
+          .append('\n')
+          .append("This is the text of cue number ")
+          .append(i + 1)
+          .append(", which fills a line.\n\n");
+    }
+    return Util.getUtf8Bytes(subrip.toString());
+  }
+
+  private static String formatTimecode(long timeMs) {
+    return Util.formatInvariant(
+        "%02d:%02d:%02d,%03d",
+        timeMs / 3_600_000, (timeMs / 60_000) % 60, (timeMs / 1000) % 60, timeMs % 1000);
+  }
+
+  private static List<SegmentInfo> getExpectedSegments(byte[] data) {
+    List<SegmentInfo> segments = new ArrayList<>();
+    SubripSegmenter segmenter =
+        new SubripSegmenter(
+            (offset, size, timeUs) -> segments.add(new SegmentInfo(offset, size, timeUs)),
+            SubripSegmenter.DEFAULT_MIN_SEGMENT_SIZE);
+    segmenter.endOfInput(data, data.length);
+    // The tests rely on the data being split into several segments.
+    assertThat(segments.size()).isAtLeast(5);
+    assertThat(segments.get(2).offset + segments.get(2).size).isGreaterThan(FIRST_PART_SIZE);
+    assertThat(segments.get(1).offset + segments.get(1).size).isAtMost(FIRST_PART_SIZE);
+    return segments;
+  }
+
+  private static final class SegmentInfo {
+
+    public final int offset;
+    public final int size;
+    public final long timeUs;
+
+    public SegmentInfo(int offset, int size, long timeUs) {
+      this.offset = offset;
+      this.size = size;
+      this.timeUs = timeUs;
+    }
+  }
+}
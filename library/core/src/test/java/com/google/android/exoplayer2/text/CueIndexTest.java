@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link CueIndex}. */
+@RunWith(AndroidJUnit4.class)
+public final class CueIndexTest {
+
+  private static final Cue FIRST_CUE = new Cue("first");
+  private static final Cue SECOND_CUE = new Cue("second");
+
+  @Test
+  public void testGetCues_withOverlappingCues_returnsActiveCuesInOrder() {
+    CueIndex cueIndex =
+        new CueIndex(
+            Arrays.asList(FIRST_CUE, SECOND_CUE),
+            /* startTimesUs= */ new long[] {1000, 2000},
+            /* endTimesUs= */ new long[] {3000, 4000});
+
+    assertThat(cueIndex.getCues(999)).isEmpty();
+    assertThat(cueIndex.getCues(1000)).containsExactly(FIRST_CUE);
+    assertThat(cueIndex.getCues(2000)).containsExactly(FIRST_CUE, SECOND_CUE).inOrder();
+    assertThat(cueIndex.getCues(2999)).containsExactly(FIRST_CUE, SECOND_CUE).inOrder();
+    assertThat(cueIndex.getCues(3000)).containsExactly(SECOND_CUE);
+    assertThat(cueIndex.getCues(4000)).isEmpty();
+  }
+
+  @Test
+  public void testGetCues_returnsSameListForSameInterval() {
+    CueIndex cueIndex =
+        new CueIndex(
+            Arrays.asList(FIRST_CUE, SECOND_CUE),
+            /* startTimesUs= */ new long[] {1000, 2000},
+            /* endTimesUs= */ new long[] {3000, 4000});
+
+    assertThat(cueIndex.getCues(2500)).isSameAs(cueIndex.getCues(2000));
+  }
+
+  @Test
+  public void testGetCues_withMerger_returnsMergedCues() {
+    CueIndex cueIndex =
+        new CueIndex(
+            Arrays.asList(FIRST_CUE, SECOND_CUE),
+            /* startTimesUs= */ new long[] {1000, 2000},
+            /* endTimesUs= */ new long[] {3000, 4000},
+            cues -> Collections.singletonList(new Cue(cues.size() + " cues")));
+
+    assertThat(cueIndex.getCues(1000).get(0).text.toString()).isEqualTo("1 cues");
+    assertThat(cueIndex.getCues(2000).get(0).text.toString()).isEqualTo("2 cues");
+  }
+
+  @Test
+  public void testFromCueTimes_withoutEndTimes_activatesCuesUntilNextTime() {
+    CueIndex cueIndex =
+        CueIndex.fromCueTimes(
+            new Cue[] {FIRST_CUE, SECOND_CUE, null, FIRST_CUE},
+            /* cueTimesUs= */ new long[] {1000, 2000, 3000, 4000});
+
+    assertThat(cueIndex.getCues(1500)).containsExactly(FIRST_CUE);
+    assertThat(cueIndex.getCues(2500)).containsExactly(SECOND_CUE);
+    assertThat(cueIndex.getCues(3500)).isEmpty();
+    assertThat(cueIndex.getCues(4000)).containsExactly(FIRST_CUE);
+    assertThat(cueIndex.getCues(Long.MAX_VALUE)).containsExactly(FIRST_CUE);
+  }
+
+  @Test
+  public void testGetCues_withManyCues_matchesLinearScan() {
+    int cueCount = 10_000;
+    Random random = new Random(/* seed= */ 0);
+    List<Cue> cues = new ArrayList<>();
+    long[] startTimesUs = new long[cueCount];
+    long[] endTimesUs = new long[cueCount];
+    for (int i = 0; i < cueCount; i++) {
+      cues.add(new Cue(Integer.toString(i)));
+      startTimesUs[i] = i * 1_000_000L + random.nextInt(1_000_000);
+      // Some cues overlap the next few cues.
+      endTimesUs[i] = startTimesUs[i] + random.nextInt(3_000_000);
+    }
+    CueIndex cueIndex = new CueIndex(cues, startTimesUs, endTimesUs);
+
+    for (int i = 0; i < 1000; i++) {
+      long timeUs = random.nextInt(cueCount) * 1_000_000L + random.nextInt(1_000_000);
+      List<Cue> expectedCues = new ArrayList<>();
+      for (int j = 0; j < cueCount; j++) {
+        if (startTimesUs[j] <= timeUs && timeUs < endTimesUs[j]) {
+          expectedCues.add(cues.get(j));
+        }
+      }
+      assertThat(cueIndex.getCues(timeUs)).containsExactlyElementsIn(expectedCues).inOrder();
+    }
+  }
+}
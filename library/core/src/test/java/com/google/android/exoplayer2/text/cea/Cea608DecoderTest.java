@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text.cea;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.text.Cue;
+import com.google.android.exoplayer2.text.SubtitleDecoderException;
+import com.google.android.exoplayer2.text.SubtitleInputBuffer;
+import com.google.android.exoplayer2.text.SubtitleOutputBuffer;
+import com.google.android.exoplayer2.util.MimeTypes;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link Cea608Decoder}. */
+@RunWith(AndroidJUnit4.class)
+public final class Cea608DecoderTest {
+
+  private static final int RESUME_CAPTION_LOADING = 0x1420;
+  private static final int ROLL_UP_CAPTIONS_2_ROWS = 0x1425;
+  private static final int END_OF_CAPTION = 0x142F;
+  private static final int CARRIAGE_RETURN = 0x142D;
+
+  private Cea608Decoder decoder;
+  private long timeUs;
+
+  @Before
+  public void setUp() {
+    decoder = new Cea608Decoder(MimeTypes.APPLICATION_CEA608, /* accessibilityChannel= */ 1);
+    decoder.setPositionUs(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testPopOnCaption_outputsCaptionAtEndOfCaption() throws Exception {
+    assertThat(decode(RESUME_CAPTION_LOADING, 'H' << 8 | 'i')).isNull();
+
+    List<Cue> cues = decode(END_OF_CAPTION);
+
+    assertThat(cues).hasSize(1);
+    assertThat(cues.get(0).text.toString()).isEqualTo("Hi");
+  }
+
+  @Test
+  public void testRollUpCaption_withUnchangedScreen_doesNotOutputSubtitle() throws Exception {
+    List<Cue> cues = decode(ROLL_UP_CAPTIONS_2_ROWS, 'H' << 8 | 'i');
+    assertThat(cues).hasSize(1);
+    assertThat(cues.get(0).text.toString()).isEqualTo("Hi");
+
+    // Selecting the current mode again is processed, but doesn't change the displayed captions.
+    assertThat(decode(ROLL_UP_CAPTIONS_2_ROWS)).isNull();
+  }
+
+  @Test
+  public void testRollUpCaption_afterCarriageReturn_outputsRolledUpCaption() throws Exception {
+    decode(ROLL_UP_CAPTIONS_2_ROWS, 'H' << 8 | 'i');
+    decode(CARRIAGE_RETURN);
+
+    List<Cue> cues = decode('Y' << 8 | 'o');
+
+    assertThat(cues).hasSize(1);
+    assertThat(cues.get(0).text.toString()).isEqualTo("Hi\nYo");
+    assertThat(decode(ROLL_UP_CAPTIONS_2_ROWS)).isNull();
+  }
+
+  /**
+   * Decodes a sample containing the given byte pairs in field 1, and returns the cues of the
+   * output subtitle, or null if no subtitle is output.
+   */
+  @Nullable
+  private List<Cue> decode(int... bytePairs) throws SubtitleDecoderException {
+    SubtitleInputBuffer inputBuffer = decoder.dequeueInputBuffer();
+    inputBuffer.ensureSpaceForWrite(bytePairs.length * 3);
+    for (int bytePair : bytePairs) {
+      inputBuffer.data.put((byte) 0xFC);
+      inputBuffer.data.put(withOddParity(bytePair >> 8));
+      inputBuffer.data.put(withOddParity(bytePair & 0xFF));
+    }
+    inputBuffer.data.flip();
+    inputBuffer.timeUs = timeUs++;
+    decoder.queueInputBuffer(inputBuffer);
+    SubtitleOutputBuffer outputBuffer = decoder.dequeueOutputBuffer();
+    if (outputBuffer == null) {
+      return null;
+    }
+    List<Cue> cues = outputBuffer.getCues(outputBuffer.timeUs);
+    outputBuffer.release();
+    return cues;
+  }
+
+  private static byte withOddParity(int value) {
+    return (byte) (Integer.bitCount(value) % 2 == 0 ? value | 0x80 : value);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text.cea;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.text.Cue;
+import com.google.android.exoplayer2.text.SubtitleDecoderException;
+import com.google.android.exoplayer2.text.SubtitleInputBuffer;
+import com.google.android.exoplayer2.text.SubtitleOutputBuffer;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link Cea708Decoder}. */
+@RunWith(AndroidJUnit4.class)
+public final class Cea708DecoderTest {
+
+  // DefineWindow 0 as visible, with window style 1 and pen style 1.
+  private static final int[] DEFINE_WINDOW_0 = {0x98, 0x38, 0x00, 0x00, 0x00, 0x1F, 0x09};
+  private static final int SET_CURRENT_WINDOW_0 = 0x80;
+  private static final int HIDE_WINDOWS = 0x8A;
+
+  private Cea708Decoder decoder;
+  private long timeUs;
+  private int sequenceNumber;
+
+  @Before
+  public void setUp() {
+    decoder = new Cea708Decoder(Format.NO_VALUE, /* initializationData= */ null);
+    decoder.setPositionUs(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testText_outputsCue() throws Exception {
+    List<Cue> cues = decodeServiceBlock(concat(DEFINE_WINDOW_0, new int[] {'H', 'i'}));
+
+    assertThat(cues).hasSize(1);
+    assertThat(cues.get(0).text.toString()).isEqualTo("Hi");
+  }
+
+  @Test
+  public void testCommandWithUnchangedWindows_doesNotOutputSubtitle() throws Exception {
+    decodeServiceBlock(concat(DEFINE_WINDOW_0, new int[] {'H', 'i'}));
+
+    assertThat(decodeServiceBlock(SET_CURRENT_WINDOW_0)).isNull();
+    assertThat(decodeServiceBlock(HIDE_WINDOWS, 0x01)).isEmpty();
+  }
+
+  /**
+   * Decodes a sample containing a DTVCC packet with a single service block for service 1, and
+   * returns the cues of the output subtitle, or null if no subtitle is output.
+   */
+  @Nullable
+  private List<Cue> decodeServiceBlock(int... serviceBlockData) throws SubtitleDecoderException {
+    // The packet data consists of the service block header and data, padded with NUL commands to
+    // an odd length.
+    int blockSize = serviceBlockData.length + serviceBlockData.length % 2;
+    byte[] packetData = new byte[1 + blockSize];
+    packetData[0] = (byte) (1 << 5 | blockSize);
+    for (int i = 0; i < serviceBlockData.length; i++) {
+      packetData[i + 1] = (byte) serviceBlockData[i];
+    }
+    int packetSize = (packetData.length + 1) / 2;
+
+    SubtitleInputBuffer inputBuffer = decoder.dequeueInputBuffer();
+    inputBuffer.ensureSpaceForWrite(packetSize * 3);
+    inputBuffer.data.put((byte) 0xFF);
+    inputBuffer.data.put((byte) ((sequenceNumber++ % 4) << 6 | packetSize));
+    inputBuffer.data.put(packetData[0]);
+    for (int i = 1; i < packetData.length; i += 2) {
+      inputBuffer.data.put((byte) 0xFE);
+      inputBuffer.data.put(packetData[i]);
+      inputBuffer.data.put(packetData[i + 1]);
+    }
+    inputBuffer.data.flip();
+    inputBuffer.timeUs = timeUs++;
+    decoder.queueInputBuffer(inputBuffer);
+    SubtitleOutputBuffer outputBuffer = decoder.dequeueOutputBuffer();
+    if (outputBuffer == null) {
+      return null;
+    }
+    List<Cue> cues = outputBuffer.getCues(outputBuffer.timeUs);
+    outputBuffer.release();
+    return cues;
+  }
+
+  private static int[] concat(int[] first, int[] second) {
+    int[] result = new int[first.length + second.length];
+    System.arraycopy(first, 0, result, 0, first.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text.dvb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.testutil.TestUtil;
+import com.google.android.exoplayer2.text.Cue;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link DvbDecoder}. */
+@RunWith(AndroidJUnit4.class)
+public final class DvbDecoderTest {
+
+  private DvbDecoder decoder;
+
+  @Before
+  public void setUp() {
+    // The composition and ancillary pages are both page 1.
+    byte[] initializationData = TestUtil.createByteArray(0x00, 0x01, 0x00, 0x01);
+    decoder = new DvbDecoder(Collections.singletonList(initializationData));
+  }
+
+  @Test
+  public void testDecode_outputsRegionCue() {
+    List<Cue> cues = decode(createPacket(/* pixelCode= */ 0x1));
+
+    assertThat(cues).hasSize(1);
+    assertThat(cues.get(0).bitmap.getWidth()).isEqualTo(4);
+    assertThat(cues.get(0).bitmap.getHeight()).isEqualTo(2);
+  }
+
+  @Test
+  public void testDecode_withUnchangedRegion_reusesCue() {
+    Cue cue = decode(createPacket(/* pixelCode= */ 0x1)).get(0);
+
+    assertThat(decode(createPacket(/* pixelCode= */ 0x1))).containsExactly(cue);
+  }
+
+  @Test
+  public void testDecode_withChangedObject_paintsNewCue() {
+    Cue cue = decode(createPacket(/* pixelCode= */ 0x1)).get(0);
+
+    List<Cue> cues = decode(createPacket(/* pixelCode= */ 0x2));
+
+    assertThat(cues).hasSize(1);
+    assertThat(cues.get(0)).isNotSameAs(cue);
+  }
+
+  private List<Cue> decode(byte[] data) {
+    return decoder.decode(data, data.length, /* reset= */ false).getCues(/* timeUs= */ 0);
+  }
+
+  /**
+   * Returns a packet for page 1 in the acquisition state, containing a 4x2 region with a single
+   * object that consists of one pixel with the given 4-bit pixel code.
+   */
+  private static byte[] createPacket(int pixelCode) {
+    return TestUtil.createByteArray(
+        // Page composition: timeout, version and state, then region 0 at (16, 32).
+        0x0F, 0x10, 0x00, 0x01, 0x00, 0x08,
+        0x05, 0x04, 0x00, 0x00, 0x00, 0x10, 0x00, 0x20,
+        // Region composition: region 0, 4x2 with 4-bit depth and CLUT 0, then object 1 at (0, 0).
+        0x0F, 0x11, 0x00, 0x01, 0x00, 0x10,
+        0x00, 0x00, 0x00, 0x04, 0x00, 0x02, 0x28, 0x00, 0x00, 0x00,
+        0x00, 0x01, 0x00, 0x00, 0x00, 0x00,
+        // Object data: object 1, with a 4-bit code string in the top field.
+        0x0F, 0x13, 0x00, 0x01, 0x00, 0x0A,
+        0x00, 0x01, 0x00, 0x00, 0x03, 0x00, 0x00,
+        0x11, pixelCode << 4, 0x00);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text.pgs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.testutil.TestUtil;
+import com.google.android.exoplayer2.text.Cue;
+import com.google.android.exoplayer2.text.Subtitle;
+import com.google.android.exoplayer2.text.SubtitleDecoderException;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link PgsDecoder}. */
+@RunWith(AndroidJUnit4.class)
+public final class PgsDecoderTest {
+
+  private static final int OPAQUE_WHITE = 0xFFFFFFFF;
+  private static final int OPAQUE_BLACK = 0xFF000000;
+
+  @Test
+  public void testDecode_outputsBitmapCue() throws SubtitleDecoderException {
+    PgsDecoder decoder = new PgsDecoder();
+
+    Cue cue = decodeSingleCue(decoder, createDisplaySet(/* luma= */ 255));
+
+    assertThat(cue.bitmap.getWidth()).isEqualTo(2);
+    assertThat(cue.bitmap.getHeight()).isEqualTo(2);
+    assertThat(cue.bitmap.getPixel(1, 1)).isEqualTo(OPAQUE_WHITE);
+    assertThat(cue.position).isEqualTo(0.25f);
+    assertThat(cue.line).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void testDecode_withRepeatedObject_reusesBitmap() throws SubtitleDecoderException {
+    PgsDecoder decoder = new PgsDecoder();
+    Bitmap bitmap = decodeSingleCue(decoder, createDisplaySet(/* luma= */ 255)).bitmap;
+
+    assertThat(decodeSingleCue(decoder, createDisplaySet(/* luma= */ 255)).bitmap)
+        .isSameAs(bitmap);
+  }
+
+  @Test
+  public void testDecode_withChangedPalette_decodesNewBitmap() throws SubtitleDecoderException {
+    PgsDecoder decoder = new PgsDecoder();
+    Bitmap bitmap = decodeSingleCue(decoder, createDisplaySet(/* luma= */ 255)).bitmap;
+
+    Bitmap newBitmap = decodeSingleCue(decoder, createDisplaySet(/* luma= */ 0)).bitmap;
+
+    assertThat(newBitmap).isNotSameAs(bitmap);
+    assertThat(newBitmap.getPixel(0, 0)).isEqualTo(OPAQUE_BLACK);
+  }
+
+  private static Cue decodeSingleCue(PgsDecoder decoder, byte[] data)
+      throws SubtitleDecoderException {
+    Subtitle subtitle = decoder.decode(data, data.length, /* reset= */ false);
+    List<Cue> cues = subtitle.getCues(/* timeUs= */ 0);
+    assertThat(cues).hasSize(1);
+    return cues.get(0);
+  }
+
+  /**
+   * Returns a display set with a 2x2 object at (2, 4) on an 8x8 plane, in which every pixel has
+   * palette entry 1. Palette entry 1 is opaque grey with the given luma.
+   */
+  private static byte[] createDisplaySet(int luma) {
+    return TestUtil.createByteArray(
+        // Palette section: id, version, then the (index, y, cr, cb, alpha) entry.
+        0x14, 0x00, 0x07, 0x00, 0x00, 0x01, luma, 0x80, 0x80, 0xFF,
+        // Bitmap section: id, version, base section flag, total length, width and height, then
+        // two lines of two pixels, each followed by an end of line code.
+        0x15, 0x00, 0x13, 0x00, 0x00, 0x00, 0x80, 0x00, 0x00, 0x0C, 0x00, 0x02, 0x00, 0x02,
+        0x01, 0x01, 0x00, 0x00, 0x01, 0x01, 0x00, 0x00,
+        // Identifier section: plane size, 11 skipped bytes, then the object position.
+        0x16, 0x00, 0x13, 0x00, 0x08, 0x00, 0x08, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x02, 0x00, 0x04,
+        // End section.
+        0x80, 0x00, 0x00);
+  }
+}
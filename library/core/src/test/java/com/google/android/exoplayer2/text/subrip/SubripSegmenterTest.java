@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.text.subrip;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.util.LongArray;
+import com.google.android.exoplayer2.util.Util;
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit test for {@link SubripSegmenter}. */
+@RunWith(AndroidJUnit4.class)
+public final class SubripSegmenterTest {
+
+  private static final int CUE_COUNT = 100;
+  private static final int MIN_SEGMENT_SIZE = 500;
+
+  @Test
+  public void testSegmentsDecodeToAllCues() {
+    byte[] data = createSubrip(/* overlapEvery= */ 0);
+    FakeOutput output = new FakeOutput();
+    SubripSegmenter segmenter = new SubripSegmenter(output, MIN_SEGMENT_SIZE);
+
+    segmenter.endOfInput(data, data.length);
+
+    assertThat(output.timesUs.size()).isGreaterThan(1);
+    assertThat(output.offsets.get(0)).isEqualTo(0);
+    int cueIndex = 0;
+    SubripDecoder decoder = new SubripDecoder();
+    for (int i = 0; i < output.timesUs.size(); i++) {
+      int offset = (int) output.offsets.get(i);
+      int size = (int) output.sizes.get(i);
+      if (i > 0) {
+        assertThat(offset)
+            .isEqualTo((int) output.offsets.get(i - 1) + (int) output.sizes.get(i - 1));
+      }
+      if (i < output.timesUs.size() - 1) {
+        assertThat(size).isAtLeast(MIN_SEGMENT_SIZE);
+      }
+      byte[] segment = Arrays.copyOfRange(data, offset, offset + size);
+      SubripSubtitle subtitle = decoder.decode(segment, segment.length, false);
+      assertThat(subtitle.getEventTime(0)).isEqualTo(output.timesUs.get(i));
+      for (int j = 0; j < subtitle.getEventTimeCount(); j += 2) {
+        assertThat(subtitle.getEventTime(j)).isEqualTo(getCueStartTimeUs(cueIndex));
+        assertThat(subtitle.getCues(subtitle.getEventTime(j)).get(0).text.toString())
+            .isEqualTo("Cue " + cueIndex);
+        cueIndex++;
+      }
+    }
+    assertThat(cueIndex).isEqualTo(CUE_COUNT);
+  }
+
+  @Test
+  public void testIncrementalConsume_outputsSameSegments() {
+    byte[] data = createSubrip(/* overlapEvery= */ 0);
+    FakeOutput expectedOutput = new FakeOutput();
+    new SubripSegmenter(expectedOutput, MIN_SEGMENT_SIZE).endOfInput(data, data.length);
+
+    FakeOutput output = new FakeOutput();
+    SubripSegmenter segmenter = new SubripSegmenter(output, MIN_SEGMENT_SIZE);
+    for (int limit = 0; limit < data.length; limit += 7) {
+      segmenter.consume(data, limit);
+    }
+    segmenter.endOfInput(data, data.length);
+
+    assertThat(output.timesUs.toArray()).isEqualTo(expectedOutput.timesUs.toArray());
+    assertThat(output.offsets.toArray()).isEqualTo(expectedOutput.offsets.toArray());
+    assertThat(output.sizes.toArray()).isEqualTo(expectedOutput.sizes.toArray());
+  }
+
+  @Test
+  public void testOverlappingCues_areNotSplit() {
+    byte[] data = createSubrip(/* overlapEvery= */ 2);
+    FakeOutput output = new FakeOutput();
+    SubripSegmenter segmenter = new SubripSegmenter(output, MIN_SEGMENT_SIZE);
+
+    segmenter.endOfInput(data, data.length);
+
+    assertThat(output.timesUs.size()).isGreaterThan(1);
+    for (int i = 1; i < output.timesUs.size(); i++) {
+      // Each odd cue overlaps the next one, so segments can only start with odd cues.
+      long cueIndex = output.timesUs.get(i) / getCueStartTimeUs(1);
+      assertThat(cueIndex % 2).isEqualTo(1);
+    }
+  }
+
+  /**
+   * Returns SubRip data with {@link #CUE_COUNT} cues. If {@code overlapEvery} is positive, every
+   * cue whose index is one less than a multiple of it ends after the next cue starts.
+   */
+  private static byte[] createSubrip(int overlapEvery) {
+    StringBuilder subrip = new StringBuilder();
+    for (int i = 0; i < CUE_COUNT; i++) {
+      long startTimeMs = getCueStartTimeUs(i) / 1000;
+      long endTimeMs = startTimeMs + 1000;
+      if (overlapEvery > 0 && i % overlapEvery == overlapEvery - 1) {
+        endTimeMs += 1500;
+      }
+      subrip
+          .append(i + 1)
+          .append("\r\n")
+          .append(formatTimecode(startTimeMs))
+          .append(" --> ")
+          .append(formatTimecode(endTimeMs))
+          .append("\r\nCue ")
+          .append(i)
+          .append("\r\n\r\n");
+    }
+    return Util.getUtf8Bytes(subrip.toString());
+  }
+
+  private static long getCueStartTimeUs(int cueIndex) {
+    return cueIndex * 2_000_000L;
+  }
+
+  private static String formatTimecode(long timeMs) {
+    return Util.formatInvariant(
+        "%02d:%02d:%02d,%03d",
+        timeMs / 3_600_000, (timeMs / 60_000) % 60, (timeMs / 1000) % 60, timeMs % 1000);
+  }
+
+  private static final class FakeOutput implements SubripSegmenter.Output {
+
+    public final LongArray offsets = new LongArray();
+    public final LongArray sizes = new LongArray();
+    public final LongArray timesUs = new LongArray();
+
+    @Override
+    public void onSegment(int offset, int size, long timeUs) {
+      offsets.add(offset);
+      sizes.add(size);
+      timesUs.add(timeUs);
+    }
+  }
+}
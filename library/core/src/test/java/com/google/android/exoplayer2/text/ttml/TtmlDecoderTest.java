@@ -36,6 +36,7 @@ import com.google.android.exoplayer2.testutil.TestUtil;
 import com.google.android.exoplayer2.text.Cue;
 import com.google.android.exoplayer2.text.SubtitleDecoderException;
 import com.google.android.exoplayer2.util.ColorParser;
+import com.google.android.exoplayer2.util.Util;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -587,6 +588,39 @@ public final class TtmlDecoderTest {
     assertThat(cue.bitmapHeight).isEqualTo(Cue.DIMEN_UNSET);
   }
 
+  @Test
+  public void testGetCuesWithinInterval_returnsSameCues()
+      throws IOException, SubtitleDecoderException {
+    TtmlSubtitle subtitle = getSubtitle(INLINE_ATTRIBUTES_TTML_FILE);
+
+    List<Cue> cues = subtitle.getCues(10000000);
+    assertThat(cues).hasSize(1);
+    assertThat(subtitle.getCues(subtitle.getEventTime(0))).isSameAs(cues);
+  }
+
+  @Test
+  public void testGetCuesWithManyIntervals_rendersCuesWhenRequested()
+      throws SubtitleDecoderException {
+    int cueCount = TtmlSubtitle.MAX_PRECOMPUTED_INTERVAL_COUNT;
+    StringBuilder ttml = new StringBuilder("<tt xmlns=\"http://www.w3.org/ns/ttml\"><body><div>");
+    for (int i = 0; i < cueCount; i++) {
+      ttml.append("<p begin=\"").append(i).append("s\" end=\"").append(i).append(".5s\">");
+      ttml.append("text ").append(i).append("</p>");
+    }
+    ttml.append("</div></body></tt>");
+    byte[] bytes = Util.getUtf8Bytes(ttml.toString());
+    TtmlSubtitle subtitle = new TtmlDecoder().decode(bytes, bytes.length, false);
+
+    assertThat(subtitle.getEventTimeCount()).isEqualTo(2 * cueCount);
+    for (int i = 0; i < cueCount; i++) {
+      List<Cue> cues = subtitle.getCues(i * 1000000L + 250000);
+      assertThat(cues).hasSize(1);
+      assertThat(cues.get(0).text.toString()).isEqualTo("text " + i);
+      assertThat(subtitle.getCues(i * 1000000L + 750000)).isEmpty();
+    }
+    assertThat(subtitle.getCues(250000).get(0).text.toString()).isEqualTo("text 0");
+  }
+
   private void assertSpans(
       TtmlSubtitle subtitle,
       int second,
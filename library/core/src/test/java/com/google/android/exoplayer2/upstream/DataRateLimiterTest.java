@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.testutil.FakeClock;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit tests for {@link DataRateLimiter}. */
+@RunWith(AndroidJUnit4.class)
+public final class DataRateLimiterTest {
+
+  private FakeClock clock;
+
+  @Before
+  public void setUp() {
+    clock = new FakeClock(/* initialTimeMs= */ 0);
+  }
+
+  @Test
+  public void tryAcquire_unlimited_grantsRequestedLength() {
+    DataRateLimiter rateLimiter = new DataRateLimiter(DataRateLimiter.RATE_UNLIMITED, clock);
+
+    assertThat(rateLimiter.tryAcquire(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void setMaxBytesPerSecond_veryHighRate_isUnlimited() {
+    DataRateLimiter rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 0, clock);
+
+    rateLimiter.setMaxBytesPerSecond(Long.MAX_VALUE - 1);
+
+    assertThat(rateLimiter.getMaxBytesPerSecond()).isEqualTo(DataRateLimiter.RATE_UNLIMITED);
+    assertThat(rateLimiter.tryAcquire(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void tryAcquire_highestLimitedRate_refillsWithoutOverflow() {
+    long maxBytesPerSecond = DataRateLimiter.MAX_LIMITED_RATE - 1;
+    DataRateLimiter rateLimiter = new DataRateLimiter(maxBytesPerSecond, clock);
+
+    clock.advanceTime(1000);
+
+    assertThat(rateLimiter.tryAcquire(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void tryAcquire_refillsAtMaxRate() {
+    DataRateLimiter rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 100_000, clock);
+    assertThat(rateLimiter.tryAcquire(1000)).isEqualTo(0);
+
+    clock.advanceTime(10);
+    assertThat(rateLimiter.tryAcquire(5000)).isEqualTo(1000);
+    assertThat(rateLimiter.tryAcquire(5000)).isEqualTo(0);
+
+    clock.advanceTime(25);
+    assertThat(rateLimiter.tryAcquire(2000)).isEqualTo(2000);
+    assertThat(rateLimiter.tryAcquire(2000)).isEqualTo(500);
+  }
+
+  @Test
+  public void tryAcquire_afterLongIdlePeriod_grantsAtMostBurst() {
+    DataRateLimiter rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 100_000, clock);
+
+    clock.advanceTime(60_000);
+
+    int burstBytes = 100_000 * DataRateLimiter.BURST_DURATION_MS / 1000;
+    assertThat(rateLimiter.tryAcquire(Integer.MAX_VALUE)).isEqualTo(burstBytes);
+  }
+
+  @Test
+  public void tryAcquire_slowRate_accumulatesFractionalBytes() {
+    DataRateLimiter rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 500, clock);
+
+    int acquiredBytes = 0;
+    for (int i = 0; i < 1000; i++) {
+      clock.advanceTime(1);
+      acquiredBytes += rateLimiter.tryAcquire(100);
+    }
+
+    assertThat(acquiredBytes).isEqualTo(500);
+  }
+
+  @Test
+  public void tryAcquire_paused_grantsNothingUntilResumed() {
+    DataRateLimiter rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 0, clock);
+    clock.advanceTime(1000);
+    assertThat(rateLimiter.tryAcquire(1000)).isEqualTo(0);
+
+    rateLimiter.setMaxBytesPerSecond(100_000);
+    clock.advanceTime(10);
+
+    assertThat(rateLimiter.tryAcquire(5000)).isEqualTo(1000);
+  }
+
+  @Test
+  public void release_makesBytesAvailableAgain() {
+    DataRateLimiter rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 100_000, clock);
+    clock.advanceTime(10);
+    assertThat(rateLimiter.tryAcquire(1000)).isEqualTo(1000);
+
+    rateLimiter.release(400);
+
+    assertThat(rateLimiter.tryAcquire(1000)).isEqualTo(400);
+  }
+
+  @Test
+  public void acquire_paused_blocksUntilResumed() throws Exception {
+    DataRateLimiter rateLimiter = new DataRateLimiter(/* maxBytesPerSecond= */ 0);
+    int[] acquiredBytes = new int[1];
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                acquiredBytes[0] = rateLimiter.acquire(10);
+              } catch (InterruptedException e) {
+                // Leave acquiredBytes unset.
+              }
+            });
+    thread.start();
+    thread.join(/* millis= */ 100);
+    assertThat(thread.isAlive()).isTrue();
+
+    rateLimiter.setMaxBytesPerSecond(DataRateLimiter.RATE_UNLIMITED);
+    thread.join();
+
+    assertThat(acquiredBytes[0]).isEqualTo(10);
+  }
+}
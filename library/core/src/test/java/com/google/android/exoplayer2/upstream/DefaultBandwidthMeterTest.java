@@ -557,6 +557,20 @@ public final class DefaultBandwidthMeterTest {
     assertThat(initialEstimateWithoutBuilder).isLessThan(50_000_000L);
   }
 
+  @Test
+  public void transferProducedDuringTransfer_excludesProductionWaitTime() {
+    DataSpec dataSpec = new DataSpec(Uri.parse("https://dummy.com"));
+    DataSpec producedDataSpec =
+        new DataSpec(Uri.parse("https://dummy.com"), DataSpec.FLAG_PRODUCED_DURING_TRANSFER);
+
+    long bitrateEstimate = simulateTransferWithIdleGap(dataSpec);
+    long producedBitrateEstimate = simulateTransferWithIdleGap(producedDataSpec);
+
+    // The idle gap is excluded only when the data is produced during the transfer.
+    assertThat(bitrateEstimate).isLessThan(10_000_000L);
+    assertThat(producedBitrateEstimate).isGreaterThan(100_000_000L);
+  }
+
   private void setActiveNetworkInfo(NetworkInfo networkInfo) {
     Shadows.shadowOf(connectivityManager).setActiveNetworkInfo(networkInfo);
   }
@@ -583,4 +597,22 @@ public final class DefaultBandwidthMeterTest {
     }
     return bitrateEstimates;
   }
+
+  private static long simulateTransferWithIdleGap(DataSpec dataSpec) {
+    FakeClock clock = new FakeClock(/* initialTimeMs= */ 0);
+    DefaultBandwidthMeter bandwidthMeter =
+        new DefaultBandwidthMeter.Builder(/* context= */ null).setClock(clock).build();
+    DataSource dataSource = new FakeDataSource();
+    bandwidthMeter.onTransferStart(dataSource, dataSpec, /* isNetwork= */ true);
+    clock.advanceTime(10);
+    bandwidthMeter.onBytesTransferred(
+        dataSource, dataSpec, /* isNetwork= */ true, /* bytes= */ 512 * 1024);
+    // The server waits for the next part of the resource to be produced.
+    clock.advanceTime(1000);
+    bandwidthMeter.onBytesTransferred(
+        dataSource, dataSpec, /* isNetwork= */ true, /* bytes= */ 512 * 1024);
+    clock.advanceTime(10);
+    bandwidthMeter.onTransferEnd(dataSource, dataSpec, /* isNetwork= */ true);
+    return bandwidthMeter.getBitrateEstimate();
+  }
 }
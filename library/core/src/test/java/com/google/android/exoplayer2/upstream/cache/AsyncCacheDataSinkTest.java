@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream.cache;
+
+import static com.google.android.exoplayer2.testutil.CacheAsserts.assertDataCached;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import android.net.Uri;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.testutil.TestUtil;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.util.Util;
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit tests for {@link AsyncCacheDataSink}. */
+@RunWith(AndroidJUnit4.class)
+public final class AsyncCacheDataSinkTest {
+
+  private static final String KEY = "key";
+  private static final Uri URI = Uri.parse("test://uri");
+
+  private File tempFolder;
+  private SimpleCache cache;
+  private ExecutorService executorService;
+
+  @Before
+  public void setUp() throws Exception {
+    tempFolder =
+        Util.createTempDirectory(ApplicationProvider.getApplicationContext(), "ExoPlayerTest");
+    cache = new SimpleCache(tempFolder, new NoOpCacheEvictor());
+    executorService = Util.newSingleThreadExecutor("AsyncCacheDataSinkTest");
+  }
+
+  @After
+  public void tearDown() {
+    executorService.shutdown();
+    cache.release();
+    Util.recursiveDelete(tempFolder);
+  }
+
+  @Test
+  public void testWriteAndClose_cachesAllData() throws Exception {
+    byte[] data = TestUtil.buildTestData(1000);
+    AsyncCacheDataSink sink =
+        new AsyncCacheDataSink(
+            cache,
+            C.LENGTH_UNSET,
+            /* blockSize= */ 64,
+            /* maxPendingBlocks= */ 100,
+            executorService);
+
+    writeWithLock(sink, data, /* chunkSize= */ 30);
+
+    assertDataCached(cache, new DataSpec(URI, 0, data.length, KEY), data);
+  }
+
+  @Test
+  public void testWriteAndClose_withFragmentation_cachesAllDataInFragments() throws Exception {
+    byte[] data = TestUtil.buildTestData(1000);
+    AsyncCacheDataSink sink =
+        new AsyncCacheDataSink(
+            cache,
+            /* fragmentSize= */ 300,
+            /* blockSize= */ 64,
+            /* maxPendingBlocks= */ 100,
+            executorService);
+
+    writeWithLock(sink, data, /* chunkSize= */ 30);
+
+    assertDataCached(cache, new DataSpec(URI, 0, data.length, KEY), data);
+    assertThat(cache.getCachedSpans(KEY)).hasSize(4);
+  }
+
+  @Test
+  public void testWrite_withFullQueue_skipsCachingOfRemainingData() throws Exception {
+    byte[] data = TestUtil.buildTestData(100);
+    ArrayList<Runnable> pendingTasks = new ArrayList<>();
+    AsyncCacheDataSink sink =
+        new AsyncCacheDataSink(
+            cache,
+            C.LENGTH_UNSET,
+            /* blockSize= */ 10,
+            /* maxPendingBlocks= */ 2,
+            pendingTasks::add);
+
+    CacheSpan holeSpan = cache.startReadWrite(KEY, 0);
+    sink.open(
+        new DataSpec(URI, 0, data.length, KEY, DataSpec.FLAG_ALLOW_CACHE_FRAGMENTATION));
+    // The writer doesn't run until we run its task, so the third block overflows the queue.
+    sink.write(data, 0, data.length);
+    assertThat(pendingTasks).hasSize(1);
+    pendingTasks.remove(0).run();
+    sink.close();
+    cache.releaseHoleSpan(holeSpan);
+
+    assertThat(cache.getCachedLength(KEY, 0, data.length)).isEqualTo(20);
+    assertDataCached(cache, new DataSpec(URI, 0, 20, KEY), Arrays.copyOf(data, 20));
+  }
+
+  @Test
+  public void testOpen_withUnknownLengthAndDontCacheFlag_ignoresWrites() throws Exception {
+    byte[] data = TestUtil.buildTestData(100);
+    AsyncCacheDataSink sink = new AsyncCacheDataSink(cache, C.LENGTH_UNSET, executorService);
+
+    sink.open(
+        new DataSpec(
+            URI, 0, C.LENGTH_UNSET, KEY, DataSpec.FLAG_DONT_CACHE_IF_LENGTH_UNKNOWN));
+    sink.write(data, 0, data.length);
+    sink.close();
+
+    assertThat(cache.getKeys()).isEmpty();
+  }
+
+  @Test
+  public void testClose_whenInterrupted_waitsForWriterAndDiscardsData() throws Exception {
+    byte[] data = TestUtil.buildTestData(100);
+    CountDownLatch writerStartLatch = new CountDownLatch(1);
+    AsyncCacheDataSink sink =
+        new AsyncCacheDataSink(
+            cache,
+            C.LENGTH_UNSET,
+            /* blockSize= */ 10,
+            /* maxPendingBlocks= */ 100,
+            runnable ->
+                executorService.execute(
+                    () -> {
+                      try {
+                        writerStartLatch.await();
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      runnable.run();
+                    }));
+
+    CacheSpan holeSpan = cache.startReadWrite(KEY, 0);
+    sink.open(new DataSpec(URI, 0, data.length, KEY));
+    sink.write(data, 0, data.length);
+    Thread.currentThread().interrupt();
+    new Thread(writerStartLatch::countDown).start();
+    try {
+      sink.close();
+      fail();
+    } catch (CacheDataSink.CacheDataSinkException e) {
+      assertThat(e.getCause()).isInstanceOf(InterruptedIOException.class);
+    }
+    assertThat(Thread.interrupted()).isTrue();
+    cache.releaseHoleSpan(holeSpan);
+    assertThat(cache.getCachedSpans(KEY)).isEmpty();
+
+    // The writer is idle, so the sink can be reused.
+    writeWithLock(sink, data, /* chunkSize= */ 30);
+    assertDataCached(cache, new DataSpec(URI, 0, data.length, KEY), data);
+  }
+
+  private void writeWithLock(AsyncCacheDataSink sink, byte[] data, int chunkSize)
+      throws Exception {
+    CacheSpan holeSpan = cache.startReadWrite(KEY, 0);
+    sink.open(
+        new DataSpec(URI, 0, data.length, KEY, DataSpec.FLAG_ALLOW_CACHE_FRAGMENTATION));
+    for (int offset = 0; offset < data.length; offset += chunkSize) {
+      sink.write(data, offset, Math.min(chunkSize, data.length - offset));
+    }
+    sink.close();
+    cache.releaseHoleSpan(holeSpan);
+  }
+}
@@ -20,7 +20,9 @@ import static com.google.common.truth.Truth.assertThat;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Random;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -120,6 +122,53 @@ public final class NalUnitUtilTest {
     assertPrefixFlagsCleared(prefixFlags);
   }
 
+  @Test
+  public void testFindNalUnitWithRandomData_findsAllNalUnits() {
+    Random random = new Random(/* seed= */ 0);
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++) {
+      // Make zeros and ones frequent, so that there are many complete and partial prefixes.
+      int value = random.nextInt(16);
+      data[i] = (byte) (value < 4 ? 0 : value < 6 ? 1 : value);
+    }
+    ArrayList<Integer> expectedPositions = new ArrayList<>();
+    for (int i = 0; i < data.length - 2; i++) {
+      if (data[i] == 0 && data[i + 1] == 0 && data[i + 2] == 1) {
+        expectedPositions.add(i);
+      }
+    }
+
+    // Without prefix flags.
+    ArrayList<Integer> positions = new ArrayList<>();
+    int offset = 0;
+    while (offset < data.length) {
+      int result = NalUnitUtil.findNalUnit(data, offset, data.length, null);
+      if (result < data.length) {
+        positions.add(result);
+      }
+      offset = Math.min(result + 3, data.length);
+    }
+    assertThat(positions).isEqualTo(expectedPositions);
+
+    // With prefix flags, and the data split into chunks of varying lengths.
+    positions.clear();
+    boolean[] prefixFlags = new boolean[3];
+    int chunkStart = 0;
+    while (chunkStart < data.length) {
+      int chunkEnd = Math.min(chunkStart + random.nextInt(40), data.length);
+      offset = chunkStart;
+      while (offset < chunkEnd) {
+        int result = NalUnitUtil.findNalUnit(data, offset, chunkEnd, prefixFlags);
+        if (result < chunkEnd) {
+          positions.add(result);
+        }
+        offset = Math.max(result + 3, offset);
+      }
+      chunkStart = chunkEnd;
+    }
+    assertThat(positions).isEqualTo(expectedPositions);
+  }
+
   @Test
   public void testParseSpsNalUnit() {
     NalUnitUtil.SpsData data = NalUnitUtil.parseSpsNalUnit(SPS_TEST_DATA, SPS_TEST_DATA_OFFSET,
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.video;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.mediacodec.MediaCodecSelector;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+/** Unit tests for {@link MediaCodecVideoRenderer}. */
+@RunWith(AndroidJUnit4.class)
+public final class MediaCodecVideoRendererTest {
+
+  @Test
+  public void getMaxRenderDelayUs_whenNotStarted_returnsTimeUnset() {
+    MediaCodecVideoRenderer renderer =
+        new MediaCodecVideoRenderer(
+            ApplicationProvider.getApplicationContext(), MediaCodecSelector.DEFAULT);
+
+    assertThat(renderer.getMaxRenderDelayUs(/* positionUs= */ 0, /* elapsedRealtimeUs= */ 0))
+        .isEqualTo(C.TIME_UNSET);
+  }
+
+  @Config(sdk = 28)
+  @Test
+  public void getRenderDelayUs_earlyBuffer_returnsTimeUntilReleaseThreshold() {
+    // From API 21 buffers are released up to 50ms early.
+    assertThat(
+            MediaCodecVideoRenderer.getRenderDelayUs(
+                /* earlyUs= */ 200_000, /* operatingRate= */ 1f))
+        .isEqualTo(150_000);
+  }
+
+  @Config(sdk = 28)
+  @Test
+  public void getRenderDelayUs_bufferWithinReleaseThreshold_returnsZero() {
+    assertThat(
+            MediaCodecVideoRenderer.getRenderDelayUs(
+                /* earlyUs= */ 40_000, /* operatingRate= */ 1f))
+        .isEqualTo(0);
+  }
+
+  @Config(sdk = 28)
+  @Test
+  public void getRenderDelayUs_lateBuffer_returnsZero() {
+    assertThat(
+            MediaCodecVideoRenderer.getRenderDelayUs(
+                /* earlyUs= */ -100_000, /* operatingRate= */ 1f))
+        .isEqualTo(0);
+  }
+
+  @Config(sdk = 28)
+  @Test
+  public void getRenderDelayUs_withOperatingRate_scalesDelayToRealTime() {
+    // At double speed, 150ms of media time passes in 75ms of real time.
+    assertThat(
+            MediaCodecVideoRenderer.getRenderDelayUs(
+                /* earlyUs= */ 200_000, /* operatingRate= */ 2f))
+        .isEqualTo(75_000);
+    assertThat(
+            MediaCodecVideoRenderer.getRenderDelayUs(
+                /* earlyUs= */ 200_000, /* operatingRate= */ 0.5f))
+        .isEqualTo(300_000);
+  }
+}
@@ -180,9 +180,10 @@ public final class DashMediaSource extends BaseMediaSource {
     /**
      * Sets the duration in milliseconds by which the default start position should precede the end
      * of the live window for live playbacks. The {@code overridesManifest} parameter specifies
-     * whether the value is used in preference to one in the manifest, if present. The default value
-     * is {@link #DEFAULT_LIVE_PRESENTATION_DELAY_MS}, and by default {@code overridesManifest} is
-     * false.
+     * whether the value is used in preference to one in the manifest, if present. The manifest
+     * value is the target latency of its ServiceDescription element, or else its suggested
+     * presentation delay. The default value is {@link #DEFAULT_LIVE_PRESENTATION_DELAY_MS}, and by
+     * default {@code overridesManifest} is false.
      *
      * @param livePresentationDelayMs For live playbacks, the duration in milliseconds by which the
      *     default start position should precede the end of the live window.
@@ -974,9 +975,14 @@ public final class DashMediaSource extends BaseMediaSource {
     long windowDefaultStartPositionUs = 0;
     if (manifest.dynamic) {
       long presentationDelayForManifestMs = livePresentationDelayMs;
-      if (!livePresentationDelayOverridesManifest
-          && manifest.suggestedPresentationDelayMs != C.TIME_UNSET) {
-        presentationDelayForManifestMs = manifest.suggestedPresentationDelayMs;
+      if (!livePresentationDelayOverridesManifest) {
+        if (manifest.serviceDescription != null
+            && manifest.serviceDescription.targetOffsetMs != C.TIME_UNSET) {
+          // The target latency of a low latency stream takes precedence over the suggested delay.
+          presentationDelayForManifestMs = manifest.serviceDescription.targetOffsetMs;
+        } else if (manifest.suggestedPresentationDelayMs != C.TIME_UNSET) {
+          presentationDelayForManifestMs = manifest.suggestedPresentationDelayMs;
+        }
       }
       // Snap the default position to the start of the segment containing it.
       windowDefaultStartPositionUs = windowDurationUs - C.msToUs(presentationDelayForManifestMs);
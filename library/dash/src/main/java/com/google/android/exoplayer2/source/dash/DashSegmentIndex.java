@@ -98,4 +98,21 @@ public interface DashSegmentIndex {
    */
   boolean isExplicit();
 
+  /**
+   * Returns the time in microseconds by which segments become available before their end, as
+   * defined by the {@code availabilityTimeOffset} attribute. The default implementation returns 0.
+   */
+  default long getAvailabilityTimeOffsetUs() {
+    return 0;
+  }
+
+  /**
+   * Returns whether segments are complete when they become available, as defined by the {@code
+   * availabilityTimeComplete} attribute. If false, segments that are requested before their end
+   * are delivered as they're produced, typically using chunked transfer encoding. The default
+   * implementation returns true.
+   */
+  default boolean isAvailabilityTimeComplete() {
+    return true;
+  }
 }
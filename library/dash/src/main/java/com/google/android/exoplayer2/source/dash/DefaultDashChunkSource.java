@@ -477,6 +477,26 @@ public class DefaultDashChunkSource implements DashChunkSource {
     }
   }
 
+  /**
+   * Returns the {@link DataSpec} flags for a media chunk that ends with the specified segment.
+   *
+   * <p>If the manifest signals that segments may be requested before they're complete, then a
+   * segment that ends after the current time is delivered as it's produced. Such chunks are flagged
+   * so that the time spent waiting for the segment to be produced isn't attributed to the network.
+   */
+  private int getMediaChunkDataSpecFlags(
+      RepresentationHolder representationHolder, long lastSegmentNum) {
+    DashSegmentIndex segmentIndex = representationHolder.segmentIndex;
+    if (!manifest.dynamic || segmentIndex == null || segmentIndex.isAvailabilityTimeComplete()) {
+      return 0;
+    }
+    long segmentEndUnixTimeUs =
+        C.msToUs(manifest.availabilityStartTimeMs)
+            + C.msToUs(manifest.getPeriod(periodIndex).startMs)
+            + representationHolder.getSegmentEndTimeUs(lastSegmentNum);
+    return segmentEndUnixTimeUs > getNowUnixTimeUs() ? DataSpec.FLAG_PRODUCED_DURING_TRANSFER : 0;
+  }
+
   private long resolveTimeToLiveEdgeUs(long playbackPositionUs) {
     boolean resolveTimeToLiveEdgePossible = manifest.dynamic && liveEdgeTimeUs != C.TIME_UNSET;
     return resolveTimeToLiveEdgePossible ? liveEdgeTimeUs - playbackPositionUs : C.TIME_UNSET;
@@ -540,14 +560,20 @@ public class DefaultDashChunkSource implements DashChunkSource {
         segmentUri = mergedSegmentUri;
         segmentCount++;
       }
-      long endTimeUs = representationHolder.getSegmentEndTimeUs(firstSegmentNum + segmentCount - 1);
+      long lastSegmentNum = firstSegmentNum + segmentCount - 1;
+      long endTimeUs = representationHolder.getSegmentEndTimeUs(lastSegmentNum);
       long periodDurationUs = representationHolder.periodDurationUs;
       long clippedEndTimeUs =
           periodDurationUs != C.TIME_UNSET && periodDurationUs <= endTimeUs
               ? periodDurationUs
               : C.TIME_UNSET;
-      DataSpec dataSpec = new DataSpec(segmentUri.resolveUri(baseUrl),
-          segmentUri.start, segmentUri.length, representation.getCacheKey());
+      DataSpec dataSpec =
+          new DataSpec(
+              segmentUri.resolveUri(baseUrl),
+              segmentUri.start,
+              segmentUri.length,
+              representation.getCacheKey(),
+              getMediaChunkDataSpecFlags(representationHolder, lastSegmentNum));
       long sampleOffsetUs = -representation.presentationTimeOffsetUs;
       return new ContainerMediaChunk(
           dataSource,
@@ -761,9 +787,11 @@ public class DefaultDashChunkSource implements DashChunkSource {
         long liveEdgeTimeUs = nowUnixTimeUs - C.msToUs(manifest.availabilityStartTimeMs);
         long periodStartUs = C.msToUs(manifest.getPeriod(periodIndex).startMs);
         long liveEdgeTimeInPeriodUs = liveEdgeTimeUs - periodStartUs;
-        // getSegmentNum(liveEdgeTimeInPeriodUs) will not be completed yet, so subtract one to get
-        // the index of the last completed segment.
-        return getSegmentNum(liveEdgeTimeInPeriodUs) - 1;
+        // Segments become available availabilityTimeOffset before their end.
+        long availabilityTimeOffsetUs = segmentIndex.getAvailabilityTimeOffsetUs();
+        // getSegmentNum(liveEdgeTimeInPeriodUs) will not be available yet, so subtract one to get
+        // the index of the last available segment.
+        return getSegmentNum(liveEdgeTimeInPeriodUs + availabilityTimeOffsetUs) - 1;
       }
       return getFirstSegmentNum() + availableSegmentCount - 1;
     }
@@ -90,11 +90,14 @@ public class DashManifest implements FilterableManifest<DashManifest> {
   /** The {@link ProgramInformation}, or null if not present. */
   @Nullable public final ProgramInformation programInformation;
 
+  /** The {@link ServiceDescriptionElement}, or null if not present. */
+  @Nullable public final ServiceDescriptionElement serviceDescription;
+
   private final List<Period> periods;
 
   /**
    * @deprecated Use {@link #DashManifest(long, long, long, boolean, long, long, long, long,
-   *     ProgramInformation, UtcTimingElement, Uri, List)}.
+   *     ProgramInformation, ServiceDescriptionElement, UtcTimingElement, Uri, List)}.
    */
   @Deprecated
   public DashManifest(
@@ -119,6 +122,41 @@ public class DashManifest implements FilterableManifest<DashManifest> {
         suggestedPresentationDelayMs,
         publishTimeMs,
         /* programInformation= */ null,
+        /* serviceDescription= */ null,
+        utcTiming,
+        location,
+        periods);
+  }
+
+  /**
+   * @deprecated Use {@link #DashManifest(long, long, long, boolean, long, long, long, long,
+   *     ProgramInformation, ServiceDescriptionElement, UtcTimingElement, Uri, List)}.
+   */
+  @Deprecated
+  public DashManifest(
+      long availabilityStartTimeMs,
+      long durationMs,
+      long minBufferTimeMs,
+      boolean dynamic,
+      long minUpdatePeriodMs,
+      long timeShiftBufferDepthMs,
+      long suggestedPresentationDelayMs,
+      long publishTimeMs,
+      @Nullable ProgramInformation programInformation,
+      UtcTimingElement utcTiming,
+      Uri location,
+      List<Period> periods) {
+    this(
+        availabilityStartTimeMs,
+        durationMs,
+        minBufferTimeMs,
+        dynamic,
+        minUpdatePeriodMs,
+        timeShiftBufferDepthMs,
+        suggestedPresentationDelayMs,
+        publishTimeMs,
+        programInformation,
+        /* serviceDescription= */ null,
         utcTiming,
         location,
         periods);
@@ -134,6 +172,7 @@ public class DashManifest implements FilterableManifest<DashManifest> {
       long suggestedPresentationDelayMs,
       long publishTimeMs,
       @Nullable ProgramInformation programInformation,
+      @Nullable ServiceDescriptionElement serviceDescription,
       UtcTimingElement utcTiming,
       Uri location,
       List<Period> periods) {
@@ -146,6 +185,7 @@ public class DashManifest implements FilterableManifest<DashManifest> {
     this.suggestedPresentationDelayMs = suggestedPresentationDelayMs;
     this.publishTimeMs = publishTimeMs;
     this.programInformation = programInformation;
+    this.serviceDescription = serviceDescription;
     this.utcTiming = utcTiming;
     this.location = location;
     this.periods = periods == null ? Collections.emptyList() : periods;
@@ -204,6 +244,7 @@ public class DashManifest implements FilterableManifest<DashManifest> {
         suggestedPresentationDelayMs,
         publishTimeMs,
         programInformation,
+        serviceDescription,
         utcTiming,
         location,
         copyPeriods);
@@ -110,6 +110,7 @@ public class DashManifestParser extends DefaultHandler
         ? parseDuration(xpp, "suggestedPresentationDelay", C.TIME_UNSET) : C.TIME_UNSET;
     long publishTimeMs = parseDateTime(xpp, "publishTime", C.TIME_UNSET);
     ProgramInformation programInformation = null;
+    ServiceDescriptionElement serviceDescription = null;
     UtcTimingElement utcTiming = null;
     Uri location = null;
 
@@ -126,6 +127,8 @@ public class DashManifestParser extends DefaultHandler
         }
       } else if (XmlPullParserUtil.isStartTag(xpp, "ProgramInformation")) {
         programInformation = parseProgramInformation(xpp);
+      } else if (XmlPullParserUtil.isStartTag(xpp, "ServiceDescription")) {
+        serviceDescription = parseServiceDescription(xpp);
       } else if (XmlPullParserUtil.isStartTag(xpp, "UTCTiming")) {
         utcTiming = parseUtcTiming(xpp);
       } else if (XmlPullParserUtil.isStartTag(xpp, "Location")) {
@@ -175,6 +178,7 @@ public class DashManifestParser extends DefaultHandler
         suggestedPresentationDelayMs,
         publishTimeMs,
         programInformation,
+        serviceDescription,
         utcTiming,
         location,
         periods);
@@ -190,6 +194,7 @@ public class DashManifestParser extends DefaultHandler
       long suggestedPresentationDelayMs,
       long publishTimeMs,
       ProgramInformation programInformation,
+      ServiceDescriptionElement serviceDescription,
       UtcTimingElement utcTiming,
       Uri location,
       List<Period> periods) {
@@ -203,6 +208,7 @@ public class DashManifestParser extends DefaultHandler
         suggestedPresentationDelayMs,
         publishTimeMs,
         programInformation,
+        serviceDescription,
         utcTiming,
         location,
         periods);
@@ -781,6 +787,13 @@ public class DashManifestParser extends DefaultHandler
     long startNumber = parseLong(xpp, "startNumber", parent != null ? parent.startNumber : 1);
     long endNumber =
         parseLastSegmentNumberSupplementalProperty(adaptationSetSupplementalProperties);
+    long availabilityTimeOffsetUs =
+        parseAvailabilityTimeOffsetUs(xpp, parent != null ? parent.availabilityTimeOffsetUs : 0);
+    boolean availabilityTimeComplete =
+        parseBoolean(
+            xpp,
+            "availabilityTimeComplete",
+            parent != null ? parent.availabilityTimeComplete : true);
 
     UrlTemplate mediaTemplate = parseUrlTemplate(xpp, "media",
         parent != null ? parent.mediaTemplate : null);
@@ -815,9 +828,16 @@ public class DashManifestParser extends DefaultHandler
         duration,
         timeline,
         initializationTemplate,
-        mediaTemplate);
+        mediaTemplate,
+        availabilityTimeOffsetUs,
+        availabilityTimeComplete);
   }
 
+  /**
+   * @deprecated Use {@link #buildSegmentTemplate(RangedUri, long, long, long, long, long, List,
+   *     UrlTemplate, UrlTemplate, long, boolean)}.
+   */
+  @Deprecated
   protected SegmentTemplate buildSegmentTemplate(
       RangedUri initialization,
       long timescale,
@@ -828,6 +848,32 @@ public class DashManifestParser extends DefaultHandler
       List<SegmentTimelineElement> timeline,
       UrlTemplate initializationTemplate,
       UrlTemplate mediaTemplate) {
+    return buildSegmentTemplate(
+        initialization,
+        timescale,
+        presentationTimeOffset,
+        startNumber,
+        endNumber,
+        duration,
+        timeline,
+        initializationTemplate,
+        mediaTemplate,
+        /* availabilityTimeOffsetUs= */ 0,
+        /* availabilityTimeComplete= */ true);
+  }
+
+  protected SegmentTemplate buildSegmentTemplate(
+      RangedUri initialization,
+      long timescale,
+      long presentationTimeOffset,
+      long startNumber,
+      long endNumber,
+      long duration,
+      List<SegmentTimelineElement> timeline,
+      UrlTemplate initializationTemplate,
+      UrlTemplate mediaTemplate,
+      long availabilityTimeOffsetUs,
+      boolean availabilityTimeComplete) {
     return new SegmentTemplate(
         initialization,
         timescale,
@@ -837,7 +883,9 @@ public class DashManifestParser extends DefaultHandler
         duration,
         timeline,
         initializationTemplate,
-        mediaTemplate);
+        mediaTemplate,
+        availabilityTimeOffsetUs,
+        availabilityTimeComplete);
   }
 
   /**
@@ -1074,6 +1122,32 @@ public class DashManifestParser extends DefaultHandler
     return new ProgramInformation(title, source, copyright, moreInformationURL, lang);
   }
 
+  // ServiceDescription parsing.
+
+  protected ServiceDescriptionElement parseServiceDescription(XmlPullParser xpp)
+      throws IOException, XmlPullParserException {
+    long targetOffsetMs = C.TIME_UNSET;
+    long minOffsetMs = C.TIME_UNSET;
+    long maxOffsetMs = C.TIME_UNSET;
+    float minPlaybackSpeed = Format.NO_VALUE;
+    float maxPlaybackSpeed = Format.NO_VALUE;
+    do {
+      xpp.next();
+      if (XmlPullParserUtil.isStartTag(xpp, "Latency")) {
+        targetOffsetMs = parseLong(xpp, "target", C.TIME_UNSET);
+        minOffsetMs = parseLong(xpp, "min", C.TIME_UNSET);
+        maxOffsetMs = parseLong(xpp, "max", C.TIME_UNSET);
+      } else if (XmlPullParserUtil.isStartTag(xpp, "PlaybackRate")) {
+        minPlaybackSpeed = parseFloat(xpp, "min", Format.NO_VALUE);
+        maxPlaybackSpeed = parseFloat(xpp, "max", Format.NO_VALUE);
+      } else {
+        maybeSkipTag(xpp);
+      }
+    } while (!XmlPullParserUtil.isEndTag(xpp, "ServiceDescription"));
+    return new ServiceDescriptionElement(
+        targetOffsetMs, minOffsetMs, maxOffsetMs, minPlaybackSpeed, maxPlaybackSpeed);
+  }
+
   // AudioChannelConfiguration parsing.
 
   protected int parseAudioChannelConfiguration(XmlPullParser xpp)
@@ -1441,6 +1515,32 @@ public class DashManifestParser extends DefaultHandler
     return value == null ? defaultValue : Long.parseLong(value);
   }
 
+  protected static float parseFloat(XmlPullParser xpp, String name, float defaultValue) {
+    String value = xpp.getAttributeValue(null, name);
+    return value == null ? defaultValue : Float.parseFloat(value);
+  }
+
+  protected static boolean parseBoolean(XmlPullParser xpp, String name, boolean defaultValue) {
+    String value = xpp.getAttributeValue(null, name);
+    return value == null ? defaultValue : Boolean.parseBoolean(value);
+  }
+
+  /**
+   * Parses the {@code availabilityTimeOffset} attribute, whose value is in seconds.
+   *
+   * @param xpp The parser from which to read.
+   * @param defaultValueUs The value to return if the attribute is not present, in microseconds.
+   * @return The parsed value in microseconds. The value "INF", which makes all segments available,
+   *     is ignored and the default value is returned.
+   */
+  protected static long parseAvailabilityTimeOffsetUs(XmlPullParser xpp, long defaultValueUs) {
+    String value = xpp.getAttributeValue(null, "availabilityTimeOffset");
+    if (value == null || "INF".equals(value)) {
+      return defaultValueUs;
+    }
+    return (long) (Float.parseFloat(value) * C.MICROS_PER_SECOND);
+  }
+
   protected static String parseString(XmlPullParser xpp, String name, String defaultValue) {
     String value = xpp.getAttributeValue(null, name);
     return value == null ? defaultValue : value;
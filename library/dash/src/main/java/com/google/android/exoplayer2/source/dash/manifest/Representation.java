@@ -341,6 +341,16 @@ public abstract class Representation {
       return segmentBase.isExplicit();
     }
 
+    @Override
+    public long getAvailabilityTimeOffsetUs() {
+      return segmentBase.availabilityTimeOffsetUs;
+    }
+
+    @Override
+    public boolean isAvailabilityTimeComplete() {
+      return segmentBase.availabilityTimeComplete;
+    }
+
   }
 
 }
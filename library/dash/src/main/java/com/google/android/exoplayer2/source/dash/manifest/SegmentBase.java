@@ -102,6 +102,8 @@ public abstract class SegmentBase {
     /* package */ final long startNumber;
     /* package */ final long duration;
     /* package */ final List<SegmentTimelineElement> segmentTimeline;
+    /* package */ final long availabilityTimeOffsetUs;
+    /* package */ final boolean availabilityTimeComplete;
 
     /**
      * @param initialization A {@link RangedUri} corresponding to initialization data, if such data
@@ -124,10 +126,51 @@ public abstract class SegmentBase {
         long startNumber,
         long duration,
         List<SegmentTimelineElement> segmentTimeline) {
+      this(
+          initialization,
+          timescale,
+          presentationTimeOffset,
+          startNumber,
+          duration,
+          segmentTimeline,
+          /* availabilityTimeOffsetUs= */ 0,
+          /* availabilityTimeComplete= */ true);
+    }
+
+    /**
+     * @param initialization A {@link RangedUri} corresponding to initialization data, if such data
+     *     exists.
+     * @param timescale The timescale in units per second.
+     * @param presentationTimeOffset The presentation time offset. The value in seconds is the
+     *     division of this value and {@code timescale}.
+     * @param startNumber The sequence number of the first segment.
+     * @param duration The duration of each segment in the case of fixed duration segments. The
+     *     value in seconds is the division of this value and {@code timescale}. If {@code
+     *     segmentTimeline} is non-null then this parameter is ignored.
+     * @param segmentTimeline A segment timeline corresponding to the segments. If null, then
+     *     segments are assumed to be of fixed duration as specified by the {@code duration}
+     *     parameter.
+     * @param availabilityTimeOffsetUs The {@code availabilityTimeOffset} value in microseconds,
+     *     which is the time by which segments become available before the end of the segment.
+     * @param availabilityTimeComplete The {@code availabilityTimeComplete} value, which is false
+     *     if segments may be requested before they're complete, and are then delivered as they're
+     *     produced.
+     */
+    public MultiSegmentBase(
+        RangedUri initialization,
+        long timescale,
+        long presentationTimeOffset,
+        long startNumber,
+        long duration,
+        List<SegmentTimelineElement> segmentTimeline,
+        long availabilityTimeOffsetUs,
+        boolean availabilityTimeComplete) {
       super(initialization, timescale, presentationTimeOffset);
       this.startNumber = startNumber;
       this.duration = duration;
       this.segmentTimeline = segmentTimeline;
+      this.availabilityTimeOffsetUs = availabilityTimeOffsetUs;
+      this.availabilityTimeComplete = availabilityTimeComplete;
     }
 
     /** @see DashSegmentIndex#getSegmentNum(long, long) */
@@ -300,7 +343,10 @@ public abstract class SegmentBase {
      *     such data exists. If non-null then the {@code initialization} parameter is ignored. If
      *     null then {@code initialization} will be used.
      * @param mediaTemplate A template defining the location of each media segment.
+     * @deprecated Use {@link #SegmentTemplate(RangedUri, long, long, long, long, long, List,
+     *     UrlTemplate, UrlTemplate, long, boolean)}.
      */
+    @Deprecated
     public SegmentTemplate(
         RangedUri initialization,
         long timescale,
@@ -311,13 +357,68 @@ public abstract class SegmentBase {
         List<SegmentTimelineElement> segmentTimeline,
         UrlTemplate initializationTemplate,
         UrlTemplate mediaTemplate) {
+      this(
+          initialization,
+          timescale,
+          presentationTimeOffset,
+          startNumber,
+          endNumber,
+          duration,
+          segmentTimeline,
+          initializationTemplate,
+          mediaTemplate,
+          /* availabilityTimeOffsetUs= */ 0,
+          /* availabilityTimeComplete= */ true);
+    }
+
+    /**
+     * @param initialization A {@link RangedUri} corresponding to initialization data, if such data
+     *     exists. The value of this parameter is ignored if {@code initializationTemplate} is
+     *     non-null.
+     * @param timescale The timescale in units per second.
+     * @param presentationTimeOffset The presentation time offset. The value in seconds is the
+     *     division of this value and {@code timescale}.
+     * @param startNumber The sequence number of the first segment.
+     * @param endNumber The sequence number of the last segment as specified by the
+     *     SupplementalProperty with schemeIdUri="http://dashif.org/guidelines/last-segment-number",
+     *     or {@link C#INDEX_UNSET}.
+     * @param duration The duration of each segment in the case of fixed duration segments. The
+     *     value in seconds is the division of this value and {@code timescale}. If {@code
+     *     segmentTimeline} is non-null then this parameter is ignored.
+     * @param segmentTimeline A segment timeline corresponding to the segments. If null, then
+     *     segments are assumed to be of fixed duration as specified by the {@code duration}
+     *     parameter.
+     * @param initializationTemplate A template defining the location of initialization data, if
+     *     such data exists. If non-null then the {@code initialization} parameter is ignored. If
+     *     null then {@code initialization} will be used.
+     * @param mediaTemplate A template defining the location of each media segment.
+     * @param availabilityTimeOffsetUs The {@code availabilityTimeOffset} value in microseconds,
+     *     which is the time by which segments become available before the end of the segment.
+     * @param availabilityTimeComplete The {@code availabilityTimeComplete} value, which is false
+     *     if segments may be requested before they're complete, and are then delivered as they're
+     *     produced.
+     */
+    public SegmentTemplate(
+        RangedUri initialization,
+        long timescale,
+        long presentationTimeOffset,
+        long startNumber,
+        long endNumber,
+        long duration,
+        List<SegmentTimelineElement> segmentTimeline,
+        UrlTemplate initializationTemplate,
+        UrlTemplate mediaTemplate,
+        long availabilityTimeOffsetUs,
+        boolean availabilityTimeComplete) {
       super(
           initialization,
           timescale,
           presentationTimeOffset,
           startNumber,
           duration,
-          segmentTimeline);
+          segmentTimeline,
+          availabilityTimeOffsetUs,
+          availabilityTimeComplete);
       this.initializationTemplate = initializationTemplate;
       this.mediaTemplate = mediaTemplate;
       this.endNumber = endNumber;
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.source.dash.manifest;
+
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+
+/** A parsed ServiceDescription element, as defined by ETSI TS 103 285 and DASH-IF IOP 4.3. */
+public class ServiceDescriptionElement {
+
+  /** The target live offset in milliseconds, or {@link C#TIME_UNSET} if undefined. */
+  public final long targetOffsetMs;
+  /** The minimum live offset in milliseconds, or {@link C#TIME_UNSET} if undefined. */
+  public final long minOffsetMs;
+  /** The maximum live offset in milliseconds, or {@link C#TIME_UNSET} if undefined. */
+  public final long maxOffsetMs;
+  /** The minimum playback speed for live offset adjustment, or {@link Format#NO_VALUE}. */
+  public final float minPlaybackSpeed;
+  /** The maximum playback speed for live offset adjustment, or {@link Format#NO_VALUE}. */
+  public final float maxPlaybackSpeed;
+
+  /**
+   * @param targetOffsetMs The target live offset in milliseconds, or {@link C#TIME_UNSET}.
+   * @param minOffsetMs The minimum live offset in milliseconds, or {@link C#TIME_UNSET}.
+   * @param maxOffsetMs The maximum live offset in milliseconds, or {@link C#TIME_UNSET}.
+   * @param minPlaybackSpeed The minimum playback speed, or {@link Format#NO_VALUE}.
+   * @param maxPlaybackSpeed The maximum playback speed, or {@link Format#NO_VALUE}.
+   */
+  public ServiceDescriptionElement(
+      long targetOffsetMs,
+      long minOffsetMs,
+      long maxOffsetMs,
+      float minPlaybackSpeed,
+      float maxPlaybackSpeed) {
+    this.targetOffsetMs = targetOffsetMs;
+    this.minOffsetMs = minOffsetMs;
+    this.maxOffsetMs = maxOffsetMs;
+    this.minPlaybackSpeed = minPlaybackSpeed;
+    this.maxPlaybackSpeed = maxPlaybackSpeed;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    ServiceDescriptionElement other = (ServiceDescriptionElement) obj;
+    return targetOffsetMs == other.targetOffsetMs
+        && minOffsetMs == other.minOffsetMs
+        && maxOffsetMs == other.maxOffsetMs
+        && minPlaybackSpeed == other.minPlaybackSpeed
+        && maxPlaybackSpeed == other.maxPlaybackSpeed;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 17;
+    result = 31 * result + (int) targetOffsetMs;
+    result = 31 * result + (int) minOffsetMs;
+    result = 31 * result + (int) maxOffsetMs;
+    result = 31 * result + Float.floatToIntBits(minPlaybackSpeed);
+    result = 31 * result + Float.floatToIntBits(maxPlaybackSpeed);
+    return result;
+  }
+}
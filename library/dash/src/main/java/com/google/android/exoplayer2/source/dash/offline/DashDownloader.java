@@ -80,6 +80,11 @@ public final class DashDownloader extends SegmentDownloader<DashManifest> {
         dataSource, new DashManifestParser(), dataSpec, C.DATA_TYPE_MANIFEST);
   }
 
+  @Override
+  protected boolean isLive(DataSource dataSource, DashManifest manifest) {
+    return manifest.dynamic;
+  }
+
   @Override
   protected List<Segment> getSegments(
       DataSource dataSource, DashManifest manifest, boolean allowIncompleteList)
@@ -136,25 +141,31 @@ public final class DashDownloader extends SegmentDownloader<DashManifest> {
       String baseUrl = representation.baseUrl;
       RangedUri initializationUri = representation.getInitializationUri();
       if (initializationUri != null) {
-        addSegment(periodStartUs, baseUrl, initializationUri, out);
+        addSegment(periodStartUs, baseUrl, initializationUri, /* streamId= */ null, out);
       }
       RangedUri indexUri = representation.getIndexUri();
       if (indexUri != null) {
-        addSegment(periodStartUs, baseUrl, indexUri, out);
+        addSegment(periodStartUs, baseUrl, indexUri, /* streamId= */ null, out);
       }
+      String streamId = representation.format.id + "@" + baseUrl;
       long firstSegmentNum = index.getFirstSegmentNum();
       long lastSegmentNum = firstSegmentNum + segmentCount - 1;
       for (long j = firstSegmentNum; j <= lastSegmentNum; j++) {
-        addSegment(periodStartUs + index.getTimeUs(j), baseUrl, index.getSegmentUrl(j), out);
+        addSegment(
+            periodStartUs + index.getTimeUs(j), baseUrl, index.getSegmentUrl(j), streamId, out);
       }
     }
   }
 
   private static void addSegment(
-      long startTimeUs, String baseUrl, RangedUri rangedUri, ArrayList<Segment> out) {
+      long startTimeUs,
+      String baseUrl,
+      RangedUri rangedUri,
+      @Nullable String streamId,
+      ArrayList<Segment> out) {
     DataSpec dataSpec =
         new DataSpec(rangedUri.resolveUri(baseUrl), rangedUri.start, rangedUri.length, null);
-    out.add(new Segment(startTimeUs, dataSpec));
+    out.add(new Segment(startTimeUs, dataSpec, streamId));
   }
 
   private static @Nullable DashSegmentIndex getSegmentIndex(
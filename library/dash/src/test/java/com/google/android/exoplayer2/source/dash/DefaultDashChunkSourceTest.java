@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.source.dash;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.TrackGroup;
+import com.google.android.exoplayer2.source.chunk.ChunkHolder;
+import com.google.android.exoplayer2.source.chunk.MediaChunk;
+import com.google.android.exoplayer2.source.dash.manifest.AdaptationSet;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifestParser;
+import com.google.android.exoplayer2.testutil.FakeDataSource;
+import com.google.android.exoplayer2.testutil.TestUtil;
+import com.google.android.exoplayer2.trackselection.FixedTrackSelection;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.LoaderErrorThrower;
+import java.io.IOException;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit tests for {@link DefaultDashChunkSource}. */
+@RunWith(AndroidJUnit4.class)
+public final class DefaultDashChunkSourceTest {
+
+  private static final String SAMPLE_MPD_LOW_LATENCY = "sample_mpd_5_low_latency";
+  private static final int VIDEO_ADAPTATION_SET_INDEX = 0;
+  private static final int AUDIO_ADAPTATION_SET_INDEX = 1;
+  // The live edge is 101s into the period, which is one second into the 4s segment number 26.
+  private static final long NOW_IN_PERIOD_MS = 101_000;
+
+  private DashManifest manifest;
+
+  @Before
+  public void setUp() throws IOException {
+    manifest =
+        new DashManifestParser()
+            .parse(
+                Uri.parse("https://example.com/test.mpd"),
+                TestUtil.getInputStream(
+                    ApplicationProvider.getApplicationContext(), SAMPLE_MPD_LOW_LATENCY));
+  }
+
+  @Test
+  public void getNextChunk_withAvailabilityTimeOffset_requestsSegmentInProgress() {
+    DefaultDashChunkSource chunkSource = createChunkSource(VIDEO_ADAPTATION_SET_INDEX);
+
+    MediaChunk chunk = getNextChunk(chunkSource, /* loadPositionUs= */ C.msToUs(NOW_IN_PERIOD_MS));
+
+    // Segment 26 ends at 104s, but is available from 100.5s because of the 3.5s offset.
+    assertThat(chunk.dataSpec.uri.toString()).isEqualTo("https://example.com/video/26.m4s");
+    assertThat(chunk.getNextChunkIndex()).isEqualTo(27);
+  }
+
+  @Test
+  public void getNextChunk_beyondLiveEdge_isClampedToLastSegmentAvailableEarly() {
+    DefaultDashChunkSource chunkSource = createChunkSource(VIDEO_ADAPTATION_SET_INDEX);
+
+    MediaChunk chunk =
+        getNextChunk(chunkSource, /* loadPositionUs= */ C.msToUs(NOW_IN_PERIOD_MS + 20_000));
+
+    assertThat(chunk.dataSpec.uri.toString()).isEqualTo("https://example.com/video/26.m4s");
+  }
+
+  @Test
+  public void getNextChunk_withoutAvailabilityTimeOffset_requestsLastCompleteSegment() {
+    DefaultDashChunkSource chunkSource = createChunkSource(AUDIO_ADAPTATION_SET_INDEX);
+
+    MediaChunk chunk = getNextChunk(chunkSource, /* loadPositionUs= */ C.msToUs(NOW_IN_PERIOD_MS));
+
+    assertThat(chunk.dataSpec.uri.toString()).isEqualTo("https://example.com/audio/25.m4s");
+    assertThat(chunk.dataSpec.flags & DataSpec.FLAG_PRODUCED_DURING_TRANSFER).isEqualTo(0);
+  }
+
+  @Test
+  public void getNextChunk_forSegmentInProgress_setsProducedDuringTransferFlag() {
+    DefaultDashChunkSource chunkSource = createChunkSource(VIDEO_ADAPTATION_SET_INDEX);
+
+    MediaChunk chunk = getNextChunk(chunkSource, /* loadPositionUs= */ C.msToUs(NOW_IN_PERIOD_MS));
+
+    assertThat(chunk.dataSpec.flags & DataSpec.FLAG_PRODUCED_DURING_TRANSFER)
+        .isEqualTo(DataSpec.FLAG_PRODUCED_DURING_TRANSFER);
+  }
+
+  @Test
+  public void getNextChunk_forCompleteSegment_doesNotSetProducedDuringTransferFlag() {
+    DefaultDashChunkSource chunkSource = createChunkSource(VIDEO_ADAPTATION_SET_INDEX);
+
+    // Segment 25 ends at 100s, before the live edge.
+    MediaChunk chunk = getNextChunk(chunkSource, /* loadPositionUs= */ 98_000_000);
+
+    assertThat(chunk.dataSpec.uri.toString()).isEqualTo("https://example.com/video/25.m4s");
+    assertThat(chunk.dataSpec.flags & DataSpec.FLAG_PRODUCED_DURING_TRANSFER).isEqualTo(0);
+  }
+
+  private DefaultDashChunkSource createChunkSource(int adaptationSetIndex) {
+    AdaptationSet adaptationSet =
+        manifest.getPeriod(/* index= */ 0).adaptationSets.get(adaptationSetIndex);
+    Format format = adaptationSet.representations.get(0).format;
+    FixedTrackSelection trackSelection =
+        new FixedTrackSelection(new TrackGroup(format), /* track= */ 0);
+    // Align the chunk source's clock so that it's NOW_IN_PERIOD_MS into the period.
+    long elapsedRealtimeOffsetMs =
+        manifest.availabilityStartTimeMs + NOW_IN_PERIOD_MS - SystemClock.elapsedRealtime();
+    return new DefaultDashChunkSource(
+        new LoaderErrorThrower.Dummy(),
+        manifest,
+        /* periodIndex= */ 0,
+        /* adaptationSetIndices= */ new int[] {adaptationSetIndex},
+        trackSelection,
+        adaptationSet.type,
+        new FakeDataSource(),
+        elapsedRealtimeOffsetMs,
+        /* maxSegmentsPerLoad= */ 1,
+        /* enableEventMessageTrack= */ false,
+        /* closedCaptionFormats= */ Collections.emptyList(),
+        /* playerTrackEmsgHandler= */ null);
+  }
+
+  private static MediaChunk getNextChunk(DefaultDashChunkSource chunkSource, long loadPositionUs) {
+    ChunkHolder chunkHolder = new ChunkHolder();
+    chunkSource.getNextChunk(
+        /* playbackPositionUs= */ 0,
+        loadPositionUs,
+        /* queue= */ Collections.emptyList(),
+        chunkHolder);
+    assertThat(chunkHolder.chunk).isInstanceOf(MediaChunk.class);
+    return (MediaChunk) chunkHolder.chunk;
+  }
+}
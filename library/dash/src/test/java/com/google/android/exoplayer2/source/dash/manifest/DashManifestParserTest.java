@@ -40,6 +40,7 @@ public class DashManifestParserTest {
   private static final String SAMPLE_MPD_2_UNKNOWN_MIME_TYPE = "sample_mpd_2_unknown_mime_type";
   private static final String SAMPLE_MPD_3_SEGMENT_TEMPLATE = "sample_mpd_3_segment_template";
   private static final String SAMPLE_MPD_4_EVENT_STREAM = "sample_mpd_4_event_stream";
+  private static final String SAMPLE_MPD_5_LOW_LATENCY = "sample_mpd_5_low_latency";
 
   /** Simple test to ensure the sample manifests parse without any exceptions being thrown. */
   @Test
@@ -156,6 +157,34 @@ public class DashManifestParserTest {
     assertThat(eventStream3.presentationTimesUs[0]).isEqualTo(1000000000);
   }
 
+  @Test
+  public void testParseMediaPresentationDescriptionCanParseLowLatencyAttributes()
+      throws IOException {
+    DashManifestParser parser = new DashManifestParser();
+    DashManifest mpd =
+        parser.parse(
+            Uri.parse("https://example.com/test.mpd"),
+            TestUtil.getInputStream(
+                ApplicationProvider.getApplicationContext(), SAMPLE_MPD_5_LOW_LATENCY));
+
+    ServiceDescriptionElement serviceDescription = mpd.serviceDescription;
+    assertThat(serviceDescription).isNotNull();
+    assertThat(serviceDescription.targetOffsetMs).isEqualTo(3000);
+    assertThat(serviceDescription.minOffsetMs).isEqualTo(2000);
+    assertThat(serviceDescription.maxOffsetMs).isEqualTo(6000);
+    assertThat(serviceDescription.minPlaybackSpeed).isEqualTo(0.96f);
+    assertThat(serviceDescription.maxPlaybackSpeed).isEqualTo(1.04f);
+
+    Period period = mpd.getPeriod(0);
+    Representation video = period.adaptationSets.get(0).representations.get(0);
+    assertThat(video.getIndex().getAvailabilityTimeOffsetUs()).isEqualTo(3_500_000);
+    assertThat(video.getIndex().isAvailabilityTimeComplete()).isFalse();
+    // An infinite availabilityTimeOffset is ignored, as are omitted attributes.
+    Representation audio = period.adaptationSets.get(1).representations.get(0);
+    assertThat(audio.getIndex().getAvailabilityTimeOffsetUs()).isEqualTo(0);
+    assertThat(audio.getIndex().isAvailabilityTimeComplete()).isTrue();
+  }
+
   @Test
   public void testParseMediaPresentationDescriptionCanParseProgramInformation() throws IOException {
     DashManifestParser parser = new DashManifestParser();
@@ -29,6 +29,7 @@ import com.google.android.exoplayer2.extractor.ts.Ac4Extractor;
 import com.google.android.exoplayer2.extractor.ts.AdtsExtractor;
 import com.google.android.exoplayer2.extractor.ts.DefaultTsPayloadReaderFactory;
 import com.google.android.exoplayer2.extractor.ts.TsExtractor;
+import com.google.android.exoplayer2.extractor.ts.TsPayloadReader;
 import com.google.android.exoplayer2.util.MimeTypes;
 import com.google.android.exoplayer2.util.TimestampAdjuster;
 import java.io.EOFException;
@@ -36,6 +37,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Default {@link HlsExtractorFactory} implementation.
@@ -56,6 +58,7 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
 
   @DefaultTsPayloadReaderFactory.Flags private final int payloadReaderFactoryFlags;
   private final boolean exposeCea608WhenMissingDeclarations;
+  @Nullable private final Executor elementaryStreamExecutor;
 
   /**
    * Equivalent to {@link #DefaultHlsExtractorFactory(int, boolean) new
@@ -78,8 +81,32 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
    */
   public DefaultHlsExtractorFactory(
       int payloadReaderFactoryFlags, boolean exposeCea608WhenMissingDeclarations) {
+    this(
+        payloadReaderFactoryFlags,
+        exposeCea608WhenMissingDeclarations,
+        /* elementaryStreamExecutor= */ null);
+  }
+
+  /**
+   * Creates a factory for HLS segment extractors.
+   *
+   * @param payloadReaderFactoryFlags Flags to add when constructing any {@link
+   *     DefaultTsPayloadReaderFactory} instances. Other flags may be added on top of {@code
+   *     payloadReaderFactoryFlags} when creating {@link DefaultTsPayloadReaderFactory}.
+   * @param exposeCea608WhenMissingDeclarations Whether created {@link TsExtractor} instances should
+   *     expose a CEA-608 track should the master playlist contain no Closed Captions declarations.
+   *     If the master playlist contains any Closed Captions declarations, this flag is ignored.
+   * @param elementaryStreamExecutor The {@link Executor} on which created {@link TsExtractor}
+   *     instances read elementary streams, or null to read them on the loading thread. See {@link
+   *     TsExtractor#TsExtractor(int, TimestampAdjuster, TsPayloadReader.Factory, Executor)}.
+   */
+  public DefaultHlsExtractorFactory(
+      int payloadReaderFactoryFlags,
+      boolean exposeCea608WhenMissingDeclarations,
+      @Nullable Executor elementaryStreamExecutor) {
     this.payloadReaderFactoryFlags = payloadReaderFactoryFlags;
     this.exposeCea608WhenMissingDeclarations = exposeCea608WhenMissingDeclarations;
+    this.elementaryStreamExecutor = elementaryStreamExecutor;
   }
 
   @Override
@@ -171,7 +198,8 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
               exposeCea608WhenMissingDeclarations,
               format,
               muxedCaptionFormats,
-              timestampAdjuster);
+              timestampAdjuster,
+              elementaryStreamExecutor);
       if (sniffQuietly(tsExtractor, extractorInput)) {
         return buildResult(tsExtractor);
       }
@@ -216,7 +244,8 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
           exposeCea608WhenMissingDeclarations,
           format,
           muxedCaptionFormats,
-          timestampAdjuster);
+          timestampAdjuster,
+          elementaryStreamExecutor);
     }
   }
 
@@ -225,7 +254,8 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
       boolean exposeCea608WhenMissingDeclarations,
       Format format,
       List<Format> muxedCaptionFormats,
-      TimestampAdjuster timestampAdjuster) {
+      TimestampAdjuster timestampAdjuster,
+      @Nullable Executor elementaryStreamExecutor) {
     @DefaultTsPayloadReaderFactory.Flags
     int payloadReaderFactoryFlags =
         DefaultTsPayloadReaderFactory.FLAG_IGNORE_SPLICE_INFO_STREAM
@@ -262,7 +292,8 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
     return new TsExtractor(
         TsExtractor.MODE_HLS,
         timestampAdjuster,
-        new DefaultTsPayloadReaderFactory(payloadReaderFactoryFlags, muxedCaptionFormats));
+        new DefaultTsPayloadReaderFactory(payloadReaderFactoryFlags, muxedCaptionFormats),
+        elementaryStreamExecutor);
   }
 
   private static FragmentedMp4Extractor createFragmentedMp4Extractor(
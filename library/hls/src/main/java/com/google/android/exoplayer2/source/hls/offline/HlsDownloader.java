@@ -74,9 +74,32 @@ public final class HlsDownloader extends SegmentDownloader<HlsPlaylist> {
     return loadManifest(dataSource, dataSpec);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Only event playlists and playlists with program date times are treated as live, since the
+   * segment start times in other live playlists change as segments are removed from them.
+   */
   @Override
-  protected List<Segment> getSegments(
-      DataSource dataSource, HlsPlaylist playlist, boolean allowIncompleteList) throws IOException {
+  protected boolean isLive(DataSource dataSource, HlsPlaylist playlist) throws IOException {
+    boolean isLive = false;
+    List<DataSpec> mediaPlaylistDataSpecs = getPlaylistDataSpecs(playlist);
+    for (int i = 0; i < mediaPlaylistDataSpecs.size(); i++) {
+      HlsMediaPlaylist mediaPlaylist =
+          (HlsMediaPlaylist) loadManifest(dataSource, mediaPlaylistDataSpecs.get(i));
+      if (!mediaPlaylist.hasEndTag) {
+        if (mediaPlaylist.playlistType != HlsMediaPlaylist.PLAYLIST_TYPE_EVENT
+            && !mediaPlaylist.hasProgramDateTime) {
+          return false;
+        }
+        isLive = true;
+      }
+    }
+    return isLive;
+  }
+
+  @Override
+  protected List<DataSpec> getPlaylistDataSpecs(HlsPlaylist playlist) {
     ArrayList<DataSpec> mediaPlaylistDataSpecs = new ArrayList<>();
     if (playlist instanceof HlsMasterPlaylist) {
       HlsMasterPlaylist masterPlaylist = (HlsMasterPlaylist) playlist;
@@ -85,6 +108,13 @@ public final class HlsDownloader extends SegmentDownloader<HlsPlaylist> {
       mediaPlaylistDataSpecs.add(
           SegmentDownloader.getCompressibleDataSpec(Uri.parse(playlist.baseUri)));
     }
+    return mediaPlaylistDataSpecs;
+  }
+
+  @Override
+  protected List<Segment> getSegments(
+      DataSource dataSource, HlsPlaylist playlist, boolean allowIncompleteList) throws IOException {
+    List<DataSpec> mediaPlaylistDataSpecs = getPlaylistDataSpecs(playlist);
 
     ArrayList<Segment> segments = new ArrayList<>();
     HashSet<Uri> seenEncryptionKeyUris = new HashSet<>();
@@ -143,6 +173,6 @@ public final class HlsDownloader extends SegmentDownloader<HlsPlaylist> {
     Uri segmentUri = UriUtil.resolveToUri(baseUri, segment.url);
     DataSpec dataSpec =
         new DataSpec(segmentUri, segment.byterangeOffset, segment.byterangeLength, /* key= */ null);
-    out.add(new Segment(startTimeUs, dataSpec));
+    out.add(new Segment(startTimeUs, dataSpec, /* streamId= */ baseUri));
   }
 }
@@ -84,4 +84,62 @@ import java.nio.charset.Charset;
               + "fileSequence2.ts\n"
               + "#EXT-X-ENDLIST")
           .getBytes(Charset.forName(C.UTF8_NAME));
+
+  byte[] EVENT_MEDIA_PLAYLIST_DATA =
+      ("#EXTM3U\n"
+              + "#EXT-X-TARGETDURATION:10\n"
+              + "#EXT-X-VERSION:3\n"
+              + "#EXT-X-MEDIA-SEQUENCE:0\n"
+              + "#EXT-X-PLAYLIST-TYPE:EVENT\n"
+              + "#EXTINF:9.97667,\n"
+              + "fileSequence0.ts\n"
+              + "#EXTINF:9.97667,\n"
+              + "fileSequence1.ts\n")
+          .getBytes(Charset.forName(C.UTF8_NAME));
+
+  byte[] ENDED_EVENT_MEDIA_PLAYLIST_DATA =
+      ("#EXTM3U\n"
+              + "#EXT-X-TARGETDURATION:10\n"
+              + "#EXT-X-VERSION:3\n"
+              + "#EXT-X-MEDIA-SEQUENCE:0\n"
+              + "#EXT-X-PLAYLIST-TYPE:EVENT\n"
+              + "#EXTINF:9.97667,\n"
+              + "fileSequence0.ts\n"
+              + "#EXTINF:9.97667,\n"
+              + "fileSequence1.ts\n"
+              + "#EXTINF:9.97667,\n"
+              + "fileSequence2.ts\n"
+              + "#EXT-X-ENDLIST")
+          .getBytes(Charset.forName(C.UTF8_NAME));
+
+  byte[] SHORT_SEGMENT_EVENT_MEDIA_PLAYLIST_DATA =
+      ("#EXTM3U\n"
+              + "#EXT-X-TARGETDURATION:3\n"
+              + "#EXT-X-VERSION:3\n"
+              + "#EXT-X-MEDIA-SEQUENCE:0\n"
+              + "#EXT-X-PLAYLIST-TYPE:EVENT\n"
+              + "#EXTINF:3,\n"
+              + "fileSequence0.ts\n"
+              + "#EXTINF:3,\n"
+              + "fileSequence1.ts\n"
+              + "#EXTINF:3,\n"
+              + "fileSequence2.ts\n")
+          .getBytes(Charset.forName(C.UTF8_NAME));
+
+  byte[] ENDED_SHORT_SEGMENT_EVENT_MEDIA_PLAYLIST_DATA =
+      ("#EXTM3U\n"
+              + "#EXT-X-TARGETDURATION:3\n"
+              + "#EXT-X-VERSION:3\n"
+              + "#EXT-X-MEDIA-SEQUENCE:0\n"
+              + "#EXT-X-PLAYLIST-TYPE:EVENT\n"
+              + "#EXTINF:3,\n"
+              + "fileSequence0.ts\n"
+              + "#EXTINF:3,\n"
+              + "fileSequence1.ts\n"
+              + "#EXTINF:3,\n"
+              + "fileSequence2.ts\n"
+              + "#EXTINF:3,\n"
+              + "fileSequence3.ts\n"
+              + "#EXT-X-ENDLIST")
+          .getBytes(Charset.forName(C.UTF8_NAME));
 }
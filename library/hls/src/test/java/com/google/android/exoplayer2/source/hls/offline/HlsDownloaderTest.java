@@ -17,6 +17,9 @@ package com.google.android.exoplayer2.source.hls.offline;
 
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.ENC_MEDIA_PLAYLIST_DATA;
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.ENC_MEDIA_PLAYLIST_URI;
+import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.ENDED_EVENT_MEDIA_PLAYLIST_DATA;
+import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.ENDED_SHORT_SEGMENT_EVENT_MEDIA_PLAYLIST_DATA;
+import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.EVENT_MEDIA_PLAYLIST_DATA;
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.MASTER_MEDIA_PLAYLIST_1_INDEX;
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.MASTER_MEDIA_PLAYLIST_2_INDEX;
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.MASTER_PLAYLIST_DATA;
@@ -30,9 +33,12 @@ import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestDa
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.MEDIA_PLAYLIST_3_DIR;
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.MEDIA_PLAYLIST_3_URI;
 import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.MEDIA_PLAYLIST_DATA;
+import static com.google.android.exoplayer2.source.hls.offline.HlsDownloadTestData.SHORT_SEGMENT_EVENT_MEDIA_PLAYLIST_DATA;
 import static com.google.android.exoplayer2.testutil.CacheAsserts.assertCacheEmpty;
 import static com.google.android.exoplayer2.testutil.CacheAsserts.assertCachedData;
+import static com.google.android.exoplayer2.testutil.CacheAsserts.assertDataCached;
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 import android.net.Uri;
 import androidx.test.core.app.ApplicationProvider;
@@ -46,13 +52,16 @@ import com.google.android.exoplayer2.offline.StreamKey;
 import com.google.android.exoplayer2.source.hls.playlist.HlsMasterPlaylist;
 import com.google.android.exoplayer2.testutil.CacheAsserts.RequestSet;
 import com.google.android.exoplayer2.testutil.FakeDataSet;
+import com.google.android.exoplayer2.testutil.FakeDataSource;
 import com.google.android.exoplayer2.testutil.FakeDataSource.Factory;
+import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.upstream.DummyDataSource;
 import com.google.android.exoplayer2.upstream.cache.Cache;
 import com.google.android.exoplayer2.upstream.cache.NoOpCacheEvictor;
 import com.google.android.exoplayer2.upstream.cache.SimpleCache;
 import com.google.android.exoplayer2.util.Util;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -212,6 +221,128 @@ public class HlsDownloaderTest {
     assertCachedData(cache, fakeDataSet);
   }
 
+  @Test
+  public void testDownloadEventMediaPlaylist_withLiveUpdates_downloadsOnlyAppendedSegments()
+      throws Exception {
+    fakeDataSet =
+        new FakeDataSet()
+            .setData(MEDIA_PLAYLIST_1_URI, EVENT_MEDIA_PLAYLIST_DATA)
+            .setRandomData(MEDIA_PLAYLIST_1_DIR + "fileSequence0.ts", 10)
+            .setRandomData(MEDIA_PLAYLIST_1_DIR + "fileSequence1.ts", 11)
+            .setRandomData(MEDIA_PLAYLIST_1_DIR + "fileSequence2.ts", 12);
+    ArrayList<FakeDataSource> dataSources = new ArrayList<>();
+    HlsDownloader downloader =
+        new HlsDownloader(
+            Uri.parse(MEDIA_PLAYLIST_1_URI),
+            getKeys(),
+            new DownloaderConstructorHelper(
+                cache,
+                () -> {
+                  FakeDataSource dataSource = new FakeDataSource(fakeDataSet);
+                  dataSources.add(dataSource);
+                  return dataSource;
+                }));
+    downloader.setLiveUpdateIntervalMs(1);
+
+    downloader.download(
+        (contentLength, bytesDownloaded, percentDownloaded) -> {
+          if (percentDownloaded == 100) {
+            // Append a segment and end the event once the initial segments have been downloaded.
+            fakeDataSet.setData(MEDIA_PLAYLIST_1_URI, ENDED_EVENT_MEDIA_PLAYLIST_DATA);
+          }
+        });
+
+    assertCachedData(cache, fakeDataSet);
+    ArrayList<String> requestedUris = new ArrayList<>();
+    for (FakeDataSource dataSource : dataSources) {
+      for (DataSpec dataSpec : dataSource.getAndClearOpenedDataSpecs()) {
+        requestedUris.add(dataSpec.uri.toString());
+      }
+    }
+    assertThat(Collections.frequency(requestedUris, MEDIA_PLAYLIST_1_DIR + "fileSequence0.ts"))
+        .isEqualTo(1);
+    assertThat(Collections.frequency(requestedUris, MEDIA_PLAYLIST_1_DIR + "fileSequence1.ts"))
+        .isEqualTo(1);
+    assertThat(Collections.frequency(requestedUris, MEDIA_PLAYLIST_1_DIR + "fileSequence2.ts"))
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testDownloadEventMediaPlaylist_withFailingLiveUpdate_keepsCachedPlaylist()
+      throws Exception {
+    fakeDataSet =
+        new FakeDataSet()
+            .setData(MEDIA_PLAYLIST_1_URI, EVENT_MEDIA_PLAYLIST_DATA)
+            .setRandomData(MEDIA_PLAYLIST_1_DIR + "fileSequence0.ts", 10)
+            .setRandomData(MEDIA_PLAYLIST_1_DIR + "fileSequence1.ts", 11)
+            .setRandomData(MEDIA_PLAYLIST_1_DIR + "fileSequence2.ts", 12);
+    HlsDownloader downloader = getHlsDownloader(MEDIA_PLAYLIST_1_URI, getKeys());
+    downloader.setLiveUpdateIntervalMs(1);
+
+    try {
+      downloader.download(
+          (contentLength, bytesDownloaded, percentDownloaded) -> {
+            if (percentDownloaded == 100) {
+              // Fail the refresh once the initial segments have been downloaded.
+              fakeDataSet
+                  .newData(MEDIA_PLAYLIST_1_URI)
+                  .appendReadError(new IOException())
+                  .endData();
+            }
+          });
+      fail();
+    } catch (IOException e) {
+      // Expected.
+    }
+
+    assertDataCached(
+        cache, new DataSpec(Uri.parse(MEDIA_PLAYLIST_1_URI)), EVENT_MEDIA_PLAYLIST_DATA);
+    downloader.remove();
+    assertCacheEmpty(cache);
+  }
+
+  @Test
+  public void testDownloadUnalignedEventPlaylists_withLiveUpdates_downloadsAllSegments()
+      throws Exception {
+    // The last segment of the first playlist starts at 9.98s, and of the second at 6s. The segment
+    // appended to the second playlist starts at 9s, before the last segment of the first.
+    fakeDataSet
+        .setData(MEDIA_PLAYLIST_1_URI, EVENT_MEDIA_PLAYLIST_DATA)
+        .setData(MEDIA_PLAYLIST_2_URI, SHORT_SEGMENT_EVENT_MEDIA_PLAYLIST_DATA)
+        .setRandomData(MEDIA_PLAYLIST_2_DIR + "fileSequence3.ts", 16);
+    HlsDownloader downloader =
+        new HlsDownloader(
+            Uri.parse(MASTER_PLAYLIST_URI),
+            getKeys(MASTER_MEDIA_PLAYLIST_1_INDEX, MASTER_MEDIA_PLAYLIST_2_INDEX),
+            new DownloaderConstructorHelper(
+                cache, new Factory().setFakeDataSet(fakeDataSet)));
+    downloader.setLiveUpdateIntervalMs(1);
+
+    downloader.download(
+        (contentLength, bytesDownloaded, percentDownloaded) -> {
+          if (percentDownloaded == 100) {
+            fakeDataSet
+                .setData(MEDIA_PLAYLIST_1_URI, ENDED_EVENT_MEDIA_PLAYLIST_DATA)
+                .setData(MEDIA_PLAYLIST_2_URI, ENDED_SHORT_SEGMENT_EVENT_MEDIA_PLAYLIST_DATA);
+          }
+        });
+
+    assertCachedData(
+        cache,
+        new RequestSet(fakeDataSet)
+            .subset(
+                MASTER_PLAYLIST_URI,
+                MEDIA_PLAYLIST_1_URI,
+                MEDIA_PLAYLIST_1_DIR + "fileSequence0.ts",
+                MEDIA_PLAYLIST_1_DIR + "fileSequence1.ts",
+                MEDIA_PLAYLIST_1_DIR + "fileSequence2.ts",
+                MEDIA_PLAYLIST_2_URI,
+                MEDIA_PLAYLIST_2_DIR + "fileSequence0.ts",
+                MEDIA_PLAYLIST_2_DIR + "fileSequence1.ts",
+                MEDIA_PLAYLIST_2_DIR + "fileSequence2.ts",
+                MEDIA_PLAYLIST_2_DIR + "fileSequence3.ts"));
+  }
+
   private HlsDownloader getHlsDownloader(String mediaPlaylistUri, List<StreamKey> keys) {
     Factory factory = new Factory().setFakeDataSet(fakeDataSet);
     return new HlsDownloader(
@@ -72,17 +72,27 @@ public final class SsDownloader extends SegmentDownloader<SsManifest> {
     return ParsingLoadable.load(dataSource, new SsManifestParser(), dataSpec, C.DATA_TYPE_MANIFEST);
   }
 
+  @Override
+  protected boolean isLive(DataSource dataSource, SsManifest manifest) {
+    return manifest.isLive;
+  }
+
   @Override
   protected List<Segment> getSegments(
       DataSource dataSource, SsManifest manifest, boolean allowIncompleteList) {
     ArrayList<Segment> segments = new ArrayList<>();
-    for (StreamElement streamElement : manifest.streamElements) {
+    for (int streamElementIndex = 0;
+        streamElementIndex < manifest.streamElements.length;
+        streamElementIndex++) {
+      StreamElement streamElement = manifest.streamElements[streamElementIndex];
       for (int i = 0; i < streamElement.formats.length; i++) {
+        String streamId = streamElementIndex + "." + i;
         for (int j = 0; j < streamElement.chunkCount; j++) {
           segments.add(
               new Segment(
                   streamElement.getStartTimeUs(j),
-                  new DataSpec(streamElement.buildRequestUri(i, j))));
+                  new DataSpec(streamElement.buildRequestUri(i, j)),
+                  streamId));
         }
       }
     }